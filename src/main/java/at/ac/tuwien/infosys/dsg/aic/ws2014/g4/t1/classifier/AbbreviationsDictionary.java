@@ -5,12 +5,19 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
  * A dictionary for expanding abbreviations (e.g. lol = laughing out loud)
+ *
+ * The long forms are tokenized and normalized once when the dictionary is
+ * loaded, so expanding an abbreviation doesn't need the tokenizer.
  */
 public class AbbreviationsDictionary implements IDictionary {
 
@@ -35,9 +42,20 @@ public class AbbreviationsDictionary implements IDictionary {
 	private final HashMap<String, String> dictionary = new HashMap<>();
 
 	/**
-	 * The singleton instance.
+	 * The tokenized and normalized long forms (unmodifiable).
 	 */
-	private static AbbreviationsDictionary instance = null;
+	private final HashMap<String, List<String>> tokenizedDictionary = new HashMap<>();
+
+	/**
+	 * The tokenized long form of each abbreviation by its TokenTable id
+	 * (built after loading, null = no abbreviation).
+	 */
+	private List<List<String>> longFormTokens = Collections.emptyList();
+
+	/**
+	 * The singleton instance (published once it's loaded).
+	 */
+	private static volatile AbbreviationsDictionary instance = null;
 
 	/**
 	 * Constructor.
@@ -51,22 +69,32 @@ public class AbbreviationsDictionary implements IDictionary {
 	 * @return the abbreviations dictionary instance.
 	 */
 	public static AbbreviationsDictionary getInstance() {
-		if (instance == null) {
-			init();
+		AbbreviationsDictionary dict = instance;
+		if (dict == null) {
+			synchronized (AbbreviationsDictionary.class) {
+				dict = instance;
+				if (dict == null) {
+					dict = load();
+					instance = dict;
+				}
+			}
 		}
-		return instance;
+		return dict;
 	}
 
 	/**
-	 * Performs init of the abbreviations dictionary.
+	 * Loads the abbreviations dictionary.
+	 *
+	 * @return the abbreviations dictionary (empty if it couldn't be loaded)
 	 */
-	private static void init() {
-		instance = new AbbreviationsDictionary();
+	private static AbbreviationsDictionary load() {
+		AbbreviationsDictionary dict = new AbbreviationsDictionary();
 		try {
-			instance.loadDictionaryResource(DICT_FILE_RESOURCE);
+			dict.loadDictionaryResource(DICT_FILE_RESOURCE);
 		} catch (IOException ex) {
 			logger.error("Couldn't load abbreviations dictionary file", ex);
 		}
+		return dict;
 	}
 
 	/**
@@ -82,6 +110,7 @@ public class AbbreviationsDictionary implements IDictionary {
 			throw new FileNotFoundException("Abbreviation dictionary resource '" + resourceName + "' doesn't exist.");
 		} else {
 			loadDictionary(is);
+			longFormTokens = internEntries();
 		}
 	}
 
@@ -92,6 +121,7 @@ public class AbbreviationsDictionary implements IDictionary {
 	 * @throws IOException
 	 */
 	private void loadDictionary(InputStream inputStream) throws IOException {
+		ITokenizer tokenizer = new TokenizerImpl();
 		BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
 		String line;
 		int lineNr = 0;
@@ -100,13 +130,47 @@ public class AbbreviationsDictionary implements IDictionary {
 
 			String[] tmp = line.split(DELIM_STR);
 			if (tmp.length == 2) {
-				dictionary.put(tmp[0].toLowerCase(), tmp[1]);
+				String key = tmp[0].toLowerCase();
+				dictionary.put(key, tmp[1]);
+				tokenizedDictionary.put(key, normalize(tokenizer.tokenize(tmp[1])));
 			} else {
 				throw new IllegalArgumentException("Invalid dictionary entry, line: " + lineNr);
 			}
 		}
 	}
 
+	/**
+	 * Interns all abbreviations in the token table.
+	 *
+	 * @return the tokenized long form of each abbreviation by its id
+	 */
+	private List<List<String>> internEntries() {
+		TokenTable tokenTable = TokenTable.getInstance();
+		List<List<String>> longFormsById = new ArrayList<>();
+		for (Map.Entry<String, List<String>> entry : tokenizedDictionary.entrySet()) {
+			int id = tokenTable.intern(entry.getKey());
+			while (longFormsById.size() <= id) {
+				longFormsById.add(null);
+			}
+			longFormsById.set(id, entry.getValue());
+		}
+		return longFormsById;
+	}
+
+	/**
+	 * Normalizes the tokens of a long form.
+	 *
+	 * @param tokens the tokens
+	 * @return the normalized tokens (unmodifiable)
+	 */
+	private static List<String> normalize(List<String> tokens) {
+		List<String> normalized = new ArrayList<>(tokens.size());
+		for (String token : tokens) {
+			normalized.add(token.toLowerCase());
+		}
+		return Collections.unmodifiableList(normalized);
+	}
+
 	/**
 	 * Checks whether a given string is a known abbreviation.
 	 *
@@ -119,6 +183,11 @@ public class AbbreviationsDictionary implements IDictionary {
 		return dictionary.containsKey(str.toLowerCase());
 	}
 
+	@Override
+	public int size() {
+		return dictionary.size();
+	}
+
 	/**
 	 * Returns the long form for a known abbreviation.
 	 *
@@ -128,4 +197,43 @@ public class AbbreviationsDictionary implements IDictionary {
 	public String getLongForm(String str) {
 		return dictionary.get(str.toLowerCase());
 	}
+
+	/**
+	 * Returns the tokens of the long form for a known abbreviation.
+	 *
+	 * @param str the string to check
+	 * @return the tokenized and normalized (lower-case) long form for a known
+	 * abbreviation (unmodifiable), or null otherwise.
+	 */
+	public List<String> getLongFormTokens(String str) {
+		return tokenizedDictionary.get(str.toLowerCase());
+	}
+
+	/**
+	 * Returns the tokens of the long form for a token span (same as
+	 * getLongFormTokens(token), but without creating strings).
+	 *
+	 * @param text the text
+	 * @param start the start of the token in the text (inclusive)
+	 * @param end the end of the token in the text (exclusive)
+	 * @return the tokenized and normalized (lower-case) long form for a known
+	 * abbreviation (unmodifiable), or null otherwise.
+	 */
+	public List<String> getLongFormTokens(CharSequence text, int start, int end) {
+		return getLongFormTokens(TokenTable.getInstance().idOf(text, start, end, true));
+	}
+
+	/**
+	 * Returns the tokens of the long form for a lower-cased token given by
+	 * its TokenTable id (same as getLongFormTokens(token)).
+	 *
+	 * @param lowerCaseTokenId the id of the lower-cased token
+	 * (TokenTable.NOT_FOUND if the token isn't interned)
+	 * @return the tokenized and normalized (lower-case) long form for a known
+	 * abbreviation (unmodifiable), or null otherwise.
+	 */
+	public List<String> getLongFormTokens(int lowerCaseTokenId) {
+		return (lowerCaseTokenId >= 0 && lowerCaseTokenId < longFormTokens.size())
+				? longFormTokens.get(lowerCaseTokenId) : null;
+	}
 }
@@ -8,12 +8,39 @@ public abstract class AbstractTwitterSentimentClassifier implements ITwitterSent
 	/**
 	 * Tokenizer used for Tweet processing.
 	 */
-	protected final ITokenizer tokenizer = new TokenizerImpl();
+	protected final ITokenizer tokenizer;
 	
 	/**
 	 * Preprocessor used for Tweet processing.
 	 */
-	protected final IPreprocessor preprocessor = new PreprocessorImpl();
+	protected final IPreprocessor preprocessor;
+
+	/**
+	 * Constructor.
+	 */
+	protected AbstractTwitterSentimentClassifier() {
+		this(new PreprocessorImpl());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param preprocessor the preprocessor used for Tweet processing
+	 */
+	protected AbstractTwitterSentimentClassifier(IPreprocessor preprocessor) {
+		this(preprocessor, new TokenizerImpl());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param preprocessor the preprocessor used for Tweet processing
+	 * @param tokenizer the tokenizer used for Tweet processing
+	 */
+	protected AbstractTwitterSentimentClassifier(IPreprocessor preprocessor, ITokenizer tokenizer) {
+		this.preprocessor = preprocessor;
+		this.tokenizer = tokenizer;
+	}
 
 	@Override
 	public Sentiment getSentiment(double[] probabilities) {
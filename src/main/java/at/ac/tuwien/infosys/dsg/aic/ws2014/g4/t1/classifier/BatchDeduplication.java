@@ -0,0 +1,163 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import twitter4j.Status;
+
+/**
+ * Groups the tweets of a batch by their normalized text -- so each group is
+ * classified once and the result is used for every member.
+ *
+ * Texts are normalized by removing leading retweet markers ("RT @user:"),
+ * replacing URLs by a placeholder and collapsing whitespace. All URLs are
+ * replaced by the same token during preprocessing anyway, so only the
+ * retweet marker makes grouped tweets near (instead of exact) duplicates.
+ */
+public final class BatchDeduplication {
+
+	/**
+	 * Pattern for the retweet markers at the start of a text.
+	 */
+	private static final Pattern RETWEET_PREFIX_PATTERN = Pattern.compile("^(?:RT\\s+@\\w+:?(?:\\s+|$))+", Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * Placeholder for URLs in normalized texts.
+	 */
+	private static final String URL_PLACEHOLDER = "\u0000url";
+
+	/**
+	 * The tweets of the batch.
+	 */
+	private final Status[] tweets;
+
+	/**
+	 * The first tweet of each group.
+	 */
+	private final Status[] uniqueTweets;
+
+	/**
+	 * The group of each tweet of the batch (index into uniqueTweets).
+	 */
+	private final int[] groups;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param tweets the tweets of the batch
+	 */
+	public BatchDeduplication(Status[] tweets) {
+		this.tweets = tweets;
+		this.groups = new int[tweets.length];
+
+		Map<String, Integer> groupOfText = new HashMap<>();
+		Status[] unique = new Status[tweets.length];
+		int numUnique = 0;
+		for (int i = 0; i < tweets.length; i++) {
+			String text = tweets[i].getText();
+			String normalized = (text != null) ? normalize(text) : null;
+			Integer group = (normalized != null) ? groupOfText.get(normalized) : null;
+			if (group == null) {
+				// tweets without text are never grouped, so each one fails on its own
+				group = numUnique;
+				unique[numUnique++] = tweets[i];
+				if (normalized != null) {
+					groupOfText.put(normalized, group);
+				}
+			}
+			groups[i] = group;
+		}
+		this.uniqueTweets = (numUnique < tweets.length) ? Arrays.copyOf(unique, numUnique) : unique;
+	}
+
+	/**
+	 * Normalizes a tweet text for grouping.
+	 *
+	 * @param text the tweet text
+	 * @return the normalized text
+	 */
+	public static String normalize(String text) {
+		String stripped = RETWEET_PREFIX_PATTERN.matcher(text.trim()).replaceFirst("");
+		StringBuilder sb = new StringBuilder(stripped.length());
+		int length = stripped.length();
+		int start = 0;
+		while (start < length) {
+			while (start < length && Character.isWhitespace(stripped.charAt(start))) {
+				start++;
+			}
+			int end = start;
+			while (end < length && !Character.isWhitespace(stripped.charAt(end))) {
+				end++;
+			}
+			if (end > start) {
+				if (sb.length() > 0) {
+					sb.append(' ');
+				}
+				String word = stripped.substring(start, end);
+				sb.append(TokenClassifier.is(TokenClassifier.classify(word), TokenClassifier.URL) ? URL_PLACEHOLDER : word);
+			}
+			start = end;
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the tweets of the batch.
+	 *
+	 * @return the tweets of the batch.
+	 */
+	public Status[] getTweets() {
+		return tweets;
+	}
+
+	/**
+	 * Returns the first tweet of each group, i.e. the tweets to classify.
+	 *
+	 * @return the first tweet of each group.
+	 */
+	public Status[] getUniqueTweets() {
+		return uniqueTweets;
+	}
+
+	/**
+	 * Returns the group of a tweet.
+	 *
+	 * @param index the index of the tweet in the batch
+	 * @return the group (index into getUniqueTweets())
+	 */
+	public int getGroup(int index) {
+		return groups[index];
+	}
+
+	/**
+	 * Returns the ratio of tweets that don't have to be classified.
+	 *
+	 * @return the dedupe ratio (0 = no duplicates).
+	 */
+	public double getDedupeRatio() {
+		return (tweets.length > 0) ? 1.0 - (double) uniqueTweets.length / tweets.length : 0;
+	}
+
+	/**
+	 * Creates the results of all tweets of the batch from the results of the
+	 * unique tweets.
+	 *
+	 * @param uniqueResults the result of each unique tweet
+	 * @return the result of each tweet of the batch
+	 */
+	public ClassificationResult[] fanOut(ClassificationResult[] uniqueResults) {
+		ClassificationResult[] results = new ClassificationResult[tweets.length];
+		for (int i = 0; i < tweets.length; i++) {
+			ClassificationResult r = uniqueResults[groups[i]];
+			if (r.getTweet() == tweets[i]) {
+				results[i] = r;
+			} else if (r.isSuccessful()) {
+				results[i] = new ClassificationResult(tweets[i], r.getProbabilities().clone(), r.getSentiment());
+			} else {
+				results[i] = new ClassificationResult(tweets[i], r.getError());
+			}
+		}
+		return results;
+	}
+}
@@ -0,0 +1,364 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.IPreprocessor.Profile;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, thread-safe cache for class distributions of tweet texts -- so
+ * retweets and copies of the same text aren't tokenized, preprocessed and
+ * scored again.
+ *
+ * Entries are content-addressed: the key is a 128 bit hash of the tweet text
+ * combined with the version of the classifier snapshot and the preprocessing
+ * profile, i.e. entries of replaced snapshots are never returned and simply
+ * age out. The text itself isn't stored.
+ *
+ * The cache is bounded by the estimated heap size of its entries and split
+ * into independently locked segments, each evicting its least recently used
+ * entries.
+ */
+public class ClassificationCache {
+
+	/**
+	 * Number of segments (power of two).
+	 */
+	private static final int NUM_SEGMENTS = 16;
+
+	/**
+	 * Estimated heap size of an entry without the distribution values (map
+	 * entry, key, array header and table slot).
+	 */
+	private static final int ENTRY_OVERHEAD = 128;
+
+	/**
+	 * FNV-1a 64 bit offset basis.
+	 */
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	/**
+	 * FNV-1a 64 bit prime.
+	 */
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * Multiplier of the second hash (golden ratio).
+	 */
+	private static final long GOLDEN_RATIO = 0x9e3779b97f4a7c15L;
+
+	/**
+	 * The segments.
+	 */
+	private final Segment[] segments;
+
+	/**
+	 * The max. estimated heap size of all entries in bytes.
+	 */
+	private final long maxSize;
+
+	/**
+	 * Number of lookups that found a cached distribution.
+	 */
+	private final AtomicLong hits = new AtomicLong();
+
+	/**
+	 * Number of lookups that didn't find a cached distribution.
+	 */
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Number of evicted distributions.
+	 */
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxSize the max. estimated heap size of all entries in bytes
+	 */
+	public ClassificationCache(long maxSize) {
+		if (maxSize < NUM_SEGMENTS * ENTRY_OVERHEAD) {
+			throw new IllegalArgumentException("max. size must be at least " + NUM_SEGMENTS * ENTRY_OVERHEAD + " bytes");
+		}
+		this.maxSize = maxSize;
+		this.segments = new Segment[NUM_SEGMENTS];
+		for (int i = 0; i < NUM_SEGMENTS; i++) {
+			segments[i] = new Segment(maxSize / NUM_SEGMENTS);
+		}
+	}
+
+	/**
+	 * Creates the key of a tweet text.
+	 *
+	 * @param text the tweet text
+	 * @param version the version of the classifier snapshot
+	 * @param profile the preprocessing profile
+	 * @return the key
+	 */
+	public static Key createKey(String text, long version, Profile profile) {
+		long h1 = FNV_OFFSET_BASIS;
+		long h2 = GOLDEN_RATIO;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			h1 = (h1 ^ c) * FNV_PRIME;
+			h2 = Long.rotateLeft((h2 ^ c) * GOLDEN_RATIO, 31);
+		}
+		return new Key(mix(h1 ^ text.length()), mix(h2), version, profile.ordinal());
+	}
+
+	/**
+	 * Returns the cached class distribution of a key.
+	 *
+	 * @param key the key
+	 * @return a copy of the class distribution or null if none is cached
+	 */
+	public double[] get(Key key) {
+		Segment segment = segmentFor(key);
+		double[] distribution;
+		synchronized (segment) {
+			distribution = segment.get(key);
+		}
+		if (distribution == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return distribution.clone();
+	}
+
+	/**
+	 * Caches the class distribution of a key.
+	 *
+	 * @param key the key
+	 * @param distribution the class distribution (copied)
+	 */
+	public void put(Key key, double[] distribution) {
+		Segment segment = segmentFor(key);
+		double[] copy = distribution.clone();
+		synchronized (segment) {
+			// account for the new entry first, so the eviction check sees it
+			segment.estimatedSize += sizeOf(copy);
+			double[] previous = segment.put(key, copy);
+			if (previous != null) {
+				segment.estimatedSize -= sizeOf(previous);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of cached distributions.
+	 *
+	 * @return the number of cached distributions.
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the estimated heap size of all entries.
+	 *
+	 * @return the estimated heap size in bytes.
+	 */
+	public long getEstimatedSize() {
+		long size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.estimatedSize;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the max. estimated heap size of all entries.
+	 *
+	 * @return the max. estimated heap size in bytes.
+	 */
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Returns the number of lookups that found a cached distribution.
+	 *
+	 * @return the number of hits.
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of lookups that didn't find a cached distribution.
+	 *
+	 * @return the number of misses.
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Returns the ratio of lookups that found a cached distribution.
+	 *
+	 * @return the hit rate (0 if there weren't any lookups yet).
+	 */
+	public double getHitRate() {
+		long h = getHits();
+		long total = h + getMisses();
+		return (total > 0) ? (double) h / total : 0;
+	}
+
+	/**
+	 * Returns the number of evicted distributions.
+	 *
+	 * @return the number of evictions.
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * Returns the segment of a key.
+	 *
+	 * @param key the key
+	 * @return the segment
+	 */
+	private Segment segmentFor(Key key) {
+		return segments[(int) key.hash2 & (NUM_SEGMENTS - 1)];
+	}
+
+	/**
+	 * Returns the estimated heap size of an entry.
+	 *
+	 * @param distribution the class distribution of the entry
+	 * @return the estimated heap size in bytes
+	 */
+	private static long sizeOf(double[] distribution) {
+		return ENTRY_OVERHEAD + 8L * distribution.length;
+	}
+
+	/**
+	 * Finalizes a 64 bit hash (MurmurHash3 fmix64).
+	 *
+	 * @param h the hash
+	 * @return the finalized hash
+	 */
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("size=%d (%d/%d bytes), hits=%d, misses=%d, hit rate=%.1f %%, evictions=%d",
+				size(), getEstimatedSize(), maxSize, getHits(), getMisses(), 100 * getHitRate(), getEvictions());
+	}
+
+	/**
+	 * Key of a cached distribution -- 128 bit hash of the tweet text, version
+	 * of the classifier snapshot and preprocessing profile.
+	 */
+	public static final class Key {
+
+		/**
+		 * First 64 bits of the text hash.
+		 */
+		private final long hash1;
+
+		/**
+		 * Second 64 bits of the text hash.
+		 */
+		private final long hash2;
+
+		/**
+		 * The version of the classifier snapshot.
+		 */
+		private final long version;
+
+		/**
+		 * The ordinal of the preprocessing profile.
+		 */
+		private final int profile;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param hash1 first 64 bits of the text hash
+		 * @param hash2 second 64 bits of the text hash
+		 * @param version the version of the classifier snapshot
+		 * @param profile the ordinal of the preprocessing profile
+		 */
+		private Key(long hash1, long hash2, long version, int profile) {
+			this.hash1 = hash1;
+			this.hash2 = hash2;
+			this.version = version;
+			this.profile = profile;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash1 == other.hash1 && hash2 == other.hash2 && version == other.version && profile == other.profile;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (hash1 ^ (hash1 >>> 32)) + 31 * (int) version + profile;
+		}
+	}
+
+	/**
+	 * A segment of the cache -- a LRU map guarded by itself.
+	 */
+	private class Segment extends LinkedHashMap<Key, double[]> {
+
+		/**
+		 * Version of the serialized form.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The max. estimated heap size of the entries of the segment.
+		 */
+		private final long segmentMaxSize;
+
+		/**
+		 * The estimated heap size of the entries of the segment.
+		 */
+		private long estimatedSize = 0;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param segmentMaxSize the max. estimated heap size of the entries
+		 * of the segment
+		 */
+		Segment(long segmentMaxSize) {
+			super(16, 0.75f, true);
+			this.segmentMaxSize = segmentMaxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest) {
+			if (estimatedSize > segmentMaxSize) {
+				estimatedSize -= sizeOf(eldest.getValue());
+				evictions.incrementAndGet();
+				return true;
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ITwitterSentimentClassifier.Sentiment;
+import twitter4j.Status;
+
+/**
+ * The result of classifying a single tweet of a batch -- either the
+ * determined probabilities and sentiment or the error that occurred.
+ */
+public class ClassificationResult {
+
+	/**
+	 * The classified tweet.
+	 */
+	private final Status tweet;
+
+	/**
+	 * The probability for each class (null if the tweet couldn't be
+	 * classified).
+	 */
+	private final double[] probabilities;
+
+	/**
+	 * The determined sentiment (null if the tweet couldn't be classified).
+	 */
+	private final Sentiment sentiment;
+
+	/**
+	 * The error that occurred (null if the tweet was classified).
+	 */
+	private final ClassifierException error;
+
+	/**
+	 * Constructor for a successfully classified tweet.
+	 *
+	 * @param tweet the classified tweet
+	 * @param probabilities the probability for each class
+	 * @param sentiment the determined sentiment
+	 */
+	public ClassificationResult(Status tweet, double[] probabilities, Sentiment sentiment) {
+		this.tweet = tweet;
+		this.probabilities = probabilities;
+		this.sentiment = sentiment;
+		this.error = null;
+	}
+
+	/**
+	 * Constructor for a tweet that couldn't be classified.
+	 *
+	 * @param tweet the tweet
+	 * @param error the error that occurred
+	 */
+	public ClassificationResult(Status tweet, ClassifierException error) {
+		this.tweet = tweet;
+		this.probabilities = null;
+		this.sentiment = null;
+		this.error = error;
+	}
+
+	/**
+	 * Checks if the tweet was classified successfully.
+	 *
+	 * @return true if the tweet was classified, false if an error occurred.
+	 */
+	public boolean isSuccessful() {
+		return error == null;
+	}
+
+	/**
+	 * Returns the classified tweet.
+	 *
+	 * @return the classified tweet.
+	 */
+	public Status getTweet() {
+		return tweet;
+	}
+
+	/**
+	 * Returns the probability for each class.
+	 *
+	 * @return the probability for each class (Sentiment ordinal = array index)
+	 * or null if the tweet couldn't be classified.
+	 */
+	public double[] getProbabilities() {
+		return probabilities;
+	}
+
+	/**
+	 * Returns the determined sentiment.
+	 *
+	 * @return the determined sentiment or null if the tweet couldn't be
+	 * classified.
+	 */
+	public Sentiment getSentiment() {
+		return sentiment;
+	}
+
+	/**
+	 * Returns the error that occurred while classifying the tweet.
+	 *
+	 * @return the error or null if the tweet was classified successfully.
+	 */
+	public ClassifierException getError() {
+		return error;
+	}
+}
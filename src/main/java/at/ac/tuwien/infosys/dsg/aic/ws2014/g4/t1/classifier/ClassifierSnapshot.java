@@ -0,0 +1,311 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.IPreprocessor.Profile;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ITwitterSentimentClassifier.ClassifierModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import twitter4j.Status;
+import weka.classifiers.Classifier;
+import weka.core.FastVector;
+
+/**
+ * Immutable snapshot of a trained classifier -- holds the vocabulary, the
+ * trained (and compiled) model and the tweet processing components.
+ *
+ * A snapshot never changes after it was created, so any number of threads
+ * can use it for classification without locking. Retraining or switching
+ * the model creates a new snapshot instead.
+ */
+public final class ClassifierSnapshot {
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger logger = LogManager.getLogger(ClassifierSnapshot.class);
+
+	/**
+	 * Source of the snapshot versions.
+	 */
+	private static final AtomicLong VERSIONS = new AtomicLong();
+
+	/**
+	 * The version of the snapshot (unique within the JVM).
+	 */
+	private final long version = VERSIONS.incrementAndGet();
+
+	/**
+	 * The classifier name.
+	 */
+	private final String classifierName;
+
+	/**
+	 * The classifier model.
+	 */
+	private final ClassifierModel classifierModel;
+
+	/**
+	 * All attributes used by the Weka classifier (class attribute and words).
+	 */
+	private final FastVector attributes;
+
+	/**
+	 * The trained classifier compiled for inference.
+	 */
+	private final CompiledModel compiledModel;
+
+	/**
+	 * Tokenizer used for Tweet processing.
+	 */
+	private final ITokenizer tokenizer;
+
+	/**
+	 * Preprocessor used for Tweet processing.
+	 */
+	private final IPreprocessor preprocessor;
+
+	/**
+	 * The preprocessing profile the training tweets were processed with (null
+	 * if unknown).
+	 */
+	private final Profile trainingProfile;
+
+	/**
+	 * Per-thread spans holding the raw tokens of the tweet being processed
+	 * (shared by all snapshots).
+	 */
+	private static final ThreadLocal<TokenSpans> tokenSpans = new ThreadLocal<TokenSpans>() {
+		@Override
+		protected TokenSpans initialValue() {
+			return new TokenSpans();
+		}
+	};
+
+	/**
+	 * Per-thread collector mapping the preprocessed tokens of the tweet being
+	 * classified to features (shared by all snapshots, it only refers to the
+	 * model of a snapshot while a tweet is collected).
+	 */
+	private static final ThreadLocal<FeatureCollector> featureCollector = new ThreadLocal<FeatureCollector>() {
+		@Override
+		protected FeatureCollector initialValue() {
+			return new FeatureCollector();
+		}
+	};
+
+	/**
+	 * Constructor.
+	 *
+	 * @param classifierName the classifier name
+	 * @param classifierModel the classifier model
+	 * @param attributes all attributes used by the Weka classifier -- must not
+	 * be modified afterwards.
+	 * @param compiledModel the trained classifier compiled for inference
+	 * @param tokenizer the tokenizer used for Tweet processing (must be
+	 * thread-safe)
+	 * @param preprocessor the preprocessor used for Tweet processing (must be
+	 * thread-safe)
+	 * @param trainingProfile the preprocessing profile the training tweets
+	 * were processed with (null if unknown)
+	 */
+	public ClassifierSnapshot(String classifierName, ClassifierModel classifierModel, FastVector attributes,
+			CompiledModel compiledModel, ITokenizer tokenizer, IPreprocessor preprocessor, Profile trainingProfile) {
+		this.classifierName = classifierName;
+		this.classifierModel = classifierModel;
+		this.attributes = attributes;
+		this.compiledModel = compiledModel;
+		this.tokenizer = tokenizer;
+		this.preprocessor = preprocessor;
+		this.trainingProfile = trainingProfile;
+	}
+
+	/**
+	 * Returns the feature-relevant words of a Tweet.
+	 *
+	 * @param tweet the tweet to prepare.
+	 * @return a list of feature-relevant words (= tokenized and preprocessed
+	 * text of Tweet).
+	 */
+	public List<String> processTweet(Status tweet) {
+		return processTweet(tweet, preprocessor.getDefaultProfile());
+	}
+
+	/**
+	 * Returns the feature-relevant words of a Tweet using a given
+	 * preprocessing profile.
+	 *
+	 * @param tweet the tweet to prepare.
+	 * @param profile the preprocessing profile
+	 * @return a list of feature-relevant words (= tokenized and preprocessed
+	 * text of Tweet).
+	 */
+	public List<String> processTweet(Status tweet, Profile profile) {
+		// raw tokens are kept as spans, strings are only created for the resulting tokens
+		TokenSpans spans = tokenSpans.get();
+		List<String> tokens = new ArrayList<>();
+		try {
+			tokenizer.tokenize(preprocessor.preprocessText(tweet.getText(), profile), spans);
+			preprocessor.preprocess(spans, tokens, profile);
+		} finally {
+			spans.reset("");
+		}
+		return tokens;
+	}
+
+	/**
+	 * Returns the feature vector of a Tweet.
+	 *
+	 * @param tweet the tweet to prepare.
+	 * @return the feature vector of the tweet.
+	 */
+	public FeatureVector getFeatureVector(Status tweet) {
+		return getFeatureVector(tweet, preprocessor.getDefaultProfile());
+	}
+
+	/**
+	 * Returns the feature vector of a Tweet using a given preprocessing
+	 * profile -- same as mapping the words returned by processTweet() to
+	 * features, but the tokens are mapped to features as they're produced
+	 * (no token strings or lists are created).
+	 *
+	 * @param tweet the tweet to prepare.
+	 * @param profile the preprocessing profile
+	 * @return the feature vector of the tweet.
+	 */
+	public FeatureVector getFeatureVector(Status tweet, Profile profile) {
+		TokenSpans spans = tokenSpans.get();
+		FeatureCollector features = featureCollector.get();
+		features.reset(compiledModel.getFeatureIndex(), compiledModel.getFeatureHasher());
+		try {
+			tokenizer.tokenize(preprocessor.preprocessText(tweet.getText(), profile), spans);
+			preprocessor.preprocess(spans, features, profile);
+			return features.getFeatureVector();
+		} finally {
+			spans.reset("");
+			features.reset();
+		}
+	}
+
+	/**
+	 * Determines the probability for each sentiment of a given tweet.
+	 *
+	 * @param tweet the tweet to classify
+	 * @return the probability for each class (Sentiment ordinal = array index).
+	 * @throws ClassifierException if the classifier couldn't classify the
+	 * instance.
+	 */
+	public double[] classifyWithProbabilities(Status tweet) throws ClassifierException {
+		return classifyWithProbabilities(tweet, preprocessor.getDefaultProfile());
+	}
+
+	/**
+	 * Determines the probability for each sentiment of a given tweet using a
+	 * given preprocessing profile.
+	 *
+	 * @param tweet the tweet to classify
+	 * @param profile the preprocessing profile
+	 * @return the probability for each class (Sentiment ordinal = array index).
+	 * @throws ClassifierException if the classifier couldn't classify the
+	 * instance.
+	 */
+	public double[] classifyWithProbabilities(Status tweet, Profile profile) throws ClassifierException {
+		// map words to attributes
+		FeatureVector vector = getFeatureVector(tweet, profile);
+
+		try {
+			// classify instance
+			return compiledModel.distributionForFeatures(vector);
+
+		} catch (Exception ex) {
+			logger.error("Couldn't classify instance.", ex);
+			throw new ClassifierException("Couldn't classify instance", ex);
+		}
+	}
+
+	/**
+	 * Returns the version of the snapshot -- every snapshot created within
+	 * the JVM has a different version, so results computed with a snapshot
+	 * can be cached by its version.
+	 *
+	 * @return the version of the snapshot.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the classifier name.
+	 *
+	 * @return the classifier name.
+	 */
+	public String getClassifierName() {
+		return classifierName;
+	}
+
+	/**
+	 * Returns the classifier model.
+	 *
+	 * @return the classifier model.
+	 */
+	public ClassifierModel getClassifierModel() {
+		return classifierModel;
+	}
+
+	/**
+	 * Returns all attributes used by the Weka classifier.
+	 *
+	 * @return all attributes used by the Weka classifier -- must not be
+	 * modified!
+	 */
+	public FastVector getAttributes() {
+		return attributes;
+	}
+
+	/**
+	 * Returns the trained classifier compiled for inference.
+	 *
+	 * @return the trained classifier compiled for inference.
+	 */
+	public CompiledModel getCompiledModel() {
+		return compiledModel;
+	}
+
+	/**
+	 * Returns the trained Weka classifier.
+	 *
+	 * @return the trained Weka classifier.
+	 */
+	public Classifier getClassifier() {
+		return compiledModel.getClassifier();
+	}
+
+	/**
+	 * Returns the tokenizer used for Tweet processing.
+	 *
+	 * @return the tokenizer used for Tweet processing.
+	 */
+	public ITokenizer getTokenizer() {
+		return tokenizer;
+	}
+
+	/**
+	 * Returns the preprocessor used for Tweet processing.
+	 *
+	 * @return the preprocessor used for Tweet processing.
+	 */
+	public IPreprocessor getPreprocessor() {
+		return preprocessor;
+	}
+
+	/**
+	 * Returns the preprocessing profile the training tweets were processed
+	 * with.
+	 *
+	 * @return the preprocessing profile or null if unknown.
+	 */
+	public Profile getTrainingProfile() {
+		return trainingProfile;
+	}
+}
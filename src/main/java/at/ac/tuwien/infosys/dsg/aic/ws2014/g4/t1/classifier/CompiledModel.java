@@ -0,0 +1,328 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import java.util.Arrays;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import weka.classifiers.Classifier;
+import weka.classifiers.bayes.NaiveBayes;
+import weka.classifiers.functions.SMO;
+import weka.classifiers.lazy.IBk;
+import weka.core.FastVector;
+import weka.core.Instances;
+import weka.core.SparseInstance;
+
+/**
+ * A trained classifier compiled for inference: holds the word-to-attribute
+ * index (or the feature hasher) and one shared dataset header, so that
+ * classifying a tweet doesn't require to re-create the header or to search
+ * attributes by name.
+ */
+public class CompiledModel {
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger logger = LogManager.getLogger(CompiledModel.class);
+
+	/**
+	 * The shared dataset header (never contains any instances).
+	 */
+	private final Instances header;
+
+	/**
+	 * The word-to-attribute index (null if features are hashed).
+	 */
+	private final FeatureIndex featureIndex;
+
+	/**
+	 * The feature hasher (null if the word-to-attribute index is used).
+	 */
+	private final FeatureHasher featureHasher;
+
+	/**
+	 * The trained Weka classifier.
+	 */
+	private final Classifier classifier;
+
+	/**
+	 * The Weka-free scoring engine compiled from the classifier (null if the
+	 * classifier type isn't supported -- Weka is used then).
+	 */
+	private final IScoringEngine scoringEngine;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name the relation name of the dataset header
+	 * @param attributes the attributes the classifier was trained with
+	 * @param classIndex the index of the class attribute
+	 * @param classifier the trained Weka classifier
+	 */
+	public CompiledModel(String name, FastVector attributes, int classIndex, Classifier classifier) {
+		this(name, attributes, classIndex, classifier, null);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name the relation name of the dataset header
+	 * @param attributes the attributes the classifier was trained with
+	 * @param classIndex the index of the class attribute
+	 * @param classifier the trained Weka classifier
+	 * @param scoringEngine a previously compiled scoring engine for the
+	 * classifier (e.g. restored from a file) -- if null, the scoring engine is
+	 * compiled from the classifier.
+	 */
+	public CompiledModel(String name, FastVector attributes, int classIndex, Classifier classifier, IScoringEngine scoringEngine) {
+		this(name, attributes, classIndex, classifier, scoringEngine, null);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name the relation name of the dataset header
+	 * @param attributes the attributes the classifier was trained with
+	 * @param classIndex the index of the class attribute
+	 * @param classifier the trained Weka classifier
+	 * @param scoringEngine a previously compiled scoring engine for the
+	 * classifier (e.g. restored from a file) -- if null, the scoring engine is
+	 * compiled from the classifier.
+	 * @param featureHasher the feature hasher the classifier was trained with
+	 * -- if null, words are mapped to attributes by name.
+	 */
+	public CompiledModel(String name, FastVector attributes, int classIndex, Classifier classifier, IScoringEngine scoringEngine, FeatureHasher featureHasher) {
+		this.header = new Instances(name, attributes, 0);
+		this.header.setClassIndex(classIndex);
+		this.featureIndex = (featureHasher == null) ? new FeatureIndex(header) : null;
+		this.featureHasher = featureHasher;
+		this.classifier = classifier;
+		this.scoringEngine = (scoringEngine != null) ? scoringEngine : compileScoringEngine(classifier, header);
+	}
+
+	/**
+	 * Maps the words of a tweet to a sparse feature vector.
+	 *
+	 * @param words the feature-relevant words of a tweet
+	 * @return the feature vector (binary, unless features are hashed)
+	 */
+	public FeatureVector getFeatureVector(List<String> words) {
+		if (featureHasher != null) {
+			return featureHasher.vectorize(words);
+		}
+		return new FeatureVector(featureIndex.indicesOf(words));
+	}
+
+	/**
+	 * Determines the class distribution for a sparse feature vector.
+	 *
+	 * @param vector the feature vector
+	 * @return the probability for each class
+	 * @throws Exception if the classifier couldn't classify the instance
+	 */
+	public double[] distributionForFeatures(FeatureVector vector) throws Exception {
+		if (vector.isBinary()) {
+			return distributionForFeatures(vector.getIndices());
+		}
+		if (scoringEngine instanceof IWeightedScoringEngine) {
+			return ((IWeightedScoringEngine) scoringEngine).distributionForFeatures(vector.getIndices(), vector.getValues());
+		}
+
+		// other scoring engines only support binary features
+		SparseInstance inst = createInstance(header, vector, 0);
+		synchronized (classifier) {
+			return classifier.distributionForInstance(inst);
+		}
+	}
+
+	/**
+	 * Determines the class distribution for a set of active (binary)
+	 * features.
+	 *
+	 * @param featureIds the sorted attribute indices of the active features
+	 * @return the probability for each class
+	 * @throws Exception if the classifier couldn't classify the instance
+	 */
+	public double[] distributionForFeatures(int[] featureIds) throws Exception {
+		if (scoringEngine != null) {
+			return scoringEngine.distributionForFeatures(featureIds);
+		}
+
+		// Weka classifiers aren't thread-safe (e.g. IBk updates its ranges)
+		SparseInstance inst = createInstance(header, featureIds);
+		synchronized (classifier) {
+			return classifier.distributionForInstance(inst);
+		}
+	}
+
+	/**
+	 * Compiles a trained Weka classifier into a Weka-free scoring engine.
+	 *
+	 * @param classifier the trained Weka classifier
+	 * @param header the dataset header the classifier was trained with
+	 * @return the scoring engine or null if the classifier type isn't
+	 * supported
+	 */
+	private static IScoringEngine compileScoringEngine(Classifier classifier, Instances header) {
+		try {
+			if (classifier instanceof SMO) {
+				return LinearSVMModel.export((SMO) classifier, header);
+			} else if (classifier instanceof NaiveBayes) {
+				return NaiveBayesModel.export((NaiveBayes) classifier, header);
+			} else if (classifier instanceof IBk) {
+				return KNNModel.export((IBk) classifier, header);
+			}
+		} catch (Exception ex) {
+			logger.warn("Couldn't compile scoring engine for classifier -- use Weka for classification", ex);
+		}
+		return null;
+	}
+
+	/**
+	 * Creates a sparse instance that only stores the active (binary) features
+	 * -- all other values (including the class value) are implicitly 0.
+	 *
+	 * @param dataset the dataset the instance belongs to
+	 * @param featureIds the sorted attribute indices of the active features --
+	 * the array is used by the instance, i.e. must not be modified afterwards.
+	 * @return the sparse instance
+	 */
+	public static SparseInstance createInstance(Instances dataset, int[] featureIds) {
+		double[] values = new double[featureIds.length];
+		Arrays.fill(values, 1.0);
+
+		SparseInstance inst = new SparseInstance(1.0, values, featureIds, dataset.numAttributes());
+		inst.setDataset(dataset);
+		return inst;
+	}
+
+	/**
+	 * Creates a sparse instance that only stores the non-zero features and the
+	 * class value (the class attribute must precede all features).
+	 *
+	 * @param dataset the dataset the instance belongs to
+	 * @param vector the feature vector
+	 * @param classValue the class value (index of the nominal value)
+	 * @return the sparse instance
+	 */
+	public static SparseInstance createInstance(Instances dataset, FeatureVector vector, int classValue) {
+		if (vector.isBinary()) {
+			return createInstance(dataset, vector.getIndices(), classValue);
+		}
+
+		int[] featureIds = vector.getIndices();
+		int classIndex = dataset.classIndex();
+		if (featureIds.length > 0 && featureIds[0] <= classIndex) {
+			throw new IllegalArgumentException("class attribute must precede all features");
+		}
+
+		int offset = (classValue == 0) ? 0 : 1;
+		int[] indices = new int[featureIds.length + offset];
+		double[] values = new double[featureIds.length + offset];
+		if (offset == 1) {
+			indices[0] = classIndex;
+			values[0] = classValue;
+		}
+		System.arraycopy(featureIds, 0, indices, offset, featureIds.length);
+		System.arraycopy(vector.getValues(), 0, values, offset, featureIds.length);
+
+		SparseInstance inst = new SparseInstance(1.0, values, indices, dataset.numAttributes());
+		inst.setDataset(dataset);
+		return inst;
+	}
+
+	/**
+	 * Creates a sparse instance that only stores the active (binary) features
+	 * and the class value (the class attribute must precede all features).
+	 *
+	 * @param dataset the dataset the instance belongs to
+	 * @param featureIds the sorted attribute indices of the active features
+	 * @param classValue the class value (index of the nominal value)
+	 * @return the sparse instance
+	 */
+	public static SparseInstance createInstance(Instances dataset, int[] featureIds, int classValue) {
+		if (classValue == 0) {
+			return createInstance(dataset, featureIds);
+		}
+
+		int classIndex = dataset.classIndex();
+		if (featureIds.length > 0 && featureIds[0] <= classIndex) {
+			throw new IllegalArgumentException("class attribute must precede all features");
+		}
+
+		int[] indices = new int[featureIds.length + 1];
+		double[] values = new double[featureIds.length + 1];
+		indices[0] = classIndex;
+		values[0] = classValue;
+		System.arraycopy(featureIds, 0, indices, 1, featureIds.length);
+		Arrays.fill(values, 1, values.length, 1.0);
+
+		SparseInstance inst = new SparseInstance(1.0, values, indices, dataset.numAttributes());
+		inst.setDataset(dataset);
+		return inst;
+	}
+
+	/**
+	 * Returns the shared dataset header.
+	 *
+	 * @return the shared dataset header.
+	 */
+	public Instances getHeader() {
+		return header;
+	}
+
+	/**
+	 * Returns the word-to-attribute index.
+	 *
+	 * @return the word-to-attribute index (null if features are hashed).
+	 */
+	public FeatureIndex getFeatureIndex() {
+		return featureIndex;
+	}
+
+	/**
+	 * Returns the feature hasher.
+	 *
+	 * @return the feature hasher (null if the word-to-attribute index is
+	 * used).
+	 */
+	public FeatureHasher getFeatureHasher() {
+		return featureHasher;
+	}
+
+	/**
+	 * Estimates the heap size of the compiled model: the dataset header, the
+	 * word-to-attribute index and the scoring engine (the trained Weka
+	 * classifier isn't included).
+	 *
+	 * @return the estimated size in bytes
+	 */
+	public long estimateSize() {
+		long size = HeapSize.OBJECT_OVERHEAD + HeapSize.of(header);
+		if (featureIndex != null) {
+			size += featureIndex.estimateSize();
+		}
+		if (scoringEngine != null) {
+			size += scoringEngine.estimateSize();
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the Weka-free scoring engine.
+	 *
+	 * @return the scoring engine or null if Weka is used for classification.
+	 */
+	public IScoringEngine getScoringEngine() {
+		return scoringEngine;
+	}
+
+	/**
+	 * Returns the trained Weka classifier.
+	 *
+	 * @return the trained Weka classifier.
+	 */
+	public Classifier getClassifier() {
+		return classifier;
+	}
+}
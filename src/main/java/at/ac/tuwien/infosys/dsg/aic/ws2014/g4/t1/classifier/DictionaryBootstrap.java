@@ -0,0 +1,236 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.SpellDictionary.SuggestionEngine;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Loads the dictionaries used by the preprocessor in parallel (e.g. when a
+ * service starts), so they aren't loaded one after another inside the first
+ * request -- including the lazily built spell dictionary trie and, if the
+ * symmetric delete engine is used, the symmetric delete spell index.
+ *
+ * Each dictionary is loaded by its getInstance(), which publishes the
+ * dictionary only when it's completely loaded -- callers of getInstance()
+ * during the bootstrap wait for the dictionary instead of loading it again
+ * (the same applies to the trie and the index).
+ */
+public final class DictionaryBootstrap {
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger logger = LogManager.getLogger(DictionaryBootstrap.class);
+
+	/**
+	 * The singleton instance.
+	 */
+	private static final DictionaryBootstrap instance = new DictionaryBootstrap();
+
+	/**
+	 * The dictionaries (and spell dictionary structures) loaded by the
+	 * bootstrap.
+	 */
+	private enum Dictionary {
+
+		STOPWORDS("stopwords dictionary") {
+			@Override
+			int load() {
+				return StopwordsDictionary.getInstance().size();
+			}
+		},
+		SMILEYS("smiley dictionary") {
+			@Override
+			int load() {
+				return SmileyDictionary.getInstance().size();
+			}
+		},
+		ABBREVIATIONS("abbreviations dictionary") {
+			@Override
+			int load() {
+				return AbbreviationsDictionary.getInstance().size();
+			}
+		},
+		SPELL("spell dictionary") {
+			@Override
+			int load() {
+				return SpellDictionary.getInstance().size();
+			}
+		},
+		SPELL_TRIE("spell dictionary trie") {
+			@Override
+			int load() {
+				DictionaryTrie trie = SpellDictionary.getInstance().getDictionaryTrie();
+				return (trie != null) ? trie.size() : 0;
+			}
+		},
+		SPELL_INDEX("symmetric delete spell index") {
+			@Override
+			int load() {
+				SymmetricDeleteSpellIndex index = SpellDictionary.getInstance().getSymmetricDeleteIndex();
+				return (index != null) ? index.size() : 0;
+			}
+		};
+
+		/**
+		 * Description used for logging.
+		 */
+		private final String description;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param description description used for logging
+		 */
+		private Dictionary(String description) {
+			this.description = description;
+		}
+
+		/**
+		 * Loads the dictionary (if it isn't loaded yet).
+		 *
+		 * @return the number of entries of the dictionary
+		 */
+		abstract int load();
+	}
+
+	/**
+	 * Released when all dictionaries are loaded.
+	 */
+	private final CountDownLatch loaded = new CountDownLatch(1);
+
+	/**
+	 * Number of dictionaries not loaded yet.
+	 */
+	private final AtomicInteger remaining = new AtomicInteger();
+
+	/**
+	 * Whether the bootstrap was started.
+	 */
+	private boolean started = false;
+
+	/**
+	 * Constructor.
+	 */
+	private DictionaryBootstrap() {
+	}
+
+	/**
+	 * Returns the dictionary bootstrap instance.
+	 *
+	 * @return the dictionary bootstrap instance.
+	 */
+	public static DictionaryBootstrap getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Starts loading all dictionaries for the Jazzy suggestion engine in
+	 * background threads -- does nothing if the bootstrap was started
+	 * already.
+	 */
+	public void start() {
+		start(SuggestionEngine.JAZZY);
+	}
+
+	/**
+	 * Starts loading all dictionaries in background threads (one per
+	 * dictionary) -- does nothing if the bootstrap was started already.
+	 *
+	 * @param suggestionEngine the engine used for spelling suggestions (the
+	 * symmetric delete spell index is only built for SYMMETRIC_DELETE)
+	 */
+	public synchronized void start(SuggestionEngine suggestionEngine) {
+		if (started) {
+			return;
+		}
+		started = true;
+
+		List<Dictionary> dictionaries = new ArrayList<>();
+		for (Dictionary dictionary : Dictionary.values()) {
+			if (dictionary != Dictionary.SPELL_INDEX || suggestionEngine == SuggestionEngine.SYMMETRIC_DELETE) {
+				dictionaries.add(dictionary);
+			}
+		}
+		remaining.set(dictionaries.size());
+
+		final long startTime = System.currentTimeMillis();
+		ExecutorService executor = Executors.newFixedThreadPool(dictionaries.size(), new LoaderThreadFactory());
+		for (final Dictionary dictionary : dictionaries) {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					load(dictionary, startTime);
+				}
+			});
+		}
+		executor.shutdown();
+	}
+
+	/**
+	 * Checks whether all dictionaries are loaded.
+	 *
+	 * @return true if all dictionaries are loaded, false otherwise.
+	 */
+	public boolean isReady() {
+		return loaded.getCount() == 0;
+	}
+
+	/**
+	 * Waits until all dictionaries are loaded (the bootstrap must have been
+	 * started).
+	 *
+	 * @throws InterruptedException if the current thread was interrupted
+	 * while waiting.
+	 */
+	public void awaitReady() throws InterruptedException {
+		loaded.await();
+	}
+
+	/**
+	 * Loads a dictionary and logs its load time and size.
+	 *
+	 * @param dictionary the dictionary to load
+	 * @param startTime the start time of the bootstrap (ms)
+	 */
+	private void load(Dictionary dictionary, long startTime) {
+		try {
+			long start = System.currentTimeMillis();
+			int size = dictionary.load();
+			logger.info("Loaded " + dictionary.description + " with " + size + " entries in "
+					+ (System.currentTimeMillis() - start) + " ms");
+		} catch (RuntimeException ex) {
+			logger.error("Couldn't load " + dictionary.description, ex);
+		} finally {
+			if (remaining.decrementAndGet() == 0) {
+				logger.info("Loaded all dictionaries in " + (System.currentTimeMillis() - startTime) + " ms");
+				loaded.countDown();
+			}
+		}
+	}
+
+	/**
+	 * Creates daemon threads for loading dictionaries.
+	 */
+	private static class LoaderThreadFactory implements ThreadFactory {
+
+		/**
+		 * Number of created threads.
+		 */
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "dictionary-loader-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
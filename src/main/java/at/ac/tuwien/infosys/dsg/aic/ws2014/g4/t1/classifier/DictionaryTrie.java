@@ -0,0 +1,264 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Character trie of the (lower-case) dictionary words -- used for correcting
+ * elongated words (e.g. "looooserrrrr") by collapsing runs of repeated chars.
+ *
+ * Instead of collapsing all runs the same way and looking up the result, the
+ * trie is walked once with a branch for each possible length of a run, so
+ * every combination that forms a dictionary word is found without trying
+ * combinations whose prefix doesn't occur in the dictionary.
+ *
+ * The nodes are stored in parallel arrays (first child / next sibling), the
+ * root is node 0. Instances are immutable and thread-safe.
+ */
+public final class DictionaryTrie {
+
+	/**
+	 * Min. length of a run of repeated chars that is always collapsed.
+	 */
+	static final int MIN_ELONGATED_RUN = 3;
+
+	/**
+	 * Char of each node (the char of the edge leading to the node).
+	 */
+	private final char[] chars;
+
+	/**
+	 * First child of each node (-1 if none).
+	 */
+	private final int[] firstChild;
+
+	/**
+	 * Next sibling of each node (-1 if none).
+	 */
+	private final int[] nextSibling;
+
+	/**
+	 * Indicator whether a word ends at a node.
+	 */
+	private final boolean[] terminal;
+
+	/**
+	 * Number of words.
+	 */
+	private final int size;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param words the dictionary words (converted to lower-case, duplicates
+	 * are ignored)
+	 */
+	public DictionaryTrie(Collection<String> words) {
+		List<String> sorted = new ArrayList<>(words.size());
+		for (String word : words) {
+			sorted.add(word.toLowerCase());
+		}
+		Collections.sort(sorted);
+
+		int capacity = 1024;
+		char[] c = new char[capacity];
+		int[] first = new int[capacity];
+		int[] next = new int[capacity];
+		int[] last = new int[capacity];
+		boolean[] term = new boolean[capacity];
+		first[0] = next[0] = last[0] = -1;
+		int numNodes = 1;
+
+		// words are inserted in sorted order, so a new child is always the last sibling
+		int numWords = 0;
+		String previous = null;
+		for (String word : sorted) {
+			if (word.equals(previous)) {
+				continue;
+			}
+			previous = word;
+			numWords++;
+			int node = 0;
+			for (int i = 0; i < word.length(); i++) {
+				char ch = word.charAt(i);
+				int child = last[node];
+				if (child < 0 || c[child] != ch) {
+					if (numNodes == capacity) {
+						capacity *= 2;
+						c = Arrays.copyOf(c, capacity);
+						first = Arrays.copyOf(first, capacity);
+						next = Arrays.copyOf(next, capacity);
+						last = Arrays.copyOf(last, capacity);
+						term = Arrays.copyOf(term, capacity);
+					}
+					int newChild = numNodes++;
+					c[newChild] = ch;
+					first[newChild] = next[newChild] = last[newChild] = -1;
+					if (child < 0) {
+						first[node] = newChild;
+					} else {
+						next[child] = newChild;
+					}
+					last[node] = newChild;
+					child = newChild;
+				}
+				node = child;
+			}
+			term[node] = true;
+		}
+
+		this.chars = Arrays.copyOf(c, numNodes);
+		this.firstChild = Arrays.copyOf(first, numNodes);
+		this.nextSibling = Arrays.copyOf(next, numNodes);
+		this.terminal = Arrays.copyOf(term, numNodes);
+		this.size = numWords;
+	}
+
+	/**
+	 * Checks if a word is contained (case-insensitive).
+	 *
+	 * @param word the word
+	 * @return true if the word is contained, false otherwise.
+	 */
+	public boolean contains(String word) {
+		int node = 0;
+		for (int i = 0; i < word.length() && node >= 0; i++) {
+			node = child(node, Character.toLowerCase(word.charAt(i)));
+		}
+		return node >= 0 && terminal[node];
+	}
+
+	/**
+	 * Returns all dictionary words that can be created by collapsing runs of
+	 * repeated word chars ([A-Za-z0-9_]) -- runs of three or more chars are
+	 * collapsed to one or two chars, runs of two chars are kept or collapsed
+	 * to one char.
+	 *
+	 * Variants are returned in the chars (and case) of the word, in the
+	 * order of a depth-first walk trying the shorter length of elongated
+	 * runs and the original length of double chars first.
+	 *
+	 * @param word the (elongated) word
+	 * @return the variants that are dictionary words (case-insensitive)
+	 */
+	public List<String> findCollapsedVariants(String word) {
+		List<String> variants = new ArrayList<>(2);
+		walk(word, 0, 0, new StringBuilder(word.length()), variants);
+		return variants;
+	}
+
+	/**
+	 * Returns the number of words.
+	 *
+	 * @return the number of words.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of nodes.
+	 *
+	 * @return the number of nodes (including the root).
+	 */
+	public int getNumNodes() {
+		return chars.length;
+	}
+
+	/**
+	 * Walks the trie for the remaining chars of a word, branching at each
+	 * run of repeated chars.
+	 *
+	 * @param word the word
+	 * @param pos the position of the next char of the word
+	 * @param node the current node
+	 * @param prefix the variant created so far
+	 * @param variants the list to add the found variants to
+	 */
+	private void walk(String word, int pos, int node, StringBuilder prefix, List<String> variants) {
+		if (pos == word.length()) {
+			if (terminal[node]) {
+				variants.add(prefix.toString());
+			}
+			return;
+		}
+
+		char ch = word.charAt(pos);
+		int end = pos + 1;
+		if (isWordChar(ch)) {
+			while (end < word.length() && word.charAt(end) == ch) {
+				end++;
+			}
+		}
+		int run = end - pos;
+
+		int afterOne = child(node, Character.toLowerCase(ch));
+		if (afterOne < 0) {
+			return;
+		}
+		if (run == 1) {
+			branch(word, end, afterOne, ch, 1, prefix, variants);
+			return;
+		}
+
+		int afterTwo = child(afterOne, Character.toLowerCase(ch));
+		if (run >= MIN_ELONGATED_RUN) {
+			branch(word, end, afterOne, ch, 1, prefix, variants);
+			branch(word, end, afterTwo, ch, 2, prefix, variants);
+		} else {
+			branch(word, end, afterTwo, ch, 2, prefix, variants);
+			branch(word, end, afterOne, ch, 1, prefix, variants);
+		}
+	}
+
+	/**
+	 * Continues the walk after replacing a run by a given number of chars.
+	 *
+	 * @param word the word
+	 * @param end the position after the run
+	 * @param target the node after the replaced run (-1 if there's none)
+	 * @param ch the char of the run
+	 * @param count the number of chars replacing the run
+	 * @param prefix the variant created so far
+	 * @param variants the list to add the found variants to
+	 */
+	private void branch(String word, int end, int target, char ch, int count, StringBuilder prefix, List<String> variants) {
+		if (target < 0) {
+			return;
+		}
+		int length = prefix.length();
+		for (int i = 0; i < count; i++) {
+			prefix.append(ch);
+		}
+		walk(word, end, target, prefix, variants);
+		prefix.setLength(length);
+	}
+
+	/**
+	 * Returns the child of a node for a char.
+	 *
+	 * @param node the node
+	 * @param ch the char
+	 * @return the child or -1 if there's no such child
+	 */
+	private int child(int node, char ch) {
+		int child = firstChild[node];
+		while (child >= 0 && chars[child] != ch) {
+			child = nextSibling[child];
+		}
+		return child;
+	}
+
+	/**
+	 * Checks if a char is a word char (as \w in regular expressions).
+	 *
+	 * @param ch the char
+	 * @return true if the char is a word char, false otherwise.
+	 */
+	static boolean isWordChar(char ch) {
+		return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_';
+	}
+}
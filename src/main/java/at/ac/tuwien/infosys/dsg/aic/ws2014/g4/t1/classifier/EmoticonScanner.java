@@ -0,0 +1,284 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.SmileyDictionary.Mood;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Finds emoticons in raw text using an Aho-Corasick automaton -- the text is
+ * scanned once, independent of the number of emoticons.
+ *
+ * Emoticons are found even if they're attached to words (e.g. "great:)") or
+ * would be split apart by the tokenizer (e.g. "(:-("). Emoticons starting
+ * (ending) with a letter or digit (e.g. "XD") must not be preceded (followed)
+ * by a letter or digit, so they aren't found within words. Emoticons within
+ * URLs aren't found either. Overlapping matches are resolved leftmost-longest.
+ *
+ * Instances are immutable and thread-safe.
+ */
+public final class EmoticonScanner {
+
+	/**
+	 * The emoticons (index = pattern id).
+	 */
+	private final String[] emoticons;
+
+	/**
+	 * The mood of each emoticon.
+	 */
+	private final Mood[] moods;
+
+	/**
+	 * Labels of the outgoing edges of each node.
+	 */
+	private final char[][] labels;
+
+	/**
+	 * Targets of the outgoing edges of each node.
+	 */
+	private final int[][] targets;
+
+	/**
+	 * Failure link of each node (longest proper suffix that is a node).
+	 */
+	private final int[] fail;
+
+	/**
+	 * Pattern id ending at each node (-1 if none).
+	 */
+	private final int[] pattern;
+
+	/**
+	 * Next node on the failure path ending a pattern (-1 if none).
+	 */
+	private final int[] output;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param emoticons the emoticons and their moods
+	 */
+	public EmoticonScanner(Map<String, Mood> emoticons) {
+		this.emoticons = new String[emoticons.size()];
+		this.moods = new Mood[emoticons.size()];
+
+		// build the trie
+		List<StringBuilder> nodeLabels = new ArrayList<>();
+		List<List<Integer>> nodeTargets = new ArrayList<>();
+		List<Integer> nodePatterns = new ArrayList<>();
+		addNode(nodeLabels, nodeTargets, nodePatterns);
+		int id = 0;
+		for (Map.Entry<String, Mood> e : emoticons.entrySet()) {
+			String emoticon = e.getKey();
+			if (emoticon.isEmpty()) {
+				throw new IllegalArgumentException("emoticon must not be empty");
+			}
+			this.emoticons[id] = emoticon;
+			this.moods[id] = e.getValue();
+
+			int node = 0;
+			for (int i = 0; i < emoticon.length(); i++) {
+				int pos = nodeLabels.get(node).indexOf(String.valueOf(emoticon.charAt(i)));
+				if (pos < 0) {
+					int child = addNode(nodeLabels, nodeTargets, nodePatterns);
+					nodeLabels.get(node).append(emoticon.charAt(i));
+					nodeTargets.get(node).add(child);
+					node = child;
+				} else {
+					node = nodeTargets.get(node).get(pos);
+				}
+			}
+			nodePatterns.set(node, id++);
+		}
+
+		int numNodes = nodeLabels.size();
+		this.labels = new char[numNodes][];
+		this.targets = new int[numNodes][];
+		this.pattern = new int[numNodes];
+		for (int n = 0; n < numNodes; n++) {
+			labels[n] = nodeLabels.get(n).toString().toCharArray();
+			targets[n] = new int[labels[n].length];
+			for (int i = 0; i < targets[n].length; i++) {
+				targets[n][i] = nodeTargets.get(n).get(i);
+			}
+			pattern[n] = nodePatterns.get(n);
+		}
+
+		// compute the failure and output links breadth-first
+		this.fail = new int[numNodes];
+		this.output = new int[numNodes];
+		Arrays.fill(output, -1);
+		Queue<Integer> queue = new ArrayDeque<>();
+		for (int child : targets[0]) {
+			queue.add(child);
+		}
+		while (!queue.isEmpty()) {
+			int node = queue.remove();
+			for (int i = 0; i < labels[node].length; i++) {
+				int child = targets[node][i];
+				int f = next(fail[node], labels[node][i]);
+				fail[child] = f;
+				output[child] = (pattern[f] >= 0) ? f : output[f];
+				queue.add(child);
+			}
+		}
+	}
+
+	/**
+	 * Adds a node to the trie under construction.
+	 *
+	 * @param nodeLabels labels of the outgoing edges of each node
+	 * @param nodeTargets targets of the outgoing edges of each node
+	 * @param nodePatterns pattern id ending at each node
+	 * @return the new node
+	 */
+	private static int addNode(List<StringBuilder> nodeLabels, List<List<Integer>> nodeTargets, List<Integer> nodePatterns) {
+		nodeLabels.add(new StringBuilder());
+		nodeTargets.add(new ArrayList<Integer>());
+		nodePatterns.add(-1);
+		return nodeLabels.size() - 1;
+	}
+
+	/**
+	 * Returns the node reached from a node by a char, following failure
+	 * links if there's no edge.
+	 *
+	 * @param node the node
+	 * @param c the char
+	 * @return the reached node
+	 */
+	private int next(int node, char c) {
+		while (true) {
+			int child = child(node, c);
+			if (child >= 0) {
+				return child;
+			}
+			if (node == 0) {
+				return 0;
+			}
+			node = fail[node];
+		}
+	}
+
+	/**
+	 * Returns the child of a node for a char.
+	 *
+	 * @param node the node
+	 * @param c the char
+	 * @return the child or -1 if there's no such edge
+	 */
+	private int child(int node, char c) {
+		char[] l = labels[node];
+		for (int i = 0; i < l.length; i++) {
+			if (l[i] == c) {
+				return targets[node][i];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Replaces all emoticons in a text with the token of their mood --
+	 * surrounded by spaces, so the tokens become separate tokens.
+	 *
+	 * @param text the text
+	 * @param moodTokens the token of each mood (index = Mood ordinal)
+	 * @return the text with replaced emoticons (the same instance if there
+	 * are no emoticons)
+	 */
+	public String replace(String text, String[] moodTokens) {
+		int length = text.length();
+
+		// longest valid emoticon starting at each position
+		int[] longestAt = null;
+		int node = 0;
+		for (int i = 0; i < length; i++) {
+			node = next(node, text.charAt(i));
+			for (int n = (pattern[node] >= 0) ? node : output[node]; n >= 0; n = output[n]) {
+				String emoticon = emoticons[pattern[n]];
+				int start = i + 1 - emoticon.length();
+				if (isDelimited(text, start, i + 1, emoticon)) {
+					if (longestAt == null) {
+						longestAt = new int[length];
+						Arrays.fill(longestAt, -1);
+					}
+					if (longestAt[start] < 0 || emoticons[longestAt[start]].length() < emoticon.length()) {
+						longestAt[start] = pattern[n];
+					}
+				}
+			}
+		}
+		if (longestAt == null) {
+			return text;
+		}
+
+		StringBuilder sb = new StringBuilder(length + 32);
+		int pos = 0;
+		while (pos < length) {
+			int id = longestAt[pos];
+			if (id < 0) {
+				sb.append(text.charAt(pos++));
+			} else {
+				sb.append(' ').append(moodTokens[moods[id].ordinal()]).append(' ');
+				pos += emoticons[id].length();
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the number of emoticons.
+	 *
+	 * @return the number of emoticons.
+	 */
+	public int size() {
+		return emoticons.length;
+	}
+
+	/**
+	 * Checks if an emoticon found in a text isn't part of a word.
+	 *
+	 * @param text the text
+	 * @param start the start of the emoticon (inclusive)
+	 * @param end the end of the emoticon (exclusive)
+	 * @param emoticon the emoticon
+	 * @return true if the emoticon isn't part of a word, false otherwise.
+	 */
+	private static boolean isDelimited(String text, int start, int end, String emoticon) {
+		if (Character.isLetterOrDigit(emoticon.charAt(0)) && start > 0
+				&& isWordBoundaryViolation(text.charAt(start - 1))) {
+			return false;
+		}
+		if (Character.isLetterOrDigit(emoticon.charAt(emoticon.length() - 1)) && end < text.length()
+				&& isWordBoundaryViolation(text.charAt(end))) {
+			return false;
+		}
+
+		// emoticons within URLs aren't replaced (e.g. "http://example.com/XD")
+		int chunkStart = start;
+		while (chunkStart > 0 && !Character.isWhitespace(text.charAt(chunkStart - 1))) {
+			chunkStart--;
+		}
+		int chunkEnd = end;
+		while (chunkEnd < text.length() && !Character.isWhitespace(text.charAt(chunkEnd))) {
+			chunkEnd++;
+		}
+		return (chunkEnd - chunkStart == end - start)
+				|| !TokenClassifier.is(TokenClassifier.classify(text.substring(chunkStart, chunkEnd)), TokenClassifier.URL);
+	}
+
+	/**
+	 * Checks if a char adjacent to an emoticon starting or ending with a
+	 * letter or digit makes it part of a word (or username / hashtag).
+	 *
+	 * @param c the adjacent char
+	 * @return true if the emoticon is part of a word, false otherwise.
+	 */
+	private static boolean isWordBoundaryViolation(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '@' || c == '#';
+	}
+}
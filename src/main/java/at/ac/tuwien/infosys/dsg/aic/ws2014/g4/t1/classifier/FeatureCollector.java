@@ -0,0 +1,132 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import java.util.Arrays;
+
+/**
+ * Maps the preprocessed tokens of a tweet to features as they're produced --
+ * tokens given as spans are mapped by their TokenTable id (a token that isn't
+ * interned can't be a feature) or hashed without creating strings, so the
+ * only result of processing a tweet is the sparse feature vector.
+ *
+ * Instances don't belong to a model: the word-to-attribute index or the
+ * feature hasher of a model is passed for each tweet (see reset(FeatureIndex,
+ * FeatureHasher)) and released afterwards (see reset()), so a collector can
+ * be kept per thread without keeping replaced models reachable. Instances
+ * aren't thread-safe.
+ */
+public final class FeatureCollector implements ITokenSink {
+
+	/**
+	 * Initial capacity (number of tokens).
+	 */
+	private static final int INITIAL_CAPACITY = 32;
+
+	/**
+	 * The word-to-attribute index (null if features are hashed or no tweet is
+	 * collected).
+	 */
+	private FeatureIndex featureIndex = null;
+
+	/**
+	 * The feature hasher (null if the word-to-attribute index is used or no
+	 * tweet is collected).
+	 */
+	private FeatureHasher featureHasher = null;
+
+	/**
+	 * The token table.
+	 */
+	private final TokenTable tokenTable = TokenTable.getInstance();
+
+	/**
+	 * The attribute indices of the known tokens (or the hash codes of all
+	 * tokens if features are hashed).
+	 */
+	private int[] features = new int[INITIAL_CAPACITY];
+
+	/**
+	 * Number of collected features.
+	 */
+	private int size = 0;
+
+	/**
+	 * Constructor.
+	 */
+	FeatureCollector() {
+	}
+
+	/**
+	 * Removes all collected features and starts collecting the features of a
+	 * model.
+	 *
+	 * @param featureIndex the word-to-attribute index of the model (null if
+	 * features are hashed)
+	 * @param featureHasher the feature hasher of the model (null if the
+	 * word-to-attribute index is used)
+	 */
+	public void reset(FeatureIndex featureIndex, FeatureHasher featureHasher) {
+		if ((featureIndex == null) == (featureHasher == null)) {
+			throw new IllegalArgumentException("either a feature index or a feature hasher is required");
+		}
+		this.featureIndex = featureIndex;
+		this.featureHasher = featureHasher;
+		size = 0;
+	}
+
+	/**
+	 * Removes all collected features and releases the model.
+	 */
+	public void reset() {
+		featureIndex = null;
+		featureHasher = null;
+		size = 0;
+	}
+
+	@Override
+	public void add(String token) {
+		if (featureHasher != null) {
+			addFeature(token.hashCode());
+		} else {
+			addFeature(featureIndex.indexOf(token));
+		}
+	}
+
+	@Override
+	public void add(CharSequence text, int start, int end, boolean lowerCase, int tokenId) {
+		if (featureHasher == null) {
+			addFeature(featureIndex.indexOfToken(tokenId));
+		} else if (tokenId != TokenTable.NOT_FOUND) {
+			addFeature(tokenTable.getHashCode(tokenId));
+		} else {
+			addFeature(TokenSpans.hashCode(text, start, end, lowerCase));
+		}
+	}
+
+	/**
+	 * Returns the feature vector of the collected features -- same as
+	 * CompiledModel.getFeatureVector() for the tokens as strings.
+	 *
+	 * @return the feature vector
+	 */
+	public FeatureVector getFeatureVector() {
+		if (featureHasher != null) {
+			return featureHasher.vectorize(features, size);
+		}
+		return new FeatureVector(FeatureIndex.sortDistinct(Arrays.copyOf(features, size), size));
+	}
+
+	/**
+	 * Adds an attribute index (ignored if NOT_FOUND) or a hash code.
+	 *
+	 * @param feature the attribute index or hash code
+	 */
+	private void addFeature(int feature) {
+		if (featureHasher == null && feature == FeatureIndex.NOT_FOUND) {
+			return;
+		}
+		if (size == features.length) {
+			features = Arrays.copyOf(features, 2 * size);
+		}
+		features[size++] = feature;
+	}
+}
@@ -0,0 +1,161 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import java.util.Arrays;
+import java.util.List;
+import weka.core.Attribute;
+import weka.core.FastVector;
+
+/**
+ * Hashing-trick vectorizer that maps words into a fixed number of buckets
+ * (2^bits) -- no word-to-attribute dictionary is needed.
+ *
+ * Each word adds +1 or -1 (determined by another bit of its hash value) to
+ * its bucket, so that collisions cancel out on average instead of adding up.
+ * The attribute of bucket b is found at index b + 1 (the class attribute
+ * precedes all buckets).
+ */
+public final class FeatureHasher {
+
+	/**
+	 * Min. number of hash bits.
+	 */
+	public static final int MIN_BITS = 1;
+
+	/**
+	 * Max. number of hash bits (larger feature spaces aren't handled well by
+	 * the Weka dataset header).
+	 */
+	public static final int MAX_BITS = 24;
+
+	/**
+	 * Prefix of the bucket attribute names.
+	 */
+	public static final String ATTRIBUTE_NAME_PREFIX = "__hash_";
+
+	/**
+	 * Multiplier for Fibonacci hashing (2^32 / golden ratio).
+	 */
+	private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+	/**
+	 * Number of hash bits.
+	 */
+	private final int bits;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param bits the number of hash bits (the feature space has 2^bits
+	 * buckets)
+	 */
+	public FeatureHasher(int bits) {
+		if (bits < MIN_BITS || bits > MAX_BITS) {
+			throw new IllegalArgumentException("number of hash bits must be between " + MIN_BITS + " and " + MAX_BITS);
+		}
+		this.bits = bits;
+	}
+
+	/**
+	 * Creates the attributes of all buckets.
+	 *
+	 * @return the numeric attributes of all buckets (in bucket order).
+	 */
+	public FastVector createAttributes() {
+		FastVector attributes = new FastVector(getNumBuckets());
+		for (int b = 0; b < getNumBuckets(); b++) {
+			attributes.addElement(new Attribute(ATTRIBUTE_NAME_PREFIX + b));
+		}
+		return attributes;
+	}
+
+	/**
+	 * Maps the words of a tweet to a sparse feature vector -- each distinct
+	 * word is counted once.
+	 *
+	 * @param words the feature-relevant words of a tweet
+	 * @return the feature vector (buckets whose signs cancelled out are
+	 * omitted)
+	 */
+	public FeatureVector vectorize(List<String> words) {
+		int[] hashCodes = new int[words.size()];
+		int n = 0;
+		for (String w : words) {
+			hashCodes[n++] = w.hashCode();
+		}
+		return vectorize(hashCodes, n);
+	}
+
+	/**
+	 * Maps the words of a tweet given by their hash codes to a sparse feature
+	 * vector -- each distinct word is counted once.
+	 *
+	 * @param hashCodes the (string) hash codes of the feature-relevant words
+	 * of a tweet
+	 * @param n the number of hash codes
+	 * @return the feature vector (buckets whose signs cancelled out are
+	 * omitted)
+	 */
+	public FeatureVector vectorize(int[] hashCodes, int n) {
+		// encode (bucket, sign) of each distinct word as one sortable long
+		long[] hashed = new long[n];
+		for (int i = 0; i < n; i++) {
+			int h = hashCodes[i] * GOLDEN_RATIO;
+			int bucket = h >>> (32 - bits);
+			int sign = (h >>> (31 - bits)) & 1;
+			hashed[i] = ((long) bucket << 33) | ((hashCodes[i] & 0xFFFFFFFFL) << 1) | sign;
+		}
+		Arrays.sort(hashed, 0, n);
+
+		int[] indices = new int[n];
+		double[] values = new double[n];
+		boolean binary = true;
+		int size = 0;
+		for (int i = 0; i < n; i++) {
+			if (i > 0 && hashed[i] == hashed[i - 1]) {
+				continue; // same word (or colliding hash code) counted once
+			}
+			int index = (int) (hashed[i] >>> 33) + 1;
+			double value = ((hashed[i] & 1) != 0) ? 1.0 : -1.0;
+
+			if (size > 0 && indices[size - 1] == index) {
+				values[size - 1] += value;
+			} else {
+				indices[size] = index;
+				values[size] = value;
+				size++;
+			}
+		}
+
+		// remove buckets whose signs cancelled out
+		int nonZero = 0;
+		for (int i = 0; i < size; i++) {
+			if (values[i] != 0.0) {
+				indices[nonZero] = indices[i];
+				values[nonZero] = values[i];
+				binary &= (values[i] == 1.0);
+				nonZero++;
+			}
+		}
+
+		int[] nonZeroIndices = Arrays.copyOf(indices, nonZero);
+		return binary ? new FeatureVector(nonZeroIndices) : new FeatureVector(nonZeroIndices, Arrays.copyOf(values, nonZero));
+	}
+
+	/**
+	 * Returns the number of hash bits.
+	 *
+	 * @return the number of hash bits.
+	 */
+	public int getBits() {
+		return bits;
+	}
+
+	/**
+	 * Returns the number of buckets.
+	 *
+	 * @return the number of buckets (2^bits).
+	 */
+	public int getNumBuckets() {
+		return 1 << bits;
+	}
+}
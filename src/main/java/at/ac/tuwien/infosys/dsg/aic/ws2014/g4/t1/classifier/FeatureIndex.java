@@ -0,0 +1,202 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import weka.core.Attribute;
+import weka.core.Instances;
+
+/**
+ * Immutable index that maps feature names (= words) to the index of their
+ * attribute in the dataset header.
+ *
+ * The feature names are interned in the TokenTable, the attribute indices
+ * are stored in an open addressing map keyed by token id (sized by the
+ * vocabulary of the index, not by the ids of the TokenTable) -- tokens that
+ * already carry their id (see TokenSpans) are mapped without hashing their
+ * text.
+ *
+ * Interned names stay in the TokenTable when the index is discarded (e.g.
+ * when the ModelRegistry evicts a classifier), so the table holds the union
+ * of all vocabularies ever loaded -- estimateSize() counts the table entries
+ * of the vocabulary.
+ */
+public final class FeatureIndex {
+
+	/**
+	 * Value returned by a lookup if the feature is not part of the index.
+	 */
+	public static final int NOT_FOUND = -1;
+
+	/**
+	 * The token table.
+	 */
+	private final TokenTable tokenTable = TokenTable.getInstance();
+
+	/**
+	 * The slots of the map: token id + 1 of the feature in the slot (0 = free
+	 * slot).
+	 */
+	private final int[] tokenSlots;
+
+	/**
+	 * The attribute index of the feature in each slot.
+	 */
+	private final int[] attributeSlots;
+
+	/**
+	 * The number of features in the index.
+	 */
+	private final int size;
+
+	/**
+	 * Creates an index for all attributes of a dataset header (except the
+	 * class attribute) -- the first occurrence of a name wins (same as
+	 * Instances.attribute(String)).
+	 *
+	 * @param header the dataset header
+	 */
+	public FeatureIndex(Instances header) {
+		int capacity = 2;
+		while (capacity < 2 * header.numAttributes()) {
+			capacity <<= 1;
+		}
+		tokenSlots = new int[capacity];
+		attributeSlots = new int[capacity];
+
+		int count = 0;
+		for (Enumeration<Attribute> e = header.enumerateAttributes(); e.hasMoreElements();) {
+			Attribute attr = e.nextElement();
+			if (insert(tokenTable.intern(attr.name()), attr.index())) {
+				count++;
+			}
+		}
+		size = count;
+	}
+
+	/**
+	 * Inserts a feature into the map (if its token id isn't present yet).
+	 *
+	 * @param tokenId the id of the feature name
+	 * @param attributeIndex the attribute index of the feature
+	 * @return true if the feature was inserted, false otherwise
+	 */
+	private boolean insert(int tokenId, int attributeIndex) {
+		int mask = tokenSlots.length - 1;
+		int slot = TokenTable.mix(tokenId) & mask;
+		while (tokenSlots[slot] != 0) {
+			if (tokenSlots[slot] == tokenId + 1) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		tokenSlots[slot] = tokenId + 1;
+		attributeSlots[slot] = attributeIndex;
+		return true;
+	}
+
+	/**
+	 * Returns the attribute index of a feature.
+	 *
+	 * @param name the feature name
+	 * @return the attribute index or NOT_FOUND if the feature is unknown
+	 */
+	public int indexOf(String name) {
+		return indexOfToken(tokenTable.idOf(name));
+	}
+
+	/**
+	 * Returns the attribute index of a feature given as a span of a text.
+	 *
+	 * @param text the text
+	 * @param start the start of the feature name in the text (inclusive)
+	 * @param end the end of the feature name in the text (exclusive)
+	 * @param lowerCase whether the feature name is lower-cased
+	 * @return the attribute index or NOT_FOUND if the feature is unknown
+	 */
+	public int indexOf(CharSequence text, int start, int end, boolean lowerCase) {
+		return indexOfToken(tokenTable.idOf(text, start, end, lowerCase));
+	}
+
+	/**
+	 * Returns the attribute index of a feature given by its TokenTable id.
+	 *
+	 * @param tokenId the id of the feature name (TokenTable.NOT_FOUND if the
+	 * name isn't interned)
+	 * @return the attribute index or NOT_FOUND if the feature is unknown
+	 */
+	public int indexOfToken(int tokenId) {
+		if (tokenId < 0) {
+			return NOT_FOUND;
+		}
+		int mask = tokenSlots.length - 1;
+		int value;
+		for (int slot = TokenTable.mix(tokenId) & mask; (value = tokenSlots[slot]) != 0; slot = (slot + 1) & mask) {
+			if (value == tokenId + 1) {
+				return attributeSlots[slot];
+			}
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	 * Returns the attribute indices of all known words (sorted ascending,
+	 * without duplicates).
+	 *
+	 * @param words the feature-relevant words of a tweet
+	 * @return the sorted attribute indices of all known words
+	 */
+	public int[] indicesOf(List<String> words) {
+		int[] ids = new int[words.size()];
+		int n = 0;
+		for (String w : words) {
+			int id = indexOf(w);
+			if (id != NOT_FOUND) {
+				ids[n++] = id;
+			}
+		}
+		return sortDistinct(ids, n);
+	}
+
+	/**
+	 * Sorts attribute indices and removes duplicates.
+	 *
+	 * @param ids the attribute indices (sorted in place)
+	 * @param n the number of attribute indices
+	 * @return the sorted distinct attribute indices (the given array if its
+	 * length matches)
+	 */
+	static int[] sortDistinct(int[] ids, int n) {
+		Arrays.sort(ids, 0, n);
+
+		// remove duplicates
+		int distinct = 0;
+		for (int i = 0; i < n; i++) {
+			if (distinct == 0 || ids[distinct - 1] != ids[i]) {
+				ids[distinct++] = ids[i];
+			}
+		}
+		return (distinct == ids.length) ? ids : Arrays.copyOf(ids, distinct);
+	}
+
+	/**
+	 * Estimates the heap size of the index including the TokenTable entries
+	 * of its features (the feature names themselves are shared with the
+	 * dataset header).
+	 *
+	 * @return the estimated size in bytes
+	 */
+	public long estimateSize() {
+		return HeapSize.OBJECT_OVERHEAD + HeapSize.of(tokenSlots) + HeapSize.of(attributeSlots)
+				+ size * HeapSize.TOKEN_TABLE_ENTRY;
+	}
+
+	/**
+	 * Returns the number of features in the index.
+	 *
+	 * @return the number of features in the index.
+	 */
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,80 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+/**
+ * Sparse feature vector of a tweet -- the sorted attribute indices of all
+ * non-zero features and their values.
+ */
+public final class FeatureVector {
+
+	/**
+	 * The sorted attribute indices of the non-zero features.
+	 */
+	private final int[] indices;
+
+	/**
+	 * The values of the non-zero features (null if all values are 1 -- i.e.
+	 * binary features).
+	 */
+	private final double[] values;
+
+	/**
+	 * Creates a binary feature vector (all values are 1).
+	 *
+	 * @param indices the sorted attribute indices of the active features
+	 */
+	public FeatureVector(int[] indices) {
+		this(indices, null);
+	}
+
+	/**
+	 * Creates a feature vector.
+	 *
+	 * @param indices the sorted attribute indices of the non-zero features
+	 * @param values the values of the non-zero features (null if all values
+	 * are 1)
+	 */
+	public FeatureVector(int[] indices, double[] values) {
+		if (values != null && values.length != indices.length) {
+			throw new IllegalArgumentException("number of indices and values differ");
+		}
+		this.indices = indices;
+		this.values = values;
+	}
+
+	/**
+	 * Checks if all values of the vector are 1.
+	 *
+	 * @return true if the vector only contains binary features, false
+	 * otherwise.
+	 */
+	public boolean isBinary() {
+		return values == null;
+	}
+
+	/**
+	 * Returns the sorted attribute indices of the non-zero features.
+	 *
+	 * @return the sorted attribute indices -- must not be modified!
+	 */
+	public int[] getIndices() {
+		return indices;
+	}
+
+	/**
+	 * Returns the values of the non-zero features.
+	 *
+	 * @return the values (null if all values are 1) -- must not be modified!
+	 */
+	public double[] getValues() {
+		return values;
+	}
+
+	/**
+	 * Returns the number of non-zero features.
+	 *
+	 * @return the number of non-zero features.
+	 */
+	public int size() {
+		return indices.length;
+	}
+}
@@ -0,0 +1,90 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import java.util.Enumeration;
+import weka.core.Attribute;
+import weka.core.Instances;
+
+/**
+ * Rough estimates of the heap size of the data structures of a compiled
+ * model (assuming a 64 bit JVM with compressed references) -- used to keep
+ * the resident classifiers within a heap budget.
+ */
+final class HeapSize {
+
+	/**
+	 * Header size of an object.
+	 */
+	static final long OBJECT_OVERHEAD = 16;
+
+	/**
+	 * Header size of an array.
+	 */
+	static final long ARRAY_OVERHEAD = 16;
+
+	/**
+	 * Size of an interned token in the TokenTable without its string (its
+	 * token and hash code array elements and two slots).
+	 */
+	static final long TOKEN_TABLE_ENTRY = 16;
+
+	/**
+	 * Size of a Weka attribute without its name and values (fields, meta
+	 * data and lookup tables).
+	 */
+	private static final long ATTRIBUTE_OVERHEAD = 160;
+
+	/**
+	 * Constructor.
+	 */
+	private HeapSize() {
+	}
+
+	/**
+	 * Estimates the size of an int array.
+	 *
+	 * @param array the array (may be null)
+	 * @return the estimated size in bytes
+	 */
+	static long of(int[] array) {
+		return (array != null) ? ARRAY_OVERHEAD + 4L * array.length : 0;
+	}
+
+	/**
+	 * Estimates the size of a double array.
+	 *
+	 * @param array the array (may be null)
+	 * @return the estimated size in bytes
+	 */
+	static long of(double[] array) {
+		return (array != null) ? ARRAY_OVERHEAD + 8L * array.length : 0;
+	}
+
+	/**
+	 * Estimates the size of a string.
+	 *
+	 * @param str the string (may be null)
+	 * @return the estimated size in bytes
+	 */
+	static long of(String str) {
+		return (str != null) ? OBJECT_OVERHEAD + 8 + ARRAY_OVERHEAD + 2L * str.length() : 0;
+	}
+
+	/**
+	 * Estimates the size of a dataset header (its attributes, without
+	 * instances).
+	 *
+	 * @param header the dataset header
+	 * @return the estimated size in bytes
+	 */
+	static long of(Instances header) {
+		long size = OBJECT_OVERHEAD + ARRAY_OVERHEAD + 4L * header.numAttributes();
+		for (int i = 0; i < header.numAttributes(); i++) {
+			Attribute attr = header.attribute(i);
+			size += ATTRIBUTE_OVERHEAD + of(attr.name());
+			for (Enumeration<?> e = attr.enumerateValues(); e != null && e.hasMoreElements();) {
+				size += of(e.nextElement().toString());
+			}
+		}
+		return size;
+	}
+}
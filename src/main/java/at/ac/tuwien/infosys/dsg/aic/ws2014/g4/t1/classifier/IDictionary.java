@@ -13,4 +13,10 @@ public interface IDictionary {
 	 */
 	public boolean contains(String word);
 
+	/**
+	 * Returns the number of entries in the dictionary.
+	 *
+	 * @return the number of entries.
+	 */
+	public int size();
 }
@@ -29,11 +29,197 @@ public interface IPreprocessor {
 	public static final String SMILEY_SAD_TOKEN = "__++SMILEY_SAD++__";
 
 	/**
-	 * Performs the preprocessing step.
+	 * Enumeration for the preprocessing stages (in the order they're applied
+	 * to a token -- the first stage handling a token wins, remaining tokens
+	 * are normalized).
+	 */
+	public enum Stage {
+
+		/**
+		 * Remove stopwords.
+		 */
+		STOPWORDS,
+		/**
+		 * Replace URLs with the URL token.
+		 */
+		URLS,
+		/**
+		 * Replace mentioned usernames with the username token.
+		 */
+		USERNAMES,
+		/**
+		 * Keep hashtags as they are.
+		 */
+		HASHTAGS,
+		/**
+		 * Replace smileys with the smiley tokens.
+		 */
+		SMILEYS,
+		/**
+		 * Expand abbreviations.
+		 */
+		ABBREVIATIONS,
+		/**
+		 * Remove tokens consisting of non-word chars only.
+		 */
+		NONWORD_TOKENS,
+		/**
+		 * Split alternatives (e.g. "lunch/dinner").
+		 */
+		ALTERNATIVES,
+		/**
+		 * Correct misspelled words.
+		 */
+		SPELL_CORRECTION
+	}
+
+	/**
+	 * Enumeration for preprocessing profiles (= selections of stages).
+	 */
+	public enum Profile {
+
+		/**
+		 * All stages.
+		 */
+		FULL(Stage.values()),
+		/**
+		 * All stages except spell correction.
+		 */
+		FAST(Stage.STOPWORDS, Stage.URLS, Stage.USERNAMES, Stage.HASHTAGS, Stage.SMILEYS,
+				Stage.ABBREVIATIONS, Stage.NONWORD_TOKENS, Stage.ALTERNATIVES),
+		/**
+		 * Token replacement of URLs, usernames and smileys only.
+		 */
+		MINIMAL(Stage.URLS, Stage.USERNAMES, Stage.SMILEYS);
+
+		/**
+		 * The stages of the profile (in order).
+		 */
+		private final Stage[] stages;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param stages the stages of the profile (in order)
+		 */
+		private Profile(Stage... stages) {
+			this.stages = stages;
+		}
+
+		/**
+		 * Returns the stages of the profile.
+		 *
+		 * @return the stages of the profile (in order).
+		 */
+		public Stage[] getStages() {
+			return stages.clone();
+		}
+
+		/**
+		 * Returns the stage at a position of the profile.
+		 *
+		 * @param position the position
+		 * @return the stage
+		 */
+		Stage getStage(int position) {
+			return stages[position];
+		}
+
+		/**
+		 * Returns the number of stages of the profile.
+		 *
+		 * @return the number of stages.
+		 */
+		int getNumStages() {
+			return stages.length;
+		}
+
+		/**
+		 * Checks if the profile includes a stage.
+		 *
+		 * @param stage the stage
+		 * @return true if the profile includes the stage, false otherwise.
+		 */
+		public boolean includes(Stage stage) {
+			for (Stage s : stages) {
+				if (s == stage) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Returns the profile with a given name (case-insensitive).
+		 *
+		 * @param name the name of the profile (e.g. "fast")
+		 * @return the profile
+		 * @throws IllegalArgumentException if there's no profile with the name
+		 */
+		public static Profile fromString(String name) {
+			return valueOf(name.trim().toUpperCase());
+		}
+
+		@Override
+		public String toString() {
+			return name().toLowerCase();
+		}
+	}
+
+	/**
+	 * Performs the preprocessing steps on the raw text of a tweet (i.e.
+	 * before tokenization) using a given profile -- replaces emoticons with
+	 * the smiley tokens if the profile includes the smiley stage.
+	 *
+	 * @param text the raw text of a tweet
+	 * @param profile the preprocessing profile
+	 * @return the text to tokenize
+	 */
+	public String preprocessText(String text, Profile profile);
+
+	/**
+	 * Performs the preprocessing step using the default profile.
 	 *
 	 * @param tokens the list of raw tokens that will be manipulated by the
 	 * preprocessor.
 	 */
 	public void preprocess(List<String> tokens);
 
+	/**
+	 * Performs the preprocessing step using a given profile.
+	 *
+	 * @param tokens the list of raw tokens that will be manipulated by the
+	 * preprocessor.
+	 * @param profile the preprocessing profile
+	 */
+	public void preprocess(List<String> tokens, Profile profile);
+
+	/**
+	 * Performs the preprocessing step on tokens given as spans using a given
+	 * profile -- strings are only created for the resulting tokens.
+	 *
+	 * @param spans the raw tokens (spans over the tokenized text)
+	 * @param tokens the list to append the resulting tokens to
+	 * @param profile the preprocessing profile
+	 */
+	public void preprocess(TokenSpans spans, List<String> tokens, Profile profile);
+
+	/**
+	 * Performs the preprocessing step on tokens given as spans using a given
+	 * profile -- the resulting tokens are passed to a sink (as spans of the
+	 * text if possible).
+	 *
+	 * @param spans the raw tokens (spans over the tokenized text)
+	 * @param sink the sink receiving the resulting tokens
+	 * @param profile the preprocessing profile
+	 */
+	public void preprocess(TokenSpans spans, ITokenSink sink, Profile profile);
+
+	/**
+	 * Returns the default profile.
+	 *
+	 * @return the profile used if no profile is given.
+	 */
+	public Profile getDefaultProfile();
+
 }
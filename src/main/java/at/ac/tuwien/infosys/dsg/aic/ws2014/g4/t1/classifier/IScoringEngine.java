@@ -0,0 +1,25 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+/**
+ * Interface for Weka-free scoring engines compiled from a trained Weka
+ * classifier.
+ */
+public interface IScoringEngine {
+
+	/**
+	 * Determines the class distribution for a set of active (binary)
+	 * features.
+	 *
+	 * @param featureIds the sorted attribute indices of the active features
+	 * @return the probability for each class (same as the Weka classifier's
+	 * distributionForInstance)
+	 */
+	public double[] distributionForFeatures(int[] featureIds);
+
+	/**
+	 * Estimates the heap size of the engine.
+	 *
+	 * @return the estimated size in bytes
+	 */
+	public long estimateSize();
+}
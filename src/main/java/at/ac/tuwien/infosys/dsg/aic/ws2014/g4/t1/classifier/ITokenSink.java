@@ -0,0 +1,31 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+/**
+ * Receives the tokens resulting from preprocessing -- either as strings or
+ * as spans of the tokenized text (with their TokenTable id), so receivers
+ * that don't need strings (e.g. mapping tokens to features) don't have to
+ * create them.
+ */
+public interface ITokenSink {
+
+	/**
+	 * Adds a token.
+	 *
+	 * @param token the token
+	 */
+	public void add(String token);
+
+	/**
+	 * Adds a token given as a span of a text.
+	 *
+	 * @param text the text
+	 * @param start the start of the token in the text (inclusive)
+	 * @param end the end of the token in the text (exclusive)
+	 * @param lowerCase whether the token is lower-cased -- the span must
+	 * consist of ASCII chars only then (lower-casing ASCII letters is the
+	 * same as String.toLowerCase())
+	 * @param tokenId the TokenTable id of the (lower-cased) token
+	 * (TokenTable.NOT_FOUND if the token isn't interned)
+	 */
+	public void add(CharSequence text, int start, int end, boolean lowerCase, int tokenId);
+}
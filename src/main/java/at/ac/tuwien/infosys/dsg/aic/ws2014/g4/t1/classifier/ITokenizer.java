@@ -7,6 +7,31 @@ import java.util.List;
  */
 public interface ITokenizer {
 
+	/**
+	 * Enumeration for tokenizer implementations.
+	 */
+	public enum Implementation {
+
+		/**
+		 * The Twokenize tokenizer (see TokenizerImpl).
+		 */
+		TWOKENIZE,
+		/**
+		 * The hand-written tokenizer producing the same tokens as Twokenize
+		 * (see StreamingTokenizerImpl).
+		 */
+		STREAMING;
+
+		/**
+		 * Creates a tokenizer of the implementation.
+		 *
+		 * @return the tokenizer
+		 */
+		public ITokenizer createTokenizer() {
+			return (this == STREAMING) ? new StreamingTokenizerImpl() : new TokenizerImpl();
+		}
+	}
+
 	/**
 	 * Performs tokenization of an input string.
 	 *
@@ -14,4 +39,14 @@ public interface ITokenizer {
 	 * @return a list of tokenized strings.
 	 */
 	public List<String> tokenize(String string);
+
+	/**
+	 * Performs tokenization of an input text without creating strings for
+	 * the tokens.
+	 *
+	 * @param text the input text.
+	 * @param spans the spans to store the tokens in (reset to the text first,
+	 * the spans refer to the input text).
+	 */
+	public void tokenize(CharSequence text, TokenSpans spans);
 }
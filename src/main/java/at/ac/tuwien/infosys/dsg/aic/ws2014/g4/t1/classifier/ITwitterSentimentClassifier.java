@@ -1,6 +1,7 @@
 package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import twitter4j.Status;
 
@@ -138,6 +139,18 @@ public interface ITwitterSentimentClassifier {
 	 */
 	public Map<Status, double[]> classifyWithProbabilities(Collection<Status> tweets) throws IllegalStateException, ClassifierException;
 
+	/**
+	 * Determines the probabilities and the sentiment of a batch of tweets --
+	 * the tweets are classified in parallel.
+	 *
+	 * @param tweets the Twitter4J status objects to classify.
+	 * @return one result per tweet in the iteration order of the given
+	 * collection -- a tweet that couldn't be classified has a result holding
+	 * the error (the other tweets are classified nonetheless).
+	 * @throws IllegalStateException if the classifier wasn't trained before.
+	 */
+	public List<ClassificationResult> classifyBatch(Collection<Status> tweets) throws IllegalStateException;
+
 	/**
 	 * Returns the sentiment for a given probabilities array.
 	 *
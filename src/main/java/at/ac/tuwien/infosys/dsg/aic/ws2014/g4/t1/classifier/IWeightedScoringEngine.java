@@ -0,0 +1,19 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+/**
+ * Interface for scoring engines that also support non-binary feature values
+ * (e.g. signed bucket counts of hashed features).
+ */
+public interface IWeightedScoringEngine extends IScoringEngine {
+
+	/**
+	 * Determines the class distribution for a sparse feature vector.
+	 *
+	 * @param featureIds the sorted attribute indices of the non-zero features
+	 * @param values the values of the non-zero features
+	 * @return the probability for each class (same as the Weka classifier's
+	 * distributionForInstance)
+	 */
+	public double[] distributionForFeatures(int[] featureIds, double[] values);
+
+}
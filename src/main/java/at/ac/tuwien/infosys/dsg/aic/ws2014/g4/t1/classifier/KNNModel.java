@@ -0,0 +1,500 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Enumeration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import weka.classifiers.lazy.IBk;
+import weka.core.Attribute;
+import weka.core.DistanceFunction;
+import weka.core.EuclideanDistance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.NormalizableDistance;
+import weka.core.neighboursearch.LinearNNSearch;
+import weka.core.neighboursearch.NearestNeighbourSearch;
+
+/**
+ * Weka-free scoring engine for a trained IBk, based on an inverted index
+ * from feature to the training instances containing the feature.
+ *
+ * For binary features the squared euclidean distance between a tweet A and
+ * a training instance B is |A| + |B| - 2 * |A and B|, so only the training
+ * instances sharing at least one feature with the tweet need to be scored.
+ * All other training instances are only relevant if they have fewer
+ * features than the nearest sharing instances -- they are taken from a list
+ * of all training instances ordered by their number of features.
+ *
+ * The neighbours (the k nearest training instances plus all instances tied
+ * with the k-th one) and the class distribution are the same as IBk's with
+ * a LinearNNSearch and EuclideanDistance.
+ */
+public class KNNModel implements IScoringEngine, Serializable {
+
+	/**
+	 * Version of the serialized form.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger logger = LogManager.getLogger(KNNModel.class);
+
+	/**
+	 * The number of classes.
+	 */
+	private final int numClasses;
+
+	/**
+	 * The number of neighbours to use.
+	 */
+	private final int k;
+
+	/**
+	 * The distance weighting method (one of IBk.WEIGHT_*).
+	 */
+	private final int distanceWeighting;
+
+	/**
+	 * The number of attributes used for computing distances (distances are
+	 * normalized by it before weighting).
+	 */
+	private final double numAttributesUsed;
+
+	/**
+	 * Start of the posting list of each attribute in postings (the posting
+	 * list of attribute i ends at postingOffsets[i + 1]).
+	 */
+	private final int[] postingOffsets;
+
+	/**
+	 * The posting lists (= ids of the training instances containing a
+	 * feature) of all attributes.
+	 */
+	private final int[] postings;
+
+	/**
+	 * The number of features of each training instance.
+	 */
+	private final int[] numFeatures;
+
+	/**
+	 * The class value of each training instance.
+	 */
+	private final int[] classValues;
+
+	/**
+	 * The weight of each training instance.
+	 */
+	private final double[] weights;
+
+	/**
+	 * The ids of all training instances ordered by their number of features.
+	 */
+	private final int[] instancesByNumFeatures;
+
+	/**
+	 * Per-thread buffers for the search.
+	 */
+	private transient ThreadLocal<SearchBuffers> searchBuffers;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param numClasses the number of classes
+	 * @param k the number of neighbours to use
+	 * @param distanceWeighting the distance weighting method (one of
+	 * IBk.WEIGHT_*)
+	 * @param numAttributesUsed the number of attributes used for computing
+	 * distances
+	 * @param numAttributes the number of attributes
+	 * @param instanceFeatures the sorted attribute indices of the features of
+	 * each training instance
+	 * @param classValues the class value of each training instance
+	 * @param weights the weight of each training instance
+	 */
+	KNNModel(int numClasses, int k, int distanceWeighting, double numAttributesUsed,
+			int numAttributes, int[][] instanceFeatures, int[] classValues, double[] weights) {
+		this.numClasses = numClasses;
+		this.k = k;
+		this.distanceWeighting = distanceWeighting;
+		this.numAttributesUsed = numAttributesUsed;
+		this.classValues = classValues;
+		this.weights = weights;
+
+		int numInstances = instanceFeatures.length;
+
+		// build the posting lists: count, compute offsets, fill
+		postingOffsets = new int[numAttributes + 1];
+		numFeatures = new int[numInstances];
+		int maxNumFeatures = 0;
+		for (int i = 0; i < numInstances; i++) {
+			numFeatures[i] = instanceFeatures[i].length;
+			maxNumFeatures = Math.max(maxNumFeatures, numFeatures[i]);
+			for (int attIndex : instanceFeatures[i]) {
+				postingOffsets[attIndex + 1]++;
+			}
+		}
+		for (int a = 0; a < numAttributes; a++) {
+			postingOffsets[a + 1] += postingOffsets[a];
+		}
+		postings = new int[postingOffsets[numAttributes]];
+		int[] next = new int[numAttributes];
+		System.arraycopy(postingOffsets, 0, next, 0, numAttributes);
+		for (int i = 0; i < numInstances; i++) {
+			for (int attIndex : instanceFeatures[i]) {
+				postings[next[attIndex]++] = i;
+			}
+		}
+
+		// order training instances by number of features (counting sort)
+		int[] start = new int[maxNumFeatures + 2];
+		for (int n : numFeatures) {
+			start[n + 1]++;
+		}
+		for (int n = 0; n <= maxNumFeatures; n++) {
+			start[n + 1] += start[n];
+		}
+		instancesByNumFeatures = new int[numInstances];
+		for (int i = 0; i < numInstances; i++) {
+			instancesByNumFeatures[start[numFeatures[i]]++] = i;
+		}
+
+		searchBuffers = createSearchBuffers();
+	}
+
+	/**
+	 * Exports the training instances of a trained IBk into an inverted index.
+	 *
+	 * @param ibk the trained IBk
+	 * @param header the dataset header the IBk was trained with
+	 * @return the exported scoring engine or null if the IBk can't be
+	 * exported (e.g. other search algorithm or distance function, k selected
+	 * by cross-validation)
+	 * @throws Exception if the training instances couldn't be read from the
+	 * IBk
+	 */
+	public static KNNModel export(IBk ibk, Instances header) throws Exception {
+		if (ibk.getCrossValidate()) {
+			logger.info("IBk selects k by cross-validation -- cannot export index");
+			return null;
+		}
+		for (Enumeration<Attribute> e = header.enumerateAttributes(); e.hasMoreElements();) {
+			if (!e.nextElement().isNumeric()) {
+				logger.info("IBk was trained with nominal attributes -- cannot export index");
+				return null;
+			}
+		}
+
+		NearestNeighbourSearch search = ibk.getNearestNeighbourSearchAlgorithm();
+		if (!(search instanceof LinearNNSearch) || ((LinearNNSearch) search).getSkipIdentical()) {
+			logger.info("IBk doesn't use a plain linear search -- cannot export index");
+			return null;
+		}
+		DistanceFunction distance = search.getDistanceFunction();
+		if (distance.getClass() != EuclideanDistance.class
+				|| !"first-last".equals(distance.getAttributeIndices())
+				|| distance.getInvertSelection()) {
+			logger.info("IBk doesn't use an euclidean distance over all attributes -- cannot export index");
+			return null;
+		}
+
+		Instances train = WekaModelAccess.getField(ibk, "m_Train", Instances.class);
+		int numInstances = train.numInstances();
+		if (numInstances == 0) {
+			logger.info("IBk has no training instances -- cannot export index");
+			return null;
+		}
+		if (ibk.getWindowSize() > 0 && numInstances > ibk.getWindowSize()) {
+			logger.info("IBk still has to shrink its training instances to the window size -- cannot export index");
+			return null;
+		}
+		if (!hasBinaryRanges((NormalizableDistance) distance, header)) {
+			logger.info("IBk distance doesn't have ranges [0, 1] for all attributes -- cannot export index");
+			return null;
+		}
+
+		int classIndex = header.classIndex();
+		int[][] instanceFeatures = new int[numInstances][];
+		int[] classValues = new int[numInstances];
+		double[] weights = new double[numInstances];
+
+		for (int i = 0; i < numInstances; i++) {
+			Instance inst = train.instance(i);
+			int[] features = new int[inst.numValues()];
+			int n = 0;
+			for (int j = 0; j < inst.numValues(); j++) {
+				int attIndex = inst.index(j);
+				double value = inst.valueSparse(j);
+				if (attIndex == classIndex || value == 0.0) {
+					continue;
+				}
+				if (value != 1.0) {
+					logger.info("IBk was trained with non-binary values -- cannot export index");
+					return null;
+				}
+				features[n++] = attIndex;
+			}
+			instanceFeatures[i] = (n == features.length) ? features : Arrays.copyOf(features, n);
+			classValues[i] = (int) inst.classValue();
+			weights[i] = inst.weight();
+		}
+
+		double numAttributesUsed = WekaModelAccess.getField(ibk, "m_NumAttributesUsed", Double.class);
+		int distanceWeighting = ibk.getDistanceWeighting().getSelectedTag().getID();
+
+		return new KNNModel(header.numClasses(), ibk.getKNN(), distanceWeighting, numAttributesUsed,
+				header.numAttributes(), instanceFeatures, classValues, weights);
+	}
+
+	/**
+	 * Returns the ids of the nearest training instances -- the k nearest
+	 * ones plus all instances tied with the k-th one.
+	 *
+	 * @param featureIds the sorted attribute indices of the active features
+	 * @return the ids of the nearest training instances (in no particular
+	 * order)
+	 */
+	public int[] nearestNeighbours(int[] featureIds) {
+		long[] neighbours = search(featureIds);
+		int[] ids = new int[neighbours.length];
+		for (int i = 0; i < neighbours.length; i++) {
+			ids[i] = (int) neighbours[i];
+		}
+		return ids;
+	}
+
+	/**
+	 * Determines the class distribution for a set of active (binary)
+	 * features -- same as IBk.makeDistribution.
+	 *
+	 * @param featureIds the sorted attribute indices of the active features
+	 * @return the probability for each class
+	 */
+	@Override
+	public double[] distributionForFeatures(int[] featureIds) {
+		long[] neighbours = search(featureIds);
+
+		int numTraining = numFeatures.length;
+		double[] distribution = new double[numClasses];
+		for (int c = 0; c < numClasses; c++) {
+			distribution[c] = 1.0 / Math.max(1, numTraining);
+		}
+		double total = (double) numClasses / Math.max(1, numTraining);
+
+		for (long neighbour : neighbours) {
+			int inst = (int) neighbour;
+
+			// replicate the distance computations of LinearNNSearch and IBk
+			double distance = Math.sqrt((double) (neighbour >>> 32));
+			distance = distance * distance;
+			distance = Math.sqrt(distance / numAttributesUsed);
+
+			double weight;
+			switch (distanceWeighting) {
+				case IBk.WEIGHT_INVERSE:
+					weight = 1.0 / (distance + 0.001);
+					break;
+				case IBk.WEIGHT_SIMILARITY:
+					weight = 1.0 - distance;
+					break;
+				default:
+					weight = 1.0;
+					break;
+			}
+			weight *= weights[inst];
+
+			distribution[classValues[inst]] += weight;
+			total += weight;
+		}
+
+		if (total > 0) {
+			for (int c = 0; c < numClasses; c++) {
+				distribution[c] /= total;
+			}
+		}
+		return distribution;
+	}
+
+	/**
+	 * Estimates the heap size of the engine (the inverted index and the
+	 * training instances).
+	 *
+	 * @return the estimated size in bytes
+	 */
+	@Override
+	public long estimateSize() {
+		return HeapSize.OBJECT_OVERHEAD + HeapSize.of(postingOffsets) + HeapSize.of(postings)
+				+ HeapSize.of(numFeatures) + HeapSize.of(classValues) + HeapSize.of(weights)
+				+ HeapSize.of(instancesByNumFeatures);
+	}
+
+	/**
+	 * Returns the number of training instances.
+	 *
+	 * @return the number of training instances.
+	 */
+	public int getNumTraining() {
+		return numFeatures.length;
+	}
+
+	/**
+	 * Searches the nearest training instances.
+	 *
+	 * @param featureIds the sorted attribute indices of the active features
+	 * @return the nearest training instances (squared distance in the upper
+	 * 32 bits, instance id in the lower 32 bits)
+	 */
+	private long[] search(int[] featureIds) {
+		SearchBuffers buffers = searchBuffers.get();
+		int[] counts = buffers.counts;
+		int[] candidates = buffers.candidates;
+
+		// count shared features of all training instances sharing at least one feature
+		int numShared = 0;
+		for (int attIndex : featureIds) {
+			for (int p = postingOffsets[attIndex]; p < postingOffsets[attIndex + 1]; p++) {
+				int inst = postings[p];
+				if (counts[inst]++ == 0) {
+					candidates[numShared++] = inst;
+				}
+			}
+		}
+
+		// add the training instances with the fewest features that don't share any
+		// feature: k of them plus the ones tied with the k-th
+		int numCandidates = numShared;
+		int numUnshared = 0;
+		int lastNumFeatures = -1;
+		for (int inst : instancesByNumFeatures) {
+			if (counts[inst] != 0) {
+				continue;
+			}
+			if (numUnshared >= k && numFeatures[inst] > lastNumFeatures) {
+				break;
+			}
+			candidates[numCandidates++] = inst;
+			numUnshared++;
+			lastNumFeatures = numFeatures[inst];
+		}
+
+		// determine the distance of the k-th nearest candidate (histogram of squared distances)
+		int numQueryFeatures = featureIds.length;
+		int maxDistance = 0;
+		for (int i = 0; i < numCandidates; i++) {
+			int inst = candidates[i];
+			maxDistance = Math.max(maxDistance, numQueryFeatures + numFeatures[inst] - 2 * counts[inst]);
+		}
+		int[] histogram = new int[maxDistance + 1];
+		for (int i = 0; i < numCandidates; i++) {
+			int inst = candidates[i];
+			histogram[numQueryFeatures + numFeatures[inst] - 2 * counts[inst]]++;
+		}
+		int kthDistance = 0;
+		int numNeighbours = histogram[0];
+		while (numNeighbours < k && kthDistance < maxDistance) {
+			numNeighbours += histogram[++kthDistance];
+		}
+
+		long[] neighbours = new long[numNeighbours];
+		int n = 0;
+		for (int i = 0; i < numCandidates; i++) {
+			int inst = candidates[i];
+			int distance = numQueryFeatures + numFeatures[inst] - 2 * counts[inst];
+			if (distance <= kthDistance) {
+				neighbours[n++] = ((long) distance << 32) | inst;
+			}
+		}
+
+		// reset the counts for the next search
+		for (int i = 0; i < numShared; i++) {
+			counts[candidates[i]] = 0;
+		}
+		return neighbours;
+	}
+
+	/**
+	 * Checks if the ranges of the distance function are [0, 1] for all
+	 * non-class attributes (or the distance isn't normalized at all) -- the
+	 * normalized values are the binary values then, and the ranges aren't
+	 * widened by any tweet.
+	 *
+	 * @param distance the distance function
+	 * @param header the dataset header
+	 * @return true if the ranges are [0, 1], false otherwise
+	 * @throws Exception if the ranges couldn't be determined
+	 */
+	private static boolean hasBinaryRanges(NormalizableDistance distance, Instances header) throws Exception {
+		if (distance.getDontNormalize()) {
+			return true;
+		}
+		double[][] ranges = distance.getRanges();
+		for (int i = 0; i < header.numAttributes(); i++) {
+			if (i == header.classIndex()) {
+				continue;
+			}
+			if (ranges[i][NormalizableDistance.R_MIN] != 0.0 || ranges[i][NormalizableDistance.R_MAX] != 1.0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Creates the per-thread search buffers.
+	 *
+	 * @return the per-thread search buffers
+	 */
+	private ThreadLocal<SearchBuffers> createSearchBuffers() {
+		final int numInstances = numFeatures.length;
+		return new ThreadLocal<SearchBuffers>() {
+			@Override
+			protected SearchBuffers initialValue() {
+				return new SearchBuffers(numInstances);
+			}
+		};
+	}
+
+	/**
+	 * Restores the transient state after deserialization.
+	 *
+	 * @param in the object input stream
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		searchBuffers = createSearchBuffers();
+	}
+
+	/**
+	 * Buffers used by a search (one set per thread).
+	 */
+	private static class SearchBuffers {
+
+		/**
+		 * The number of shared features of each training instance (all 0
+		 * between two searches).
+		 */
+		final int[] counts;
+
+		/**
+		 * The ids of the candidate training instances.
+		 */
+		final int[] candidates;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param numInstances the number of training instances
+		 */
+		SearchBuffers(int numInstances) {
+			counts = new int[numInstances];
+			candidates = new int[numInstances];
+		}
+	}
+}
@@ -0,0 +1,294 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import java.util.Enumeration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import weka.classifiers.functions.SMO;
+import weka.classifiers.functions.supportVector.Kernel;
+import weka.classifiers.functions.supportVector.PolyKernel;
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.filters.Filter;
+
+/**
+ * Weka-free scoring engine for a trained SMO with a linear kernel.
+ *
+ * The pairwise (one-vs-one) SVMs of the SMO are collapsed into per-feature
+ * weights: the decision value of a pair is the decision value of an empty
+ * tweet plus the weights of all active binary features. The data filter of
+ * the SMO (normalize/standardize) is folded into the weights.
+ */
+public class LinearSVMModel implements IWeightedScoringEngine {
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger logger = LogManager.getLogger(LinearSVMModel.class);
+
+	/**
+	 * The number of classes.
+	 */
+	private final int numClasses;
+
+	/**
+	 * The number of pairwise classifiers.
+	 */
+	private final int numPairs;
+
+	/**
+	 * The first class of each pairwise classifier (votes if decision value is
+	 * not positive).
+	 */
+	private final int[] pairFirstClass;
+
+	/**
+	 * The second class of each pairwise classifier (votes if decision value is
+	 * positive).
+	 */
+	private final int[] pairSecondClass;
+
+	/**
+	 * The decision value of each pairwise classifier for an empty tweet.
+	 */
+	private final double[] pairBase;
+
+	/**
+	 * The feature weights (index = attribute index * numPairs + pair).
+	 */
+	private final double[] weights;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param numClasses the number of classes
+	 * @param pairFirstClass the first class of each pairwise classifier
+	 * @param pairSecondClass the second class of each pairwise classifier
+	 * @param pairBase the decision value of each pairwise classifier for an
+	 * empty tweet
+	 * @param weights the feature weights (index = attribute index * number of
+	 * pairs + pair)
+	 */
+	LinearSVMModel(int numClasses, int[] pairFirstClass, int[] pairSecondClass, double[] pairBase, double[] weights) {
+		this.numClasses = numClasses;
+		this.numPairs = pairBase.length;
+		this.pairFirstClass = pairFirstClass;
+		this.pairSecondClass = pairSecondClass;
+		this.pairBase = pairBase;
+		this.weights = weights;
+	}
+
+	/**
+	 * Exports the weights of a trained SMO.
+	 *
+	 * @param smo the trained SMO
+	 * @param header the dataset header the SMO was trained with
+	 * @return the exported scoring engine or null if the SMO can't be
+	 * collapsed into weights (e.g. non-linear kernel, logistic models)
+	 * @throws Exception if the weights couldn't be read from the SMO
+	 */
+	public static LinearSVMModel export(SMO smo, Instances header) throws Exception {
+		if (!isLinearKernel(smo.getKernel())) {
+			logger.info("SMO doesn't use a linear kernel -- cannot export weights");
+			return null;
+		}
+		if (smo.getBuildLogisticModels()) {
+			logger.info("SMO uses logistic models -- cannot export weights");
+			return null;
+		}
+		for (Enumeration<Attribute> e = header.enumerateAttributes(); e.hasMoreElements();) {
+			if (!e.nextElement().isNumeric()) {
+				logger.info("SMO was trained with nominal attributes -- cannot export weights");
+				return null;
+			}
+		}
+
+		// determine the filtered value of each attribute for 0 and 1
+		double[] filteredZero = filterConstantInstance(smo, header, 0.0);
+		double[] filteredOne = filterConstantInstance(smo, header, 1.0);
+
+		int numClasses = header.numClasses();
+		double[][] bias = smo.bias();
+		double[][][] sparseWeights = smo.sparseWeights();
+		int[][][] sparseIndices = smo.sparseIndices();
+
+		// count pairwise classifiers that were trained (both classes may be absent)
+		int numPairs = 0;
+		for (int i = 0; i < numClasses; i++) {
+			for (int j = i + 1; j < numClasses; j++) {
+				if (sparseWeights[i][j] != null) {
+					numPairs++;
+				}
+			}
+		}
+
+		int[] pairFirstClass = new int[numPairs];
+		int[] pairSecondClass = new int[numPairs];
+		double[] pairBase = new double[numPairs];
+		double[] weights = new double[header.numAttributes() * numPairs];
+
+		int pair = 0;
+		for (int i = 0; i < numClasses; i++) {
+			for (int j = i + 1; j < numClasses; j++) {
+				if (sparseWeights[i][j] == null) {
+					continue;
+				}
+				pairFirstClass[pair] = i;
+				pairSecondClass[pair] = j;
+
+				double base = 0.0;
+				for (int k = 0; k < sparseWeights[i][j].length; k++) {
+					int attIndex = sparseIndices[i][j][k];
+					double w = sparseWeights[i][j][k];
+
+					base += w * filteredZero[attIndex];
+					weights[attIndex * numPairs + pair] = w * (filteredOne[attIndex] - filteredZero[attIndex]);
+				}
+				pairBase[pair] = base - bias[i][j];
+
+				pair++;
+			}
+		}
+
+		return new LinearSVMModel(numClasses, pairFirstClass, pairSecondClass, pairBase, weights);
+	}
+
+	/**
+	 * Computes the decision value of each pairwise classifier.
+	 *
+	 * @param featureIds the sorted attribute indices of the active features
+	 * @return the decision value of each pairwise classifier
+	 */
+	public double[] decisionValues(int[] featureIds) {
+		double[] values = new double[numPairs];
+		for (int id : featureIds) {
+			int offset = id * numPairs;
+			for (int p = 0; p < numPairs; p++) {
+				values[p] += weights[offset + p];
+			}
+		}
+		for (int p = 0; p < numPairs; p++) {
+			values[p] += pairBase[p];
+		}
+		return values;
+	}
+
+	/**
+	 * Computes the decision value of each pairwise classifier for a sparse
+	 * feature vector (the data filter of the SMO is linear, so the weight of a
+	 * feature scales with its value).
+	 *
+	 * @param featureIds the sorted attribute indices of the non-zero features
+	 * @param featureValues the values of the non-zero features
+	 * @return the decision value of each pairwise classifier
+	 */
+	public double[] decisionValues(int[] featureIds, double[] featureValues) {
+		double[] values = new double[numPairs];
+		for (int i = 0; i < featureIds.length; i++) {
+			int offset = featureIds[i] * numPairs;
+			double v = featureValues[i];
+			for (int p = 0; p < numPairs; p++) {
+				values[p] += weights[offset + p] * v;
+			}
+		}
+		for (int p = 0; p < numPairs; p++) {
+			values[p] += pairBase[p];
+		}
+		return values;
+	}
+
+	/**
+	 * Determines the class distribution for a set of active (binary)
+	 * features -- each pairwise classifier votes for one of its classes.
+	 *
+	 * @param featureIds the sorted attribute indices of the active features
+	 * @return the probability for each class
+	 */
+	@Override
+	public double[] distributionForFeatures(int[] featureIds) {
+		return vote(decisionValues(featureIds));
+	}
+
+	@Override
+	public double[] distributionForFeatures(int[] featureIds, double[] featureValues) {
+		return vote(decisionValues(featureIds, featureValues));
+	}
+
+	/**
+	 * Estimates the heap size of the engine (the class pairs, biases and
+	 * weights).
+	 *
+	 * @return the estimated size in bytes
+	 */
+	@Override
+	public long estimateSize() {
+		return HeapSize.OBJECT_OVERHEAD + HeapSize.of(pairFirstClass) + HeapSize.of(pairSecondClass)
+				+ HeapSize.of(pairBase) + HeapSize.of(weights);
+	}
+
+	/**
+	 * Determines the class distribution from the decision values -- each
+	 * pairwise classifier votes for one of its classes.
+	 *
+	 * @param values the decision value of each pairwise classifier
+	 * @return the probability for each class
+	 */
+	private double[] vote(double[] values) {
+		double[] result = new double[numClasses];
+		for (int p = 0; p < numPairs; p++) {
+			if (values[p] > 0) {
+				result[pairSecondClass[p]] += 1;
+			} else {
+				result[pairFirstClass[p]] += 1;
+			}
+		}
+
+		double sum = 0.0;
+		for (double r : result) {
+			sum += r;
+		}
+		for (int c = 0; c < numClasses; c++) {
+			result[c] /= sum;
+		}
+		return result;
+	}
+
+	/**
+	 * Checks if the SMO treats a kernel as linear kernel (the SMO then stores
+	 * weight vectors).
+	 *
+	 * @param kernel the kernel to check
+	 * @return true if the kernel is linear, false otherwise
+	 */
+	private static boolean isLinearKernel(Kernel kernel) {
+		return (kernel instanceof PolyKernel) && ((PolyKernel) kernel).getExponent() == 1.0;
+	}
+
+	/**
+	 * Passes an instance with all attributes set to a constant value through
+	 * the data filter of the SMO.
+	 *
+	 * @param smo the trained SMO
+	 * @param header the dataset header the SMO was trained with
+	 * @param value the value of all attributes
+	 * @return the filtered values of all attributes
+	 * @throws Exception if the instance couldn't be filtered
+	 */
+	private static double[] filterConstantInstance(SMO smo, Instances header, double value) throws Exception {
+		double[] values = new double[header.numAttributes()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (i == header.classIndex()) ? 0.0 : value;
+		}
+
+		Filter filter = WekaModelAccess.getField(smo, "m_Filter", Filter.class);
+		if (filter == null) {
+			return values;
+		}
+
+		Instance inst = new Instance(1.0, values);
+		inst.setDataset(header);
+		filter.input(inst);
+		filter.batchFinished();
+		return filter.output().toDoubleArray();
+	}
+}
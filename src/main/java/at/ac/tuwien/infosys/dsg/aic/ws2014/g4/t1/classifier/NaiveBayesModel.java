@@ -0,0 +1,188 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import java.util.Enumeration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import weka.classifiers.bayes.NaiveBayes;
+import weka.core.Attribute;
+import weka.core.Instances;
+import weka.estimators.Estimator;
+
+/**
+ * Weka-free scoring engine for a trained NaiveBayes.
+ *
+ * As all features are binary, the per-attribute estimators of the NaiveBayes
+ * are only ever evaluated for 0 and 1. The log-likelihood of an empty tweet
+ * (all features absent) is precomputed per class, each active feature then
+ * adds the difference between its log-probabilities for 1 and 0.
+ */
+public class NaiveBayesModel implements IScoringEngine {
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger logger = LogManager.getLogger(NaiveBayesModel.class);
+
+	/**
+	 * Lower bound of a single probability factor (same as NaiveBayes).
+	 */
+	private static final double MIN_PROBABILITY = 1e-75;
+
+	/**
+	 * The number of classes.
+	 */
+	private final int numClasses;
+
+	/**
+	 * The log-likelihood of each class for an empty tweet (including the
+	 * class prior).
+	 */
+	private final double[] baseLogLikelihoods;
+
+	/**
+	 * The log-likelihood deltas of the features (index = attribute index *
+	 * numClasses + class).
+	 */
+	private final double[] deltas;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param baseLogLikelihoods the log-likelihood of each class for an empty
+	 * tweet
+	 * @param deltas the log-likelihood deltas of the features (index =
+	 * attribute index * number of classes + class)
+	 */
+	NaiveBayesModel(double[] baseLogLikelihoods, double[] deltas) {
+		this.numClasses = baseLogLikelihoods.length;
+		this.baseLogLikelihoods = baseLogLikelihoods;
+		this.deltas = deltas;
+	}
+
+	/**
+	 * Exports the log-probability tables of a trained NaiveBayes.
+	 *
+	 * @param nb the trained NaiveBayes
+	 * @param header the dataset header the NaiveBayes was trained with
+	 * @return the exported scoring engine or null if the NaiveBayes can't be
+	 * exported (e.g. supervised discretization)
+	 * @throws Exception if the estimators couldn't be read from the NaiveBayes
+	 */
+	public static NaiveBayesModel export(NaiveBayes nb, Instances header) throws Exception {
+		if (nb.getUseSupervisedDiscretization()) {
+			logger.info("NaiveBayes uses supervised discretization -- cannot export probability tables");
+			return null;
+		}
+		for (Enumeration<Attribute> e = header.enumerateAttributes(); e.hasMoreElements();) {
+			if (!e.nextElement().isNumeric()) {
+				logger.info("NaiveBayes was trained with nominal attributes -- cannot export probability tables");
+				return null;
+			}
+		}
+
+		Estimator[][] distributions = WekaModelAccess.getField(nb, "m_Distributions", Estimator[][].class);
+		Estimator classDistribution = WekaModelAccess.getField(nb, "m_ClassDistribution", Estimator.class);
+		Instances instances = WekaModelAccess.getField(nb, "m_Instances", Instances.class);
+
+		int numClasses = header.numClasses();
+		double[] base = new double[numClasses];
+		double[] deltas = new double[header.numAttributes() * numClasses];
+
+		for (int c = 0; c < numClasses; c++) {
+			base[c] = Math.log(classDistribution.getProbability(c));
+		}
+
+		// the estimators are indexed by the position of the attribute among all
+		// non-class attributes (same as NaiveBayes.distributionForInstance)
+		int estIndex = 0;
+		for (Enumeration<Attribute> e = header.enumerateAttributes(); e.hasMoreElements();) {
+			Attribute attr = e.nextElement();
+			double weight = instances.attribute(estIndex).weight();
+			int offset = attr.index() * numClasses;
+
+			for (int c = 0; c < numClasses; c++) {
+				Estimator estimator = distributions[estIndex][c];
+				double logZero = logProbability(estimator, 0.0, weight);
+				double logOne = logProbability(estimator, 1.0, weight);
+				if (Double.isNaN(logZero) || Double.isNaN(logOne)) {
+					logger.info("NaiveBayes estimator returned NaN for attribute '" + attr.name() + "' -- cannot export probability tables");
+					return null;
+				}
+
+				base[c] += logZero;
+				deltas[offset + c] = logOne - logZero;
+			}
+			estIndex++;
+		}
+
+		return new NaiveBayesModel(base, deltas);
+	}
+
+	/**
+	 * Computes the log-likelihood of each class.
+	 *
+	 * @param featureIds the sorted attribute indices of the active features
+	 * @return the log-likelihood of each class
+	 */
+	public double[] logLikelihoods(int[] featureIds) {
+		double[] result = baseLogLikelihoods.clone();
+		for (int id : featureIds) {
+			int offset = id * numClasses;
+			for (int c = 0; c < numClasses; c++) {
+				result[c] += deltas[offset + c];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Determines the class distribution for a set of active (binary)
+	 * features.
+	 *
+	 * @param featureIds the sorted attribute indices of the active features
+	 * @return the probability for each class
+	 */
+	@Override
+	public double[] distributionForFeatures(int[] featureIds) {
+		double[] result = logLikelihoods(featureIds);
+
+		double max = Double.NEGATIVE_INFINITY;
+		for (double l : result) {
+			max = Math.max(max, l);
+		}
+
+		double sum = 0.0;
+		for (int c = 0; c < numClasses; c++) {
+			result[c] = Math.exp(result[c] - max);
+			sum += result[c];
+		}
+		for (int c = 0; c < numClasses; c++) {
+			result[c] /= sum;
+		}
+		return result;
+	}
+
+	/**
+	 * Estimates the heap size of the engine (the base log-likelihoods and
+	 * deltas).
+	 *
+	 * @return the estimated size in bytes
+	 */
+	@Override
+	public long estimateSize() {
+		return HeapSize.OBJECT_OVERHEAD + HeapSize.of(baseLogLikelihoods) + HeapSize.of(deltas);
+	}
+
+	/**
+	 * Computes the log of a single probability factor the way NaiveBayes
+	 * does.
+	 *
+	 * @param estimator the estimator of the attribute and class
+	 * @param value the attribute value
+	 * @param weight the attribute weight
+	 * @return the log-probability
+	 */
+	private static double logProbability(Estimator estimator, double value, double weight) {
+		return Math.log(Math.max(MIN_PROBABILITY, Math.pow(estimator.getProbability(value), weight)));
+	}
+}
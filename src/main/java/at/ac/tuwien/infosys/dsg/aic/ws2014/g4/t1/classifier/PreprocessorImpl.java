@@ -1,9 +1,7 @@
 package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.ListIterator;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -20,28 +18,23 @@ public class PreprocessorImpl implements IPreprocessor {
 	/**
 	 * String that delimits alternatives.
 	 */
-	private static final String ALTERNATIVE_DELIMITER = "/";
+	private static final char ALTERNATIVE_DELIMITER = '/';
 
 	/**
-	 * Pattern for detecting URLs.
+	 * Default max. number of cached spell corrections.
 	 */
-	private static final Pattern URL_PATTERN = Pattern.compile("^((([A-Za-z]{3,9}:(?:\\/\\/)?)(?:[-;:&=\\+\\$,\\w]+@)?[A-Za-z0-9.-]+|(?:www.|[-;:&=\\+\\$,\\w]+@)[A-Za-z0-9.-]+)((?:\\/[\\+~%\\/.\\w_-]*)?\\??(?:[-\\+=&;%@.\\w_]*)#?(?:[\\w/?:@_-]*))?)$");
-	/**
-	 * Pattern which matches words consisting of alpha chars only.
-	 */
-	private static final Pattern ALPHA_CHARS_PATTERN = Pattern.compile("^[A-Za-z]+$");
-	/**
-	 * Pattern for a character being repeated more than 3 times.
-	 */
-	private static final Pattern REPETITIVE_CHAR_PATTERN = Pattern.compile("(\\w)\\1{2,}");
-	/**
-	 * Pattern which matches a string containing only of special chars.
-	 */
-	private static final Pattern NONWORD_CHARS_PATTERN = Pattern.compile("^\\W+$");
+	public static final int DEFAULT_SPELL_CORRECTION_CACHE_SIZE = 10000;
+
 	/**
-	 * Pattern matching for alternatives (e.g. "lunch/dinner").
+	 * The smiley token of each mood (index = Mood ordinal).
 	 */
-	private static final Pattern ALTERNATIVE_PATTERN = Pattern.compile("\\w+(" + ALTERNATIVE_DELIMITER + "\\w+)+");
+	private static final String[] SMILEY_TOKENS = new String[SmileyDictionary.Mood.values().length];
+
+	static {
+		SMILEY_TOKENS[SmileyDictionary.Mood.HAPPY.ordinal()] = SMILEY_HAPPY_TOKEN;
+		SMILEY_TOKENS[SmileyDictionary.Mood.NEUTRAL.ordinal()] = SMILEY_NEUTRAL_TOKEN;
+		SMILEY_TOKENS[SmileyDictionary.Mood.SAD.ordinal()] = SMILEY_SAD_TOKEN;
+	}
 
 	/**
 	 * Dictionary used for stopword removal.
@@ -61,265 +54,566 @@ public class PreprocessorImpl implements IPreprocessor {
 	private final SpellDictionary spellDictionary = SpellDictionary.getInstance();
 
 	/**
-	 * Tokenizer used to tokenize an expanded abbreviation.
+	 * Cache for spell corrections (null if disabled).
+	 */
+	private final SpellCorrectionCache spellCorrectionCache;
+
+	/**
+	 * Engine used for spelling suggestions.
+	 */
+	private final SpellDictionary.SuggestionEngine suggestionEngine;
+
+	/**
+	 * The token table.
+	 */
+	private final TokenTable tokenTable = TokenTable.getInstance();
+
+	/**
+	 * The profile used if no profile is given.
+	 */
+	private final Profile defaultProfile;
+
+	/**
+	 * Per-thread buffer holding the raw tokens of the tweet being
+	 * preprocessed.
+	 */
+	private final ThreadLocal<List<String>> inputBuffer = new ThreadLocal<List<String>>() {
+		@Override
+		protected List<String> initialValue() {
+			return new ArrayList<>();
+		}
+	};
+
+	/**
+	 * Constructor.
 	 */
-	private final ITokenizer tokenizer = new TokenizerImpl();
+	public PreprocessorImpl() {
+		this(DEFAULT_SPELL_CORRECTION_CACHE_SIZE);
+	}
 
 	/**
-	 * Performs the preprocessing step.
+	 * Constructor.
 	 *
-	 * @param tokens the list of raw tokens that will be manipulated by the
-	 * preprocessor.
+	 * @param spellCorrectionCacheSize max. number of cached spell corrections
+	 * (0 = disable the cache)
 	 */
-	@Override
-	public void preprocess(List<String> tokens) {
-		logger.debug("* Preprocessing tweet:");
+	public PreprocessorImpl(int spellCorrectionCacheSize) {
+		this(spellCorrectionCacheSize, SpellDictionary.SuggestionEngine.JAZZY);
+	}
 
-		ListIterator<String> iterator = tokens.listIterator();
-		String word, normalizedWord;
+	/**
+	 * Constructor.
+	 *
+	 * @param spellCorrectionCacheSize max. number of cached spell corrections
+	 * (0 = disable the cache)
+	 * @param suggestionEngine engine used for spelling suggestions
+	 */
+	public PreprocessorImpl(int spellCorrectionCacheSize, SpellDictionary.SuggestionEngine suggestionEngine) {
+		this(spellCorrectionCacheSize, suggestionEngine, Profile.FULL);
+	}
 
-		while (iterator.hasNext()) {
-			word = iterator.next();
-			normalizedWord = normalize(word);
+	/**
+	 * Constructor.
+	 *
+	 * @param spellCorrectionCacheSize max. number of cached spell corrections
+	 * (0 = disable the cache)
+	 * @param suggestionEngine engine used for spelling suggestions
+	 * @param defaultProfile the profile used if no profile is given
+	 */
+	public PreprocessorImpl(int spellCorrectionCacheSize, SpellDictionary.SuggestionEngine suggestionEngine, Profile defaultProfile) {
+		if (spellCorrectionCacheSize < 0) {
+			throw new IllegalArgumentException("spell correction cache size must not be negative");
+		}
+		this.spellCorrectionCache = (spellCorrectionCacheSize > 0) ? new SpellCorrectionCache(spellCorrectionCacheSize) : null;
+		this.suggestionEngine = suggestionEngine;
+		this.defaultProfile = defaultProfile;
 
-			logger.debug("  - preprocess token '" + word + "'");
+		if (suggestionEngine == SpellDictionary.SuggestionEngine.SYMMETRIC_DELETE) {
+			// build the index now instead of delaying the first tweet
+			spellDictionary.getSymmetricDeleteIndex();
+		}
+	}
 
-			// (1) remove token if it's a stopword
-			if (stopwordsDictionary.contains(normalizedWord)) {
-				logger.debug("     --> stopword detected, remove it.");
+	/**
+	 * Returns the cache for spell corrections.
+	 *
+	 * @return the cache or null if the cache is disabled.
+	 */
+	public SpellCorrectionCache getSpellCorrectionCache() {
+		return spellCorrectionCache;
+	}
 
-				iterator.remove();
-				continue;
-			}
+	@Override
+	public Profile getDefaultProfile() {
+		return defaultProfile;
+	}
 
-			// (2) replace URLs
-			if (isURL(word)) {
-				logger.debug("     --> URL detected, replace it with URL-token.");
+	/**
+	 * Performs the preprocessing step using the default profile.
+	 *
+	 * @param tokens the list of raw tokens that will be manipulated by the
+	 * preprocessor.
+	 */
+	@Override
+	public void preprocess(List<String> tokens) {
+		preprocess(tokens, defaultProfile);
+	}
 
-				iterator.set(URL_TOKEN);
-				continue;
-			}
+	@Override
+	public String preprocessText(String text, Profile profile) {
+		if (!profile.includes(Stage.SMILEYS)) {
+			return text;
+		}
+		// replace smileys before tokenization, the tokenizer might split them
+		return smileyDictionary.getScanner().replace(text, SMILEY_TOKENS);
+	}
 
-			// (3) replace usernames
-			if (isUsername(word)) {
-				logger.debug("     --> username detected, replace it with username-token.");
+	/**
+	 * Performs the preprocessing step using a given profile.
+	 *
+	 * The raw tokens are moved to a per-thread input buffer and the accepted,
+	 * replaced or expanded tokens are appended to the (cleared) token list --
+	 * no elements are shifted and no buffers are allocated per tweet.
+	 *
+	 * @param tokens the list of raw tokens that will be manipulated by the
+	 * preprocessor.
+	 * @param profile the preprocessing profile
+	 */
+	@Override
+	public void preprocess(List<String> tokens, Profile profile) {
+		boolean debug = logger.isDebugEnabled();
+		if (debug) {
+			logger.debug("* Preprocessing tweet:");
+		}
 
-				iterator.set(USERNAME_TOKEN);
-				continue;
+		List<String> input = inputBuffer.get();
+		input.addAll(tokens);
+		tokens.clear();
+
+		try {
+			ITokenSink output = new TokenListSink(tokens);
+			for (int i = 0; i < input.size(); i++) {
+				String word = input.get(i);
+				int tokenId = tokenTable.idOf(word);
+				int lowerCaseTokenId = TokenSpans.isLowerCaseAscii(word, 0, word.length())
+						? tokenId : tokenTable.idOf(word, 0, word.length(), true);
+				preprocessToken(word, 0, word.length(), TokenClassifier.classify(word), tokenId, lowerCaseTokenId,
+						profile, output, debug);
 			}
+		} finally {
+			input.clear();
+		}
+	}
 
-			// (4) keep hashtags
-			if (isHashtag(word)) {
-				continue;
-			}
+	/**
+	 * Performs the preprocessing step on tokens given as spans using a given
+	 * profile.
+	 *
+	 * Dictionary lookups work on the spans, strings are only created for the
+	 * tokens appended to the token list (removed and replaced tokens are
+	 * never copied).
+	 *
+	 * @param spans the raw tokens
+	 * @param tokens the list to append the resulting tokens to
+	 * @param profile the preprocessing profile
+	 */
+	@Override
+	public void preprocess(TokenSpans spans, List<String> tokens, Profile profile) {
+		preprocess(spans, new TokenListSink(tokens), profile);
+	}
 
-			// (5) replace smileys with tokens
-			if (smileyDictionary.contains(word)) {
-				SmileyDictionary.Mood mood = smileyDictionary.getMood(word);
-				String token;
-				switch (mood) {
-					case HAPPY:
-						token = SMILEY_HAPPY_TOKEN;
-						break;
-					case NEUTRAL:
-						token = SMILEY_NEUTRAL_TOKEN;
-						break;
-					case SAD:
-						token = SMILEY_SAD_TOKEN;
-						break;
-					default:
-						/* NOTREACHED */
-						assert false;
-						continue;
-				}
+	/**
+	 * Performs the preprocessing step on tokens given as spans using a given
+	 * profile.
+	 *
+	 * Tokens that are kept or normalized are passed to the sink as spans, so
+	 * a sink mapping tokens to features doesn't need any strings. Dictionary
+	 * lookups use the TokenTable ids of the spans.
+	 *
+	 * @param spans the raw tokens
+	 * @param sink the sink receiving the resulting tokens
+	 * @param profile the preprocessing profile
+	 */
+	@Override
+	public void preprocess(TokenSpans spans, ITokenSink sink, Profile profile) {
+		boolean debug = logger.isDebugEnabled();
+		if (debug) {
+			logger.debug("* Preprocessing tweet:");
+		}
 
-				logger.debug("     --> smiley detected, replace it with " + mood + " smiley token");
+		CharSequence text = spans.getText();
+		for (int i = 0; i < spans.size(); i++) {
+			preprocessToken(text, spans.getStart(i), spans.getEnd(i), spans.getType(i), spans.getTokenId(i),
+					spans.getLowerCaseTokenId(i), profile, sink, debug);
+		}
+	}
 
-				iterator.set(token);
+	/**
+	 * Preprocesses a single raw token by passing it through the stages of a
+	 * profile.
+	 *
+	 * @param text the text containing the raw token
+	 * @param start the start of the token in the text (inclusive)
+	 * @param end the end of the token in the text (exclusive)
+	 * @param type the flags of the token
+	 * @param tokenId the TokenTable id of the token
+	 * @param lowerCaseTokenId the TokenTable id of the lower-cased token
+	 * @param profile the preprocessing profile
+	 * @param output the sink receiving the resulting tokens
+	 * @param debug whether debug logging is enabled
+	 */
+	private void preprocessToken(CharSequence text, int start, int end, int type, int tokenId, int lowerCaseTokenId,
+			Profile profile, ITokenSink output, boolean debug) {
+		if (debug) {
+			logger.debug("  - preprocess token '" + text.subSequence(start, end) + "'");
+		}
 
-				continue;
+		for (int i = 0; i < profile.getNumStages(); i++) {
+			if (applyStage(profile.getStage(i), text, start, end, type, tokenId, lowerCaseTokenId, output, debug)) {
+				return;
 			}
+		}
 
-			// (6) replace abbreviations
-			if (abbreviationsDictionary.contains(word)) {
-				String longForm = abbreviationsDictionary.getLongForm(word);
+		// normalize the token
+		if (TokenSpans.isAscii(text, start, end)) {
+			output.add(text, start, end, true, lowerCaseTokenId);
+		} else {
+			output.add(normalize(token(text, start, end)));
+		}
+	}
 
-				logger.debug("     --> abbreviation detected, replace it with tokens for '" + longForm + "'.");
+	/**
+	 * Applies a preprocessing stage to a raw token.
+	 *
+	 * @param stage the stage to apply
+	 * @param text the text containing the raw token
+	 * @param start the start of the token in the text (inclusive)
+	 * @param end the end of the token in the text (exclusive)
+	 * @param type the flags of the token
+	 * @param tokenId the TokenTable id of the token
+	 * @param lowerCaseTokenId the TokenTable id of the lower-cased token
+	 * @param output the sink receiving the resulting tokens
+	 * @param debug whether debug logging is enabled
+	 * @return true if the stage handled (i.e. removed, replaced or kept) the
+	 * token, false if the token is passed to the next stage
+	 */
+	private boolean applyStage(Stage stage, CharSequence text, int start, int end, int type, int tokenId,
+			int lowerCaseTokenId, ITokenSink output, boolean debug) {
+		switch (stage) {
+			case STOPWORDS:
+				// (1) remove token if it's a stopword
+				if (stopwordsDictionary.contains(lowerCaseTokenId)) {
+					if (debug) {
+						logger.debug("     --> stopword detected, remove it.");
+					}
+					return true;
+				}
+				return false;
 
-				iterator.remove();
+			case URLS:
+				// (2) replace URLs
+				if (TokenClassifier.is(type, TokenClassifier.URL)) {
+					if (debug) {
+						logger.debug("     --> URL detected, replace it with URL-token.");
+					}
+					output.add(URL_TOKEN);
+					return true;
+				}
+				return false;
 
-				// add tokens for the words in long form
-				for (String ad : tokenizer.tokenize(longForm)) {
-					iterator.add(ad);
+			case USERNAMES:
+				// (3) replace usernames
+				if (TokenClassifier.is(type, TokenClassifier.USERNAME)) {
+					if (debug) {
+						logger.debug("     --> username detected, replace it with username-token.");
+					}
+					output.add(USERNAME_TOKEN);
+					return true;
 				}
-				continue;
-			}
+				return false;
 
-			// (7) remove token if it consists of special chars only
-			if (containsNonWordCharsOnly(word)) {
-				logger.debug("     --> token consisting of non-word characters only, remove it.");
-				iterator.remove();
-				continue;
-			}
+			case HASHTAGS:
+				// (4) keep hashtags
+				if (TokenClassifier.is(type, TokenClassifier.HASHTAG)) {
+					output.add(text, start, end, false, tokenId);
+					return true;
+				}
+				return false;
 
-			// (8) replace alternatives (e.g. lunch/dinner) with single words
-			if (isAlternative(word)) {
-				logger.debug("     --> alternative string detected, split it up.");
-				iterator.remove();
+			case SMILEYS:
+				// (5) replace smileys with tokens (keep smileys replaced in the text)
+				String smileyToken = findSmileyToken(text, start, end);
+				if (smileyToken != null) {
+					output.add(smileyToken);
+					return true;
+				}
+				SmileyDictionary.Mood mood = smileyDictionary.getMood(tokenId);
+				if (mood != null) {
+					String token;
+					switch (mood) {
+						case HAPPY:
+							token = SMILEY_HAPPY_TOKEN;
+							break;
+						case NEUTRAL:
+							token = SMILEY_NEUTRAL_TOKEN;
+							break;
+						case SAD:
+							token = SMILEY_SAD_TOKEN;
+							break;
+						default:
+							/* NOTREACHED */
+							assert false;
+							output.add(text, start, end, false, tokenId);
+							return true;
+					}
+
+					if (debug) {
+						logger.debug("     --> smiley detected, replace it with " + mood + " smiley token");
+					}
+					output.add(token);
+					return true;
+				}
+				return false;
 
-				String[] alternatives = word.split((ALTERNATIVE_DELIMITER));
-				for (String alternative : alternatives) {
-					iterator.add(alternative);
+			case ABBREVIATIONS:
+				// (6) replace abbreviations
+				List<String> longForm = abbreviationsDictionary.getLongFormTokens(lowerCaseTokenId);
+				if (longForm != null) {
+					if (debug) {
+						logger.debug("     --> abbreviation detected, replace it with tokens " + longForm + ".");
+					}
+
+					// add (pre-tokenized) words of long form
+					for (String token : longForm) {
+						output.add(token);
+					}
+					return true;
 				}
-				continue;
-			}
+				return false;
 
-			// (9) spell correction
-			if (word.length() >= 3 // ignore words that consist of less than 3 chars
-					&& containsLettersOnly(word) // ignore words that don't consist of letters only
-					&& !containsUpperCharsOnly(word) // ignore words that consist of upper-case letters only
-					&& !spellDictionary.contains(word)) {
-				String correction;
-
-				// try to find a correction for word by condense multiple characters
-				correction = findRepetitiveCharCorrection(word);
-				if (correction != null) {
-					String replacement = normalize(correction);
-					logger.debug("     --> word with more than 3 repetitive chars detected, replace it with '" + replacement + "'");
-
-					iterator.set(replacement);
-					continue;
+			case NONWORD_TOKENS:
+				// (7) remove token if it consists of special chars only
+				if (TokenClassifier.is(type, TokenClassifier.NONWORD)) {
+					if (debug) {
+						logger.debug("     --> token consisting of non-word characters only, remove it.");
+					}
+					return true;
 				}
+				return false;
 
-				// try to get a spell correction suggestion
-				correction = spellDictionary.getSuggestion(word);
-				if (correction != null) {
-					String replacement = normalize(correction);
-					logger.debug("     --> misspelled word detected, replace it with '" + replacement + "'");
+			case ALTERNATIVES:
+				// (8) replace alternatives (e.g. lunch/dinner) with single words
+				if (TokenClassifier.is(type, TokenClassifier.ALTERNATIVE)) {
+					if (debug) {
+						logger.debug("     --> alternative string detected, split it up.");
+					}
+
+					int from = start;
+					for (int i = start; i < end; i++) {
+						if (text.charAt(i) == ALTERNATIVE_DELIMITER) {
+							output.add(text, from, i, false, tokenTable.idOf(text, from, i, false));
+							from = i + 1;
+						}
+					}
+					output.add(text, from, end, false, tokenTable.idOf(text, from, end, false));
+					return true;
+				}
+				return false;
 
-					iterator.set(replacement);
-					continue;
+			case SPELL_CORRECTION:
+				// (9) spell correction
+				if (end - start >= 3 // ignore words that consist of less than 3 chars
+						&& TokenClassifier.is(type, TokenClassifier.ALPHA) // ignore words that don't consist of letters only
+						&& !TokenClassifier.is(type, TokenClassifier.UPPER)) { // ignore words that consist of upper-case letters only
+					String word = token(text, start, end);
+					if (!spellDictionary.contains(word)) {
+						String replacement = findCachedCorrection(word, type);
+						if (replacement != null) {
+							if (debug) {
+								logger.debug("     --> misspelled word detected, replace it with '" + replacement + "'");
+							}
+							output.add(replacement);
+							return true;
+						}
+					}
 				}
-			}
+				return false;
 
-			// normalize the token
-			iterator.set(normalizedWord);
+			default:
+				return false;
 		}
 	}
 
 	/**
-	 * Checks if a given string is an URL.
+	 * Tries to find a correction for a misspelled word -- looks up the cache
+	 * first.
 	 *
-	 * @param str the string to check
-	 * @return true if the string is an URL, false otherwise.
+	 * @param word the misspelled word
+	 * @param type the flags of the word
+	 * @return the normalized correction or null if no correction found
 	 */
-	private boolean isURL(String str) {
-		Matcher m = URL_PATTERN.matcher(str);
-		return m.matches();
+	private String findCachedCorrection(String word, int type) {
+		if (spellCorrectionCache == null) {
+			return findCorrection(word, type);
+		}
+
+		String replacement = spellCorrectionCache.get(word);
+		if (replacement == null) {
+			replacement = findCorrection(word, type);
+			spellCorrectionCache.put(word, (replacement != null) ? replacement : SpellCorrectionCache.NO_CORRECTION);
+		} else if (replacement.equals(SpellCorrectionCache.NO_CORRECTION)) {
+			replacement = null;
+		}
+		return replacement;
 	}
 
 	/**
-	 * Checks if a given string is a mentioned Twitter username (starting with @).
+	 * Tries to find a correction for a misspelled word.
 	 *
-	 * @param str the string to check
-	 * @return true if the string is a mentioned Twitter username, false
-	 * otherwise.
+	 * @param word the misspelled word
+	 * @param type the flags of the word
+	 * @return the normalized correction or null if no correction found
 	 */
-	private boolean isUsername(String str) {
-		return str.length() > 1 && str.startsWith("@");
+	private String findCorrection(String word, int type) {
+		// try to find a correction for word by condense multiple characters
+		String correction = TokenClassifier.is(type, TokenClassifier.REPETITIVE) ? findRepetitiveCharCorrection(word) : null;
+		if (correction == null) {
+			// try to get a spell correction suggestion
+			correction = spellDictionary.getSuggestion(word, suggestionEngine);
+		}
+		return (correction != null) ? normalize(correction) : null;
 	}
 
 	/**
-	 * Checks if a given string is a Twitter hash tag (starting with #).
+	 * Tries to find a correction by collapsing runs of repetitive characters
+	 * (e.g. looooserrrrr => loser).
+	 *
+	 * All combinations of run lengths forming a dictionary word are found by
+	 * a single walk of the dictionary trie. Collapsing all elongated runs to
+	 * one char is preferred, then collapsing all of them to two chars, then
+	 * the first mixed combination.
 	 *
-	 * @param str the string to check
-	 * @return true if the string is a Twitter hashtag, false otherwise
+	 * @param str the string to find corrections for
+	 * @return the correction or null if no correction found
 	 */
-	private boolean isHashtag(String str) {
-		return str.length() > 1 && str.startsWith("#");
+	private String findRepetitiveCharCorrection(String str) {
+		DictionaryTrie trie = spellDictionary.getDictionaryTrie();
+		if (trie == null) {
+			return null;
+		}
+
+		List<String> variants = trie.findCollapsedVariants(str);
+		if (variants.size() <= 1) {
+			return variants.isEmpty() ? null : variants.get(0);
+		}
+		String collapsedToOne = collapseElongatedRuns(str, 1);
+		if (variants.contains(collapsedToOne)) {
+			return collapsedToOne;
+		}
+		String collapsedToTwo = collapseElongatedRuns(str, 2);
+		if (variants.contains(collapsedToTwo)) {
+			return collapsedToTwo;
+		}
+		return variants.get(0);
 	}
 
 	/**
-	 * Checks if a given string consists of alpha chars only.
+	 * Replaces each run of three or more repetitive word characters by a given
+	 * number of characters.
 	 *
-	 * @param str the string to check
-	 * @return true if the string consists of alpha chars only, false otherwise
+	 * @param str the string
+	 * @param count the number of characters replacing a run
+	 * @return the collapsed string
 	 */
-	private boolean containsLettersOnly(String str) {
-		Matcher m = ALPHA_CHARS_PATTERN.matcher(str);
-		return m.matches();
+	private static String collapseElongatedRuns(String str, int count) {
+		StringBuilder sb = new StringBuilder(str.length());
+		int pos = 0;
+		while (pos < str.length()) {
+			char c = str.charAt(pos);
+			int end = pos + 1;
+			while (end < str.length() && str.charAt(end) == c) {
+				end++;
+			}
+			int run = end - pos;
+			if (run >= DictionaryTrie.MIN_ELONGATED_RUN && DictionaryTrie.isWordChar(c)) {
+				run = count;
+			}
+			for (int i = 0; i < run; i++) {
+				sb.append(c);
+			}
+			pos = end;
+		}
+		return sb.toString();
 	}
 
 	/**
-	 * Checks if a given string consists of upper-case chars only.
+	 * Returns the smiley token a token is equal to.
 	 *
-	 * @param str the string to check
-	 * @return true if the string consists of upper-case chars only, false
-	 * otherwise
+	 * @param text the text containing the token
+	 * @param start the start of the token in the text (inclusive)
+	 * @param end the end of the token in the text (exclusive)
+	 * @return the smiley token or null if the token isn't a smiley token
 	 */
-	private boolean containsUpperCharsOnly(String str) {
-		for (char c : str.toCharArray()) {
-			if (!Character.isUpperCase(c)) {
-				return false;
+	private static String findSmileyToken(CharSequence text, int start, int end) {
+		for (String smileyToken : SMILEY_TOKENS) {
+			if (TokenSpans.regionEquals(smileyToken, text, start, end, false)) {
+				return smileyToken;
 			}
 		}
-		return true;
+		return null;
 	}
 
 	/**
-	 * Checks if a given string contains of non-word characters only.
+	 * Returns a token as a string (the text itself if the token spans the
+	 * whole text string).
 	 *
-	 * @param str the string to check
-	 * @return true if the string consists of non-word chars only, false
-	 * otherwise
+	 * @param text the text containing the token
+	 * @param start the start of the token in the text (inclusive)
+	 * @param end the end of the token in the text (exclusive)
+	 * @return the token
 	 */
-	private boolean containsNonWordCharsOnly(String str) {
-		Matcher m = NONWORD_CHARS_PATTERN.matcher(str);
-		return m.matches();
+	private static String token(CharSequence text, int start, int end) {
+		return text.subSequence(start, end).toString();
 	}
 
 	/**
-	 * Checks if a string expresses an alternative (e.g. lunch/dinner)
+	 * Performs normalization of a token.
 	 *
-	 * @param str the string to check
-	 * @return
+	 * @param str the string to normalize
+	 * @return the normalized string.
 	 */
-	private boolean isAlternative(String str) {
-		Matcher m = ALTERNATIVE_PATTERN.matcher(str);
-		return m.matches();
+	private String normalize(String str) {
+		return str.toLowerCase();
 	}
 
 	/**
-	 * Tries to find a correction by replacing repetitive characters.
-	 *
-	 * @param str the string to find corrections for
-	 * @return the correction or null if no correction found
+	 * Sink appending the resulting tokens to a list.
 	 */
-	private String findRepetitiveCharCorrection(String str) {
-		String correctedStr;
-
-		// TODO: try all combinations for one/two chars (e.g. looooserrrrr => loser, looserr, loserr, looser)
-		
-		correctedStr = REPETITIVE_CHAR_PATTERN.matcher(str).replaceAll("$1");
-		if (spellDictionary.contains(correctedStr)) {
-			return correctedStr;
+	private static final class TokenListSink implements ITokenSink {
+
+		/**
+		 * The list to append the tokens to.
+		 */
+		private final List<String> tokens;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param tokens the list to append the tokens to
+		 */
+		TokenListSink(List<String> tokens) {
+			this.tokens = tokens;
 		}
 
-		correctedStr = REPETITIVE_CHAR_PATTERN.matcher(str).replaceAll("$1$1");
-		if (spellDictionary.contains(correctedStr)) {
-			return correctedStr;
+		@Override
+		public void add(String token) {
+			tokens.add(token);
 		}
 
-		return null;
-	}
-
-	/**
-	 * Performs normalization of a token.
-	 *
-	 * @param str the string to normalize
-	 * @return the normalized string.
-	 */
-	private String normalize(String str) {
-		return str.toLowerCase();
+		@Override
+		public void add(CharSequence text, int start, int end, boolean lowerCase, int tokenId) {
+			String token = token(text, start, end);
+			tokens.add(lowerCase ? token.toLowerCase() : token);
+		}
 	}
 }
@@ -62,9 +62,9 @@ public class SentiWordNetDictionary implements IDictionary {
 	private final HashMap<String, Double> dictionary = new HashMap<>();
 
 	/**
-	 * The singleton instance.
+	 * The singleton instance (published once it's loaded).
 	 */
-	private static SentiWordNetDictionary instance = null;
+	private static volatile SentiWordNetDictionary instance = null;
 
 	/**
 	 * Constructor.
@@ -73,27 +73,37 @@ public class SentiWordNetDictionary implements IDictionary {
 	}
 
 	/**
-	 * Returns the stopwords dictionary instance.
+	 * Returns the SentiWordNet dictionary instance.
 	 *
-	 * @return the stopwords dictionary instance.
+	 * @return the SentiWordNet dictionary instance.
 	 */
 	public static SentiWordNetDictionary getInstance() {
-		if (instance == null) {
-			init();
+		SentiWordNetDictionary dict = instance;
+		if (dict == null) {
+			synchronized (SentiWordNetDictionary.class) {
+				dict = instance;
+				if (dict == null) {
+					dict = load();
+					instance = dict;
+				}
+			}
 		}
-		return instance;
+		return dict;
 	}
 
 	/**
-	 * Performs initialization of the stopwords dictionary.
+	 * Loads the SentiWordNet dictionary.
+	 *
+	 * @return the SentiWordNet dictionary (empty if it couldn't be loaded)
 	 */
-	private static void init() {
-		instance = new SentiWordNetDictionary();
+	private static SentiWordNetDictionary load() {
+		SentiWordNetDictionary dict = new SentiWordNetDictionary();
 		try {
-			instance.loadDictionaryResource(DICT_FILE_RESOURCE);
+			dict.loadDictionaryResource(DICT_FILE_RESOURCE);
 		} catch (IOException ex) {
-			logger.error("Couldn't load stopwords dictionary file", ex);
+			logger.error("Couldn't load SentiWordNet dictionary file", ex);
 		}
+		return dict;
 	}
 
 	/**
@@ -224,6 +234,16 @@ public class SentiWordNetDictionary implements IDictionary {
 		return false;
 	}
 
+	/**
+	 * Returns the number of word/position entries in the dictionary.
+	 *
+	 * @return the number of entries.
+	 */
+	@Override
+	public int size() {
+		return dictionary.size();
+	}
+
 	/**
 	 * Checks if a given word/position is present in the dictionary.
 	 *
@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.HashMap;
+import java.util.Map;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -59,9 +60,19 @@ public class SmileyDictionary implements IDictionary {
 	private final HashMap<String, Mood> dictionary = new HashMap<>();
 
 	/**
-	 * The singleton instance.
+	 * Scanner finding the smileys in raw text (built after loading).
 	 */
-	private static SmileyDictionary instance = null;
+	private EmoticonScanner scanner = new EmoticonScanner(dictionary);
+
+	/**
+	 * The mood of each smiley by its TokenTable id (built after loading).
+	 */
+	private Mood[] moods = new Mood[0];
+
+	/**
+	 * The singleton instance (published once it's loaded).
+	 */
+	private static volatile SmileyDictionary instance = null;
 
 	/**
 	 * Constructor.
@@ -70,27 +81,37 @@ public class SmileyDictionary implements IDictionary {
 	}
 
 	/**
-	 * Returns the abbreviations dictionary instance.
+	 * Returns the smiley dictionary instance.
 	 *
-	 * @return the abbreviations dictionary instance.
+	 * @return the smiley dictionary instance.
 	 */
 	public static SmileyDictionary getInstance() {
-		if (instance == null) {
-			init();
+		SmileyDictionary dict = instance;
+		if (dict == null) {
+			synchronized (SmileyDictionary.class) {
+				dict = instance;
+				if (dict == null) {
+					dict = load();
+					instance = dict;
+				}
+			}
 		}
-		return instance;
+		return dict;
 	}
 
 	/**
-	 * Performs init of the abbreviations dictionary.
+	 * Loads the smiley dictionary.
+	 *
+	 * @return the smiley dictionary (empty if it couldn't be loaded)
 	 */
-	private static void init() {
-		instance = new SmileyDictionary();
+	private static SmileyDictionary load() {
+		SmileyDictionary dict = new SmileyDictionary();
 		try {
-			instance.loadDictionaryResource(DICT_FILE_RESOURCE);
+			dict.loadDictionaryResource(DICT_FILE_RESOURCE);
 		} catch (IOException ex) {
 			logger.error("Couldn't load smiley dictionary file", ex);
 		}
+		return dict;
 	}
 
 	/**
@@ -106,6 +127,8 @@ public class SmileyDictionary implements IDictionary {
 			throw new FileNotFoundException("Smiley dictionary resource '" + resourceName + "' doesn't exist.");
 		} else {
 			loadDictionary(is);
+			scanner = new EmoticonScanner(dictionary);
+			moods = internEntries();
 		}
 	}
 
@@ -139,6 +162,28 @@ public class SmileyDictionary implements IDictionary {
 		}
 	}
 
+	/**
+	 * Interns all smileys in the token table.
+	 *
+	 * @return the mood of each smiley by its id
+	 */
+	private Mood[] internEntries() {
+		TokenTable tokenTable = TokenTable.getInstance();
+		HashMap<Integer, Mood> ids = new HashMap<>();
+		int maxId = -1;
+		for (Map.Entry<String, Mood> entry : dictionary.entrySet()) {
+			int id = tokenTable.intern(entry.getKey());
+			ids.put(id, entry.getValue());
+			maxId = Math.max(maxId, id);
+		}
+
+		Mood[] moodsById = new Mood[maxId + 1];
+		for (Map.Entry<Integer, Mood> entry : ids.entrySet()) {
+			moodsById[entry.getKey()] = entry.getValue();
+		}
+		return moodsById;
+	}
+
 	/**
 	 * Checks whether a given string is a known smiley.
 	 *
@@ -151,6 +196,11 @@ public class SmileyDictionary implements IDictionary {
 		return dictionary.containsKey(smiley);
 	}
 
+	@Override
+	public int size() {
+		return dictionary.size();
+	}
+
 	/**
 	 * Returns the mood for a smiley.
 	 *
@@ -160,4 +210,38 @@ public class SmileyDictionary implements IDictionary {
 	public Mood getMood(String smiley) {
 		return dictionary.get(smiley);
 	}
+
+	/**
+	 * Returns the mood for a token span (same as getMood(token), but without
+	 * creating a string).
+	 *
+	 * @param text the text
+	 * @param start the start of the token in the text (inclusive)
+	 * @param end the end of the token in the text (exclusive)
+	 * @return the mood value, or null if the token is not a known smiley
+	 */
+	public Mood getMood(CharSequence text, int start, int end) {
+		return getMood(TokenTable.getInstance().idOf(text, start, end, false));
+	}
+
+	/**
+	 * Returns the mood for a token given by its TokenTable id (same as
+	 * getMood(token)).
+	 *
+	 * @param tokenId the id of the token (TokenTable.NOT_FOUND if the token
+	 * isn't interned)
+	 * @return the mood value, or null if the token is not a known smiley
+	 */
+	public Mood getMood(int tokenId) {
+		return (tokenId >= 0 && tokenId < moods.length) ? moods[tokenId] : null;
+	}
+
+	/**
+	 * Returns the scanner finding the smileys in raw text.
+	 *
+	 * @return the smiley scanner.
+	 */
+	public EmoticonScanner getScanner() {
+		return scanner;
+	}
 }
@@ -0,0 +1,207 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, thread-safe cache for spell correction results (keyed by the raw
+ * token).
+ *
+ * The cache is split into independently locked segments, each evicting its
+ * least recently used entries -- so concurrent preprocessing threads rarely
+ * contend for the same lock.
+ */
+public class SpellCorrectionCache {
+
+	/**
+	 * Value cached for tokens without correction (corrections are never
+	 * empty).
+	 */
+	public static final String NO_CORRECTION = "";
+
+	/**
+	 * Number of segments (power of two).
+	 */
+	private static final int NUM_SEGMENTS = 16;
+
+	/**
+	 * The segments.
+	 */
+	private final Segment[] segments;
+
+	/**
+	 * The max. number of cached tokens.
+	 */
+	private final int capacity;
+
+	/**
+	 * Number of lookups that found a cached result.
+	 */
+	private final AtomicLong hits = new AtomicLong();
+
+	/**
+	 * Number of lookups that didn't find a cached result.
+	 */
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Number of evicted results.
+	 */
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity the max. number of cached tokens (rounded up to a
+	 * multiple of the number of segments)
+	 */
+	public SpellCorrectionCache(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be at least 1");
+		}
+		int segmentCapacity = (capacity + NUM_SEGMENTS - 1) / NUM_SEGMENTS;
+		this.capacity = segmentCapacity * NUM_SEGMENTS;
+		this.segments = new Segment[NUM_SEGMENTS];
+		for (int i = 0; i < NUM_SEGMENTS; i++) {
+			segments[i] = new Segment(segmentCapacity);
+		}
+	}
+
+	/**
+	 * Returns the cached correction of a token.
+	 *
+	 * @param token the raw token
+	 * @return the correction, NO_CORRECTION if the token has no correction or
+	 * null if no result is cached
+	 */
+	public String get(String token) {
+		Segment segment = segmentFor(token);
+		String correction;
+		synchronized (segment) {
+			correction = segment.get(token);
+		}
+		if (correction != null) {
+			hits.incrementAndGet();
+		} else {
+			misses.incrementAndGet();
+		}
+		return correction;
+	}
+
+	/**
+	 * Caches the correction of a token.
+	 *
+	 * @param token the raw token
+	 * @param correction the correction or NO_CORRECTION if the token has no
+	 * correction
+	 */
+	public void put(String token, String correction) {
+		Segment segment = segmentFor(token);
+		synchronized (segment) {
+			segment.put(token, correction);
+		}
+	}
+
+	/**
+	 * Returns the number of cached tokens.
+	 *
+	 * @return the number of cached tokens.
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the max. number of cached tokens.
+	 *
+	 * @return the max. number of cached tokens.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of lookups that found a cached result.
+	 *
+	 * @return the number of hits.
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of lookups that didn't find a cached result.
+	 *
+	 * @return the number of misses.
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Returns the number of evicted results.
+	 *
+	 * @return the number of evictions.
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * Returns the segment of a token.
+	 *
+	 * @param token the token
+	 * @return the segment
+	 */
+	private Segment segmentFor(String token) {
+		return segments[TokenTable.mix(token.hashCode()) & (NUM_SEGMENTS - 1)];
+	}
+
+	@Override
+	public String toString() {
+		return "size=" + size() + "/" + capacity + ", hits=" + getHits() + ", misses=" + getMisses()
+				+ ", evictions=" + getEvictions();
+	}
+
+	/**
+	 * A segment of the cache -- a LRU map guarded by itself.
+	 */
+	private class Segment extends LinkedHashMap<String, String> {
+
+		/**
+		 * Version of the serialized form.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The max. number of entries of the segment.
+		 */
+		private final int segmentCapacity;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param segmentCapacity the max. number of entries of the segment
+		 */
+		Segment(int segmentCapacity) {
+			super(16, 0.75f, true);
+			this.segmentCapacity = segmentCapacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			if (size() > segmentCapacity) {
+				evictions.incrementAndGet();
+				return true;
+			}
+			return false;
+		}
+	}
+}
@@ -2,20 +2,42 @@ package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
 
 import com.swabunga.spell.engine.SpellDictionaryHashMap;
 import com.swabunga.spell.engine.Word;
+import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
  * A spell dictionary based on Jazzy.
+ *
+ * Suggestions are either provided by Jazzy or by a symmetric delete index
+ * (built on first use). Elongated words are corrected using a trie of the
+ * dictionary words (built on first use).
  */
 public class SpellDictionary implements IDictionary {
 
+	/**
+	 * Enumeration for supported spelling suggestion engines.
+	 */
+	public enum SuggestionEngine {
+
+		/**
+		 * Jazzy suggestions (phonetic codes and edit distance at query time).
+		 */
+		JAZZY,
+		/**
+		 * Symmetric delete index suggestions (precomputed delete variants).
+		 */
+		SYMMETRIC_DELETE
+	}
+
 	/**
 	 * The name of the resource file to load the dictionary from.
 	 */
@@ -27,14 +49,24 @@ public class SpellDictionary implements IDictionary {
 	private static final Logger logger = LogManager.getLogger(SpellDictionary.class);
 
 	/**
-	 * The singleton instance.
+	 * The singleton instance (published once it's loaded).
 	 */
-	private static SpellDictionary instance = null;
+	private static volatile SpellDictionary instance = null;
 
 	/**
 	 * The Jazzy spell dictionary implementation.
 	 */
-	private SpellDictionaryHashMap dictionary = null;
+	private JazzyDictionary dictionary = null;
+
+	/**
+	 * The symmetric delete index (null until first used).
+	 */
+	private volatile SymmetricDeleteSpellIndex symmetricDeleteIndex = null;
+
+	/**
+	 * The trie of the dictionary words (null until first used).
+	 */
+	private volatile DictionaryTrie dictionaryTrie = null;
 
 	/**
 	 * Allows to specify spell suggestions that should be ignored.
@@ -62,23 +94,33 @@ public class SpellDictionary implements IDictionary {
 	 * @return the spell dictionary instance.
 	 */
 	public static SpellDictionary getInstance() {
-		if (instance == null) {
-			init();
+		SpellDictionary dict = instance;
+		if (dict == null) {
+			synchronized (SpellDictionary.class) {
+				dict = instance;
+				if (dict == null) {
+					dict = load();
+					instance = dict;
+				}
+			}
 		}
-		return instance;
+		return dict;
 	}
 
 	/**
-	 * Performs the initialization of the spell dictionary.
+	 * Loads the spell dictionary.
+	 *
+	 * @return the spell dictionary (empty if it couldn't be loaded)
 	 */
-	private static void init() {
+	private static SpellDictionary load() {
+		SpellDictionary dict = new SpellDictionary();
 		try {
-			instance = new SpellDictionary();
-			instance.dictionary = new SpellDictionaryHashMap();
-			instance.loadDictionaryResource(DICT_FILE_RESOURCE);
+			dict.dictionary = new JazzyDictionary();
+			dict.loadDictionaryResource(DICT_FILE_RESOURCE);
 		} catch (IOException ex) {
 			logger.error("Couldn't load spell dictionary file", ex);
 		}
+		return dict;
 	}
 
 	/**
@@ -108,6 +150,11 @@ public class SpellDictionary implements IDictionary {
 		return dictionary.isCorrect(word);
 	}
 
+	@Override
+	public int size() {
+		return (dictionary != null) ? dictionary.size() : 0;
+	}
+
 	/**
 	 * Gets a suggestion for a misspelled word.
 	 *
@@ -115,6 +162,23 @@ public class SpellDictionary implements IDictionary {
 	 * @return the replacement suggestion or null if no suggestions was found.
 	 */
 	public String getSuggestion(String word) {
+		return getSuggestion(word, SuggestionEngine.JAZZY);
+	}
+
+	/**
+	 * Gets a suggestion for a misspelled word using a given suggestion engine.
+	 *
+	 * @param word the misspelled word to get a replacement suggestion.
+	 * @param engine the suggestion engine to use
+	 * @return the replacement suggestion or null if no suggestions was found.
+	 */
+	public String getSuggestion(String word, SuggestionEngine engine) {
+		if (engine == SuggestionEngine.SYMMETRIC_DELETE) {
+			SymmetricDeleteSpellIndex index = getSymmetricDeleteIndex();
+			if (index != null) {
+				return index.getSuggestion(word);
+			}
+		}
 		List<Word> suggestions = dictionary.getSuggestions(word, 0, distMatrix); // threshold has no effect!
 		for (Word suggestion : suggestions) {
 			// check if spell suggestion should be ignored:
@@ -127,4 +191,129 @@ public class SpellDictionary implements IDictionary {
 		}
 		return null;
 	}
+
+	/**
+	 * Returns the symmetric delete index -- builds the index on first use.
+	 *
+	 * @return the symmetric delete index or null if the dictionary file
+	 * couldn't be read.
+	 */
+	public SymmetricDeleteSpellIndex getSymmetricDeleteIndex() {
+		SymmetricDeleteSpellIndex index = symmetricDeleteIndex;
+		if (index == null) {
+			synchronized (this) {
+				index = symmetricDeleteIndex;
+				if (index == null) {
+					index = buildSymmetricDeleteIndex(DICT_FILE_RESOURCE);
+					symmetricDeleteIndex = index;
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the trie of the dictionary words -- builds the trie on first
+	 * use.
+	 *
+	 * @return the trie of the dictionary words or null if the dictionary file
+	 * couldn't be read.
+	 */
+	public DictionaryTrie getDictionaryTrie() {
+		DictionaryTrie trie = dictionaryTrie;
+		if (trie == null) {
+			synchronized (this) {
+				trie = dictionaryTrie;
+				if (trie == null) {
+					long start = System.currentTimeMillis();
+					Set<String> words = readWords(DICT_FILE_RESOURCE);
+					if (words != null) {
+						trie = new DictionaryTrie(words);
+						logger.info("Built spell dictionary trie for " + trie.size() + " words (" + trie.getNumNodes()
+								+ " nodes) in " + (System.currentTimeMillis() - start) + " ms");
+					}
+					dictionaryTrie = trie;
+				}
+			}
+		}
+		return trie;
+	}
+
+	/**
+	 * Builds the symmetric delete index from a resource -- suggestions that
+	 * should be ignored aren't indexed.
+	 *
+	 * @param resourceName the dictionary file resource
+	 * @return the symmetric delete index or null if the resource couldn't be
+	 * read.
+	 */
+	private SymmetricDeleteSpellIndex buildSymmetricDeleteIndex(String resourceName) {
+		long start = System.currentTimeMillis();
+		Set<String> words = readWords(resourceName);
+		if (words == null) {
+			return null;
+		}
+		words.removeAll(SUGGESTIONS_TO_IGNORE);
+		SymmetricDeleteSpellIndex index = new SymmetricDeleteSpellIndex(words,
+				SymmetricDeleteSpellIndex.DEFAULT_MAX_EDIT_DISTANCE, SymmetricDeleteSpellIndex.DEFAULT_PREFIX_LENGTH);
+		logger.info("Built symmetric delete spell index for " + index.size() + " words (" + index.getNumEntries()
+				+ " entries) in " + (System.currentTimeMillis() - start) + " ms");
+		return index;
+	}
+
+	/**
+	 * Reads the (lower-case) words of a dictionary resource.
+	 *
+	 * @param resourceName the dictionary file resource
+	 * @return the words or null if the resource couldn't be read.
+	 */
+	private Set<String> readWords(String resourceName) {
+		InputStream is = SpellDictionary.class.getResourceAsStream(resourceName);
+		if (is == null) {
+			logger.error("Spell dictionary resource '" + resourceName + "' couldn't be found!");
+			return null;
+		}
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(is))) {
+			Set<String> words = new HashSet<>();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String w = line.trim().toLowerCase();
+				if (!w.isEmpty()) {
+					words.add(w);
+				}
+			}
+			return words;
+		} catch (IOException ex) {
+			logger.error("Couldn't read spell dictionary file", ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Jazzy spell dictionary that can count its words.
+	 */
+	private static final class JazzyDictionary extends SpellDictionaryHashMap {
+
+		/**
+		 * Constructor.
+		 *
+		 * @throws IOException never (declared by Jazzy)
+		 */
+		JazzyDictionary() throws IOException {
+		}
+
+		/**
+		 * Returns the number of words.
+		 *
+		 * @return the number of words.
+		 */
+		int size() {
+			int size = 0;
+			for (Object words : mainDictionary.values()) {
+				size += ((List<?>) words).size();
+			}
+			return size;
+		}
+	}
 }
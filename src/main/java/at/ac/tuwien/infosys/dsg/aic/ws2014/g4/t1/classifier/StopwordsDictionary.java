@@ -5,6 +5,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.BitSet;
 import java.util.HashSet;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -30,9 +31,14 @@ public class StopwordsDictionary implements IDictionary {
 	private final HashSet<String> dictionary = new HashSet<>();
 
 	/**
-	 * The singleton instance.
+	 * The TokenTable ids of all dictionary entries (set after loading).
 	 */
-	private static StopwordsDictionary instance = null;
+	private BitSet tokenIds = new BitSet();
+
+	/**
+	 * The singleton instance (published once it's loaded).
+	 */
+	private static volatile StopwordsDictionary instance = null;
 
 	/**
 	 * Constructor.
@@ -46,22 +52,32 @@ public class StopwordsDictionary implements IDictionary {
 	 * @return the stopwords dictionary instance.
 	 */
 	public static StopwordsDictionary getInstance() {
-		if (instance == null) {
-			init();
+		StopwordsDictionary dict = instance;
+		if (dict == null) {
+			synchronized (StopwordsDictionary.class) {
+				dict = instance;
+				if (dict == null) {
+					dict = load();
+					instance = dict;
+				}
+			}
 		}
-		return instance;
+		return dict;
 	}
 
 	/**
-	 * Performs initialization of the stopwords dictionary.
+	 * Loads the stopwords dictionary.
+	 *
+	 * @return the stopwords dictionary (empty if it couldn't be loaded)
 	 */
-	private static void init() {
-		instance = new StopwordsDictionary();
+	private static StopwordsDictionary load() {
+		StopwordsDictionary dict = new StopwordsDictionary();
 		try {
-			instance.loadDictionaryResource(DICT_FILE_RESOURCE);
+			dict.loadDictionaryResource(DICT_FILE_RESOURCE);
 		} catch (IOException ex) {
 			logger.error("Couldn't load stopwords dictionary file", ex);
 		}
+		return dict;
 	}
 
 	/**
@@ -76,6 +92,7 @@ public class StopwordsDictionary implements IDictionary {
 			throw new FileNotFoundException("Stopwords dictionary file '" + resourceName + "' doesn't exist.");
 		} else {
 			loadDictionary(is);
+			tokenIds = internEntries();
 		}
 	}
 
@@ -93,6 +110,20 @@ public class StopwordsDictionary implements IDictionary {
 		}
 	}
 
+	/**
+	 * Interns all dictionary entries in the token table.
+	 *
+	 * @return the ids of the entries
+	 */
+	private BitSet internEntries() {
+		TokenTable tokenTable = TokenTable.getInstance();
+		BitSet ids = new BitSet();
+		for (String word : dictionary) {
+			ids.set(tokenTable.intern(word));
+		}
+		return ids;
+	}
+
 	/**
 	 * Checks whether a given string is a stopword.
 	 *
@@ -104,4 +135,34 @@ public class StopwordsDictionary implements IDictionary {
 	public boolean contains(String str) {
 		return dictionary.contains(str);
 	}
+
+	@Override
+	public int size() {
+		return dictionary.size();
+	}
+
+	/**
+	 * Checks whether a lower-cased token span is a stopword (same as
+	 * contains(token.toLowerCase()), but without creating strings).
+	 *
+	 * @param text the text
+	 * @param start the start of the token in the text (inclusive)
+	 * @param end the end of the token in the text (exclusive)
+	 * @return true if the lower-cased token is a stopword or false otherwise.
+	 */
+	public boolean containsLowerCase(CharSequence text, int start, int end) {
+		return contains(TokenTable.getInstance().idOf(text, start, end, true));
+	}
+
+	/**
+	 * Checks whether a token given by its TokenTable id is a stopword (same
+	 * as contains(token)).
+	 *
+	 * @param tokenId the id of the token (TokenTable.NOT_FOUND if the token
+	 * isn't interned)
+	 * @return true if the token is a stopword or false otherwise.
+	 */
+	public boolean contains(int tokenId) {
+		return tokenId != TokenTable.NOT_FOUND && tokenIds.get(tokenId);
+	}
 }
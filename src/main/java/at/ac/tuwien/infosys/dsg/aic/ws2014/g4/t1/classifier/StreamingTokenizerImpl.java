@@ -0,0 +1,1762 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Hand-written tokenizer producing the same tokens as the Twokenize tokenizer
+ * (see TokenizerImpl) without regular expressions.
+ *
+ * Twokenize squeezes whitespace, splits punctuation off the edges of words
+ * and then searches the text for "protected" tokens (URLs, emails, times,
+ * numbers, emoticons, arrows, HTML entities, punctuation runs, abbreviations,
+ * separators, decorations, words with embedded apostrophes, hashtags and
+ * mentions); the text between them is split at spaces. Each of these steps
+ * is a regular expression pass creating intermediate strings.
+ *
+ * This tokenizer does the whitespace squeezing and edge punctuation splitting
+ * in one pass into a char buffer and then scans the buffer once, trying the
+ * protected token kinds at each position in the order (and with the
+ * backtracking semantics) of the Twokenize alternatives. Strings are only
+ * created for the resulting tokens. Contractions are kept as one token (as
+ * Twokenize does).
+ *
+ * Instances are stateless and thread-safe.
+ */
+public class StreamingTokenizerImpl implements ITokenizer {
+
+	/**
+	 * The logger instance.
+	 */
+	private static final Logger logger = LogManager.getLogger(StreamingTokenizerImpl.class);
+
+	/**
+	 * Generic top-level domains (in the order tried by Twokenize).
+	 */
+	private static final String[] COMMON_TLDS = ("com org edu gov net mil aero asia biz cat coop info int jobs "
+			+ "mobi museum name pro tel travel xxx").split(" ");
+
+	/**
+	 * Country code top-level domains (in the order tried by Twokenize).
+	 */
+	private static final String[] CC_TLDS = ("ac ad ae af ag ai al am an ao aq ar as at au aw ax az ba bb bd be bf "
+			+ "bg bh bi bj bm bn bo br bs bt bv bw by bz ca cc cd cf cg ch ci ck cl cm cn co cr cs cu cv cx cy cz dd "
+			+ "de dj dk dm do dz ec ee eg eh er es et eu fi fj fk fm fo fr ga gb gd ge gf gg gh gi gl gm gn gp gq gr "
+			+ "gs gt gu gw gy hk hm hn hr ht hu id ie il im in io iq ir is it je jm jo jp ke kg kh ki km kn kp kr kw "
+			+ "ky kz la lb lc li lk lr ls lt lu lv ly ma mc md me mg mh mk ml mm mn mo mp mq mr ms mt mu mv mw mx my "
+			+ "mz na nc ne nf ng ni nl no np nr nu nz om pa pe pf pg ph pk pl pm pn pr ps pt pw py qa re ro rs ru rw "
+			+ "sa sb sc sd se sg sh si sj sk sl sm sn so sr ss st su sv sy sz tc td tf tg th tj tk tl tm tn to tp tr "
+			+ "tt tv tw tz ua ug uk us uy uz va vc ve vg vi vn vu wf ws ye yt za zm zw").split(" ");
+
+	/**
+	 * All top-level domains by their first letter (index = letter - 'a'),
+	 * generic domains first.
+	 */
+	private static final String[][] TLDS_BY_FIRST_LETTER = groupByFirstLetter(COMMON_TLDS, CC_TLDS);
+
+	/**
+	 * Country code top-level domains by their first letter.
+	 */
+	private static final String[][] CC_TLDS_BY_FIRST_LETTER = groupByFirstLetter(CC_TLDS);
+
+	/**
+	 * Abbreviations ending with a dot (first letter in either case).
+	 */
+	private static final String[] STANDARD_ABBREVIATIONS = {"Mr", "Mrs", "Ms", "Dr", "Sr", "Jr", "Rep", "Sen", "St"};
+
+	/**
+	 * HTML entities.
+	 */
+	private static final String[] ENTITIES = {"&amp;", "&lt;", "&gt;", "&quot;"};
+
+	/**
+	 * Performs tokenization of an input string (same tokens as Twokenize).
+	 *
+	 * @param string the input string.
+	 * @return a list of tokens strings.
+	 */
+	@Override
+	public List<String> tokenize(String string) {
+		List<String> tokens = new Scanner(string, false).tokenize();
+
+		logger.debug("* Tokenize tweet:");
+		logger.debug("  - input: '" + string + "'");
+		logger.debug("  - tokens: '" + tokens + "'");
+
+		return tokens;
+	}
+
+	/**
+	 * Performs tokenization of an input text (same tokens as Twokenize)
+	 * without creating strings for the tokens.
+	 *
+	 * @param text the input text.
+	 * @param spans the spans to store the tokens in.
+	 */
+	@Override
+	public void tokenize(CharSequence text, TokenSpans spans) {
+		spans.reset(text);
+		new Scanner(text, true).tokenize(spans);
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("* Tokenize tweet:");
+			logger.debug("  - input: '" + text + "'");
+			logger.debug("  - tokens: '" + spans + "'");
+		}
+	}
+
+	/**
+	 * Groups domains by their first letter (keeping their order).
+	 *
+	 * @param domains the domains (lower-case)
+	 * @return the domains by first letter (index = letter - 'a')
+	 */
+	private static String[][] groupByFirstLetter(String[]... domains) {
+		List<List<String>> groups = new ArrayList<>(26);
+		for (int i = 0; i < 26; i++) {
+			groups.add(new ArrayList<String>());
+		}
+		for (String[] list : domains) {
+			for (String domain : list) {
+				groups.get(domain.charAt(0) - 'a').add(domain);
+			}
+		}
+		String[][] result = new String[26][];
+		for (int i = 0; i < 26; i++) {
+			result[i] = groups.get(i).toArray(new String[groups.get(i).size()]);
+		}
+		return result;
+	}
+
+	/**
+	 * Tokenizes a single text -- holds the squeezed and edge-split text and
+	 * the state of the scan.
+	 */
+	private static final class Scanner {
+
+		/**
+		 * The text (whitespace squeezed, edge punctuation split off).
+		 */
+		private final char[] s;
+
+		/**
+		 * The length of the text.
+		 */
+		private final int n;
+
+		/**
+		 * For each char of the text: its position in the raw text (null if
+		 * not tracked).
+		 */
+		private final int[] offsets;
+
+		/**
+		 * The tokens found as strings (null if the tokens are stored as
+		 * spans).
+		 */
+		private List<String> tokens;
+
+		/**
+		 * The tokens found as spans over the raw text (null if the tokens are
+		 * stored as strings).
+		 */
+		private TokenSpans spans;
+
+		/**
+		 * End of the last scanned run of chars that can contain an embedded
+		 * apostrophe.
+		 */
+		private int apostropheRunEnd = -1;
+
+		/**
+		 * Position of the last apostrophe within that run (-1 if none).
+		 */
+		private int apostropheRunLast = -1;
+
+		/**
+		 * Lowest position of the east emoticon results (-1 if none).
+		 */
+		private int eastFrom = -1;
+
+		/**
+		 * Highest position of the east emoticon results.
+		 */
+		private int eastTo = -1;
+
+		/**
+		 * For each position: end of the east emoticon middle part and right
+		 * eye matched at the position (one middle unit at least, -1 if none).
+		 */
+		private int[] eastMiddle;
+
+		/**
+		 * For each position: end of the east emoticon matched after a middle
+		 * unit ending at the position (more middle units or the right eye,
+		 * -1 if none).
+		 */
+		private int[] eastAfter;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param text the raw text
+		 * @param trackOffsets whether the positions of the chars in the raw
+		 * text are tracked
+		 */
+		Scanner(CharSequence text, boolean trackOffsets) {
+			int length = text.length();
+
+			// squeeze whitespace (ASCII whitespace and space separators)
+			char[] squeezed = new char[length];
+			int[] squeezedOffsets = trackOffsets ? new int[length] : null;
+			int m = 0;
+			boolean space = false;
+			for (int i = 0; i < length; i++) {
+				char c = text.charAt(i);
+				if (isSqueezedSpace(c)) {
+					space = true;
+				} else {
+					if (space) {
+						if (trackOffsets) {
+							squeezedOffsets[m] = i - 1;
+						}
+						squeezed[m++] = ' ';
+						space = false;
+					}
+					if (trackOffsets) {
+						squeezedOffsets[m] = i;
+					}
+					squeezed[m++] = c;
+				}
+			}
+			if (space) {
+				if (trackOffsets) {
+					squeezedOffsets[m] = length - 1;
+				}
+				squeezed[m++] = ' ';
+			}
+			int from = 0;
+			while (from < m && squeezed[from] <= ' ') {
+				from++;
+			}
+			while (m > from && squeezed[m - 1] <= ' ') {
+				m--;
+			}
+
+			// split edge punctuation off words: "(word" => "( word", "word)" => "word )"
+			char[] buf = new char[2 * (m - from)];
+			int[] bufOffsets = trackOffsets ? new int[buf.length] : null;
+			int k = 0;
+			int i = from;
+			while (i < m) {
+				if (!isEdgePunct(squeezed[i])) {
+					if (trackOffsets) {
+						bufOffsets[k] = squeezedOffsets[i];
+					}
+					buf[k++] = squeezed[i++];
+					continue;
+				}
+				int runEnd = i + 1;
+				while (runEnd < m && isEdgePunct(squeezed[runEnd])) {
+					runEnd++;
+				}
+				boolean offEdgeBefore = (i == from) || isOffEdge(squeezed[i - 1]);
+				boolean alnumBefore = (i > from) && isAlnum(squeezed[i - 1]);
+				boolean alnumAfter = (runEnd < m) && isAlnum(squeezed[runEnd]);
+				boolean offEdgeAfter = isEnd(squeezed, m, runEnd) || isOffEdge(squeezed[runEnd]);
+				// inserted spaces are never part of a token, their offset doesn't matter
+				if (alnumBefore && offEdgeAfter) {
+					buf[k++] = ' ';
+				}
+				while (i < runEnd) {
+					if (trackOffsets) {
+						bufOffsets[k] = squeezedOffsets[i];
+					}
+					buf[k++] = squeezed[i++];
+				}
+				if (offEdgeBefore && alnumAfter) {
+					buf[k++] = ' ';
+				}
+			}
+			this.s = buf;
+			this.n = k;
+			this.offsets = bufOffsets;
+		}
+
+		/**
+		 * Tokenizes the text.
+		 *
+		 * @return the tokens
+		 */
+		List<String> tokenize() {
+			tokens = new ArrayList<>(n / 4 + 1);
+			scan();
+			return tokens;
+		}
+
+		/**
+		 * Tokenizes the text into spans over the raw text (the offsets must be
+		 * tracked).
+		 *
+		 * @param spans the spans to add the tokens to
+		 */
+		void tokenize(TokenSpans spans) {
+			this.spans = spans;
+			scan();
+		}
+
+		/**
+		 * Scans the text for tokens.
+		 */
+		private void scan() {
+			int goodStart = 0;
+			int p = 0;
+			while (p < n) {
+				int end = matchProtected(p);
+				if (end < 0) {
+					p++;
+					continue;
+				}
+				addSplitTokens(goodStart, p);
+				addToken(p, end);
+				p = end;
+				goodStart = end;
+			}
+			addSplitTokens(goodStart, n);
+		}
+
+		/**
+		 * Adds the tokens of a part of the text without protected tokens, i.e.
+		 * split at spaces.
+		 *
+		 * @param start the start of the part (inclusive)
+		 * @param end the end of the part (exclusive)
+		 */
+		private void addSplitTokens(int start, int end) {
+			int i = start;
+			while (i < end) {
+				int j = i;
+				while (j < end && s[j] != ' ') {
+					j++;
+				}
+				addToken(i, j);
+				i = j + 1;
+			}
+		}
+
+		/**
+		 * Adds a token (trimmed as by String.trim(), skipped if empty).
+		 *
+		 * @param start the start of the token (inclusive)
+		 * @param end the end of the token (exclusive)
+		 */
+		private void addToken(int start, int end) {
+			while (start < end && s[start] <= ' ') {
+				start++;
+			}
+			while (end > start && s[end - 1] <= ' ') {
+				end--;
+			}
+			if (end <= start) {
+				return;
+			}
+			if (spans != null) {
+				// tokens don't contain squeezed or inserted spaces, they're contiguous in the raw text
+				spans.add(offsets[start], offsets[end - 1] + 1);
+			} else {
+				tokens.add(new String(s, start, end - start));
+			}
+		}
+
+		/**
+		 * Matches a protected token at a position -- the alternatives are
+		 * tried in the order of Twokenize.
+		 *
+		 * @param p the position
+		 * @return the end of the token or -1 if there's none
+		 */
+		private int matchProtected(int p) {
+			int end = matchHearts(p);
+			if (end < 0) {
+				end = matchUrl(p);
+			}
+			if (end < 0) {
+				end = matchEmail(p);
+			}
+			if (end < 0) {
+				end = matchTime(p);
+			}
+			if (end < 0) {
+				end = matchNumberWithCommas(p);
+			}
+			if (end < 0) {
+				end = matchNumberCombination(p);
+			}
+			if (end < 0) {
+				end = matchEmoticon(p);
+			}
+			if (end < 0) {
+				end = matchArrow(p);
+			}
+			if (end < 0) {
+				end = matchEntity(p);
+			}
+			if (end < 0) {
+				end = matchPunctuation(p);
+			}
+			if (end < 0) {
+				end = matchAbbreviation(p);
+			}
+			if (end < 0) {
+				end = matchSeparator(p);
+			}
+			if (end < 0) {
+				end = matchDecoration(p);
+			}
+			if (end < 0) {
+				end = matchEmbeddedApostrophe(p);
+			}
+			if (end < 0) {
+				end = matchHashtagOrMention(p);
+			}
+			return end;
+		}
+
+		/**
+		 * Matches hearts ("&lt;3", "&lt;/3", "&lt;&lt;33").
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchHearts(int p) {
+			int end = -1;
+			int i = p;
+			while (i < n && s[i] == '<') {
+				int j = run(i, '<');
+				if (j < n && s[j] == '/') {
+					j++;
+				}
+				int k = run(j, '3');
+				if (k == j) {
+					break;
+				}
+				end = i = k;
+			}
+			return end;
+		}
+
+		/**
+		 * Matches a URL -- an explicit ("http://", "www.") or domain-like
+		 * start, followed by everything up to trailing punctuation and the next
+		 * whitespace.
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchUrl(int p) {
+			int start = -1;
+			if (startsWith(p, "http://")) {
+				start = p + 7;
+			} else if (startsWith(p, "https://")) {
+				start = p + 8;
+			} else if (startsWith(p, "www.") && isWordBoundary(p)) {
+				start = p + 4;
+			}
+			if (start >= 0) {
+				int end = matchUrlBody(start);
+				if (end >= 0) {
+					return end;
+				}
+			}
+			return matchDomainUrl(p);
+		}
+
+		/**
+		 * Matches a URL starting with a domain name ("example.com/...").
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchDomainUrl(int p) {
+			if (p >= n || !(isAlnum(s[p]) || s[p] == '-') || !isWordBoundary(p)) {
+				return -1;
+			}
+			int[] labelEnds = new int[4];
+			int i = p + 1;
+			while (i < n && (isAlnum(s[i]) || s[i] == '-')) {
+				i++;
+			}
+			labelEnds[0] = i;
+			int labels = 0;
+			while (labels < 3 && i < n && s[i] == '.') {
+				int j = i + 1;
+				while (j < n && isAlnum(s[j])) {
+					j++;
+				}
+				if (j == i + 1) {
+					break;
+				}
+				labelEnds[++labels] = i = j;
+			}
+
+			// up to three more labels (as many as possible first), then the top-level domain
+			for (int l = labels; l >= 0; l--) {
+				int dot = labelEnds[l];
+				if (dot + 1 >= n || s[dot] != '.' || s[dot + 1] < 'a' || s[dot + 1] > 'z') {
+					continue;
+				}
+				for (String tld : TLDS_BY_FIRST_LETTER[s[dot + 1] - 'a']) {
+					if (!startsWith(dot + 1, tld)) {
+						continue;
+					}
+					int end = dot + 1 + tld.length();
+					if (end + 1 < n && s[end] == '.' && s[end + 1] >= 'a' && s[end + 1] <= 'z') {
+						for (String cc : CC_TLDS_BY_FIRST_LETTER[s[end + 1] - 'a']) {
+							int ccEnd = end + 1 + cc.length();
+							if (startsWith(end + 1, cc) && isNonWordOrEnd(ccEnd)) {
+								int urlEnd = matchUrlBody(ccEnd);
+								if (urlEnd >= 0) {
+									return urlEnd;
+								}
+							}
+						}
+					}
+					if (isNonWordOrEnd(end)) {
+						int urlEnd = matchUrlBody(end);
+						if (urlEnd >= 0) {
+							return urlEnd;
+						}
+					}
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Matches the (optional) rest of a URL -- its first char (unless it's
+		 * a dot, whitespace or angle bracket) and then the shortest part that is
+		 * followed by trailing punctuation and the end of the URL.
+		 *
+		 * @param p the position after the start of the URL
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchUrlBody(int p) {
+			if (p < n && s[p] != '.' && !isAsciiSpace(s[p]) && s[p] != '<' && s[p] != '>') {
+				int i = p + 1;
+				while (!isUrlEndAhead(i)) {
+					i++;
+				}
+				return i;
+			}
+			return isUrlEndAhead(p) ? p : -1;
+		}
+
+		/**
+		 * Checks if a URL may end at a position, i.e. it is followed by
+		 * punctuation or entities and then whitespace, "&lt;", "&gt;", ".." or
+		 * the end of the text.
+		 *
+		 * @param p the position
+		 * @return true if a URL may end at the position, false otherwise.
+		 */
+		private boolean isUrlEndAhead(int p) {
+			int i = p;
+			while (true) {
+				if (isEnd(s, n, i) || isAsciiSpace(s[i]) || s[i] == '<' || s[i] == '>'
+						|| (s[i] == '.' && i + 1 < n && s[i + 1] == '.')) {
+					return true;
+				}
+				if (isPunctChar(s[i])) {
+					i++;
+				} else {
+					int entityEnd = matchEntity(i);
+					if (entityEnd < 0) {
+						return false;
+					}
+					i = entityEnd;
+				}
+			}
+		}
+
+		/**
+		 * Matches an email address.
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchEmail(int p) {
+			if (p > 0 && isWordChar(s[p - 1])) {
+				return -1;
+			}
+			int at = p;
+			while (at < n && (isAlnum(s[at]) || s[at] == '.' || s[at] == '_' || s[at] == '%' || s[at] == '+' || s[at] == '-')) {
+				at++;
+			}
+			if (at == p || at >= n || s[at] != '@') {
+				return -1;
+			}
+			int domainEnd = at + 1;
+			while (domainEnd < n && (isAlnum(s[domainEnd]) || s[domainEnd] == '.' || s[domainEnd] == '-')) {
+				domainEnd++;
+			}
+			// the last dot of the domain that is followed by 2-4 letters and a non-word char
+			for (int dot = domainEnd - 1; dot > at + 1; dot--) {
+				if (s[dot] != '.') {
+					continue;
+				}
+				int letters = 0;
+				while (letters < 4 && dot + 1 + letters < n && isLetter(s[dot + 1 + letters])) {
+					letters++;
+				}
+				for (; letters >= 2; letters--) {
+					if (isNonWordOrEnd(dot + 1 + letters)) {
+						return dot + 1 + letters;
+					}
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Matches a time ("12:30", "1:02:03").
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchTime(int p) {
+			int i = digits(p);
+			if (i == p) {
+				return -1;
+			}
+			int groups = 0;
+			while (groups < 2 && i < n && s[i] == ':') {
+				int j = digits(i + 1);
+				if (j == i + 1) {
+					break;
+				}
+				i = j;
+				groups++;
+			}
+			return (groups > 0) ? i : -1;
+		}
+
+		/**
+		 * Matches a number with thousands separators ("1,000").
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchNumberWithCommas(int p) {
+			if (p > 0 && isDigit(s[p - 1])) {
+				return -1;
+			}
+			int i = p;
+			while (true) {
+				int j = digits(i);
+				if (j == i || j - i > 3 || j >= n || s[j] != ',') {
+					return -1;
+				}
+				i = j + 1;
+				if (digits(i) >= i + 3 && (i + 3 >= n || (s[i + 3] != ',' && !isDigit(s[i + 3])))) {
+					return i + 3;
+				}
+			}
+		}
+
+		/**
+		 * Matches a number with decimal points ("$3.50", "2.0.1", "99.9%").
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchNumberCombination(int p) {
+			int i = p;
+			int c = Character.codePointAt(s, p, n);
+			if (Character.getType(c) == Character.CURRENCY_SYMBOL) {
+				i += Character.charCount(c);
+			}
+			int j = digits(i);
+			if (j == i) {
+				return -1;
+			}
+			int groups = 0;
+			while (j < n && s[j] == '.') {
+				int k = digits(j + 1);
+				if (k == j + 1) {
+					break;
+				}
+				j = k;
+				groups++;
+			}
+			if (groups == 0) {
+				return -1;
+			}
+			return (j < n && s[j] == '%') ? j + 1 : j;
+		}
+
+		/**
+		 * Matches an emoticon -- western (":-)", "&gt;:("), reversed ("(-:"),
+		 * eastern ("(^_^)") or a basic face ("o.O", "-_-").
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchEmoticon(int p) {
+			int end = matchWesternEmoticon(p);
+			if (end < 0) {
+				end = matchReversedEmoticon(p);
+			}
+			if (end < 0) {
+				end = matchEasternEmoticon(p);
+			}
+			if (end < 0) {
+				end = matchBasicFace(p);
+			}
+			if (end < 0) {
+				end = matchDashQuote(p);
+			}
+			if (end < 0) {
+				end = matchArrowFace(p);
+			}
+			if (end < 0) {
+				end = matchDotFace(p);
+			}
+			return end;
+		}
+
+		/**
+		 * Matches a western emoticon: optional brow, eyes, optional nose and
+		 * mouth.
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchWesternEmoticon(int p) {
+			int brow = -1;
+			if (s[p] == '>') {
+				brow = p + 1;
+			} else if (startsWith(p, "&gt;")) {
+				brow = p + 4;
+			}
+			if (brow >= 0) {
+				int end = matchWesternFace(brow);
+				if (end >= 0) {
+					return end;
+				}
+			}
+			return matchWesternFace(p);
+		}
+
+		/**
+		 * Matches eyes, optional nose and mouth of a western emoticon.
+		 *
+		 * @param p the position of the eyes
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchWesternFace(int p) {
+			if (p >= n || !isEyes(s[p])) {
+				return -1;
+			}
+			int i = p + 1;
+			int end = matchMouth(i);
+			if (end < 0 && i < n && s[i] == '-') {
+				end = matchMouth(i + 1);
+			}
+			if (end < 0 && i < n && !isAlnum(s[i]) && s[i] != ' ') {
+				end = matchMouth(i + Character.charCount(Character.codePointAt(s, i, n)));
+			}
+			if (end < 0 && i < n && (s[i] == 'o' || s[i] == 'O')) {
+				end = matchMouth(i + 1);
+			}
+			return end;
+		}
+
+		/**
+		 * Matches the mouth of a western emoticon.
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchMouth(int p) {
+			if (p >= n) {
+				return -1;
+			}
+			char c = s[p];
+			if (c == 'p' || c == 'P' || c == 'd' || c == '3') {
+				int end = p + 1;
+				while (end < n && (s[end] == 'p' || s[end] == 'P' || s[end] == 'd' || s[end] == '3')) {
+					end++;
+				}
+				if (isMouthEndAhead(end)) {
+					return end;
+				}
+			}
+			int end = matchOtherMouth(p);
+			if (end > p) {
+				if (isMouthEndAhead(end)) {
+					return end;
+				}
+				// shorter runs of non-word chars are followed by a non-word char
+				if (end - p >= 2 && !isWordChar(c)) {
+					return end - 1;
+				}
+			}
+			if (isSadMouth(c) || isHappyMouth(c)) {
+				return matchMouthRun(p);
+			}
+			return -1;
+		}
+
+		/**
+		 * Checks if a mouth of a western emoticon may end at a position, i.e.
+		 * it is followed by a non-word char, "RT" or the end of the text.
+		 *
+		 * @param p the position
+		 * @return true if a mouth may end at the position, false otherwise.
+		 */
+		private boolean isMouthEndAhead(int p) {
+			return isNonWordOrEnd(p) || startsWith(p, "RT") || startsWith(p, "rt") || startsWith(p, "Rt");
+		}
+
+		/**
+		 * Matches a run of "other" mouth chars ("oo", "//", "vv", "SS", "||").
+		 *
+		 * @param p the position
+		 * @return the end or p if there's no match
+		 */
+		private int matchOtherMouth(int p) {
+			char c = s[p];
+			int end = p + 1;
+			if (c == 'o' || c == 'O') {
+				while (end < n && (s[end] == 'o' || s[end] == 'O')) {
+					end++;
+				}
+			} else if (c == '/' || c == '\\') {
+				while (end < n && (s[end] == '/' || s[end] == '\\')) {
+					end++;
+				}
+			} else if (c == 'v' || c == 'V') {
+				while (end < n && (s[end] == 'v' || s[end] == 'V')) {
+					end++;
+				}
+			} else if (c == 'S' || c == 's') {
+				while (end < n && (s[end] == 'S' || s[end] == 's')) {
+					end++;
+				}
+			} else if (c == '|') {
+				end = run(p, '|');
+			} else {
+				return p;
+			}
+			return end;
+		}
+
+		/**
+		 * Matches a run of sad ("([{") or happy ("D)]}") mouth chars.
+		 *
+		 * @param p the position
+		 * @return the end or p if there's no match
+		 */
+		private int matchMouthRun(int p) {
+			int end = p;
+			if (isSadMouth(s[p])) {
+				while (end < n && isSadMouth(s[end])) {
+					end++;
+				}
+			} else if (isHappyMouth(s[p])) {
+				while (end < n && isHappyMouth(s[end])) {
+					end++;
+				}
+			}
+			return end;
+		}
+
+		/**
+		 * Matches a reversed western emoticon ("(-:", "D:&lt;") at the start of
+		 * a word.
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchReversedEmoticon(int p) {
+			if (p > 0 && s[p - 1] != ' ') {
+				return -1;
+			}
+			int mouthEnd = matchMouthRun(p);
+			if (mouthEnd == p) {
+				mouthEnd = matchOtherMouth(p);
+			}
+			for (int i = mouthEnd; i > p; i--) {
+				int end = matchReversedEyes(i);
+				if (end < 0 && i < n && s[i] == '-') {
+					end = matchReversedEyes(i + 1);
+				}
+				if (end < 0 && i < n && !isAlnum(s[i]) && s[i] != ' ') {
+					end = matchReversedEyes(i + Character.charCount(Character.codePointAt(s, i, n)));
+				}
+				if (end >= 0) {
+					return end;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Matches the eyes and optional brow of a reversed western emoticon.
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchReversedEyes(int p) {
+			if (p >= n || !isEyes(s[p])) {
+				return -1;
+			}
+			if (p + 1 < n && s[p + 1] == '<') {
+				return p + 2;
+			}
+			return startsWith(p + 1, "&lt;") ? p + 5 : p + 1;
+		}
+
+		/**
+		 * Matches an eastern emoticon: left side, one or more middle units
+		 * (basic faces or symbols) and right side.
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchEasternEmoticon(int p) {
+			if (!isEastLeft(s[p])) {
+				return -1;
+			}
+			int leftEnd = p + 1;
+			while (leftEnd < n && isEastLeft(s[leftEnd])) {
+				leftEnd++;
+			}
+			computeEastResults(p);
+			for (int i = leftEnd; i > p; i--) {
+				int end = eastMiddle[i - eastFrom];
+				if (end >= 0) {
+					return end;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Computes the east emoticon results for all positions from a position
+		 * up to the next space -- the results only depend on the position, so
+		 * they are computed once from right to left (instead of backtracking).
+		 *
+		 * @param p the position
+		 */
+		private void computeEastResults(int p) {
+			if (eastFrom >= 0 && p >= eastFrom && p <= eastTo) {
+				return;
+			}
+			int to = p;
+			while (to < n && s[to] != ' ') {
+				to++;
+			}
+			eastFrom = p;
+			eastTo = to;
+			if (eastMiddle == null || eastMiddle.length < to - p + 1) {
+				eastMiddle = new int[Math.max(to - p + 1, 16)];
+				eastAfter = new int[eastMiddle.length];
+			}
+			int[] unitEnds = new int[5];
+			for (int i = to; i >= p; i--) {
+				int middle = -1;
+				int units = matchEastUnits(i, unitEnds);
+				for (int u = 0; u < units && middle < 0; u++) {
+					middle = eastAfter[unitEnds[u] - p];
+				}
+				eastMiddle[i - p] = middle;
+				eastAfter[i - p] = (middle >= 0) ? middle : matchEastRight(i);
+			}
+		}
+
+		/**
+		 * Matches the middle units of an eastern emoticon at a position.
+		 *
+		 * @param p the position
+		 * @param ends the array to store the ends of the matching units in (in
+		 * the order tried by Twokenize)
+		 * @return the number of matching units
+		 */
+		private int matchEastUnits(int p, int[] ends) {
+			if (p >= n) {
+				return 0;
+			}
+			int units = 0;
+			int end = matchBasicFace(p);
+			if (end >= 0) {
+				ends[units++] = end;
+			}
+			end = matchDashQuote(p);
+			if (end >= 0) {
+				ends[units++] = end;
+			}
+			end = matchArrowFace(p);
+			if (end >= 0) {
+				ends[units++] = end;
+			}
+			end = matchDotFace(p);
+			if (end >= 0) {
+				ends[units++] = end;
+			}
+			char c = s[p];
+			if (!isAlnum(c) && !isAsciiSpace(c) && c != '(' && c != ')' && c != '*' && c != ':' && c != '=' && c != '-') {
+				ends[units++] = p + Character.charCount(Character.codePointAt(s, p, n));
+			}
+			return units;
+		}
+
+		/**
+		 * Matches the right side of an eastern emoticon.
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchEastRight(int p) {
+			int end = p;
+			while (end < n && isEastRight(s[end])) {
+				end++;
+			}
+			return (end > p) ? end : -1;
+		}
+
+		/**
+		 * Matches a basic face: eye, nose and the same eye ("o.O", "^_^").
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchBasicFace(int p) {
+			char eye = s[p];
+			if (!isBasicFaceEye(eye)) {
+				return -1;
+			}
+			int i = p + 1;
+			if (i < n && s[i] == '.') {
+				i++;
+			} else {
+				while (i < n && (s[i] == '_' || s[i] == '-')) {
+					i++;
+				}
+				if (i == p + 1) {
+					return -1;
+				}
+			}
+			return (i < n && toLowerAscii(s[i]) == toLowerAscii(eye)) ? i + 1 : -1;
+		}
+
+		/**
+		 * Matches "--'" and "--\"".
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchDashQuote(int p) {
+			return (startsWith(p, "--") && p + 2 < n && (s[p + 2] == '\'' || s[p + 2] == '"')) ? p + 3 : -1;
+		}
+
+		/**
+		 * Matches faces like "&gt;_&lt;" and "&lt;.&lt;".
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchArrowFace(int p) {
+			int i = matchAngle(p);
+			if (i < 0) {
+				return -1;
+			}
+			int j = i;
+			while (j < n && (s[j] == '.' || s[j] == '_' || s[j] == '-')) {
+				j++;
+			}
+			return (j > i) ? matchAngle(j) : -1;
+		}
+
+		/**
+		 * Matches an angle bracket (or its entity).
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchAngle(int p) {
+			if (p >= n) {
+				return -1;
+			}
+			if (s[p] == '<' || s[p] == '>') {
+				return p + 1;
+			}
+			return (startsWith(p, "&lt;") || startsWith(p, "&gt;")) ? p + 4 : -1;
+		}
+
+		/**
+		 * Matches faces like "._.".
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchDotFace(int p) {
+			if (s[p] != '.') {
+				return -1;
+			}
+			int i = run(p + 1, '_');
+			return (i > p + 1 && i < n && s[i] == '.') ? i + 1 : -1;
+		}
+
+		/**
+		 * Matches an arrow ("--&gt;", "&lt;==", "\u2192").
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchArrow(int p) {
+			int i = run(p, '<');
+			int j = i;
+			while (j < n && (s[j] == '-' || s[j] == '\u2015' || s[j] == '\u2014' || s[j] == '=')) {
+				j++;
+			}
+			int k = run(j, '>');
+			if (k > j || i > p) {
+				return k;
+			}
+			int end = p;
+			while (end < n && s[end] >= '\u2190' && s[end] <= '\u21ff') {
+				end++;
+			}
+			return (end > p) ? end : -1;
+		}
+
+		/**
+		 * Matches an HTML entity.
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchEntity(int p) {
+			if (p < n && s[p] == '&') {
+				for (String entity : ENTITIES) {
+					if (startsWith(p, entity)) {
+						return p + entity.length();
+					}
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Matches a run of quotes, sentence punctuation or colons.
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchPunctuation(int p) {
+			int kind = punctuationKind(s[p]);
+			if (kind == 0) {
+				return -1;
+			}
+			int end = p + 1;
+			while (end < n && punctuationKind(s[end]) == kind) {
+				end++;
+			}
+			return end;
+		}
+
+		/**
+		 * Matches an abbreviation ("U.S.A.", "e.g", "Mr.").
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchAbbreviation(int p) {
+			// letters followed by dots
+			int i = letterDots(p);
+			if (i - p >= 4 && isBoundaryNotDotAhead(i)) {
+				return i;
+			}
+
+			// a non-letter, letters followed by dots and a letter
+			if (!isLetter(s[p])) {
+				int start = p + Character.charCount(Character.codePointAt(s, p, n));
+				i = letterDots(start);
+				if (i > start && i < n && isLetter(s[i]) && isBoundaryNotDotAhead(i + 1)) {
+					return i + 1;
+				}
+			}
+
+			// standard abbreviations
+			if (isWordBoundary(p)) {
+				for (String abbreviation : STANDARD_ABBREVIATIONS) {
+					int end = p + abbreviation.length();
+					if (end < n && toLowerAscii(s[p]) == toLowerAscii(abbreviation.charAt(0))
+							&& startsWith(p + 1, abbreviation.substring(1)) && s[end] == '.') {
+						return end + 1;
+					}
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Returns the end of a run of letters followed by dots ("a.b.").
+		 *
+		 * @param p the position
+		 * @return the end of the run
+		 */
+		private int letterDots(int p) {
+			int i = p;
+			while (i + 1 < n && isLetter(s[i]) && s[i + 1] == '.') {
+				i += 2;
+			}
+			return i;
+		}
+
+		/**
+		 * Checks if an abbreviation may end at a position, i.e. it is followed
+		 * by whitespace, punctuation other than a dot, an entity or the end of
+		 * the text.
+		 *
+		 * @param p the position
+		 * @return true if an abbreviation may end at the position, false
+		 * otherwise.
+		 */
+		private boolean isBoundaryNotDotAhead(int p) {
+			if (isEnd(s, n, p)) {
+				return true;
+			}
+			char c = s[p];
+			return isAsciiSpace(c) || c == '\u201c' || c == '"' || c == '?' || c == '!' || c == ',' || c == ':'
+					|| c == ';' || matchEntity(p) >= 0;
+		}
+
+		/**
+		 * Matches a separator ("--", "~", "=", dashes).
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchSeparator(int p) {
+			char c = s[p];
+			if (c == '-') {
+				int end = run(p, '-');
+				return (end - p >= 2) ? end : -1;
+			}
+			return (c == '\u2015' || c == '\u2014' || c == '~' || c == '\u2013' || c == '=') ? p + 1 : -1;
+		}
+
+		/**
+		 * Matches a run of decorations (notes, stars, hearts, smileys).
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchDecoration(int p) {
+			int kind = decorationKind(s[p]);
+			if (kind == 0) {
+				return -1;
+			}
+			int end = p + 1;
+			while (end < n && decorationKind(s[end]) == kind) {
+				end++;
+			}
+			return end;
+		}
+
+		/**
+		 * Matches a word with an embedded apostrophe ("don't", "rock'n'roll")
+		 * -- the whole run of chars up to the next whitespace, dot, comma,
+		 * question mark or double quote.
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchEmbeddedApostrophe(int p) {
+			if (!isApostropheWordChar(s[p])) {
+				return -1;
+			}
+			if (p >= apostropheRunEnd) {
+				// the run and its last apostrophe are the same for all positions within the run
+				int end = p;
+				int last = -1;
+				while (end < n && isApostropheWordChar(s[end])) {
+					if (isApostrophe(s[end])) {
+						last = end;
+					}
+					end++;
+				}
+				apostropheRunEnd = end;
+				apostropheRunLast = last;
+			}
+			return (apostropheRunLast > p) ? apostropheRunEnd : -1;
+		}
+
+		/**
+		 * Matches a hashtag or a mention.
+		 *
+		 * @param p the position
+		 * @return the end or -1 if there's no match
+		 */
+		private int matchHashtagOrMention(int p) {
+			char c = s[p];
+			if (c != '#' && c != '@' && c != '\uff20') {
+				return -1;
+			}
+			int end = p + 1;
+			while (end < n && isWordChar(s[end])) {
+				end++;
+			}
+			return (end > p + 1) ? end : -1;
+		}
+
+		/**
+		 * Returns the end of a run of a char.
+		 *
+		 * @param p the position
+		 * @param c the char
+		 * @return the end of the run (p if there's none)
+		 */
+		private int run(int p, char c) {
+			int end = p;
+			while (end < n && s[end] == c) {
+				end++;
+			}
+			return end;
+		}
+
+		/**
+		 * Returns the end of a run of digits.
+		 *
+		 * @param p the position
+		 * @return the end of the run (p if there's none)
+		 */
+		private int digits(int p) {
+			int end = p;
+			while (end < n && isDigit(s[end])) {
+				end++;
+			}
+			return end;
+		}
+
+		/**
+		 * Checks if the text contains a string at a position.
+		 *
+		 * @param p the position
+		 * @param str the string
+		 * @return true if the text contains the string, false otherwise.
+		 */
+		private boolean startsWith(int p, String str) {
+			if (p + str.length() > n) {
+				return false;
+			}
+			for (int i = 0; i < str.length(); i++) {
+				if (s[p + i] != str.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Checks if a position is followed by a non-word char or the end of the
+		 * text.
+		 *
+		 * @param p the position
+		 * @return true if the position is followed by a non-word char or the
+		 * end of the text, false otherwise.
+		 */
+		private boolean isNonWordOrEnd(int p) {
+			return p >= n || !isWordChar(s[p]);
+		}
+
+		/**
+		 * Checks if there's a word boundary at a position (as \b in regular
+		 * expressions, i.e. letters and digits of all scripts are word chars).
+		 *
+		 * @param p the position
+		 * @return true if there's a word boundary, false otherwise.
+		 */
+		private boolean isWordBoundary(int p) {
+			boolean left = p > 0 && isBoundaryWordChar(Character.codePointBefore(s, p), p - 1);
+			boolean right = p < n && isBoundaryWordChar(Character.codePointAt(s, p, n), p);
+			return left != right;
+		}
+
+		/**
+		 * Checks if a char is a word char for word boundaries -- a letter, a
+		 * digit, '_' or a non-spacing mark following one of them.
+		 *
+		 * @param c the char (code point)
+		 * @param p the position of the char
+		 * @return true if the char is a word char, false otherwise.
+		 */
+		private boolean isBoundaryWordChar(int c, int p) {
+			if (c == '_' || Character.isLetterOrDigit(c)) {
+				return true;
+			}
+			if (Character.getType(c) != Character.NON_SPACING_MARK) {
+				return false;
+			}
+			for (int i = p; i >= 0; i--) {
+				int base = Character.codePointAt(s, i, n);
+				if (Character.isLetterOrDigit(base)) {
+					return true;
+				}
+				if (Character.getType(base) != Character.NON_SPACING_MARK) {
+					return false;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Checks if a position is at the end of a text (as $ in regular
+	 * expressions, i.e. before a final line terminator as well).
+	 *
+	 * @param s the text
+	 * @param n the length of the text
+	 * @param p the position
+	 * @return true if the position is at the end, false otherwise.
+	 */
+	private static boolean isEnd(char[] s, int n, int p) {
+		if (p >= n) {
+			return true;
+		}
+		if (p == n - 1) {
+			char c = s[p];
+			return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if a char is squeezed as whitespace (ASCII whitespace or a space
+	 * separator).
+	 *
+	 * @param c the char
+	 * @return true if the char is whitespace, false otherwise.
+	 */
+	private static boolean isSqueezedSpace(char c) {
+		return isAsciiSpace(c) || Character.getType(c) == Character.SPACE_SEPARATOR;
+	}
+
+	/**
+	 * Checks if a char is ASCII whitespace (as \s in regular expressions).
+	 *
+	 * @param c the char
+	 * @return true if the char is ASCII whitespace, false otherwise.
+	 */
+	private static boolean isAsciiSpace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000b' || c == '\f' || c == '\r';
+	}
+
+	/**
+	 * Checks if a char is a word char (as \w in regular expressions).
+	 *
+	 * @param c the char
+	 * @return true if the char is a word char, false otherwise.
+	 */
+	private static boolean isWordChar(char c) {
+		return isAlnum(c) || c == '_';
+	}
+
+	/**
+	 * Checks if a char is an ASCII letter or digit.
+	 *
+	 * @param c the char
+	 * @return true if the char is an ASCII letter or digit, false otherwise.
+	 */
+	private static boolean isAlnum(char c) {
+		return isLetter(c) || isDigit(c);
+	}
+
+	/**
+	 * Checks if a char is an ASCII letter.
+	 *
+	 * @param c the char
+	 * @return true if the char is an ASCII letter, false otherwise.
+	 */
+	private static boolean isLetter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	/**
+	 * Checks if a char is an ASCII digit.
+	 *
+	 * @param c the char
+	 * @return true if the char is an ASCII digit, false otherwise.
+	 */
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Converts an ASCII letter to lower-case.
+	 *
+	 * @param c the char
+	 * @return the lower-case char (other chars are returned unchanged)
+	 */
+	private static char toLowerAscii(char c) {
+		return (c >= 'A' && c <= 'Z') ? (char) (c + 'a' - 'A') : c;
+	}
+
+	/**
+	 * Checks if a char is split off the edges of words.
+	 *
+	 * @param c the char
+	 * @return true if the char is edge punctuation, false otherwise.
+	 */
+	private static boolean isEdgePunct(char c) {
+		switch (c) {
+			case '\'':
+			case '"':
+			case '\u201c':
+			case '\u201d':
+			case '\u2018':
+			case '\u2019':
+			case '\u00ab':
+			case '\u00bb':
+			case '{':
+			case '}':
+			case '(':
+			case ')':
+			case '[':
+			case ']':
+			case '*':
+			case '&':
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Checks if a char separates edge punctuation from the rest of the text.
+	 *
+	 * @param c the char
+	 * @return true if the char is off edge, false otherwise.
+	 */
+	private static boolean isOffEdge(char c) {
+		return c == ':' || c == ';' || c == ' ' || c == '.' || c == ',';
+	}
+
+	/**
+	 * Checks if a char is punctuation that may trail a URL.
+	 *
+	 * @param c the char
+	 * @return true if the char is punctuation, false otherwise.
+	 */
+	private static boolean isPunctChar(char c) {
+		return punctuationKind(c) != 0;
+	}
+
+	/**
+	 * Returns the kind of a punctuation char -- runs of the same kind form a
+	 * token.
+	 *
+	 * @param c the char
+	 * @return 1 for quotes, 2 for sentence punctuation, 3 for colons and 0 for
+	 * other chars
+	 */
+	private static int punctuationKind(char c) {
+		switch (c) {
+			case '\'':
+			case '"':
+			case '\u201c':
+			case '\u201d':
+			case '\u2018':
+			case '\u2019':
+				return 1;
+			case '.':
+			case '?':
+			case '!':
+			case ',':
+			case '\u2026':
+				return 2;
+			case ':':
+			case ';':
+				return 3;
+			default:
+				return 0;
+		}
+	}
+
+	/**
+	 * Returns the kind of a decoration char -- runs of the same kind form a
+	 * token.
+	 *
+	 * @param c the char
+	 * @return 1 for notes, 2 for stars, 3 for hearts, 4 for smileys, 5 for
+	 * private use chars (emoji) and 0 for other chars
+	 */
+	private static int decorationKind(char c) {
+		if (c == '\u266b' || c == '\u266a') {
+			return 1;
+		} else if (c == '\u2605' || c == '\u2606') {
+			return 2;
+		} else if (c == '\u2665' || c == '\u2764' || c == '\u2661') {
+			return 3;
+		} else if (c >= '\u2639' && c <= '\u263b') {
+			return 4;
+		} else if (c >= '\ue001' && c <= '\uebbb') {
+			return 5;
+		}
+		return 0;
+	}
+
+	/**
+	 * Checks if a char can be part of a word with an embedded apostrophe.
+	 *
+	 * @param c the char
+	 * @return true if the char can be part of the word, false otherwise.
+	 */
+	private static boolean isApostropheWordChar(char c) {
+		return !isAsciiSpace(c) && c != '.' && c != ',' && c != '?' && c != '"';
+	}
+
+	/**
+	 * Checks if a char is an apostrophe.
+	 *
+	 * @param c the char
+	 * @return true if the char is an apostrophe, false otherwise.
+	 */
+	private static boolean isApostrophe(char c) {
+		return c == '\'' || c == '\u2019' || c == '\u2032';
+	}
+
+	/**
+	 * Checks if a char are the eyes of a western emoticon.
+	 *
+	 * @param c the char
+	 * @return true if the char are eyes, false otherwise.
+	 */
+	private static boolean isEyes(char c) {
+		return c == ':' || c == '=' || c == ';';
+	}
+
+	/**
+	 * Checks if a char is a sad mouth.
+	 *
+	 * @param c the char
+	 * @return true if the char is a sad mouth, false otherwise.
+	 */
+	private static boolean isSadMouth(char c) {
+		return c == '(' || c == '[' || c == '{';
+	}
+
+	/**
+	 * Checks if a char is a happy mouth.
+	 *
+	 * @param c the char
+	 * @return true if the char is a happy mouth, false otherwise.
+	 */
+	private static boolean isHappyMouth(char c) {
+		return c == 'D' || c == ')' || c == ']' || c == '}';
+	}
+
+	/**
+	 * Checks if a char is an eye of a basic face (case-insensitive).
+	 *
+	 * @param c the char
+	 * @return true if the char is an eye, false otherwise.
+	 */
+	private static boolean isBasicFaceEye(char c) {
+		switch (c) {
+			case '\u2665':
+			case '0':
+			case 'o':
+			case 'O':
+			case '\u00b0':
+			case 'v':
+			case 'V':
+			case '$':
+			case 't':
+			case 'T':
+			case 'x':
+			case 'X':
+			case ';':
+			case '\u0ca0':
+			case '@':
+			case '\u0298':
+			case '\u2022':
+			case '\u30fb':
+			case '\u25d5':
+			case '^':
+			case '\u00ac':
+			case '*':
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Checks if a char can be part of the left side of an eastern emoticon.
+	 *
+	 * @param c the char
+	 * @return true if the char can be part of the left side, false otherwise.
+	 */
+	private static boolean isEastLeft(char c) {
+		switch (c) {
+			case '\uff3c':
+			case '\\':
+			case '\u01aa':
+			case '\u0504':
+			case '(':
+			case '\uff08':
+			case '<':
+			case '>':
+			case ';':
+			case '\u30fd':
+			case '-':
+			case '=':
+			case '~':
+			case '*':
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Checks if a char can be part of the right side of an eastern emoticon.
+	 *
+	 * @param c the char
+	 * @return true if the char can be part of the right side, false
+	 * otherwise.
+	 */
+	private static boolean isEastRight(char c) {
+		switch (c) {
+			case '-':
+			case '=':
+			case ')':
+			case ';':
+			case '\'':
+			case '"':
+			case '<':
+			case '>':
+			case '\u0283':
+			case '\uff09':
+			case '/':
+			case '\uff0f':
+			case '\u30ce':
+			case '\uff89':
+			case '\u4e3f':
+			case '\u256f':
+			case '\u03c3':
+			case '\u3063':
+			case '\u00b5':
+			case '~':
+			case '*':
+				return true;
+			default:
+				return false;
+		}
+	}
+}
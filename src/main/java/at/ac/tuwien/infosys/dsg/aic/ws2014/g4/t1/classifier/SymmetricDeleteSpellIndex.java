@@ -0,0 +1,358 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Spelling suggestion index based on the symmetric delete algorithm (as used
+ * by SymSpell).
+ *
+ * At construction time all variants of the dictionary words that can be
+ * created by deleting up to maxEditDistance chars (of the first prefixLength
+ * chars) are indexed. At query time the same deletes are generated for the
+ * misspelled word -- all words sharing a delete variant are candidates,
+ * which are verified by computing the actual edit distance (optimal string
+ * alignment, i.e. adjacent transpositions count as one edit).
+ *
+ * The index is a single sorted array of longs, each holding the hash of a
+ * delete variant (upper bits) and the id of the word it was created from
+ * (lower bits). Hash collisions only add candidates that are rejected by the
+ * edit distance verification.
+ *
+ * Instances are immutable and thread-safe.
+ */
+public final class SymmetricDeleteSpellIndex {
+
+	/**
+	 * Default max. edit distance of suggestions.
+	 */
+	public static final int DEFAULT_MAX_EDIT_DISTANCE = 2;
+
+	/**
+	 * Default number of leading chars used for generating delete variants.
+	 */
+	public static final int DEFAULT_PREFIX_LENGTH = 7;
+
+	/**
+	 * FNV-1a 64 bit offset basis.
+	 */
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	/**
+	 * FNV-1a 64 bit prime.
+	 */
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * Max. edit distance of suggestions.
+	 */
+	private final int maxEditDistance;
+
+	/**
+	 * Number of leading chars used for generating delete variants.
+	 */
+	private final int prefixLength;
+
+	/**
+	 * The dictionary words (sorted, the index of a word is its id).
+	 */
+	private final String[] words;
+
+	/**
+	 * Length of the longest dictionary word.
+	 */
+	private final int maxWordLength;
+
+	/**
+	 * Mask of the word id bits of an index entry.
+	 */
+	private final long idMask;
+
+	/**
+	 * The sorted index entries (variant hash | word id).
+	 */
+	private final long[] entries;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dictionary the dictionary words (duplicates are ignored)
+	 * @param maxEditDistance max. edit distance of suggestions
+	 * @param prefixLength number of leading chars used for generating delete
+	 * variants (must be greater than maxEditDistance)
+	 */
+	public SymmetricDeleteSpellIndex(Collection<String> dictionary, int maxEditDistance, int prefixLength) {
+		if (maxEditDistance < 0 || prefixLength <= maxEditDistance) {
+			throw new IllegalArgumentException("invalid max. edit distance or prefix length");
+		}
+		this.maxEditDistance = maxEditDistance;
+		this.prefixLength = prefixLength;
+		this.words = new TreeSet<>(dictionary).toArray(new String[0]);
+
+		int idBits = 32 - Integer.numberOfLeadingZeros(Math.max(words.length - 1, 1));
+		this.idMask = (1L << idBits) - 1;
+
+		int maxLength = 0;
+		long[] packed = new long[words.length * 8];
+		int size = 0;
+		Set<String> variants = new HashSet<>();
+		for (int id = 0; id < words.length; id++) {
+			String word = words[id];
+			maxLength = Math.max(maxLength, word.length());
+
+			variants.clear();
+			addDeletes(prefix(word), maxEditDistance, variants);
+			if (size + variants.size() > packed.length) {
+				packed = Arrays.copyOf(packed, Math.max(packed.length * 2, size + variants.size()));
+			}
+			for (String variant : variants) {
+				packed[size++] = (hash(variant) & ~idMask) | id;
+			}
+		}
+		this.maxWordLength = maxLength;
+
+		Arrays.sort(packed, 0, size);
+		this.entries = Arrays.copyOf(packed, size);
+	}
+
+	/**
+	 * Creates an index with the default max. edit distance and prefix length
+	 * from a word list (one word per line).
+	 *
+	 * @param reader the word list
+	 * @return the index
+	 * @throws IOException if the word list couldn't be read
+	 */
+	public static SymmetricDeleteSpellIndex load(Reader reader) throws IOException {
+		Set<String> dictionary = new HashSet<>();
+		BufferedReader br = new BufferedReader(reader);
+		String line;
+		while ((line = br.readLine()) != null) {
+			line = line.trim();
+			if (!line.isEmpty()) {
+				dictionary.add(line.toLowerCase());
+			}
+		}
+		return new SymmetricDeleteSpellIndex(dictionary, DEFAULT_MAX_EDIT_DISTANCE, DEFAULT_PREFIX_LENGTH);
+	}
+
+	/**
+	 * Returns the best suggestion for a (misspelled) word.
+	 *
+	 * Suggestions with a smaller edit distance are preferred. Ties are broken
+	 * by preferring words of the same length as the misspelled word, then
+	 * longer words and finally the lexicographically smaller word.
+	 *
+	 * @param word the (misspelled) word
+	 * @return the suggestion (lower-case) or null if no dictionary word is
+	 * within the max. edit distance.
+	 */
+	public String getSuggestion(String word) {
+		String input = word.toLowerCase();
+		int length = input.length();
+		if (length - maxEditDistance > maxWordLength) {
+			return null;
+		}
+
+		Set<String> variants = new HashSet<>();
+		addDeletes(prefix(input), maxEditDistance, variants);
+
+		Set<Integer> checked = new HashSet<>();
+		String best = null;
+		int bestDistance = maxEditDistance + 1;
+		for (String variant : variants) {
+			long key = hash(variant) & ~idMask;
+			for (int i = lowerBound(key); i < entries.length && (entries[i] & ~idMask) == key; i++) {
+				int id = (int) (entries[i] & idMask);
+				if (!checked.add(id)) {
+					continue;
+				}
+				String candidate = words[id];
+				if (Math.abs(candidate.length() - length) > maxEditDistance) {
+					continue;
+				}
+				int distance = distance(input, candidate, Math.min(bestDistance, maxEditDistance));
+				if (distance < bestDistance || (distance == bestDistance && best != null
+						&& isPreferred(candidate, best, length))) {
+					best = candidate;
+					bestDistance = distance;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the number of dictionary words.
+	 *
+	 * @return the number of dictionary words.
+	 */
+	public int size() {
+		return words.length;
+	}
+
+	/**
+	 * Returns the number of index entries.
+	 *
+	 * @return the number of (delete variant, word) pairs.
+	 */
+	public int getNumEntries() {
+		return entries.length;
+	}
+
+	/**
+	 * Returns the max. edit distance of suggestions.
+	 *
+	 * @return the max. edit distance of suggestions.
+	 */
+	public int getMaxEditDistance() {
+		return maxEditDistance;
+	}
+
+	/**
+	 * Returns the number of leading chars used for generating delete
+	 * variants.
+	 *
+	 * @return the prefix length.
+	 */
+	public int getPrefixLength() {
+		return prefixLength;
+	}
+
+	/**
+	 * Returns the leading chars of a word used for generating delete
+	 * variants.
+	 *
+	 * @param word the word
+	 * @return the prefix
+	 */
+	private String prefix(String word) {
+		return (word.length() > prefixLength) ? word.substring(0, prefixLength) : word;
+	}
+
+	/**
+	 * Returns the position of the first index entry not less than a key.
+	 *
+	 * @param key the key (variant hash with cleared word id bits)
+	 * @return the position
+	 */
+	private int lowerBound(long key) {
+		int low = 0;
+		int high = entries.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (entries[mid] < key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Adds a string and all variants created by deleting up to a given number
+	 * of chars.
+	 *
+	 * @param str the string
+	 * @param deletes the max. number of deleted chars
+	 * @param variants the set to add the variants to
+	 */
+	private static void addDeletes(String str, int deletes, Set<String> variants) {
+		// a variant always has the same number of deleted chars, so it's expanded once
+		if (!variants.add(str) || deletes == 0) {
+			return;
+		}
+		for (int i = 0; i < str.length(); i++) {
+			addDeletes(str.substring(0, i) + str.substring(i + 1), deletes - 1, variants);
+		}
+	}
+
+	/**
+	 * Checks if a candidate is preferred over the current best suggestion
+	 * with the same edit distance.
+	 *
+	 * @param candidate the candidate
+	 * @param best the current best suggestion
+	 * @param length the length of the misspelled word
+	 * @return true if the candidate is preferred, false otherwise.
+	 */
+	private static boolean isPreferred(String candidate, String best, int length) {
+		boolean candidateSameLength = candidate.length() == length;
+		boolean bestSameLength = best.length() == length;
+		if (candidateSameLength != bestSameLength) {
+			return candidateSameLength;
+		}
+		if (candidate.length() != best.length()) {
+			return candidate.length() > best.length();
+		}
+		return candidate.compareTo(best) < 0;
+	}
+
+	/**
+	 * Computes the optimal string alignment distance of two strings.
+	 *
+	 * @param a the first string
+	 * @param b the second string
+	 * @param max the max. distance of interest
+	 * @return the distance or max + 1 if the distance is greater than max
+	 */
+	static int distance(String a, String b, int max) {
+		int n = a.length();
+		int m = b.length();
+		if (Math.abs(n - m) > max) {
+			return max + 1;
+		}
+
+		int[] previous2 = new int[m + 1];
+		int[] previous = new int[m + 1];
+		int[] current = new int[m + 1];
+		for (int j = 0; j <= m; j++) {
+			previous[j] = j;
+		}
+		for (int i = 1; i <= n; i++) {
+			current[0] = i;
+			int rowMin = i;
+			char ca = a.charAt(i - 1);
+			for (int j = 1; j <= m; j++) {
+				char cb = b.charAt(j - 1);
+				int cost = (ca == cb) ? 0 : 1;
+				int d = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+				if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+					d = Math.min(d, previous2[j - 2] + 1);
+				}
+				current[j] = d;
+				rowMin = Math.min(rowMin, d);
+			}
+			if (rowMin > max) {
+				return max + 1;
+			}
+			int[] tmp = previous2;
+			previous2 = previous;
+			previous = current;
+			current = tmp;
+		}
+		return Math.min(previous[m], max + 1);
+	}
+
+	/**
+	 * Computes the 64 bit FNV-1a hash of a string.
+	 *
+	 * @param str the string
+	 * @return the hash
+	 */
+	private static long hash(String str) {
+		long h = FNV_OFFSET_BASIS;
+		for (int i = 0; i < str.length(); i++) {
+			h ^= str.charAt(i);
+			h *= FNV_PRIME;
+		}
+		return h;
+	}
+}
@@ -0,0 +1,454 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+/**
+ * Classifies a raw token in a single pass over its chars -- replaces matching
+ * the token against several regular expressions one after another.
+ *
+ * The result is a combination of flags, each flag is equivalent to one of the
+ * former preprocessor patterns or checks (\w means [a-zA-Z_0-9]).
+ *
+ * The URL flag is computed by simulating a small NFA (one bit per state) for
+ * the language of the former URL pattern:
+ * <pre>
+ * ^((([A-Za-z]{3,9}:(?:\/\/)?)(?:[-;:&amp;=\+\$,\w]+@)?[A-Za-z0-9.-]+|(?:www.|[-;:&amp;=\+\$,\w]+@)[A-Za-z0-9.-]+)((?:\/[\+~%\/.\w_-]*)?\??(?:[-\+=&amp;;%@.\w_]*)#?(?:[\w/?:@_-]*))?)$
+ * </pre>
+ */
+public final class TokenClassifier {
+
+	/**
+	 * Flag for URLs.
+	 */
+	public static final int URL = 1;
+
+	/**
+	 * Flag for mentioned Twitter usernames (@ followed by at least one char).
+	 */
+	public static final int USERNAME = 1 << 1;
+
+	/**
+	 * Flag for Twitter hashtags (# followed by at least one char).
+	 */
+	public static final int HASHTAG = 1 << 2;
+
+	/**
+	 * Flag for tokens consisting of [A-Za-z] only.
+	 */
+	public static final int ALPHA = 1 << 3;
+
+	/**
+	 * Flag for tokens consisting of upper-case chars only (also set for empty
+	 * tokens).
+	 */
+	public static final int UPPER = 1 << 4;
+
+	/**
+	 * Flag for tokens consisting of non-word chars only.
+	 */
+	public static final int NONWORD = 1 << 5;
+
+	/**
+	 * Flag for alternatives (e.g. "lunch/dinner").
+	 */
+	public static final int ALTERNATIVE = 1 << 6;
+
+	/**
+	 * Flag for tokens containing a word char repeated at least 3 times.
+	 */
+	public static final int REPETITIVE = 1 << 7;
+
+	/*
+	 * NFA states of the URL pattern.
+	 */
+	/**
+	 * Start state.
+	 */
+	private static final int S_START = 1;
+	/**
+	 * First scheme letter read (the next 8 bits are the following letters).
+	 */
+	private static final int S_SCHEME = 1 << 1;
+	/**
+	 * All scheme states ([A-Za-z]{1,9}).
+	 */
+	private static final int S_SCHEME_ALL = 0x1FF << 1;
+	/**
+	 * Scheme states that may be followed by ':' ([A-Za-z]{3,9}).
+	 */
+	private static final int S_SCHEME_COMPLETE = 0x1FC << 1;
+	/**
+	 * Scheme and ':' read.
+	 */
+	private static final int S_COLON = 1 << 10;
+	/**
+	 * Scheme, ':' and '/' read.
+	 */
+	private static final int S_SLASH = 1 << 11;
+	/**
+	 * Scheme, ':' and '//' read.
+	 */
+	private static final int S_SLASHES = 1 << 12;
+	/**
+	 * Reading the user info after the scheme.
+	 */
+	private static final int S_SCHEME_USER = 1 << 13;
+	/**
+	 * User info after the scheme and '@' read.
+	 */
+	private static final int S_SCHEME_AT = 1 << 14;
+	/**
+	 * Reading the host (accepting).
+	 */
+	private static final int S_HOST = 1 << 15;
+	/**
+	 * 'w' read.
+	 */
+	private static final int S_W1 = 1 << 16;
+	/**
+	 * 'ww' read.
+	 */
+	private static final int S_W2 = 1 << 17;
+	/**
+	 * 'www' read.
+	 */
+	private static final int S_W3 = 1 << 18;
+	/**
+	 * Reading the user info without scheme.
+	 */
+	private static final int S_USER = 1 << 19;
+	/**
+	 * 'www.' or user info without scheme and '@' read.
+	 */
+	private static final int S_PREFIX = 1 << 20;
+	/**
+	 * Reading the path (accepting).
+	 */
+	private static final int S_PATH = 1 << 21;
+	/**
+	 * '?' read (accepting).
+	 */
+	private static final int S_QUESTION_MARK = 1 << 22;
+	/**
+	 * Reading the query (accepting).
+	 */
+	private static final int S_QUERY = 1 << 23;
+	/**
+	 * '#' read (accepting).
+	 */
+	private static final int S_HASH = 1 << 24;
+	/**
+	 * Reading the fragment (accepting).
+	 */
+	private static final int S_FRAGMENT = 1 << 25;
+	/**
+	 * Accepting states.
+	 */
+	private static final int S_ACCEPT = S_HOST | S_PATH | S_QUESTION_MARK | S_QUERY | S_HASH | S_FRAGMENT;
+
+	/**
+	 * Constructor.
+	 */
+	private TokenClassifier() {
+	}
+
+	/**
+	 * Classifies a token.
+	 *
+	 * @param token the raw token
+	 * @return the flags of the token
+	 */
+	public static int classify(String token) {
+		return classify(token, 0, token.length());
+	}
+
+	/**
+	 * Classifies a token given as a span of a text.
+	 *
+	 * @param text the text
+	 * @param start the start of the token in the text (inclusive)
+	 * @param end the end of the token in the text (exclusive)
+	 * @return the flags of the token
+	 */
+	public static int classify(CharSequence text, int start, int end) {
+		int n = end - start;
+		boolean alpha = n > 0;
+		boolean upper = true;
+		boolean nonWord = n > 0;
+		boolean alternative = n > 0;
+		boolean afterSlash = true; // rejects a leading '/'
+		int slashes = 0;
+		boolean repetitive = false;
+		int run = 0;
+		char previous = 0;
+		int url = S_START;
+
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			boolean word = isWordChar(c);
+
+			alpha &= isLetter(c);
+			upper &= Character.isUpperCase(c);
+			nonWord &= !word;
+
+			if (alternative) {
+				if (c == '/') {
+					alternative = !afterSlash;
+					afterSlash = true;
+					slashes++;
+				} else if (word) {
+					afterSlash = false;
+				} else {
+					alternative = false;
+				}
+			}
+
+			if (word) {
+				run = (run > 0 && c == previous) ? run + 1 : 1;
+				repetitive |= (run >= 3);
+			} else {
+				run = 0;
+			}
+			previous = c;
+
+			if (url != 0) {
+				url = step(url, c);
+			}
+		}
+
+		int flags = 0;
+		if ((url & S_ACCEPT) != 0) {
+			flags |= URL;
+		}
+		if (n > 1 && text.charAt(start) == '@') {
+			flags |= USERNAME;
+		}
+		if (n > 1 && text.charAt(start) == '#') {
+			flags |= HASHTAG;
+		}
+		if (alpha) {
+			flags |= ALPHA;
+		}
+		if (upper) {
+			flags |= UPPER;
+		}
+		if (nonWord) {
+			flags |= NONWORD;
+		}
+		if (alternative && slashes > 0 && !afterSlash) {
+			flags |= ALTERNATIVE;
+		}
+		if (repetitive) {
+			flags |= REPETITIVE;
+		}
+		return flags;
+	}
+
+	/**
+	 * Checks if a token has a flag.
+	 *
+	 * @param flags the flags of the token
+	 * @param flag the flag to check
+	 * @return true if the flag is set, false otherwise
+	 */
+	public static boolean is(int flags, int flag) {
+		return (flags & flag) != 0;
+	}
+
+	/**
+	 * Computes the next states of the URL NFA.
+	 *
+	 * @param states the current states
+	 * @param c the next char
+	 * @return the next states
+	 */
+	private static int step(int states, char c) {
+		int next = 0;
+		boolean letter = isLetter(c);
+		boolean user = isUserChar(c);
+		boolean host = isHostChar(c);
+
+		if ((states & S_START) != 0) {
+			if (letter) {
+				next |= S_SCHEME;
+			}
+			if (c == 'w') {
+				next |= S_W1;
+			}
+			if (user) {
+				next |= S_USER;
+			}
+		}
+
+		// scheme: [A-Za-z]{3,9}:(?://)?
+		int scheme = states & S_SCHEME_ALL;
+		if (scheme != 0) {
+			if (letter) {
+				next |= (scheme << 1) & S_SCHEME_ALL;
+			}
+			if (c == ':' && (scheme & S_SCHEME_COMPLETE) != 0) {
+				next |= S_COLON;
+			}
+		}
+		if ((states & S_COLON) != 0 && c == '/') {
+			next |= S_SLASH;
+		}
+		if ((states & S_SLASH) != 0 && c == '/') {
+			next |= S_SLASHES;
+		}
+		if ((states & (S_COLON | S_SLASHES)) != 0) {
+			if (user) {
+				next |= S_SCHEME_USER;
+			}
+			if (host) {
+				next |= S_HOST;
+			}
+		}
+
+		// user info after scheme: [-;:&=\+\$,\w]+@
+		if ((states & S_SCHEME_USER) != 0) {
+			if (user) {
+				next |= S_SCHEME_USER;
+			}
+			if (c == '@') {
+				next |= S_SCHEME_AT;
+			}
+		}
+		if ((states & S_SCHEME_AT) != 0 && host) {
+			next |= S_HOST;
+		}
+
+		// prefix without scheme: www.|[-;:&=\+\$,\w]+@
+		if ((states & S_W1) != 0 && c == 'w') {
+			next |= S_W2;
+		}
+		if ((states & S_W2) != 0 && c == 'w') {
+			next |= S_W3;
+		}
+		if ((states & S_W3) != 0 && !isLineTerminator(c)) {
+			next |= S_PREFIX;
+		}
+		if ((states & S_USER) != 0) {
+			if (user) {
+				next |= S_USER;
+			}
+			if (c == '@') {
+				next |= S_PREFIX;
+			}
+		}
+		if ((states & S_PREFIX) != 0 && host) {
+			next |= S_HOST;
+		}
+
+		// host: [A-Za-z0-9.-]+
+		if ((states & S_HOST) != 0) {
+			if (host) {
+				next |= S_HOST;
+			}
+			if (c == '/') {
+				next |= S_PATH;
+			}
+		}
+
+		// (?:\/[\+~%\/.\w_-]*)?\??(?:[-\+=&;%@.\w_]*)#?(?:[\w/?:@_-]*)
+		if ((states & S_PATH) != 0 && isPathChar(c)) {
+			next |= S_PATH;
+		}
+		if ((states & (S_HOST | S_PATH)) != 0 && c == '?') {
+			next |= S_QUESTION_MARK;
+		}
+		if ((states & (S_HOST | S_PATH | S_QUESTION_MARK | S_QUERY)) != 0) {
+			if (isQueryChar(c)) {
+				next |= S_QUERY;
+			}
+			if (c == '#') {
+				next |= S_HASH;
+			}
+		}
+		if ((states & S_ACCEPT) != 0 && isFragmentChar(c)) {
+			next |= S_FRAGMENT;
+		}
+		return next;
+	}
+
+	/**
+	 * Checks if a char is an ASCII letter ([A-Za-z]).
+	 *
+	 * @param c the char to check
+	 * @return true if the char is an ASCII letter, false otherwise
+	 */
+	private static boolean isLetter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	/**
+	 * Checks if a char is a word char (\w = [a-zA-Z_0-9]).
+	 *
+	 * @param c the char to check
+	 * @return true if the char is a word char, false otherwise
+	 */
+	private static boolean isWordChar(char c) {
+		return isLetter(c) || (c >= '0' && c <= '9') || c == '_';
+	}
+
+	/**
+	 * Checks if a char may occur in the user info of an URL
+	 * ([-;:&amp;=\+\$,\w]).
+	 *
+	 * @param c the char to check
+	 * @return true if the char is allowed, false otherwise
+	 */
+	private static boolean isUserChar(char c) {
+		return isWordChar(c) || c == '-' || c == ';' || c == ':' || c == '&' || c == '=' || c == '+' || c == '$' || c == ',';
+	}
+
+	/**
+	 * Checks if a char may occur in the host of an URL ([A-Za-z0-9.-]).
+	 *
+	 * @param c the char to check
+	 * @return true if the char is allowed, false otherwise
+	 */
+	private static boolean isHostChar(char c) {
+		return isLetter(c) || (c >= '0' && c <= '9') || c == '.' || c == '-';
+	}
+
+	/**
+	 * Checks if a char may occur in the path of an URL ([\+~%\/.\w_-]).
+	 *
+	 * @param c the char to check
+	 * @return true if the char is allowed, false otherwise
+	 */
+	private static boolean isPathChar(char c) {
+		return isWordChar(c) || c == '+' || c == '~' || c == '%' || c == '/' || c == '.' || c == '-';
+	}
+
+	/**
+	 * Checks if a char may occur in the query of an URL
+	 * ([-\+=&amp;;%@.\w_]).
+	 *
+	 * @param c the char to check
+	 * @return true if the char is allowed, false otherwise
+	 */
+	private static boolean isQueryChar(char c) {
+		return isWordChar(c) || c == '-' || c == '+' || c == '=' || c == '&' || c == ';' || c == '%' || c == '@' || c == '.';
+	}
+
+	/**
+	 * Checks if a char may occur in the fragment of an URL ([\w/?:@_-]).
+	 *
+	 * @param c the char to check
+	 * @return true if the char is allowed, false otherwise
+	 */
+	private static boolean isFragmentChar(char c) {
+		return isWordChar(c) || c == '/' || c == '?' || c == ':' || c == '@' || c == '-';
+	}
+
+	/**
+	 * Checks if a char is a line terminator (not matched by '.' in a regular
+	 * expression).
+	 *
+	 * @param c the char to check
+	 * @return true if the char is a line terminator, false otherwise
+	 */
+	private static boolean isLineTerminator(char c) {
+		return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+	}
+}
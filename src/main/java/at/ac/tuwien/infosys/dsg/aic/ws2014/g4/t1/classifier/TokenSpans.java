@@ -0,0 +1,309 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The tokens of a text as spans (start, end, type) over the text -- stored in
+ * primitive arrays, so tokens don't have to be copied into strings unless
+ * they're needed as strings (e.g. after surviving preprocessing).
+ *
+ * The type of a token is the combination of its TokenClassifier flags. The
+ * ids of a token and of its lower-cased form in the TokenTable are looked up
+ * when the token is added, so later stages compare ids.
+ *
+ * Instances are mutable and can be reused for several texts (see reset()),
+ * they aren't thread-safe.
+ */
+public final class TokenSpans {
+
+	/**
+	 * Initial capacity (number of tokens).
+	 */
+	private static final int INITIAL_CAPACITY = 32;
+
+	/**
+	 * The text the spans refer to.
+	 */
+	private CharSequence text = "";
+
+	/**
+	 * Start of each token (inclusive).
+	 */
+	private int[] starts = new int[INITIAL_CAPACITY];
+
+	/**
+	 * End of each token (exclusive).
+	 */
+	private int[] ends = new int[INITIAL_CAPACITY];
+
+	/**
+	 * Type (TokenClassifier flags) of each token.
+	 */
+	private int[] types = new int[INITIAL_CAPACITY];
+
+	/**
+	 * TokenTable id of each token (NOT_FOUND if not interned).
+	 */
+	private int[] tokenIds = new int[INITIAL_CAPACITY];
+
+	/**
+	 * TokenTable id of each lower-cased token (NOT_FOUND if not interned).
+	 */
+	private int[] lowerCaseTokenIds = new int[INITIAL_CAPACITY];
+
+	/**
+	 * The token table.
+	 */
+	private final TokenTable tokenTable = TokenTable.getInstance();
+
+	/**
+	 * Number of tokens.
+	 */
+	private int size = 0;
+
+	/**
+	 * Removes all tokens and sets the text the spans refer to.
+	 *
+	 * @param text the text
+	 */
+	public void reset(CharSequence text) {
+		this.text = text;
+		this.size = 0;
+	}
+
+	/**
+	 * Adds a token -- its type is determined by the TokenClassifier, its ids
+	 * are looked up in the TokenTable.
+	 *
+	 * @param start the start of the token in the text (inclusive)
+	 * @param end the end of the token in the text (exclusive)
+	 */
+	public void add(int start, int end) {
+		if (start < 0 || end < start || end > text.length()) {
+			throw new IndexOutOfBoundsException("invalid token span [" + start + ", " + end + ")");
+		}
+		if (size == starts.length) {
+			int capacity = 2 * size;
+			starts = Arrays.copyOf(starts, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+			types = Arrays.copyOf(types, capacity);
+			tokenIds = Arrays.copyOf(tokenIds, capacity);
+			lowerCaseTokenIds = Arrays.copyOf(lowerCaseTokenIds, capacity);
+		}
+		starts[size] = start;
+		ends[size] = end;
+		types[size] = TokenClassifier.classify(text, start, end);
+		tokenIds[size] = tokenTable.idOf(text, start, end, false);
+		lowerCaseTokenIds[size] = isLowerCaseAscii(text, start, end)
+				? tokenIds[size] : tokenTable.idOf(text, start, end, true);
+		size++;
+	}
+
+	/**
+	 * Returns the text the spans refer to.
+	 *
+	 * @return the text.
+	 */
+	public CharSequence getText() {
+		return text;
+	}
+
+	/**
+	 * Returns the number of tokens.
+	 *
+	 * @return the number of tokens.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the start of a token.
+	 *
+	 * @param index the index of the token
+	 * @return the start of the token in the text (inclusive)
+	 */
+	public int getStart(int index) {
+		checkIndex(index);
+		return starts[index];
+	}
+
+	/**
+	 * Returns the end of a token.
+	 *
+	 * @param index the index of the token
+	 * @return the end of the token in the text (exclusive)
+	 */
+	public int getEnd(int index) {
+		checkIndex(index);
+		return ends[index];
+	}
+
+	/**
+	 * Returns the type of a token.
+	 *
+	 * @param index the index of the token
+	 * @return the TokenClassifier flags of the token
+	 */
+	public int getType(int index) {
+		checkIndex(index);
+		return types[index];
+	}
+
+	/**
+	 * Returns the TokenTable id of a token.
+	 *
+	 * @param index the index of the token
+	 * @return the id or TokenTable.NOT_FOUND if the token isn't interned
+	 */
+	public int getTokenId(int index) {
+		checkIndex(index);
+		return tokenIds[index];
+	}
+
+	/**
+	 * Returns the TokenTable id of a lower-cased token (as
+	 * String.toLowerCase() does).
+	 *
+	 * @param index the index of the token
+	 * @return the id or TokenTable.NOT_FOUND if the lower-cased token isn't
+	 * interned
+	 */
+	public int getLowerCaseTokenId(int index) {
+		checkIndex(index);
+		return lowerCaseTokenIds[index];
+	}
+
+	/**
+	 * Returns a token as a string (creates the string).
+	 *
+	 * @param index the index of the token
+	 * @return the token
+	 */
+	public String getToken(int index) {
+		checkIndex(index);
+		return text.subSequence(starts[index], ends[index]).toString();
+	}
+
+	/**
+	 * Returns all tokens as strings (creates the strings).
+	 *
+	 * @return the tokens
+	 */
+	public List<String> toList() {
+		List<String> tokens = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			tokens.add(getToken(i));
+		}
+		return tokens;
+	}
+
+	@Override
+	public String toString() {
+		return toList().toString();
+	}
+
+	/**
+	 * Computes the hash code of a span -- same as the hash code of the string
+	 * of the span.
+	 *
+	 * @param text the text
+	 * @param start the start of the span (inclusive)
+	 * @param end the end of the span (exclusive)
+	 * @param lowerCase whether ASCII letters are lower-cased
+	 * @return the hash code
+	 */
+	static int hashCode(CharSequence text, int start, int end, boolean lowerCase) {
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			hash = 31 * hash + (lowerCase ? toLowerAscii(c) : c);
+		}
+		return hash;
+	}
+
+	/**
+	 * Checks if a span is equal to a string.
+	 *
+	 * @param str the string
+	 * @param text the text
+	 * @param start the start of the span (inclusive)
+	 * @param end the end of the span (exclusive)
+	 * @param lowerCase whether ASCII letters of the span are lower-cased
+	 * @return true if the span is equal to the string, false otherwise.
+	 */
+	static boolean regionEquals(String str, CharSequence text, int start, int end, boolean lowerCase) {
+		if (end - start != str.length()) {
+			return false;
+		}
+		for (int i = 0; i < str.length(); i++) {
+			char c = text.charAt(start + i);
+			if (str.charAt(i) != (lowerCase ? toLowerAscii(c) : c)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if a span consists of ASCII chars only (i.e. lower-casing ASCII
+	 * letters is the same as String.toLowerCase()).
+	 *
+	 * @param text the text
+	 * @param start the start of the span (inclusive)
+	 * @param end the end of the span (exclusive)
+	 * @return true if the span consists of ASCII chars only, false otherwise.
+	 */
+	static boolean isAscii(CharSequence text, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (text.charAt(i) >= 0x80) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if a span consists of ASCII chars other than upper-case letters
+	 * only (i.e. lower-casing doesn't change the span).
+	 *
+	 * @param text the text
+	 * @param start the start of the span (inclusive)
+	 * @param end the end of the span (exclusive)
+	 * @return true if lower-casing doesn't change the span, false if it
+	 * might.
+	 */
+	static boolean isLowerCaseAscii(CharSequence text, int start, int end) {
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			if (c >= 0x80 || (c >= 'A' && c <= 'Z')) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Lower-cases an ASCII letter.
+	 *
+	 * @param c the char
+	 * @return the lower-case letter (other chars are returned unchanged)
+	 */
+	static char toLowerAscii(char c) {
+		return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+	}
+
+	/**
+	 * Checks if a token index is valid.
+	 *
+	 * @param index the index
+	 * @throws IndexOutOfBoundsException if the index is invalid
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+		}
+	}
+}
@@ -0,0 +1,243 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Global table mapping tokens to dense int ids (0, 1, 2, ...), shared by the
+ * tokenizer (see TokenSpans), the dictionaries and the word-to-attribute
+ * index, so the stages of the pipeline compare ids instead of strings.
+ *
+ * Only the entries of the dictionaries and the vocabularies of the
+ * classifiers are interned -- tokens of tweets are only looked up, so the
+ * table doesn't grow with the number of processed tweets. A token that isn't
+ * interned can't be a dictionary entry or a feature. Ids are never removed.
+ *
+ * Open addressing with linear probing, the hash of a token is the hash code
+ * of its string, so token spans can be looked up without creating strings.
+ * Lookups are lock-free, interning is synchronized: the token of a new id is
+ * written before the id is published in its slot (a volatile write), and a
+ * grown slot array is only published when it's complete.
+ *
+ * Instances are thread-safe.
+ */
+public final class TokenTable {
+
+	/**
+	 * Value returned by a lookup if the token isn't interned.
+	 */
+	public static final int NOT_FOUND = -1;
+
+	/**
+	 * Initial number of slots.
+	 */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/**
+	 * The singleton instance.
+	 */
+	private static final TokenTable instance = new TokenTable();
+
+	/**
+	 * The slots: id + 1 of the token in the slot (0 = free slot).
+	 */
+	private volatile AtomicIntegerArray slots = new AtomicIntegerArray(INITIAL_CAPACITY);
+
+	/**
+	 * The token of each id.
+	 */
+	private volatile String[] tokens = new String[INITIAL_CAPACITY / 2];
+
+	/**
+	 * The hash code of each id's token.
+	 */
+	private volatile int[] hashCodes = new int[INITIAL_CAPACITY / 2];
+
+	/**
+	 * The number of interned tokens (= the next id).
+	 */
+	private volatile int size = 0;
+
+	/**
+	 * Constructor.
+	 */
+	private TokenTable() {
+	}
+
+	/**
+	 * Returns the token table instance.
+	 *
+	 * @return the token table instance.
+	 */
+	public static TokenTable getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Interns a token.
+	 *
+	 * @param token the token
+	 * @return the id of the token (a new id if the token wasn't interned yet)
+	 */
+	public int intern(String token) {
+		int id = idOf(token);
+		if (id != NOT_FOUND) {
+			return id;
+		}
+
+		synchronized (this) {
+			int hash = token.hashCode();
+			id = find(hash, token, 0, token.length(), false);
+			if (id != NOT_FOUND) {
+				return id;
+			}
+
+			id = size;
+			if (id == tokens.length) {
+				tokens = Arrays.copyOf(tokens, 2 * id);
+				hashCodes = Arrays.copyOf(hashCodes, 2 * id);
+			}
+			tokens[id] = token;
+			hashCodes[id] = hash;
+
+			AtomicIntegerArray s = slots;
+			if (2 * (id + 1) > s.length()) {
+				s = new AtomicIntegerArray(2 * s.length());
+				for (int i = 0; i < id; i++) {
+					insert(s, i, hashCodes[i]);
+				}
+				insert(s, id, hash);
+				slots = s;
+			} else {
+				insert(s, id, hash);
+			}
+			size = id + 1;
+			return id;
+		}
+	}
+
+	/**
+	 * Returns the id of a token.
+	 *
+	 * @param token the token
+	 * @return the id or NOT_FOUND if the token isn't interned
+	 */
+	public int idOf(String token) {
+		return find(token.hashCode(), token, 0, token.length(), false);
+	}
+
+	/**
+	 * Returns the id of a token given as a span of a text (without creating
+	 * a string for the span).
+	 *
+	 * @param text the text
+	 * @param start the start of the token in the text (inclusive)
+	 * @param end the end of the token in the text (exclusive)
+	 * @param lowerCase whether the token is lower-cased (as
+	 * String.toLowerCase() does)
+	 * @return the id or NOT_FOUND if the token isn't interned
+	 */
+	public int idOf(CharSequence text, int start, int end, boolean lowerCase) {
+		if (lowerCase && !TokenSpans.isAscii(text, start, end)) {
+			String lower = text.subSequence(start, end).toString().toLowerCase();
+			return idOf(lower);
+		}
+		return find(TokenSpans.hashCode(text, start, end, lowerCase), text, start, end, lowerCase);
+	}
+
+	/**
+	 * Returns the token of an id.
+	 *
+	 * @param id the id
+	 * @return the token
+	 * @throws IndexOutOfBoundsException if the id is invalid
+	 */
+	public String getToken(int id) {
+		checkId(id);
+		return tokens[id];
+	}
+
+	/**
+	 * Returns the hash code of an id's token.
+	 *
+	 * @param id the id
+	 * @return the hash code of the token (same as getToken(id).hashCode())
+	 * @throws IndexOutOfBoundsException if the id is invalid
+	 */
+	public int getHashCode(int id) {
+		checkId(id);
+		return hashCodes[id];
+	}
+
+	/**
+	 * Returns the number of interned tokens (all ids are less than the size).
+	 *
+	 * @return the number of interned tokens.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Finds the id of a span.
+	 *
+	 * @param hash the hash code of the span
+	 * @param text the text
+	 * @param start the start of the span (inclusive)
+	 * @param end the end of the span (exclusive)
+	 * @param lowerCase whether ASCII letters of the span are lower-cased
+	 * @return the id or NOT_FOUND if the span isn't interned
+	 */
+	private int find(int hash, CharSequence text, int start, int end, boolean lowerCase) {
+		AtomicIntegerArray s = slots;
+		int mask = s.length() - 1;
+		int value;
+		for (int slot = mix(hash) & mask; (value = s.get(slot)) != 0; slot = (slot + 1) & mask) {
+			// the token of a published id is visible after reading its slot
+			int id = value - 1;
+			if (hashCodes[id] == hash && TokenSpans.regionEquals(tokens[id], text, start, end, lowerCase)) {
+				return id;
+			}
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	 * Spreads the bits of a hash code to reduce clustering with linear probing.
+	 *
+	 * @param h the hash code
+	 * @return the mixed hash code
+	 */
+	static int mix(int h) {
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Inserts an id into the slots (the id must not be present).
+	 *
+	 * @param s the slots
+	 * @param id the id
+	 * @param hash the hash code of the id's token
+	 */
+	private static void insert(AtomicIntegerArray s, int id, int hash) {
+		int mask = s.length() - 1;
+		int slot = mix(hash) & mask;
+		while (s.get(slot) != 0) {
+			slot = (slot + 1) & mask;
+		}
+		s.set(slot, id + 1);
+	}
+
+	/**
+	 * Checks if an id is valid.
+	 *
+	 * @param id the id
+	 * @throws IndexOutOfBoundsException if the id is invalid
+	 */
+	private void checkId(int id) {
+		if (id < 0 || id >= size) {
+			throw new IndexOutOfBoundsException("id: " + id + ", size: " + size);
+		}
+	}
+}
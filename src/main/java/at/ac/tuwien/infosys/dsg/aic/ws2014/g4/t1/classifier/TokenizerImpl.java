@@ -29,4 +29,29 @@ public class TokenizerImpl implements ITokenizer {
 		return tokens;
 	}
 
+	/**
+	 * Performs tokenization of an input text using the Twokenize tokenizer --
+	 * the tokens are located in the text (Twokenize only removes whitespace
+	 * between tokens).
+	 *
+	 * @param text the input text.
+	 * @param spans the spans to store the tokens in.
+	 */
+	@Override
+	public void tokenize(CharSequence text, TokenSpans spans) {
+		String string = text.toString();
+		List<String> tokens = tokenize(string);
+
+		spans.reset(text);
+		int from = 0;
+		for (String token : tokens) {
+			int start = string.indexOf(token, from);
+			if (start < 0) {
+				throw new IllegalStateException("token '" + token + "' not found in text '" + string + "'");
+			}
+			from = start + token.length();
+			spans.add(start, from);
+		}
+	}
+
 }
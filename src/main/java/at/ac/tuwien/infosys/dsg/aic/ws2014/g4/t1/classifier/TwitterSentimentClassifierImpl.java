@@ -1,5 +1,6 @@
 package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
 
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.IPreprocessor.Profile;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.helper.ApplicationConfig;
 import java.io.File;
 import java.io.FileInputStream;
@@ -7,6 +8,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -14,16 +17,20 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import twitter4j.Status;
 import weka.classifiers.Classifier;
 import weka.classifiers.Evaluation;
+import weka.classifiers.lazy.IBk;
 import weka.core.Attribute;
 import weka.core.FastVector;
 import weka.core.Instances;
-import weka.core.SparseInstance;
 import weka.core.converters.ArffLoader;
 import weka.core.converters.ArffSaver;
 
@@ -48,6 +55,42 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 	 */
 	private static final int CLASS_ATTRIBUTE_INDEX = 0;
 
+	/**
+	 * Max. number of tweets classified by a single batch task (larger ranges
+	 * are split up).
+	 */
+	private static final int BATCH_TASK_SIZE = 32;
+
+	/**
+	 * Metadata key for the vectorization mode.
+	 */
+	private static final String METADATA_KEY_VECTORIZER = "vectorizer";
+
+	/**
+	 * Metadata key for the number of feature hashing bits.
+	 */
+	private static final String METADATA_KEY_FEATURE_HASHING_BITS = "feature_hashing_bits";
+
+	/**
+	 * Metadata key for the vocabulary pruning settings.
+	 */
+	private static final String METADATA_KEY_VOCABULARY_PRUNING = "vocabulary_pruning";
+
+	/**
+	 * Metadata key for the preprocessing profile of the training tweets.
+	 */
+	private static final String METADATA_KEY_PREPROCESSING_PROFILE = "preprocessing_profile";
+
+	/**
+	 * Vectorization mode: one attribute per word.
+	 */
+	private static final String VECTORIZER_DICTIONARY = "dictionary";
+
+	/**
+	 * Vectorization mode: hashed features.
+	 */
+	private static final String VECTORIZER_HASHING = "hashing";
+
 	/**
 	 * defines the mapping between classifier model type and Weka class.
 	 */
@@ -101,6 +144,56 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 	 * The Weka classifier used for sentiment classification.
 	 */
 	private Classifier classifier = null;
+	/**
+	 * Number of hash bits used for feature hashing when processing the next
+	 * training set (0 = one attribute per word).
+	 */
+	private int featureHashingBits = 0;
+	/**
+	 * The feature hasher the attributes were created with (null if there's
+	 * one attribute per word).
+	 */
+	private FeatureHasher featureHasher = null;
+	/**
+	 * The pruner selecting the vocabulary when processing the next training
+	 * set (null = every occurring word becomes an attribute).
+	 */
+	private VocabularyPruner vocabularyPruner = null;
+	/**
+	 * The pruning settings the attributes were selected with (null if the
+	 * vocabulary wasn't pruned).
+	 */
+	private String appliedPruning = null;
+
+	/**
+	 * The preprocessing profile the training tweets were processed with (null
+	 * if unknown).
+	 */
+	private Profile appliedProfile = null;
+	/**
+	 * The current snapshot of the trained classifier used for classification
+	 * (null if the classifier wasn't trained or restored yet) -- replaced as a
+	 * whole whenever the classifier is trained or restored (processing a new
+	 * training set keeps the previous snapshot until it's trained).
+	 */
+	private final AtomicReference<ClassifierSnapshot> snapshot = new AtomicReference<>();
+
+	/**
+	 * Number of threads used for classifying batches of tweets.
+	 */
+	private int batchParallelism = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Pool used for classifying batches of tweets (null until first use or
+	 * after shutdown()).
+	 */
+	private ForkJoinPool batchPool = null;
+
+	/**
+	 * Cache for class distributions of tweet texts (null = disabled, enabled
+	 * by the application config or setClassificationCacheSize()).
+	 */
+	private volatile ClassificationCache classificationCache = null;
 
 	/**
 	 * Creates a twitter sentiment classifier with defaults: - uses SMO as
@@ -118,6 +211,9 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 	 * classifier.
 	 */
 	public TwitterSentimentClassifierImpl(ApplicationConfig config) {
+		super(new PreprocessorImpl(config.getPreprocessorSpellCorrectionCacheSize(),
+				config.getPreprocessorSpellSuggestionEngine(), config.getPreprocessorProfile()),
+				config.getTokenizerImplementation().createTokenizer());
 		String name = config.getClassifierName();
 		ClassifierModel model = config.getClassifierModel();
 
@@ -126,6 +222,14 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 		exportDirectory = config.getClassifierExportDirectory();
 		exportTrainedClassifier = config.getExportTrainedClassifierToFile();
 		importTrainedClassifier = config.getImportTrainedClassifierToFile();
+		batchParallelism = config.getClassifierBatchParallelism();
+		setClassificationCacheSize(config.getClassifierClassificationCacheSize());
+		setFeatureHashingBits(config.getClassifierFeatureHashingBits());
+
+		VocabularyPruner pruner = new VocabularyPruner(config.getClassifierMinDocumentFrequency(),
+				config.getClassifierMaxVocabularySize(), config.getClassifierFeatureSelection(),
+				config.getClassifierFeatureSelectionTopK());
+		vocabularyPruner = pruner.isEnabled() ? pruner : null;
 	}
 
 	@Override
@@ -136,12 +240,32 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 
 	@Override
 	public boolean isTrained() {
-		if (classifier == null) {
-			if (importTrainedClassifier) {
-				restoreTrainedClassifier();
+		return getSnapshot() != null;
+	}
+
+	/**
+	 * Returns the current snapshot of the trained classifier -- tries to
+	 * restore a previously trained classifier if no snapshot is available and
+	 * importing is enabled.
+	 *
+	 * The returned snapshot is immutable and stays usable even if the
+	 * classifier is retrained or the model is changed meanwhile.
+	 *
+	 * @return the current snapshot or null if the classifier wasn't trained
+	 * yet.
+	 */
+	public ClassifierSnapshot getSnapshot() {
+		ClassifierSnapshot current = snapshot.get();
+		if (current == null && importTrainedClassifier) {
+			synchronized (this) {
+				current = snapshot.get();
+				if (current == null) {
+					restoreTrainedClassifier();
+					current = snapshot.get();
+				}
 			}
 		}
-		return (attributes != null && classifier != null);
+		return current;
 	}
 
 	/**
@@ -150,9 +274,12 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 	 *
 	 * @param trainingSet the input training data
 	 */
-	public void processTrainingSet(Map<Status, Sentiment> trainingSet) {
+	public synchronized void processTrainingSet(Map<Status, Sentiment> trainingSet) {
+		featureHasher = (featureHashingBits > 0) ? new FeatureHasher(featureHashingBits) : null;
+
 		// init attributes vector
-		attributes = new FastVector(INIT_ATTRIBUTES_CAPACITY);
+		int capacity = (featureHasher != null) ? featureHasher.getNumBuckets() + 1 : INIT_ATTRIBUTES_CAPACITY;
+		attributes = new FastVector(capacity);
 
 		// add class attribute
 		Attribute classAttr = createClassAttribute();
@@ -160,6 +287,7 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 
 		Map<Status, List<String>> processedTweets = new HashMap<>();
 		Set<String> allWords = new HashSet<>();
+		boolean prune = (featureHasher == null && vocabularyPruner != null);
 
 		logger.debug("## Preprocess all tweets of training set.");
 
@@ -168,38 +296,54 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 			List<String> tWords = processTweet(entry.getKey());
 			processedTweets.put(entry.getKey(), tWords);
 
-			allWords.addAll(tWords);
+			if (featureHasher == null && !prune) {
+				allWords.addAll(tWords);
+			}
+		}
+		if (preprocessor instanceof PreprocessorImpl && ((PreprocessorImpl) preprocessor).getSpellCorrectionCache() != null) {
+			logger.debug("Spell correction cache: " + ((PreprocessorImpl) preprocessor).getSpellCorrectionCache());
 		}
 
-		// create attributes for all occurring words
-		for (String w : allWords) {
-			Attribute attr = new Attribute(w);
-			attributes.addElement(attr);
+		appliedPruning = null;
+		appliedProfile = preprocessor.getDefaultProfile();
+		if (featureHasher != null) {
+			// create attributes for all buckets
+			appendAll(attributes, featureHasher.createAttributes());
+		} else if (prune) {
+			// create attributes for the selected words only
+			List<List<String>> documents = new ArrayList<>(processedTweets.size());
+			int[] classValues = new int[processedTweets.size()];
+			for (Map.Entry<Status, List<String>> entry : processedTweets.entrySet()) {
+				classValues[documents.size()] = trainingSet.get(entry.getKey()).ordinal();
+				documents.add(entry.getValue());
+			}
+			for (String w : vocabularyPruner.prune(documents, classValues, Sentiment.values().length)) {
+				attributes.addElement(new Attribute(w));
+			}
+			appliedPruning = vocabularyPruner.toString();
+		} else {
+			// create attributes for all occurring words
+			for (String w : allWords) {
+				Attribute attr = new Attribute(w);
+				attributes.addElement(attr);
+			}
 		}
 
 		// NOTE: do not alter attributes after the next step!
-		
-		trainingData = new Instances(classifierName, attributes, 100);
+		trainingData = new Instances(classifierName, attributes, processedTweets.size());
 		trainingData.setClassIndex(CLASS_ATTRIBUTE_INDEX);
 
-		double[] zeros = new double[trainingData.numAttributes()];
+		FeatureIndex featureIndex = (featureHasher == null) ? new FeatureIndex(trainingData) : null;
 
 		// create instances for the processed tweets and put them into the training data set
 		for (Map.Entry<Status, List<String>> entry : processedTweets.entrySet()) {
-			SparseInstance inst = new SparseInstance(trainingData.numAttributes());
-			inst.setDataset(trainingData);
+			// each occurring word (= binary feature) is set to 1 (or added to its bucket), all other values are 0
+			FeatureVector vector = (featureHasher != null)
+					? featureHasher.vectorize(entry.getValue())
+					: new FeatureVector(featureIndex.indicesOf(entry.getValue()));
+			int classValue = trainingData.classAttribute().indexOfValue(trainingSet.get(entry.getKey()).toString());
 
-			// set each occurring word (= binary feature) in the instance vector to 1
-			for (String w : entry.getValue()) {
-				inst.setValue(trainingData.attribute(w), 1.0);
-			}
-			// set all other values in the instance vector to 0
-			inst.replaceMissingValues(zeros);
-
-			// set class value
-			inst.setClassValue(trainingSet.get(entry.getKey()).toString());
-
-			trainingData.add(inst);
+			trainingData.add(CompiledModel.createInstance(trainingData, vector, classValue));
 		}
 	}
 
@@ -211,39 +355,22 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 	 * @throws IllegalStateException if the classifier wasn't trained yet
 	 */
 	public void processTestSet(Map<Status, Sentiment> testSet) throws IllegalStateException {
-		if (!isTrained()) {
-			throw new IllegalStateException("classifier hasn't been trained yet");
-		}
+		ClassifierSnapshot current = getTrainedSnapshot();
 
-		testData = new Instances(classifierName, attributes, 100);
+		Instances testData = new Instances(current.getClassifierName(), current.getAttributes(), testSet.size());
 		testData.setClassIndex(CLASS_ATTRIBUTE_INDEX);
 
-		double[] zeros = new double[testData.numAttributes()];
-
 		logger.debug("## Preprocess all tweets of test set.");
 
 		// process each tweet and create instances
 		for (Map.Entry<Status, Sentiment> entry : testSet.entrySet()) {
-			List<String> tWords = processTweet(entry.getKey());
-			SparseInstance inst = new SparseInstance(testData.numAttributes());
-			inst.setDataset(testData);
-
-			// set each word that became an attribute during training in the instance vector to 1
-			for (String w : tWords) {
-				Attribute attr = testData.attribute(w);
-				if (attr != null) {
-					inst.setValue(attr, 1.0);
-				}
-			}
-
-			// set all other values in the instance vector to 0
-			inst.replaceMissingValues(zeros);
+			// each word that became an attribute during training is set to 1, all other values are 0
+			FeatureVector vector = current.getFeatureVector(entry.getKey());
+			int classValue = testData.classAttribute().indexOfValue(entry.getValue().toString());
 
-			// set class value
-			inst.setClassValue(testSet.get(entry.getKey()).toString());
-
-			testData.add(inst);
+			testData.add(CompiledModel.createInstance(testData, vector, classValue));
 		}
+		this.testData = testData;
 	}
 
 	/**
@@ -252,7 +379,7 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 	 * @throws ClassifierException
 	 * @throws IllegalStateException if no processed training data is available
 	 */
-	public void train() throws ClassifierException, IllegalStateException {
+	public synchronized void train() throws ClassifierException, IllegalStateException {
 		if (trainingData == null) {
 			throw new IllegalStateException("Couldn't train classifier - no processed training data available");
 		}
@@ -274,6 +401,7 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 			logger.error("Couldn't build classifier.", ex);
 			throw new ClassifierException("Failed on building the classifier", ex);
 		}
+		compileModel();
 
 		// export trained classifier
 		if (exportTrainedClassifier) {
@@ -294,9 +422,11 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 	 * no processed test data is available
 	 */
 	public void evaluate() throws ClassifierException, IllegalStateException {
-		if (!isTrained()) {
+		ClassifierSnapshot current = getSnapshot();
+		if (current == null) {
 			throw new IllegalStateException("Cannot evaluate classifier -- classifier wasn't trained yet");
 		}
+		Instances testData = this.testData;
 		if (testData == null) {
 			throw new IllegalStateException("Cannot evaluate classifier -- no processed test set available");
 		}
@@ -305,7 +435,7 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 		try {
 			eval = new Evaluation(testData);
 			eval.useNoPriors();
-			eval.evaluateModel(classifier, testData);
+			eval.evaluateModel(current.getClassifier(), testData);
 		} catch (Exception ex) {
 			throw new ClassifierException("Couldn't evaluate classifier -- exception thrown by Weka", ex);
 		}
@@ -339,59 +469,140 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 	@Override
 	public Map<Status, Sentiment> classify(Collection<Status> tweets) throws IllegalStateException, ClassifierException {
 		Map<Status, Sentiment> results = new LinkedHashMap<>();
-		for (Status s : tweets) {
-			results.put(s, classify(s));
+		for (ClassificationResult r : classifyBatch(tweets)) {
+			if (!r.isSuccessful()) {
+				throw r.getError();
+			}
+			results.put(r.getTweet(), r.getSentiment());
 		}
 		return results;
 	}
 
 	@Override
 	public double[] classifyWithProbabilities(Status tweet) throws ClassifierException {
-		if (!isTrained()) {
-			throw new IllegalStateException("classifier hasn't been trained yet");
+		return classifyWithProbabilities(getTrainedSnapshot(), tweet, preprocessor.getDefaultProfile());
+	}
+
+	@Override
+	public Map<Status, double[]> classifyWithProbabilities(Collection<Status> tweets) throws ClassifierException {
+		Map<Status, double[]> results = new LinkedHashMap<>();
+		for (ClassificationResult r : classifyBatch(tweets)) {
+			if (!r.isSuccessful()) {
+				throw r.getError();
+			}
+			results.put(r.getTweet(), r.getProbabilities());
 		}
+		return results;
+	}
 
-		Instances data = new Instances(classifierName, attributes, 100);
-		data.setClassIndex(CLASS_ATTRIBUTE_INDEX);
+	@Override
+	public List<ClassificationResult> classifyBatch(Collection<Status> tweets) throws IllegalStateException {
+		return classifyBatch(getTrainedSnapshot(), tweets);
+	}
 
-		SparseInstance inst = new SparseInstance(data.numAttributes());
-		inst.setDataset(data);
+	/**
+	 * Classifies a batch of tweets in parallel using a given snapshot of a
+	 * trained classifier.
+	 *
+	 * @param snapshot the snapshot to use (e.g. obtained by getSnapshot() or
+	 * loadSnapshot())
+	 * @param tweets the tweets to classify
+	 * @return the result for each tweet (in iteration order of the collection)
+	 */
+	public List<ClassificationResult> classifyBatch(ClassifierSnapshot snapshot, Collection<Status> tweets) {
+		return classifyBatch(snapshot, tweets, preprocessor.getDefaultProfile());
+	}
 
-		double[] zeros = new double[data.numAttributes()];
+	/**
+	 * Classifies a batch of tweets in parallel using a given snapshot of a
+	 * trained classifier and a given preprocessing profile.
+	 *
+	 * Tweets with the same normalized text (see BatchDeduplication) are
+	 * classified once and share the result.
+	 *
+	 * @param snapshot the snapshot to use (e.g. obtained by getSnapshot() or
+	 * loadSnapshot())
+	 * @param tweets the tweets to classify
+	 * @param profile the preprocessing profile (e.g. a faster profile for
+	 * interactive requests)
+	 * @return the result for each tweet (in iteration order of the collection)
+	 */
+	public List<ClassificationResult> classifyBatch(ClassifierSnapshot snapshot, Collection<Status> tweets, Profile profile) {
+		// duplicates (e.g. retweets) are classified once
+		BatchDeduplication deduplication = new BatchDeduplication(tweets.toArray(new Status[tweets.size()]));
+		Status[] input = deduplication.getUniqueTweets();
+		ClassificationResult[] results = new ClassificationResult[input.length];
+
+		// all tasks use the same snapshot, even if the model is changed meanwhile
+		getBatchPool().invoke(new BatchClassificationTask(snapshot, profile, input, results, 0, input.length));
+
+		if (logger.isDebugEnabled()) {
+			ClassificationCache cache = classificationCache;
+			logger.debug(String.format("Classified batch of %d tweets (%d unique texts, dedupe ratio %.1f %%), classification cache: %s",
+					deduplication.getTweets().length, input.length, 100 * deduplication.getDedupeRatio(), cache));
+		}
+		return Arrays.asList(deduplication.fanOut(results));
+	}
 
-		// set attributes to 1
-		List<String> words = processTweet(tweet);
-		for (String w : words) {
-			if (data.attribute(w) != null) {
-				inst.setValue(data.attribute(w), 1.0);
-			}
+	/**
+	 * Determines the probability for each sentiment of a given tweet -- looks
+	 * up the class distribution of the tweet text in the classification
+	 * cache first.
+	 *
+	 * @param snapshot the snapshot to use
+	 * @param tweet the tweet to classify
+	 * @param profile the preprocessing profile
+	 * @return the probability for each class (Sentiment ordinal = array index).
+	 * @throws ClassifierException if the classifier couldn't classify the
+	 * instance.
+	 */
+	private double[] classifyWithProbabilities(ClassifierSnapshot snapshot, Status tweet, Profile profile) throws ClassifierException {
+		ClassificationCache cache = classificationCache;
+		if (cache == null || tweet.getText() == null) {
+			return snapshot.classifyWithProbabilities(tweet, profile);
 		}
-		// set all other values in the instance vector to 0
-		inst.replaceMissingValues(zeros);
 
-		try {
-			// classify instance
-			return classifier.distributionForInstance(inst);
+		ClassificationCache.Key key = ClassificationCache.createKey(tweet.getText(), snapshot.getVersion(), profile);
+		double[] probabilities = cache.get(key);
+		if (probabilities == null) {
+			probabilities = snapshot.classifyWithProbabilities(tweet, profile);
+			cache.put(key, probabilities);
+		}
+		return probabilities;
+	}
 
-		} catch (Exception ex) {
-			logger.error("Couldn't classify instance.", ex);
-			throw new ClassifierException("Couldn't classify instance", ex);
+	/**
+	 * Returns the current snapshot of the trained classifier.
+	 *
+	 * @return the current snapshot.
+	 * @throws IllegalStateException if the classifier wasn't trained yet
+	 */
+	private ClassifierSnapshot getTrainedSnapshot() throws IllegalStateException {
+		ClassifierSnapshot current = getSnapshot();
+		if (current == null) {
+			throw new IllegalStateException("classifier hasn't been trained yet");
 		}
+		return current;
 	}
 
-	@Override
-	public Map<Status, double[]> classifyWithProbabilities(Collection<Status> tweets) throws ClassifierException {
-		Map<Status, double[]> results = new LinkedHashMap<>();
-		for (Status s : tweets) {
-			results.put(s, classifyWithProbabilities(s));
+	/**
+	 * Returns the pool used for classifying batches of tweets (created on first
+	 * use).
+	 *
+	 * @return the pool used for classifying batches of tweets.
+	 */
+	private synchronized ForkJoinPool getBatchPool() {
+		if (batchPool == null) {
+			batchPool = new ForkJoinPool(batchParallelism);
 		}
-		return results;
+		return batchPool;
 	}
 
 	@Override
-	public void useClassifierModel(ClassifierModel model) {
+	public synchronized void useClassifierModel(ClassifierModel model) {
 		classifierModel = model;
 		classifier = null; // force a classifier restore
+		snapshot.set(null);
 	}
 
 	@Override
@@ -433,7 +644,7 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 	 * @param inputArffFile the ARFF file to load.
 	 * @throws IOException
 	 */
-	public void loadProcessedTrainingDataFromArffFile(File inputArffFile) throws IOException {
+	public synchronized void loadProcessedTrainingDataFromArffFile(File inputArffFile) throws IOException {
 		// load training data
 		trainingData = loadInstancesFromArffFile(inputArffFile);
 		trainingData.setClassIndex(CLASS_ATTRIBUTE_INDEX);
@@ -448,6 +659,9 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 			Attribute attr = e.nextElement();
 			attributes.addElement(attr);
 		}
+		featureHasher = detectFeatureHasher(attributes);
+		appliedPruning = null;
+		appliedProfile = null;
 	}
 
 	/**
@@ -474,6 +688,80 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 		classifier = CLASSIFIER_MODEL_MAPPING[classifierModel.ordinal()].newInstance();
 	}
 
+	/**
+	 * Compiles the trained classifier for inference and publishes a new
+	 * snapshot -- must be called whenever the classifier was trained or
+	 * restored (the attributes and the classifier must match).
+	 */
+	private void compileModel() {
+		compileModel(null);
+	}
+
+	/**
+	 * Compiles the trained classifier for inference using a previously
+	 * compiled scoring engine and publishes a new snapshot.
+	 *
+	 * @param scoringEngine the previously compiled scoring engine -- if null,
+	 * the scoring engine is compiled from the classifier.
+	 */
+	private void compileModel(IScoringEngine scoringEngine) {
+		snapshot.set(createSnapshot(classifierModel, attributes, classifier, scoringEngine, featureHasher, appliedProfile));
+	}
+
+	/**
+	 * Creates a snapshot of a trained classifier.
+	 *
+	 * @param model the classifier model
+	 * @param attributes the attributes the classifier was trained with
+	 * @param classifier the trained classifier
+	 * @param scoringEngine a previously compiled scoring engine (may be null)
+	 * @param featureHasher the feature hasher the attributes were created with
+	 * (null if there's one attribute per word)
+	 * @param trainingProfile the preprocessing profile the training tweets
+	 * were processed with (null if unknown)
+	 * @return the snapshot or null if either the attributes or the classifier
+	 * are missing
+	 */
+	private ClassifierSnapshot createSnapshot(ClassifierModel model, FastVector attributes, Classifier classifier, IScoringEngine scoringEngine, FeatureHasher featureHasher, Profile trainingProfile) {
+		if (attributes == null || classifier == null) {
+			return null;
+		}
+		CompiledModel compiledModel = new CompiledModel(classifierName, attributes, CLASS_ATTRIBUTE_INDEX, classifier, scoringEngine, featureHasher);
+		return new ClassifierSnapshot(classifierName, model, attributes, compiledModel, tokenizer, preprocessor, trainingProfile);
+	}
+
+	/**
+	 * Detects whether attributes were created by a feature hasher.
+	 *
+	 * @param attributes all attributes (class attribute first)
+	 * @return the feature hasher or null if there's one attribute per word
+	 */
+	private FeatureHasher detectFeatureHasher(FastVector attributes) {
+		int numBuckets = attributes.size() - 1;
+		if (Integer.bitCount(numBuckets) != 1 || numBuckets < 2) {
+			return null;
+		}
+		for (int i = 1; i < attributes.size(); i++) {
+			Attribute attr = (Attribute) attributes.elementAt(i);
+			if (!attr.name().equals(FeatureHasher.ATTRIBUTE_NAME_PREFIX + (i - 1))) {
+				return null;
+			}
+		}
+		return new FeatureHasher(Integer.numberOfTrailingZeros(numBuckets));
+	}
+
+	/**
+	 * Appends all elements of a vector to another vector.
+	 *
+	 * @param target the vector to append to
+	 * @param source the vector to append
+	 */
+	private static void appendAll(FastVector target, FastVector source) {
+		for (int i = 0; i < source.size(); i++) {
+			target.addElement(source.elementAt(i));
+		}
+	}
+
 	/**
 	 * Creates an attribute with all classes.
 	 *
@@ -495,8 +783,11 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 	 * text of Tweet).
 	 */
 	private List<String> processTweet(Status tweet) {
-		List<String> tokens = tokenizer.tokenize(tweet.getText());
-		preprocessor.preprocess(tokens);
+		Profile profile = preprocessor.getDefaultProfile();
+		TokenSpans spans = new TokenSpans();
+		tokenizer.tokenize(preprocessor.preprocessText(tweet.getText(), profile), spans);
+		List<String> tokens = new ArrayList<>(spans.size());
+		preprocessor.preprocess(spans, tokens, profile);
 		return tokens;
 	}
 
@@ -506,11 +797,69 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 	 * @throws IOException
 	 */
 	private void exportTrainedClassifier() throws IOException {
-		if (!isTrained()) {
-			throw new IllegalStateException("classifier hasn't been trained yet");
+		ClassifierSnapshot current = getTrainedSnapshot();
+		exportMetadata(current.getCompiledModel().getFeatureHasher(), appliedPruning, current.getTrainingProfile(), getMetadataOutputFile());
+		exportObject(current.getAttributes(), getAttributesOutputFile());
+		exportObject(current.getClassifier(), getClassifierOuptutFile());
+
+		// the nearest neighbour index is expensive to build for large training sets
+		IScoringEngine scoringEngine = current.getCompiledModel().getScoringEngine();
+		if (scoringEngine instanceof KNNModel) {
+			exportObject(scoringEngine, getNeighbourIndexOutputFile());
+		}
+	}
+
+	/**
+	 * Exports the metadata of the trained classifier (vectorization mode and
+	 * preprocessing profile).
+	 *
+	 * @param hasher the feature hasher of the classifier (null if there's one
+	 * attribute per word)
+	 * @param pruning the settings the vocabulary was pruned with (null if the
+	 * vocabulary wasn't pruned)
+	 * @param profile the preprocessing profile of the training tweets (null if
+	 * unknown)
+	 * @param outputFile the output file -- will be overwritten if it exists
+	 * already!
+	 * @throws IOException
+	 */
+	private void exportMetadata(FeatureHasher hasher, String pruning, Profile profile, File outputFile) throws IOException {
+		Properties metadata = new Properties();
+		if (hasher != null) {
+			metadata.setProperty(METADATA_KEY_VECTORIZER, VECTORIZER_HASHING);
+			metadata.setProperty(METADATA_KEY_FEATURE_HASHING_BITS, Integer.toString(hasher.getBits()));
+		} else {
+			metadata.setProperty(METADATA_KEY_VECTORIZER, VECTORIZER_DICTIONARY);
+		}
+		if (pruning != null) {
+			metadata.setProperty(METADATA_KEY_VOCABULARY_PRUNING, pruning);
+		}
+		if (profile != null) {
+			metadata.setProperty(METADATA_KEY_PREPROCESSING_PROFILE, profile.toString());
+		}
+
+		createExportDirectory();
+		try (FileOutputStream out = new FileOutputStream(outputFile)) {
+			metadata.store(out, "trained classifier metadata");
+		}
+	}
+
+	/**
+	 * Reads the metadata of a previously trained classifier.
+	 *
+	 * @param inputFile the metadata file
+	 * @return the metadata (empty if the file doesn't exist -- i.e. the
+	 * classifier was exported before metadata was introduced)
+	 * @throws IOException
+	 */
+	private Properties readMetadata(File inputFile) throws IOException {
+		Properties metadata = new Properties();
+		if (inputFile.exists()) {
+			try (FileInputStream in = new FileInputStream(inputFile)) {
+				metadata.load(in);
+			}
 		}
-		exportObject(attributes, getAttributesOutputFile());
-		exportObject(classifier, getClassifierOuptutFile());
+		return metadata;
 	}
 
 	/**
@@ -559,29 +908,109 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 	 * Tries to restore a previously trained classifier.
 	 */
 	private void restoreTrainedClassifier() {
-		File attributesOutputFile = getAttributesOutputFile();
-		File classifierOutputFile = getClassifierOuptutFile();
+		ClassifierSnapshot restored = loadSnapshot(exportDirectory, classifierModel);
+		if (restored != null) {
+			attributes = restored.getAttributes();
+			classifier = restored.getClassifier();
+			featureHasher = restored.getCompiledModel().getFeatureHasher();
+			appliedProfile = restored.getTrainingProfile();
+		}
+		snapshot.set(restored);
+	}
 
-		// try to load existing training data set
-		if (attributesOutputFile.exists()) {
-			try {
-				attributes = readObject(attributesOutputFile, FastVector.class);
-				logger.info("Restored attributes from prev. trained classifier file (" + attributesOutputFile.getPath() + ")");
-			} catch (IOException | ClassNotFoundException ex) {
-				attributes = null;
-				logger.warn("Couldn't read attributes from prev. trained classifier file (" + attributesOutputFile.getPath() + ")", ex);
+	/**
+	 * Loads a previously trained classifier from files without changing the
+	 * state of this classifier.
+	 *
+	 * @param directory the directory containing the exported files
+	 * @param model the classifier model to load
+	 * @return the loaded snapshot or null if no (readable) trained classifier
+	 * is available
+	 */
+	public ClassifierSnapshot loadSnapshot(File directory, ClassifierModel model) {
+		File attributesOutputFile = getAttributesOutputFile(directory);
+		File classifierOutputFile = getClassifierOuptutFile(directory, model);
+		if (!attributesOutputFile.exists() || !classifierOutputFile.exists()) {
+			return null;
+		}
+
+		FastVector loadedAttributes;
+		Classifier loadedClassifier;
+		FeatureHasher loadedHasher = null;
+		Profile loadedProfile = null;
+
+		// try to load the vectorization mode and preprocessing profile
+		File metadataOutputFile = getMetadataOutputFile(directory);
+		try {
+			Properties metadata = readMetadata(metadataOutputFile);
+			if (VECTORIZER_HASHING.equals(metadata.getProperty(METADATA_KEY_VECTORIZER))) {
+				loadedHasher = new FeatureHasher(Integer.parseInt(metadata.getProperty(METADATA_KEY_FEATURE_HASHING_BITS)));
+			}
+			String profile = metadata.getProperty(METADATA_KEY_PREPROCESSING_PROFILE);
+			if (profile != null) {
+				loadedProfile = Profile.fromString(profile);
 			}
+		} catch (IOException | IllegalArgumentException ex) {
+			logger.warn("Couldn't read metadata from prev. trained classifier file (" + metadataOutputFile.getPath() + ")", ex);
+			return null;
+		}
+
+		// try to load existing training data set
+		try {
+			loadedAttributes = readObject(attributesOutputFile, FastVector.class);
+			logger.info("Restored attributes from prev. trained classifier file (" + attributesOutputFile.getPath() + ")");
+		} catch (IOException | ClassNotFoundException ex) {
+			logger.warn("Couldn't read attributes from prev. trained classifier file (" + attributesOutputFile.getPath() + ")", ex);
+			return null;
 		}
 		// try to load existing trained classifier
-		if (classifierOutputFile.exists()) {
-			try {
-				classifier = readObject(classifierOutputFile, Classifier.class);
-				logger.info("Restored classifier from prev. trained classifier file (" + classifierOutputFile.getPath() + ")");
-			} catch (IOException | ClassNotFoundException ex) {
-				attributes = null;
-				classifier = null;
-				logger.warn("Couldn't read classifier from prev. trained classifier file (" + classifierOutputFile.getPath() + ")", ex);
+		try {
+			loadedClassifier = readObject(classifierOutputFile, Classifier.class);
+			logger.info("Restored classifier from prev. trained classifier file (" + classifierOutputFile.getPath() + ")");
+		} catch (IOException | ClassNotFoundException ex) {
+			logger.warn("Couldn't read classifier from prev. trained classifier file (" + classifierOutputFile.getPath() + ")", ex);
+			return null;
+		}
+
+		if (loadedHasher != null && loadedAttributes.size() != loadedHasher.getNumBuckets() + 1) {
+			logger.warn("Attributes of prev. trained classifier (" + attributesOutputFile.getPath() + ") don't match the feature hashing metadata");
+			return null;
+		}
+
+		if (loadedProfile != null && loadedProfile != preprocessor.getDefaultProfile()) {
+			logger.warn("Prev. trained classifier (" + classifierOutputFile.getPath() + ") was trained with preprocessing profile '"
+					+ loadedProfile + "', but tweets are preprocessed with profile '" + preprocessor.getDefaultProfile() + "'");
+		}
+
+		KNNModel index = restoreNeighbourIndex(getNeighbourIndexOutputFile(directory, model), loadedClassifier);
+		return createSnapshot(model, loadedAttributes, loadedClassifier, index, loadedHasher, loadedProfile);
+	}
+
+	/**
+	 * Tries to restore the nearest neighbour index of a previously trained kNN
+	 * classifier.
+	 *
+	 * @param indexOutputFile the file containing the index
+	 * @param classifier the restored classifier
+	 * @return the restored index or null if the classifier isn't a kNN
+	 * classifier or no (matching) index is available
+	 */
+	private KNNModel restoreNeighbourIndex(File indexOutputFile, Classifier classifier) {
+		if (!(classifier instanceof IBk) || !indexOutputFile.exists()) {
+			return null;
+		}
+
+		try {
+			KNNModel index = readObject(indexOutputFile, KNNModel.class);
+			if (index.getNumTraining() != ((IBk) classifier).getNumTraining()) {
+				logger.warn("Nearest neighbour index file (" + indexOutputFile.getPath() + ") doesn't match the restored classifier -- rebuild index");
+				return null;
 			}
+			logger.info("Restored nearest neighbour index from prev. trained classifier file (" + indexOutputFile.getPath() + ")");
+			return index;
+		} catch (IOException | ClassNotFoundException ex) {
+			logger.warn("Couldn't read nearest neighbour index from prev. trained classifier file (" + indexOutputFile.getPath() + ") -- rebuild index", ex);
+			return null;
 		}
 	}
 
@@ -628,7 +1057,7 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 	 *
 	 * @param classifierName the new classifier name.
 	 */
-	public void setName(String classifierName) {
+	public synchronized void setName(String classifierName) {
 		this.classifierName = classifierName;
 	}
 
@@ -688,10 +1117,124 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 	 *
 	 * @param dir the new export directory
 	 */
-	public void setExportDirectory(File dir) {
+	public synchronized void setExportDirectory(File dir) {
 		exportDirectory = dir;
 	}
 
+	/**
+	 * Returns the number of threads used for classifying batches of tweets.
+	 *
+	 * @return the number of threads used for classifying batches of tweets.
+	 */
+	public int getBatchParallelism() {
+		return batchParallelism;
+	}
+
+	/**
+	 * Sets the number of threads used for classifying batches of tweets.
+	 *
+	 * @param parallelism the number of threads used for classifying batches of
+	 * tweets
+	 */
+	public synchronized void setBatchParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be at least 1");
+		}
+		batchParallelism = parallelism;
+		if (batchPool != null) {
+			batchPool.shutdown();
+			batchPool = null;
+		}
+	}
+
+	/**
+	 * Shuts down the pool used for classifying batches of tweets (e.g. when
+	 * the service stops) -- a later batch creates a new pool.
+	 */
+	public synchronized void shutdown() {
+		if (batchPool != null) {
+			batchPool.shutdown();
+			batchPool = null;
+		}
+	}
+
+	/**
+	 * Returns the cache for class distributions of tweet texts.
+	 *
+	 * @return the classification cache (null = disabled).
+	 */
+	public ClassificationCache getClassificationCache() {
+		return classificationCache;
+	}
+
+	/**
+	 * Sets the max. estimated heap size of the cache for class distributions
+	 * of tweet texts -- replaces the current cache.
+	 *
+	 * @param size the max. estimated heap size in bytes (0 = disabled)
+	 */
+	public synchronized void setClassificationCacheSize(long size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("cache size must not be negative");
+		}
+		classificationCache = (size > 0) ? new ClassificationCache(size) : null;
+	}
+
+	/**
+	 * Returns the number of hash bits used for feature hashing when processing
+	 * the next training set.
+	 *
+	 * @return the number of hash bits (0 = one attribute per word).
+	 */
+	public int getFeatureHashingBits() {
+		return featureHashingBits;
+	}
+
+	/**
+	 * Sets the number of hash bits used for feature hashing when processing
+	 * the next training set.
+	 *
+	 * @param bits the number of hash bits (0 = one attribute per word)
+	 */
+	public synchronized void setFeatureHashingBits(int bits) {
+		if (bits != 0 && (bits < FeatureHasher.MIN_BITS || bits > FeatureHasher.MAX_BITS)) {
+			throw new IllegalArgumentException("number of hash bits must be 0 or between " + FeatureHasher.MIN_BITS + " and " + FeatureHasher.MAX_BITS);
+		}
+		featureHashingBits = bits;
+	}
+
+	/**
+	 * Returns the pruner selecting the vocabulary when processing the next
+	 * training set.
+	 *
+	 * @return the vocabulary pruner (null = every occurring word becomes an
+	 * attribute).
+	 */
+	public VocabularyPruner getVocabularyPruner() {
+		return vocabularyPruner;
+	}
+
+	/**
+	 * Sets the pruner selecting the vocabulary when processing the next
+	 * training set (not used if features are hashed).
+	 *
+	 * @param pruner the vocabulary pruner (null = every occurring word becomes
+	 * an attribute)
+	 */
+	public synchronized void setVocabularyPruner(VocabularyPruner pruner) {
+		vocabularyPruner = pruner;
+	}
+
+	/**
+	 * Returns a file object of the output file for the classifier metadata.
+	 * ('[classifierName].metadata')
+	 *
+	 * @return a file object of the output file for the classifier metadata.
+	 */
+	public File getMetadataOutputFile() {
+		return getMetadataOutputFile(exportDirectory);
+	}
+
 	/**
 	 * Returns a file object of the output file for attributes data.
 	 * ('[classifierName].attributes')
@@ -699,7 +1242,7 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 	 * @return a file object of the output file for attributes data.
 	 */
 	public File getAttributesOutputFile() {
-		return new File(exportDirectory, classifierName + ".attributes");
+		return getAttributesOutputFile(exportDirectory);
 	}
 
 	/**
@@ -709,6 +1252,149 @@ public class TwitterSentimentClassifierImpl extends AbstractTwitterSentimentClas
 	 * @return a file object of the output file for the trained classifier.
 	 */
 	public File getClassifierOuptutFile() {
-		return new File(exportDirectory, classifierName + "-" + classifierModel + ".classifier");
+		return getClassifierOuptutFile(exportDirectory, classifierModel);
+	}
+
+	/**
+	 * Returns a file object of the output file for the nearest neighbour index
+	 * of a trained kNN classifier.
+	 * ('[classifierName]-[classifierModel].index')
+	 *
+	 * @return a file object of the output file for the nearest neighbour
+	 * index.
+	 */
+	public File getNeighbourIndexOutputFile() {
+		return getNeighbourIndexOutputFile(exportDirectory, classifierModel);
+	}
+
+	/**
+	 * Returns a file object of the output file for the classifier metadata in
+	 * a given directory.
+	 *
+	 * @param directory the export directory
+	 * @return a file object of the output file for the classifier metadata.
+	 */
+	public File getMetadataOutputFile(File directory) {
+		return new File(directory, classifierName + ".metadata");
+	}
+
+	/**
+	 * Returns a file object of the output file for attributes data in a given
+	 * directory.
+	 *
+	 * @param directory the export directory
+	 * @return a file object of the output file for attributes data.
+	 */
+	public File getAttributesOutputFile(File directory) {
+		return new File(directory, classifierName + ".attributes");
+	}
+
+	/**
+	 * Returns a file object of the output file for a trained classifier in a
+	 * given directory.
+	 *
+	 * @param directory the export directory
+	 * @param model the classifier model
+	 * @return a file object of the output file for the trained classifier.
+	 */
+	public File getClassifierOuptutFile(File directory, ClassifierModel model) {
+		return new File(directory, classifierName + "-" + model + ".classifier");
+	}
+
+	/**
+	 * Returns a file object of the output file for the nearest neighbour index
+	 * of a trained kNN classifier in a given directory.
+	 *
+	 * @param directory the export directory
+	 * @param model the classifier model
+	 * @return a file object of the output file for the nearest neighbour
+	 * index.
+	 */
+	public File getNeighbourIndexOutputFile(File directory, ClassifierModel model) {
+		return new File(directory, classifierName + "-" + model + ".index");
+	}
+
+	/**
+	 * Fork/join task classifying a range of tweets of a batch -- splits itself
+	 * until the range is small enough.
+	 */
+	private class BatchClassificationTask extends RecursiveAction {
+
+		/**
+		 * Version of the serialized form.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The snapshot of the trained classifier to use.
+		 */
+		private final ClassifierSnapshot snapshot;
+
+		/**
+		 * The preprocessing profile to use.
+		 */
+		private final Profile profile;
+
+		/**
+		 * The tweets of the whole batch.
+		 */
+		private final Status[] tweets;
+
+		/**
+		 * The results of the whole batch (index = index of the tweet).
+		 */
+		private final ClassificationResult[] results;
+
+		/**
+		 * The first tweet of the range (inclusive).
+		 */
+		private final int from;
+
+		/**
+		 * The last tweet of the range (exclusive).
+		 */
+		private final int to;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param snapshot the snapshot of the trained classifier to use
+		 * @param profile the preprocessing profile to use
+		 * @param tweets the tweets of the whole batch
+		 * @param results the results of the whole batch
+		 * @param from the first tweet of the range (inclusive)
+		 * @param to the last tweet of the range (exclusive)
+		 */
+		BatchClassificationTask(ClassifierSnapshot snapshot, Profile profile, Status[] tweets, ClassificationResult[] results, int from, int to) {
+			this.snapshot = snapshot;
+			this.profile = profile;
+			this.tweets = tweets;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > BATCH_TASK_SIZE) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new BatchClassificationTask(snapshot, profile, tweets, results, from, mid),
+						new BatchClassificationTask(snapshot, profile, tweets, results, mid, to));
+				return;
+			}
+
+			for (int i = from; i < to; i++) {
+				Status tweet = tweets[i];
+				try {
+					double[] probabilities = classifyWithProbabilities(snapshot, tweet, profile);
+					results[i] = new ClassificationResult(tweet, probabilities, getSentiment(probabilities));
+				} catch (ClassifierException ex) {
+					results[i] = new ClassificationResult(tweet, ex);
+				} catch (RuntimeException ex) {
+					logger.error("Couldn't process tweet.", ex);
+					results[i] = new ClassificationResult(tweet, new ClassifierException("Couldn't process tweet", ex));
+				}
+			}
+		}
 	}
 }
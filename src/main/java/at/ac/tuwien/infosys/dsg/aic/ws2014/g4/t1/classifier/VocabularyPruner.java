@@ -0,0 +1,291 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Selects the vocabulary (= word attributes) of a classifier from the
+ * processed training tweets -- rare words are dropped first, then the most
+ * informative words are selected and finally the vocabulary is limited to the
+ * most frequent words.
+ */
+public class VocabularyPruner {
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger logger = LogManager.getLogger(VocabularyPruner.class);
+
+	/**
+	 * Enumeration for supported feature selection methods.
+	 */
+	public enum FeatureSelection {
+
+		/**
+		 * No feature selection.
+		 */
+		NONE,
+		/**
+		 * Max. chi-square statistic of word presence and any class.
+		 */
+		CHI_SQUARE,
+		/**
+		 * Information gain of word presence for the class.
+		 */
+		INFORMATION_GAIN
+	}
+
+	/**
+	 * Min. number of training tweets a word must occur in.
+	 */
+	private final int minDocumentFrequency;
+
+	/**
+	 * Max. number of words in the vocabulary (0 = unlimited).
+	 */
+	private final int maxVocabularySize;
+
+	/**
+	 * The feature selection method.
+	 */
+	private final FeatureSelection selection;
+
+	/**
+	 * Number of words kept by the feature selection (0 = all).
+	 */
+	private final int selectionTopK;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param minDocumentFrequency min. number of training tweets a word must
+	 * occur in
+	 * @param maxVocabularySize max. number of words in the vocabulary (0 =
+	 * unlimited) -- the most frequent words are kept
+	 * @param selection the feature selection method
+	 * @param selectionTopK number of words kept by the feature selection (0 =
+	 * all)
+	 */
+	public VocabularyPruner(int minDocumentFrequency, int maxVocabularySize, FeatureSelection selection, int selectionTopK) {
+		if (minDocumentFrequency < 1 || maxVocabularySize < 0 || selectionTopK < 0) {
+			throw new IllegalArgumentException("invalid vocabulary pruning settings");
+		}
+		this.minDocumentFrequency = minDocumentFrequency;
+		this.maxVocabularySize = maxVocabularySize;
+		this.selection = (selection != null) ? selection : FeatureSelection.NONE;
+		this.selectionTopK = selectionTopK;
+	}
+
+	/**
+	 * Checks if the pruner drops any words at all.
+	 *
+	 * @return true if any pruning step is enabled, false otherwise.
+	 */
+	public boolean isEnabled() {
+		return minDocumentFrequency > 1 || maxVocabularySize > 0
+				|| (selection != FeatureSelection.NONE && selectionTopK > 0);
+	}
+
+	/**
+	 * Selects the vocabulary from the processed training tweets.
+	 *
+	 * @param documents the feature-relevant words of each training tweet
+	 * @param classValues the class value of each training tweet
+	 * @param numClasses the number of classes
+	 * @return the selected words (sorted)
+	 */
+	public List<String> prune(List<List<String>> documents, int[] classValues, int numClasses) {
+		// count the tweets of each class a word occurs in (last slot: last tweet counted + 1)
+		Map<String, int[]> counts = new HashMap<>();
+		int[] classCounts = new int[numClasses];
+		for (int d = 0; d < documents.size(); d++) {
+			int c = classValues[d];
+			classCounts[c]++;
+			for (String w : documents.get(d)) {
+				int[] wordCounts = counts.get(w);
+				if (wordCounts == null) {
+					wordCounts = new int[numClasses + 1];
+					counts.put(w, wordCounts);
+				}
+				if (wordCounts[numClasses] != d + 1) {
+					wordCounts[numClasses] = d + 1;
+					wordCounts[c]++;
+				}
+			}
+		}
+
+		// drop rare words
+		List<WordStatistics> words = new ArrayList<>(counts.size());
+		for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+			int df = 0;
+			for (int c = 0; c < numClasses; c++) {
+				df += entry.getValue()[c];
+			}
+			if (df >= minDocumentFrequency) {
+				words.add(new WordStatistics(entry.getKey(), df, score(entry.getValue(), df, classCounts, documents.size())));
+			}
+		}
+
+		// keep the most informative words
+		if (selection != FeatureSelection.NONE && selectionTopK > 0 && words.size() > selectionTopK) {
+			Collections.sort(words, new Comparator<WordStatistics>() {
+				@Override
+				public int compare(WordStatistics a, WordStatistics b) {
+					int cmp = Double.compare(b.score, a.score);
+					return (cmp != 0) ? cmp : a.word.compareTo(b.word);
+				}
+			});
+			words = new ArrayList<>(words.subList(0, selectionTopK));
+		}
+
+		// keep the most frequent words
+		if (maxVocabularySize > 0 && words.size() > maxVocabularySize) {
+			Collections.sort(words, new Comparator<WordStatistics>() {
+				@Override
+				public int compare(WordStatistics a, WordStatistics b) {
+					int cmp = Integer.compare(b.documentFrequency, a.documentFrequency);
+					return (cmp != 0) ? cmp : a.word.compareTo(b.word);
+				}
+			});
+			words = new ArrayList<>(words.subList(0, maxVocabularySize));
+		}
+
+		List<String> vocabulary = new ArrayList<>(words.size());
+		for (WordStatistics ws : words) {
+			vocabulary.add(ws.word);
+		}
+		Collections.sort(vocabulary);
+
+		logger.info("Pruned vocabulary from " + counts.size() + " to " + vocabulary.size() + " words (" + this + ")");
+		return vocabulary;
+	}
+
+	/**
+	 * Computes the feature selection score of a word.
+	 *
+	 * @param wordCounts number of tweets of each class the word occurs in
+	 * @param df number of tweets the word occurs in
+	 * @param classCounts number of tweets of each class
+	 * @param n number of tweets
+	 * @return the score (higher = more informative)
+	 */
+	private double score(int[] wordCounts, int df, int[] classCounts, int n) {
+		switch (selection) {
+			case CHI_SQUARE:
+				return chiSquare(wordCounts, df, classCounts, n);
+			case INFORMATION_GAIN:
+				return informationGain(wordCounts, df, classCounts, n);
+			default:
+				return 0.0;
+		}
+	}
+
+	/**
+	 * Computes the max. chi-square statistic of word presence and any class
+	 * (2x2 contingency table of presence and class membership).
+	 *
+	 * @param wordCounts number of tweets of each class the word occurs in
+	 * @param df number of tweets the word occurs in
+	 * @param classCounts number of tweets of each class
+	 * @param n number of tweets
+	 * @return the max. chi-square statistic
+	 */
+	private static double chiSquare(int[] wordCounts, int df, int[] classCounts, int n) {
+		double max = 0.0;
+		for (int c = 0; c < classCounts.length; c++) {
+			// tweets with word and class (a), with word only (b), with class only (cc), with neither (d)
+			double a = wordCounts[c];
+			double b = df - a;
+			double cc = classCounts[c] - a;
+			double d = n - df - cc;
+			double denominator = (a + cc) * (b + d) * (a + b) * (cc + d);
+			if (denominator > 0) {
+				double diff = a * d - cc * b;
+				max = Math.max(max, n * diff * diff / denominator);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Computes the information gain of word presence for the class.
+	 *
+	 * @param wordCounts number of tweets of each class the word occurs in
+	 * @param df number of tweets the word occurs in
+	 * @param classCounts number of tweets of each class
+	 * @param n number of tweets
+	 * @return the information gain (in bits)
+	 */
+	private static double informationGain(int[] wordCounts, int df, int[] classCounts, int n) {
+		double classEntropy = 0.0;
+		double presentEntropy = 0.0;
+		double absentEntropy = 0.0;
+		for (int c = 0; c < classCounts.length; c++) {
+			classEntropy -= plogp(classCounts[c], n);
+			presentEntropy -= plogp(wordCounts[c], df);
+			absentEntropy -= plogp(classCounts[c] - wordCounts[c], n - df);
+		}
+		return classEntropy - ((double) df / n) * presentEntropy - ((double) (n - df) / n) * absentEntropy;
+	}
+
+	/**
+	 * Computes p * log2(p) for p = count / total.
+	 *
+	 * @param count the count
+	 * @param total the total count
+	 * @return p * log2(p) (0 for p = 0)
+	 */
+	private static double plogp(int count, int total) {
+		if (count == 0 || total == 0) {
+			return 0.0;
+		}
+		double p = (double) count / total;
+		return p * Math.log(p) / Math.log(2);
+	}
+
+	@Override
+	public String toString() {
+		return "min_df=" + minDocumentFrequency + ", max_vocabulary=" + maxVocabularySize
+				+ ", selection=" + selection + ", top_k=" + selectionTopK;
+	}
+
+	/**
+	 * Statistics of a word used for pruning.
+	 */
+	private static class WordStatistics {
+
+		/**
+		 * The word.
+		 */
+		private final String word;
+
+		/**
+		 * Number of training tweets the word occurs in.
+		 */
+		private final int documentFrequency;
+
+		/**
+		 * The feature selection score.
+		 */
+		private final double score;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param word the word
+		 * @param documentFrequency number of training tweets the word occurs in
+		 * @param score the feature selection score
+		 */
+		WordStatistics(String word, int documentFrequency, double score) {
+			this.word = word;
+			this.documentFrequency = documentFrequency;
+			this.score = score;
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier;
+
+import java.lang.reflect.Field;
+
+/**
+ * Static helper class for reading the (non-public) model state of trained
+ * Weka classifiers -- only used when compiling a classifier into a scoring
+ * engine.
+ */
+class WekaModelAccess {
+
+	/**
+	 * Constructor.
+	 *
+	 * Do not allow to instantiate objects -- static helper!
+	 */
+	private WekaModelAccess() {
+	}
+
+	/**
+	 * Reads the value of a (non-public) field of an object.
+	 *
+	 * @param <T> the type of the field
+	 * @param obj the object to read the field from
+	 * @param fieldName the name of the field (declared by the object's class or
+	 * one of its super classes)
+	 * @param type the type of the field
+	 * @return the value of the field
+	 * @throws ReflectiveOperationException if the field doesn't exist or can't
+	 * be read
+	 */
+	static <T> T getField(Object obj, String fieldName, Class<T> type) throws ReflectiveOperationException {
+		for (Class<?> cls = obj.getClass(); cls != null; cls = cls.getSuperclass()) {
+			try {
+				Field field = cls.getDeclaredField(fieldName);
+				field.setAccessible(true);
+				return type.cast(field.get(obj));
+			} catch (NoSuchFieldException ex) {
+				// try super class
+			}
+		}
+		throw new NoSuchFieldException(obj.getClass().getName() + "." + fieldName);
+	}
+}
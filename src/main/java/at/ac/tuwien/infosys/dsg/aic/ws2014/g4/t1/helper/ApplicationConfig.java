@@ -1,6 +1,11 @@
 package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.helper;
 
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.IPreprocessor.Profile;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ITokenizer.Implementation;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ITwitterSentimentClassifier.ClassifierModel;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.PreprocessorImpl;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.SpellDictionary.SuggestionEngine;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.VocabularyPruner.FeatureSelection;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -44,6 +49,71 @@ public class ApplicationConfig {
 	 */
 	private static final String CONFIG_KEY_CLASSIFIER_IMPORT_TRAINED_CLASSIFIER = "classifier.import_trained_classifier";
 
+	/**
+	 * The key for the classifier batch parallelism property.
+	 */
+	private static final String CONFIG_KEY_CLASSIFIER_BATCH_PARALLELISM = "classifier.batch_parallelism";
+
+	/**
+	 * The key for the classifier feature hashing bits property.
+	 */
+	private static final String CONFIG_KEY_CLASSIFIER_FEATURE_HASHING_BITS = "classifier.feature_hashing_bits";
+
+	/**
+	 * The key for the classifier classification cache size property.
+	 */
+	private static final String CONFIG_KEY_CLASSIFIER_CLASSIFICATION_CACHE_SIZE = "classifier.classification_cache_size";
+
+	/**
+	 * The key for the classifier min. document frequency property.
+	 */
+	private static final String CONFIG_KEY_CLASSIFIER_MIN_DOCUMENT_FREQUENCY = "classifier.min_document_frequency";
+
+	/**
+	 * The key for the classifier max. vocabulary size property.
+	 */
+	private static final String CONFIG_KEY_CLASSIFIER_MAX_VOCABULARY_SIZE = "classifier.max_vocabulary_size";
+
+	/**
+	 * The key for the classifier feature selection property.
+	 */
+	private static final String CONFIG_KEY_CLASSIFIER_FEATURE_SELECTION = "classifier.feature_selection";
+
+	/**
+	 * The key for the classifier feature selection top-k property.
+	 */
+	private static final String CONFIG_KEY_CLASSIFIER_FEATURE_SELECTION_TOP_K = "classifier.feature_selection_top_k";
+
+	/**
+	 * The key for the preprocessor spell correction cache size property.
+	 */
+	private static final String CONFIG_KEY_PREPROCESSOR_SPELL_CORRECTION_CACHE_SIZE = "preprocessor.spell_correction_cache_size";
+
+	/**
+	 * The key for the preprocessor spell suggestion engine property.
+	 */
+	private static final String CONFIG_KEY_PREPROCESSOR_SPELL_SUGGESTION_ENGINE = "preprocessor.spell_suggestion_engine";
+
+	/**
+	 * The key for the preprocessor profile property.
+	 */
+	private static final String CONFIG_KEY_PREPROCESSOR_PROFILE = "preprocessor.profile";
+
+	/**
+	 * The key for the tokenizer implementation property.
+	 */
+	private static final String CONFIG_KEY_TOKENIZER_IMPLEMENTATION = "tokenizer.implementation";
+
+	/**
+	 * The key for the model registry heap budget property (in MB).
+	 */
+	private static final String CONFIG_KEY_REGISTRY_HEAP_BUDGET = "registry.heap_budget";
+
+	/**
+	 * The key for the model registry preload property.
+	 */
+	private static final String CONFIG_KEY_REGISTRY_PRELOAD = "registry.preload";
+
 	/**
 	 * The properties object for the configuration file.
 	 */
@@ -150,6 +220,43 @@ public class ApplicationConfig {
 		return (val != null) ? val : defaultValue;
 	}
 
+	/**
+	 * Returns the value of a property with a given key as integer.
+	 *
+	 * @param key the property key
+	 * @return the set property value or null if the property key isn't present
+	 * @throws IllegalArgumentException if the value is not a valid integer
+	 * value
+	 */
+	public Integer getPropertyAsInteger(String key) {
+		String val = properties.getProperty(key);
+		if (val != null) {
+			try {
+				return Integer.parseInt(val.trim());
+			} catch (NumberFormatException ex) {
+				throw new IllegalArgumentException("Property value ('" + val + "') for key '" + key + "' is not a valid integer value.", ex);
+			}
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the value of a property with a given key as integer or a
+	 * provided default value if the property key is not present.
+	 *
+	 * @param key the property key
+	 * @param defaultValue the default value to return if the key is not present
+	 * @return the set property value or the provided default value if the
+	 * property key isn't present
+	 * @throws IllegalArgumentException if the value is not a valid integer
+	 * value
+	 */
+	public int getPropertyAsInteger(String key, int defaultValue) {
+		Integer val = getPropertyAsInteger(key);
+		return (val != null) ? val : defaultValue;
+	}
+
 	/**
 	 * Returns the classifier name specified in the configuration file.
 	 *
@@ -192,6 +299,173 @@ public class ApplicationConfig {
 		return new File(getProperty(CONFIG_KEY_CLASSIFIER_EXPORT_OUTPUT_DIRECTORY, "."));
 	}
 
+	/**
+	 * Returns the number of threads used for classifying batches of tweets
+	 * (defaults to the number of available processors).
+	 *
+	 * @return the number of threads used for classifying batches of tweets
+	 * (defaults to the number of available processors).
+	 */
+	public int getClassifierBatchParallelism() {
+		return getPropertyAsInteger(CONFIG_KEY_CLASSIFIER_BATCH_PARALLELISM, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Returns the number of hash bits used for feature hashing (defaults to
+	 * 0, i.e. one attribute per word).
+	 *
+	 * @return the number of hash bits used for feature hashing (defaults to
+	 * 0, i.e. one attribute per word).
+	 */
+	public int getClassifierFeatureHashingBits() {
+		return getPropertyAsInteger(CONFIG_KEY_CLASSIFIER_FEATURE_HASHING_BITS, 0);
+	}
+
+	/**
+	 * Returns the max. estimated heap size of the cache for class
+	 * distributions of tweet texts in bytes (defaults to 0 = disabled).
+	 *
+	 * @return the max. size of the classification cache in bytes (0 =
+	 * disabled).
+	 */
+	public long getClassifierClassificationCacheSize() {
+		return getPropertyAsInteger(CONFIG_KEY_CLASSIFIER_CLASSIFICATION_CACHE_SIZE, 0) * 1024L * 1024L;
+	}
+
+	/**
+	 * Returns the min. number of training tweets a word must occur in to
+	 * become an attribute (defaults to 1).
+	 *
+	 * @return the min. number of training tweets a word must occur in
+	 * (defaults to 1).
+	 */
+	public int getClassifierMinDocumentFrequency() {
+		return getPropertyAsInteger(CONFIG_KEY_CLASSIFIER_MIN_DOCUMENT_FREQUENCY, 1);
+	}
+
+	/**
+	 * Returns the max. number of word attributes (defaults to 0 = unlimited).
+	 *
+	 * @return the max. number of word attributes (defaults to 0 = unlimited).
+	 */
+	public int getClassifierMaxVocabularySize() {
+		return getPropertyAsInteger(CONFIG_KEY_CLASSIFIER_MAX_VOCABULARY_SIZE, 0);
+	}
+
+	/**
+	 * Returns the feature selection method used for pruning the vocabulary.
+	 *
+	 * @return the feature selection method (defaults to NONE).
+	 */
+	public FeatureSelection getClassifierFeatureSelection() {
+		String selection = getProperty(CONFIG_KEY_CLASSIFIER_FEATURE_SELECTION);
+		if (selection != null) {
+			try {
+				return FeatureSelection.valueOf(selection.trim().toUpperCase());
+			} catch (IllegalArgumentException ex) {
+				logger.warn("Illegal feature selection supplied in application config", ex);
+			}
+		}
+		return FeatureSelection.NONE;
+	}
+
+	/**
+	 * Returns the number of words kept by the feature selection (defaults to
+	 * 0 = all).
+	 *
+	 * @return the number of words kept by the feature selection (defaults to
+	 * 0 = all).
+	 */
+	public int getClassifierFeatureSelectionTopK() {
+		return getPropertyAsInteger(CONFIG_KEY_CLASSIFIER_FEATURE_SELECTION_TOP_K, 0);
+	}
+
+	/**
+	 * Returns the max. number of spell corrections cached by the preprocessor
+	 * (defaults to PreprocessorImpl.DEFAULT_SPELL_CORRECTION_CACHE_SIZE, 0 =
+	 * disabled).
+	 *
+	 * @return the max. number of cached spell corrections.
+	 */
+	public int getPreprocessorSpellCorrectionCacheSize() {
+		return getPropertyAsInteger(CONFIG_KEY_PREPROCESSOR_SPELL_CORRECTION_CACHE_SIZE, PreprocessorImpl.DEFAULT_SPELL_CORRECTION_CACHE_SIZE);
+	}
+
+	/**
+	 * Returns the engine used by the preprocessor for spelling suggestions.
+	 *
+	 * @return the spelling suggestion engine (defaults to JAZZY).
+	 */
+	public SuggestionEngine getPreprocessorSpellSuggestionEngine() {
+		String engine = getProperty(CONFIG_KEY_PREPROCESSOR_SPELL_SUGGESTION_ENGINE);
+		if (engine != null) {
+			try {
+				return SuggestionEngine.valueOf(engine.trim().toUpperCase());
+			} catch (IllegalArgumentException ex) {
+				logger.warn("Illegal spell suggestion engine supplied in application config", ex);
+			}
+		}
+		return SuggestionEngine.JAZZY;
+	}
+
+	/**
+	 * Returns the default preprocessing profile.
+	 *
+	 * @return the default preprocessing profile (defaults to FULL).
+	 */
+	public Profile getPreprocessorProfile() {
+		String profile = getProperty(CONFIG_KEY_PREPROCESSOR_PROFILE);
+		if (profile != null) {
+			try {
+				return Profile.fromString(profile);
+			} catch (IllegalArgumentException ex) {
+				logger.warn("Illegal preprocessing profile supplied in application config", ex);
+			}
+		}
+		return Profile.FULL;
+	}
+
+	/**
+	 * Returns the tokenizer implementation.
+	 *
+	 * @return the tokenizer implementation (defaults to TWOKENIZE).
+	 */
+	public Implementation getTokenizerImplementation() {
+		String implementation = getProperty(CONFIG_KEY_TOKENIZER_IMPLEMENTATION);
+		if (implementation != null) {
+			try {
+				return Implementation.valueOf(implementation.trim().toUpperCase());
+			} catch (IllegalArgumentException ex) {
+				logger.warn("Illegal tokenizer implementation supplied in application config", ex);
+			}
+		}
+		return Implementation.TWOKENIZE;
+	}
+
+	/**
+	 * Returns the max. estimated size of all classifiers kept resident by the
+	 * model registry in bytes (defaults to half of the max. heap size).
+	 *
+	 * @return the max. estimated size of all resident classifiers in bytes
+	 * (defaults to half of the max. heap size).
+	 */
+	public long getRegistryHeapBudget() {
+		Integer budget = getPropertyAsInteger(CONFIG_KEY_REGISTRY_HEAP_BUDGET);
+		return (budget != null) ? budget * 1024L * 1024L : Runtime.getRuntime().maxMemory() / 2;
+	}
+
+	/**
+	 * Returns the classifiers the model registry loads at startup (defaults to
+	 * none).
+	 *
+	 * @return the classifiers to load at startup, each in the format
+	 * [classifierModel]/[trainingConfig].
+	 */
+	public String[] getRegistryPreload() {
+		String val = getProperty(CONFIG_KEY_REGISTRY_PRELOAD, "").trim();
+		return val.isEmpty() ? new String[0] : val.split("\\s*,\\s*");
+	}
+
 	/**
 	 * Returns the class of the classifier type to use according to the
 	 * configuration.
@@ -1,5 +1,6 @@
 package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.service;
 
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.IPreprocessor.Profile;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ITwitterSentimentClassifier.ClassifierModel;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ITwitterSentimentClassifier.Sentiment;
 import java.util.Collection;
@@ -60,6 +61,29 @@ public interface ITwitterSentimentService {
 	 */
 	Map<Status, double[]> classifyTweetsWithProbabilities(List<Status> tweets, ClassifierModel model, TrainingConfig trainingConf) throws TwitterSentimentServiceException;
 
+	/**
+	 * Detects the sentiment of a list of tweets using a given preprocessing
+	 * profile.
+	 *
+	 * @param tweets the list of tweets
+	 * @param model the classifier model to use for classification
+	 * @param trainingConf the training config to use for classification
+	 * @param profile the preprocessing profile (null = default profile)
+	 * @return a map of tweets with the sentiment probabilities (index =
+	 * Sentiment ordinal)
+	 * @throws TwitterSentimentServiceException if an exception occurred when
+	 * using the Twitter Sentiment classifier.
+	 */
+	Map<Status, double[]> classifyTweetsWithProbabilities(List<Status> tweets, ClassifierModel model, TrainingConfig trainingConf, Profile profile) throws TwitterSentimentServiceException;
+
+	/**
+	 * Returns the statistics of all classifiers currently kept in memory.
+	 *
+	 * @return the statistics of all resident classifiers (least recently used
+	 * first).
+	 */
+	List<ModelStatistics> getModelStatistics();
+
 	/**
 	 * Returns an array of all sentiment classes.
 	 *
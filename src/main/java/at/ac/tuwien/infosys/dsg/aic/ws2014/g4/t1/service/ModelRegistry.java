@@ -0,0 +1,415 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.service;
+
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ClassifierSnapshot;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.IPreprocessor.Profile;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ITwitterSentimentClassifier.ClassifierModel;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.TwitterSentimentClassifierImpl;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.service.ITwitterSentimentService.TrainingConfig;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Registry keeping trained classifiers (one per classifier model and training
+ * configuration) resident in memory.
+ *
+ * Classifiers are loaded on demand by background threads and evicted in
+ * least-recently-used order as soon as the estimated size of all resident
+ * classifiers exceeds the heap budget. The heap size of a classifier is
+ * estimated from its loaded compiled model (header, word-to-attribute index
+ * and scoring engine arrays) and the size of the exported Weka classifier.
+ * The vocabulary of a classifier stays interned in the TokenTable after its
+ * eviction (see FeatureIndex) -- the budget only counts the table entries of
+ * the resident classifiers.
+ */
+public class ModelRegistry {
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger logger = LogManager.getLogger(ModelRegistry.class);
+
+	/**
+	 * The classifier used for loading previously trained classifiers.
+	 */
+	private final TwitterSentimentClassifierImpl classifier;
+
+	/**
+	 * Max. estimated size of all resident classifiers in bytes.
+	 */
+	private final long heapBudget;
+
+	/**
+	 * Executor loading classifiers in the background.
+	 */
+	private final ExecutorService loader;
+
+	/**
+	 * All resident (or loading) classifiers in least-recently-used order --
+	 * guarded by itself.
+	 */
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Estimated size of all resident classifiers in bytes -- guarded by
+	 * entries.
+	 */
+	private long residentSize = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param classifier the classifier used for loading previously trained
+	 * classifiers (from [exportDirectory]/[trainingConfig])
+	 * @param heapBudget max. estimated size of all resident classifiers in
+	 * bytes (the most recently loaded classifier is kept in any case)
+	 * @param loaderThreads number of threads loading classifiers in the
+	 * background
+	 */
+	public ModelRegistry(TwitterSentimentClassifierImpl classifier, long heapBudget, int loaderThreads) {
+		this.classifier = classifier;
+		this.heapBudget = heapBudget;
+		this.loader = Executors.newFixedThreadPool(loaderThreads, new LoaderThreadFactory());
+	}
+
+	/**
+	 * Returns the trained classifier for a classifier model and training
+	 * configuration -- waits until the classifier is loaded if it isn't
+	 * resident.
+	 *
+	 * @param model the classifier model
+	 * @param trainingConf the training configuration
+	 * @return the classifier snapshot
+	 * @throws TwitterSentimentServiceException if no trained classifier is
+	 * available or the classifier couldn't be loaded
+	 */
+	public ClassifierSnapshot get(ClassifierModel model, TrainingConfig trainingConf) throws TwitterSentimentServiceException {
+		Entry entry = lookup(model, trainingConf, true);
+		try {
+			return entry.task.get();
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof TwitterSentimentServiceException) {
+				throw (TwitterSentimentServiceException) cause;
+			}
+			throw new TwitterSentimentServiceException("Couldn't load classifier for model '" + model + "' and training config '" + trainingConf + "'", cause);
+		} catch (CancellationException ex) {
+			throw new TwitterSentimentServiceException("Loading classifier for model '" + model + "' and training config '" + trainingConf + "' was cancelled -- registry is shut down", ex);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new TwitterSentimentServiceException("Interrupted while loading classifier", ex);
+		}
+	}
+
+	/**
+	 * Starts loading the trained classifier for a classifier model and
+	 * training configuration in the background (if it isn't resident yet).
+	 *
+	 * @param model the classifier model
+	 * @param trainingConf the training configuration
+	 */
+	public void preload(ClassifierModel model, TrainingConfig trainingConf) {
+		lookup(model, trainingConf, false);
+	}
+
+	/**
+	 * Shuts down the registry: cancels pending loads and stops the loader
+	 * threads -- classifiers that aren't resident can't be loaded
+	 * afterwards.
+	 */
+	public void shutdown() {
+		loader.shutdown();
+		synchronized (entries) {
+			for (Entry entry : entries.values()) {
+				// doesn't affect loaded classifiers
+				entry.task.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * Records that tweets are classified by a resident classifier with a
+	 * preprocessing profile other than its training profile.
+	 *
+	 * @param model the classifier model
+	 * @param trainingConf the training configuration
+	 * @param profile the preprocessing profile used for classification
+	 * @return true if the mismatch wasn't recorded for the resident
+	 * classifier yet, false otherwise.
+	 */
+	public boolean recordProfileMismatch(ClassifierModel model, TrainingConfig trainingConf, Profile profile) {
+		synchronized (entries) {
+			Entry entry = entries.get(createKey(model, trainingConf));
+			return entry == null || entry.mismatchedProfiles.add(profile);
+		}
+	}
+
+	/**
+	 * Returns the statistics of all resident (or loading) classifiers.
+	 *
+	 * @return the statistics in least-recently-used order.
+	 */
+	public List<ModelStatistics> getStatistics() {
+		synchronized (entries) {
+			List<ModelStatistics> statistics = new ArrayList<>(entries.size());
+			for (Entry entry : entries.values()) {
+				statistics.add(new ModelStatistics(entry.model, entry.trainingConf, entry.loaded,
+						entry.size, entry.hits.get(), entry.loadTime));
+			}
+			return statistics;
+		}
+	}
+
+	/**
+	 * Returns the max. estimated size of all resident classifiers.
+	 *
+	 * @return the heap budget in bytes.
+	 */
+	public long getHeapBudget() {
+		return heapBudget;
+	}
+
+	/**
+	 * Returns the estimated size of all resident classifiers.
+	 *
+	 * @return the estimated size of all resident classifiers in bytes.
+	 */
+	public long getResidentSize() {
+		synchronized (entries) {
+			return residentSize;
+		}
+	}
+
+	/**
+	 * Returns the entry for a classifier model and training configuration --
+	 * creates the entry and starts loading the classifier if necessary.
+	 *
+	 * @param model the classifier model
+	 * @param trainingConf the training configuration
+	 * @param countHit whether to count the lookup as hit if the entry exists
+	 * @return the entry
+	 */
+	private Entry lookup(ClassifierModel model, TrainingConfig trainingConf, boolean countHit) {
+		String key = createKey(model, trainingConf);
+		Entry entry;
+		boolean created = false;
+		synchronized (entries) {
+			entry = entries.get(key);
+			if (entry == null) {
+				entry = new Entry(key, model, trainingConf);
+				entries.put(key, entry);
+				created = true;
+			}
+		}
+
+		if (created) {
+			try {
+				loader.execute(entry.task);
+			} catch (RejectedExecutionException ex) {
+				// the registry is shut down
+				entry.task.cancel(false);
+				synchronized (entries) {
+					if (entries.get(key) == entry) {
+						entries.remove(key);
+					}
+				}
+			}
+		} else if (countHit) {
+			entry.hits.incrementAndGet();
+		}
+		return entry;
+	}
+
+	/**
+	 * Loads the trained classifier of an entry.
+	 *
+	 * @param entry the entry to load
+	 * @return the loaded classifier snapshot
+	 * @throws TwitterSentimentServiceException if no trained classifier is
+	 * available
+	 */
+	private ClassifierSnapshot load(Entry entry) throws TwitterSentimentServiceException {
+		long start = System.currentTimeMillis();
+		File directory = new File(classifier.getExportDirectory(), entry.trainingConf.toString());
+
+		ClassifierSnapshot snapshot = null;
+		try {
+			snapshot = classifier.loadSnapshot(directory, entry.model);
+		} finally {
+			if (snapshot == null) {
+				// don't keep failed entries, so that the next request retries
+				synchronized (entries) {
+					if (entries.get(entry.key) == entry) {
+						entries.remove(entry.key);
+					}
+				}
+			}
+		}
+		if (snapshot == null) {
+			throw new TwitterSentimentServiceException("No trained classifier available for model '" + entry.model + "' and training config '" + entry.trainingConf + "'");
+		}
+
+		entry.size = estimateSize(directory, entry.model, snapshot);
+		entry.loadTime = System.currentTimeMillis() - start;
+		logger.info("Loaded classifier " + entry.key + " in " + entry.loadTime + " ms (estimated size: " + entry.size + " bytes)");
+
+		synchronized (entries) {
+			entry.loaded = true;
+			residentSize += entry.size;
+			evict(entry);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Evicts least-recently-used classifiers until the resident classifiers
+	 * fit into the heap budget -- must be called while holding the lock of
+	 * entries.
+	 *
+	 * @param keep the entry that must not be evicted
+	 */
+	private void evict(Entry keep) {
+		Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+		while (residentSize > heapBudget && it.hasNext()) {
+			Entry entry = it.next().getValue();
+			if (entry != keep && entry.loaded) {
+				it.remove();
+				residentSize -= entry.size;
+				logger.info("Evicted classifier " + entry.key + " (estimated size: " + entry.size + " bytes, hits: " + entry.hits.get() + ")");
+			}
+		}
+	}
+
+	/**
+	 * Estimates the heap size of a loaded classifier -- the compiled model
+	 * (header, word-to-attribute index and scoring engine) is estimated from
+	 * its arrays, the trained Weka classifier kept for evaluation by the size
+	 * of its exported file.
+	 *
+	 * @param directory the directory containing the exported files
+	 * @param model the classifier model
+	 * @param snapshot the loaded classifier
+	 * @return the estimated heap size in bytes
+	 */
+	private long estimateSize(File directory, ClassifierModel model, ClassifierSnapshot snapshot) {
+		return snapshot.getCompiledModel().estimateSize()
+				+ classifier.getClassifierOuptutFile(directory, model).length();
+	}
+
+	/**
+	 * Creates the registry key for a classifier model and training
+	 * configuration.
+	 *
+	 * @param model the classifier model
+	 * @param trainingConf the training configuration
+	 * @return the registry key
+	 */
+	private static String createKey(ClassifierModel model, TrainingConfig trainingConf) {
+		return model + "/" + trainingConf;
+	}
+
+	/**
+	 * A resident (or loading) classifier.
+	 */
+	private class Entry {
+
+		/**
+		 * The registry key.
+		 */
+		private final String key;
+
+		/**
+		 * The classifier model.
+		 */
+		private final ClassifierModel model;
+
+		/**
+		 * The training configuration.
+		 */
+		private final TrainingConfig trainingConf;
+
+		/**
+		 * The task loading the classifier -- holds the loaded snapshot.
+		 */
+		private final FutureTask<ClassifierSnapshot> task;
+
+		/**
+		 * Number of requests served by the resident classifier.
+		 */
+		private final AtomicLong hits = new AtomicLong();
+
+		/**
+		 * Preprocessing profiles other than the training profile the
+		 * classifier was used with -- guarded by entries.
+		 */
+		private final EnumSet<Profile> mismatchedProfiles = EnumSet.noneOf(Profile.class);
+
+		/**
+		 * Indicator whether the classifier is loaded -- guarded by entries.
+		 */
+		private boolean loaded = false;
+
+		/**
+		 * The estimated heap size of the classifier in bytes.
+		 */
+		private volatile long size = 0;
+
+		/**
+		 * Time needed to load the classifier in milliseconds.
+		 */
+		private volatile long loadTime = 0;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param key the registry key
+		 * @param model the classifier model
+		 * @param trainingConf the training configuration
+		 */
+		Entry(String key, ClassifierModel model, TrainingConfig trainingConf) {
+			this.key = key;
+			this.model = model;
+			this.trainingConf = trainingConf;
+			this.task = new FutureTask<>(new Callable<ClassifierSnapshot>() {
+				@Override
+				public ClassifierSnapshot call() throws TwitterSentimentServiceException {
+					return load(Entry.this);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Creates daemon threads for loading classifiers.
+	 */
+	private static class LoaderThreadFactory implements ThreadFactory {
+
+		/**
+		 * Number of created threads.
+		 */
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "model-registry-loader-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
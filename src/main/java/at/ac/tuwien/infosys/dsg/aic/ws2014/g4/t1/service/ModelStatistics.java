@@ -0,0 +1,114 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.service;
+
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ITwitterSentimentClassifier.ClassifierModel;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.service.ITwitterSentimentService.TrainingConfig;
+
+/**
+ * Statistics of a trained classifier held by the model registry.
+ */
+public class ModelStatistics {
+
+	/**
+	 * The classifier model.
+	 */
+	private final ClassifierModel model;
+
+	/**
+	 * The training configuration.
+	 */
+	private final TrainingConfig trainingConf;
+
+	/**
+	 * Indicator whether the classifier is loaded (false while loading).
+	 */
+	private final boolean loaded;
+
+	/**
+	 * The estimated heap size of the classifier in bytes.
+	 */
+	private final long estimatedSize;
+
+	/**
+	 * Number of requests served by the resident classifier.
+	 */
+	private final long hits;
+
+	/**
+	 * Time needed to load the classifier in milliseconds.
+	 */
+	private final long loadTime;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param model the classifier model
+	 * @param trainingConf the training configuration
+	 * @param loaded whether the classifier is loaded
+	 * @param estimatedSize the estimated heap size of the classifier in bytes
+	 * @param hits number of requests served by the resident classifier
+	 * @param loadTime time needed to load the classifier in milliseconds
+	 */
+	public ModelStatistics(ClassifierModel model, TrainingConfig trainingConf, boolean loaded, long estimatedSize, long hits, long loadTime) {
+		this.model = model;
+		this.trainingConf = trainingConf;
+		this.loaded = loaded;
+		this.estimatedSize = estimatedSize;
+		this.hits = hits;
+		this.loadTime = loadTime;
+	}
+
+	/**
+	 * Returns the classifier model.
+	 *
+	 * @return the classifier model.
+	 */
+	public ClassifierModel getModel() {
+		return model;
+	}
+
+	/**
+	 * Returns the training configuration.
+	 *
+	 * @return the training configuration.
+	 */
+	public TrainingConfig getTrainingConfig() {
+		return trainingConf;
+	}
+
+	/**
+	 * Returns whether the classifier is loaded.
+	 *
+	 * @return true if the classifier is loaded, false if it is still loading.
+	 */
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * Returns the estimated heap size of the classifier.
+	 *
+	 * @return the estimated heap size in bytes (0 while loading).
+	 */
+	public long getEstimatedSize() {
+		return estimatedSize;
+	}
+
+	/**
+	 * Returns the number of requests served by the resident classifier.
+	 *
+	 * @return the number of requests served by the resident classifier.
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the time needed to load the classifier.
+	 *
+	 * @return the time needed to load the classifier in milliseconds (0 while
+	 * loading).
+	 */
+	public long getLoadTime() {
+		return loadTime;
+	}
+}
@@ -1,18 +1,22 @@
 package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.service;
 
-import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ClassifierException;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ClassificationResult;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ClassifierSnapshot;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.DictionaryBootstrap;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.IPreprocessor.Profile;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ITwitterSentimentClassifier.ClassifierModel;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ITwitterSentimentClassifier.Sentiment;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.SpellDictionary.SuggestionEngine;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.TwitterSentimentClassifierImpl;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.helper.ApplicationConfig;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.helper.Constants;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import org.apache.logging.log4j.LogManager;
@@ -37,35 +41,76 @@ public class TwitterSentimentService implements ITwitterSentimentService {
 	private static final DateFormat TWITTER_SEARCH_API_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
 
 	/**
-	 * The singleton instance.
+	 * Number of threads loading classifiers in the background.
 	 */
-	private static TwitterSentimentService instance;
+	private static final int REGISTRY_LOADER_THREADS = 2;
+
+	/**
+	 * The singleton instance -- written while holding the class lock.
+	 */
+	private static volatile TwitterSentimentService instance;
 
 	/**
 	 * The Twitter Sentiment classifier.
 	 */
 	private final TwitterSentimentClassifierImpl classifier;
 
+	/**
+	 * Registry keeping the trained classifiers resident.
+	 */
+	private final ModelRegistry registry;
+
 	/**
 	 * Constructor.
 	 *
 	 * Do not allow to instantiate objects -- singleton!
+	 *
+	 * @param config the application config (null if it couldn't be loaded)
 	 */
-	private TwitterSentimentService() {
-		// try to load application config
-		TwitterSentimentClassifierImpl classifier;
+	private TwitterSentimentService(ApplicationConfig config) {
+		if (config != null) {
+			classifier = new TwitterSentimentClassifierImpl(config);
+			registry = new ModelRegistry(classifier, config.getRegistryHeapBudget(), REGISTRY_LOADER_THREADS);
+			preloadClassifiers(config.getRegistryPreload());
+		} else {
+			classifier = new TwitterSentimentClassifierImpl();
+			registry = new ModelRegistry(classifier, Runtime.getRuntime().maxMemory() / 2, REGISTRY_LOADER_THREADS);
+		}
+	}
+
+	/**
+	 * Loads the application config.
+	 *
+	 * @return the application config or null if it couldn't be loaded
+	 */
+	private static ApplicationConfig loadConfig() {
 		try {
 			InputStream is = TwitterSentimentService.class.getResourceAsStream(Constants.DEFAULT_CONFIG_FILE_RESOURCE);
-			ApplicationConfig config = new ApplicationConfig(is);
-
-			classifier = new TwitterSentimentClassifierImpl(config);
+			return new ApplicationConfig(is);
 		} catch (IOException ex) {
 			logger.warn("Couldn't load application configuration -- instantiate classifier without config!", ex);
-
-			classifier = new TwitterSentimentClassifierImpl();
+			return null;
 		}
+	}
 
-		this.classifier = classifier;
+	/**
+	 * Starts loading classifiers in the background.
+	 *
+	 * @param classifiers the classifiers to load, each in the format
+	 * [classifierModel]/[trainingConfig]
+	 */
+	private void preloadClassifiers(String[] classifiers) {
+		for (String c : classifiers) {
+			String[] parts = c.split("/");
+			try {
+				if (parts.length != 2) {
+					throw new IllegalArgumentException("expected <model>/<training config>");
+				}
+				registry.preload(ClassifierModel.valueOf(parts[0].trim()), TrainingConfig.valueOf(parts[1].trim()));
+			} catch (IllegalArgumentException ex) {
+				logger.warn("Illegal classifier '" + c + "' supplied for preloading in application config", ex);
+			}
+		}
 	}
 
 	/**
@@ -73,13 +118,70 @@ public class TwitterSentimentService implements ITwitterSentimentService {
 	 *
 	 * @return the twitter sentiment service instance.
 	 */
-	public static TwitterSentimentService getInstance() {
+	public static synchronized TwitterSentimentService getInstance() {
 		if (instance == null) {
-			instance = new TwitterSentimentService();
+			instance = new TwitterSentimentService(loadConfig());
 		}
 		return instance;
 	}
 
+	/**
+	 * Starts the twitter sentiment service in a background thread (e.g. when
+	 * the web service starts): loads the dictionaries for the configured
+	 * spelling suggestion engine, then creates the singleton instance, which
+	 * starts loading the classifiers configured for preloading -- so none of
+	 * this happens inside the first request.
+	 */
+	public static void start() {
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					long start = System.currentTimeMillis();
+					ApplicationConfig config = loadConfig();
+					DictionaryBootstrap bootstrap = DictionaryBootstrap.getInstance();
+					bootstrap.start((config != null) ? config.getPreprocessorSpellSuggestionEngine() : SuggestionEngine.JAZZY);
+					bootstrap.awaitReady();
+					synchronized (TwitterSentimentService.class) {
+						if (instance == null) {
+							instance = new TwitterSentimentService(config);
+						}
+					}
+					logger.info("Started twitter sentiment service in " + (System.currentTimeMillis() - start) + " ms");
+				} catch (InterruptedException ex) {
+					logger.warn("Interrupted while waiting for the dictionaries -- service is created on first use");
+				} catch (RuntimeException ex) {
+					logger.error("Couldn't create twitter sentiment service", ex);
+				}
+			}
+		}, "twitter-sentiment-service-startup");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Checks whether the twitter sentiment service singleton instance is
+	 * created (by start() or getInstance()).
+	 *
+	 * @return true if the service is created, false otherwise.
+	 */
+	public static boolean isStarted() {
+		return instance != null;
+	}
+
+	/**
+	 * Shuts down the twitter sentiment service singleton instance (if it was
+	 * created) and releases its worker threads -- a later call of
+	 * getInstance() creates a new instance.
+	 */
+	public static synchronized void shutdown() {
+		if (instance != null) {
+			instance.registry.shutdown();
+			instance.classifier.shutdown();
+			instance = null;
+		}
+	}
+
 	// TODO: cache twitter search
 	@Override
 	public List<Status> searchForTweets(String username, Date start, Date end) throws TwitterSentimentServiceException {
@@ -110,23 +212,41 @@ public class TwitterSentimentService implements ITwitterSentimentService {
 
 	@Override
 	public Map<Status, double[]> classifyTweetsWithProbabilities(List<Status> tweets, ClassifierModel model, TrainingConfig trainingConf) throws TwitterSentimentServiceException {
-		File oldExportDir = classifier.getExportDirectory();
-
-		classifier.useClassifierModel(model);
-		classifier.setExportDirectory(new File(oldExportDir, trainingConf.toString()));
+		return classifyTweetsWithProbabilities(tweets, model, trainingConf, null);
+	}
 
-		Map<Status, double[]> classifiedTweets;
-		try {
-			classifiedTweets = classifier.classifyWithProbabilities(tweets);
-		} catch (IllegalStateException | ClassifierException ex) {
-			throw new TwitterSentimentServiceException("Couldn't classify tweets", ex);
+	@Override
+	public Map<Status, double[]> classifyTweetsWithProbabilities(List<Status> tweets, ClassifierModel model, TrainingConfig trainingConf, Profile profile) throws TwitterSentimentServiceException {
+		ClassifierSnapshot snapshot = registry.get(model, trainingConf);
+		if (profile == null) {
+			profile = snapshot.getPreprocessor().getDefaultProfile();
+		}
+		if (snapshot.getTrainingProfile() != null && snapshot.getTrainingProfile() != profile) {
+			// warn only once per resident classifier and profile
+			if (registry.recordProfileMismatch(model, trainingConf, profile)) {
+				logger.warn("Classifier for model '" + model + "' and training config '" + trainingConf + "' was trained with preprocessing profile '"
+						+ snapshot.getTrainingProfile() + "', but tweets are preprocessed with profile '" + profile + "'");
+			} else if (logger.isDebugEnabled()) {
+				logger.debug("Classifying tweets with preprocessing profile '" + profile + "' using classifier for model '" + model
+						+ "' and training config '" + trainingConf + "' trained with profile '" + snapshot.getTrainingProfile() + "'");
+			}
 		}
 
-		classifier.setExportDirectory(oldExportDir);
-
+		Map<Status, double[]> classifiedTweets = new LinkedHashMap<>();
+		for (ClassificationResult r : classifier.classifyBatch(snapshot, tweets, profile)) {
+			if (!r.isSuccessful()) {
+				throw new TwitterSentimentServiceException("Couldn't classify tweets", r.getError());
+			}
+			classifiedTweets.put(r.getTweet(), r.getProbabilities());
+		}
 		return classifiedTweets;
 	}
 
+	@Override
+	public List<ModelStatistics> getModelStatistics() {
+		return registry.getStatistics();
+	}
+
 	@Override
 	public Sentiment[] getAllSentiments() {
 		return Sentiment.values();
@@ -158,5 +278,4 @@ public class TwitterSentimentService implements ITwitterSentimentService {
 
 		return avgProbabilities;
 	}
-
 }
@@ -0,0 +1,217 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.utils;
+
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.SpellDictionary;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.SpellDictionary.SuggestionEngine;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the spelling suggestion engines on a corpus of misspellings --
+ * created by applying one or two random edits (deletion, insertion,
+ * substitution, transposition) to random dictionary words.
+ *
+ * Reports the latency per suggestion, the ratio of suggestions restoring the
+ * original word and the agreement of the symmetric delete index with Jazzy.
+ */
+public class SpellSuggestionBenchmark {
+
+	/**
+	 * Exit value in case of error.
+	 */
+	private static final int EXIT_ERROR = 1;
+
+	/**
+	 * The name of the resource file containing the dictionary words.
+	 */
+	private static final String DICT_FILE_RESOURCE = "/spell.txt";
+
+	/**
+	 * Default number of misspellings.
+	 */
+	private static final int DEFAULT_NUM_MISSPELLINGS = 2000;
+
+	/**
+	 * Seed of the misspelling generator.
+	 */
+	private static final long SEED = 42;
+
+	/**
+	 * Chars used for insertions and substitutions.
+	 */
+	private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
+
+	/**
+	 * Prints usage message to stdout.
+	 */
+	public static void usage() {
+		System.out.println(SpellSuggestionBenchmark.class.getSimpleName() + " [num-misspellings]");
+	}
+
+	/**
+	 * main()
+	 *
+	 * @param args the arguments
+	 */
+	public static void main(String[] args) {
+		int numMisspellings = DEFAULT_NUM_MISSPELLINGS;
+		try {
+			if (args.length > 0) {
+				numMisspellings = Integer.parseInt(args[0]);
+			}
+		} catch (NumberFormatException ex) {
+			System.err.println("Argument must be a number");
+			usage();
+			System.exit(EXIT_ERROR);
+		}
+
+		List<String> words = null;
+		try {
+			words = loadWords();
+		} catch (IOException ex) {
+			System.err.println("Couldn't read dictionary words: " + ex.getMessage());
+			System.exit(EXIT_ERROR);
+		}
+
+		SpellDictionary dictionary = SpellDictionary.getInstance();
+
+		long time = System.nanoTime();
+		dictionary.getSymmetricDeleteIndex();
+		long buildTime = System.nanoTime() - time;
+
+		List<String[]> corpus = createMisspellings(dictionary, words, numMisspellings);
+		String[] jazzy = suggest(dictionary, corpus, SuggestionEngine.JAZZY);
+		String[] symmetricDelete = suggest(dictionary, corpus, SuggestionEngine.SYMMETRIC_DELETE);
+
+		// measure again after warm up
+		time = System.nanoTime();
+		suggest(dictionary, corpus, SuggestionEngine.JAZZY);
+		long jazzyTime = System.nanoTime() - time;
+
+		time = System.nanoTime();
+		suggest(dictionary, corpus, SuggestionEngine.SYMMETRIC_DELETE);
+		long symmetricDeleteTime = System.nanoTime() - time;
+
+		int agreement = 0;
+		for (int i = 0; i < corpus.size(); i++) {
+			if (jazzy[i] != null ? jazzy[i].equalsIgnoreCase(String.valueOf(symmetricDelete[i])) : symmetricDelete[i] == null) {
+				agreement++;
+			}
+		}
+
+		System.out.format("misspellings: %d, symmetric delete index built in %.1f ms%n", corpus.size(), buildTime / 1e6);
+		System.out.format("- jazzy:            %8.2f us/word, %5.1f %% correct%n",
+				jazzyTime / 1000.0 / corpus.size(), 100.0 * countCorrect(corpus, jazzy) / corpus.size());
+		System.out.format("- symmetric delete: %8.2f us/word, %5.1f %% correct, %5.1f %% agreement with jazzy%n",
+				symmetricDeleteTime / 1000.0 / corpus.size(), 100.0 * countCorrect(corpus, symmetricDelete) / corpus.size(),
+				100.0 * agreement / corpus.size());
+	}
+
+	/**
+	 * Loads the dictionary words.
+	 *
+	 * @return the dictionary words
+	 * @throws IOException if the dictionary resource couldn't be read
+	 */
+	private static List<String> loadWords() throws IOException {
+		List<String> words = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				SpellSuggestionBenchmark.class.getResourceAsStream(DICT_FILE_RESOURCE)))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.length() >= 3 && line.matches("[a-z]+")) {
+					words.add(line);
+				}
+			}
+		}
+		return words;
+	}
+
+	/**
+	 * Creates misspellings of random dictionary words -- misspellings that
+	 * are dictionary words themselves are skipped.
+	 *
+	 * @param dictionary the spell dictionary
+	 * @param words the dictionary words
+	 * @param numMisspellings the number of misspellings
+	 * @return pairs of (original word, misspelling)
+	 */
+	private static List<String[]> createMisspellings(SpellDictionary dictionary, List<String> words, int numMisspellings) {
+		Random random = new Random(SEED);
+		List<String[]> corpus = new ArrayList<>(numMisspellings);
+		while (corpus.size() < numMisspellings) {
+			String word = words.get(random.nextInt(words.size()));
+			String misspelling = word;
+			int edits = 1 + random.nextInt(2);
+			for (int e = 0; e < edits; e++) {
+				misspelling = edit(misspelling, random);
+			}
+			if (misspelling.length() >= 3 && !dictionary.contains(misspelling)) {
+				corpus.add(new String[]{word, misspelling});
+			}
+		}
+		return corpus;
+	}
+
+	/**
+	 * Applies a random edit to a word.
+	 *
+	 * @param word the word
+	 * @param random the random generator
+	 * @return the edited word
+	 */
+	private static String edit(String word, Random random) {
+		int pos = random.nextInt(word.length());
+		char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+		switch (random.nextInt(4)) {
+			case 0:
+				return word.substring(0, pos) + word.substring(pos + 1);
+			case 1:
+				return word.substring(0, pos) + c + word.substring(pos);
+			case 2:
+				return word.substring(0, pos) + c + word.substring(pos + 1);
+			default:
+				if (pos + 1 >= word.length()) {
+					return word.substring(0, pos) + c + word.substring(pos + 1);
+				}
+				return word.substring(0, pos) + word.charAt(pos + 1) + word.charAt(pos) + word.substring(pos + 2);
+		}
+	}
+
+	/**
+	 * Gets suggestions for all misspellings.
+	 *
+	 * @param dictionary the spell dictionary
+	 * @param corpus pairs of (original word, misspelling)
+	 * @param engine the suggestion engine
+	 * @return the suggestions
+	 */
+	private static String[] suggest(SpellDictionary dictionary, List<String[]> corpus, SuggestionEngine engine) {
+		String[] suggestions = new String[corpus.size()];
+		for (int i = 0; i < corpus.size(); i++) {
+			suggestions[i] = dictionary.getSuggestion(corpus.get(i)[1], engine);
+		}
+		return suggestions;
+	}
+
+	/**
+	 * Counts the suggestions restoring the original word.
+	 *
+	 * @param corpus pairs of (original word, misspelling)
+	 * @param suggestions the suggestions
+	 * @return the number of correct suggestions
+	 */
+	private static int countCorrect(List<String[]> corpus, String[] suggestions) {
+		int correct = 0;
+		for (int i = 0; i < corpus.size(); i++) {
+			if (corpus.get(i)[0].equalsIgnoreCase(suggestions[i])) {
+				correct++;
+			}
+		}
+		return correct;
+	}
+}
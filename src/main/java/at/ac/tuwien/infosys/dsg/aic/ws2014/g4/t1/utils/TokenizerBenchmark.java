@@ -0,0 +1,228 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.utils;
+
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ITokenizer;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.StreamingTokenizerImpl;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.TokenizerImpl;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+/**
+ * Compares the streaming tokenizer with the Twokenize tokenizer on a corpus
+ * of tweets -- either the texts of a (bzipped) Sentiment140 CSV file or
+ * synthetic tweets built from typical tweet fragments (words, contractions,
+ * URLs, mentions, hashtags, emoticons, numbers, punctuation runs, ...).
+ *
+ * Reports the ratio of tweets tokenized identically (and the first
+ * differences) and the throughput of both tokenizers.
+ */
+public class TokenizerBenchmark {
+
+	/**
+	 * Exit value in case of error.
+	 */
+	private static final int EXIT_ERROR = 1;
+
+	/**
+	 * Default number of synthetic tweets.
+	 */
+	private static final int DEFAULT_NUM_TWEETS = 100000;
+
+	/**
+	 * Seed of the synthetic tweet generator.
+	 */
+	private static final long SEED = 42;
+
+	/**
+	 * The CSV row that contains the Tweet's text.
+	 */
+	private static final int ROW_TEXT = 5;
+
+	/**
+	 * Number of differences printed.
+	 */
+	private static final int MAX_PRINTED_DIFFERENCES = 10;
+
+	/**
+	 * Number of measured passes over the corpus.
+	 */
+	private static final int NUM_PASSES = 3;
+
+	/**
+	 * Fragments of synthetic tweets.
+	 */
+	private static final String[] FRAGMENTS = {
+		// words and contractions
+		"the", "a", "I", "love", "hate", "this", "so", "much", "today", "Monday", "LOL", "omg", "sooo", "goooood",
+		"can't", "don't", "won't", "I'm", "you're", "it's", "we'll", "he'd", "they've", "ain't", "rock'n'roll",
+		"y'all", "'tis", "don\u2019t", "it\u2019s", "o'clock", "well-known", "e-mail", "lunch/dinner", "and/or",
+		"caf\u00e9", "na\u00efve", "\u00fcber", "stra\u00dfe", "\u65e5\u672c", "\u0645\u0631\u062d\u0628\u0627",
+		// mentions, hashtags, retweets
+		"@user", "@John_Doe", "@", "\uff20user", "#happy", "#TGIF", "#1", "#", "RT", "RT @user:", "via @news",
+		// URLs and emails
+		"http://t.co/AbC123", "https://bit.ly/x?y=1&z=2", "http://example.com/path/index.html", "www.example.com",
+		"www.example.com/a-b_c", "example.com", "example.co.uk", "sub.example.org/x", "foo.com.", "t.co/x",
+		"http://t.co/abc...", "(http://t.co/abc)", "http://x.com/<b>", "me@example.com", "john.doe@mail.co.uk",
+		// numbers and times
+		"3:45", "12:30:15", "10:00pm", "1,000", "1,234,567", "12,34", "3.50", "$3.50", "\u20ac5.99", "99.9%",
+		"2.0.1", "42", "2nd", "1st", "4ever", "2day", "&amp;", "&lt;3", "&gt;", "&quot;hi&quot;", "&nbsp;",
+		// emoticons
+		":)", ":-)", ":(", ":-(", ":D", ":-D", ";)", ";-)", ":P", ":p", ":-p", "XD", "xD", ":'(", ":/", ":-/",
+		":|", ":O", ":o", "=)", "=]", ":]", ":[", "(:", "):", "(-:", ")-:", "D:", "D:<", ">:(", "&gt;:(", ":3",
+		"<3", "</3", "<33", "\u2665", "\u2764", "\u2661", "o.O", "O_o", "^_^", "^^", "-_-", "T_T", "x_x", ">_<",
+		"<_<", "._.", "(^_^)", "(>_<)", "\\(^o^)/", "(*_*)", "(;_;)", "(-_-)", "\u0ca0_\u0ca0", "(\u00b0_\u00b0)",
+		"\u30fd(^\u3002^)\u30ce", ":))", ":((", ":DD", ":pRT", ":-))", ";D", "8)", ":*", ":-*", "--'", "-.-",
+		// arrows, separators, decorations
+		"<--", "-->", "<-", "->", "=>", "<=", "<<", ">>", "\u2192", "\u2190", "--", "---", "\u2014", "\u2013",
+		"~", "=", "\u266b", "\u266a", "\u2605", "\u2606", "\u263a", "\ue001", "\ud83d\ude00", "\ud83d\ude2d",
+		// punctuation and quotes
+		"!", "!!", "!!!", "?", "??", "?!", "...", "..", "\u2026", ",", ".", ":", ";", "'", "\"", "\u201c",
+		"\u201d", "\u2018", "\u2019", "(", ")", "[", "]", "{", "}", "*", "&", "\u00ab", "\u00bb", "/", "\\",
+		"|", "-", "_", "+", "%", "^", "$", "<", ">", "@@", "##",
+		// abbreviations
+		"U.S.", "U.S.A.", "e.g.", "i.e.", "a.m.", "p.m.", "Mr.", "Mrs.", "Dr.", "st.", "etc.", "vs.", "A.B"
+	};
+
+	/**
+	 * Separators between fragments (mostly single spaces).
+	 */
+	private static final String[] SEPARATORS = {
+		" ", " ", " ", " ", " ", " ", " ", " ", " ", " ", " ", " ", "", "", "", "  ", "\t", "\n", "\u00a0", " \r\n "
+	};
+
+	/**
+	 * Prints usage message to stdout.
+	 */
+	public static void usage() {
+		System.out.println(TokenizerBenchmark.class.getSimpleName() + " [num-tweets | sentiment140-file.csv.bz2]");
+	}
+
+	/**
+	 * main()
+	 *
+	 * @param args the arguments
+	 */
+	public static void main(String[] args) {
+		List<String> corpus = null;
+		if (args.length > 1) {
+			usage();
+			System.exit(EXIT_ERROR);
+		} else if (args.length == 1 && !args[0].matches("\\d+")) {
+			try {
+				corpus = readSentiment140Texts(new File(args[0]));
+			} catch (IOException ex) {
+				System.err.println("Couldn't read Sentiment140 file: " + ex.getMessage());
+				usage();
+				System.exit(EXIT_ERROR);
+			}
+		} else {
+			int numTweets = (args.length == 1) ? Integer.parseInt(args[0]) : DEFAULT_NUM_TWEETS;
+			corpus = createCorpus(numTweets, SEED);
+		}
+
+		ITokenizer twokenize = new TokenizerImpl();
+		ITokenizer streaming = new StreamingTokenizerImpl();
+
+		int identical = 0;
+		int differences = 0;
+		for (String text : corpus) {
+			List<String> expected = twokenize.tokenize(text);
+			List<String> actual = streaming.tokenize(text);
+			if (expected.equals(actual)) {
+				identical++;
+			} else if (++differences <= MAX_PRINTED_DIFFERENCES) {
+				System.out.println("difference: '" + text + "'");
+				System.out.println("  twokenize: " + expected);
+				System.out.println("  streaming: " + actual);
+			}
+		}
+
+		// measure after warm up (the conformance check)
+		long twokenizeTime = Long.MAX_VALUE;
+		long streamingTime = Long.MAX_VALUE;
+		for (int pass = 0; pass < NUM_PASSES; pass++) {
+			twokenizeTime = Math.min(twokenizeTime, tokenize(twokenize, corpus));
+			streamingTime = Math.min(streamingTime, tokenize(streaming, corpus));
+		}
+
+		System.out.format("tweets: %d, identical tokens: %d (%.3f %%)%n", corpus.size(), identical,
+				100.0 * identical / corpus.size());
+		System.out.format("- twokenize: %8.2f us/tweet, %9.0f tweets/s%n",
+				twokenizeTime / 1000.0 / corpus.size(), corpus.size() * 1e9 / twokenizeTime);
+		System.out.format("- streaming: %8.2f us/tweet, %9.0f tweets/s (%.1fx)%n",
+				streamingTime / 1000.0 / corpus.size(), corpus.size() * 1e9 / streamingTime,
+				(double) twokenizeTime / streamingTime);
+	}
+
+	/**
+	 * Creates synthetic tweets from random fragments and separators.
+	 *
+	 * @param numTweets the number of tweets
+	 * @param seed the seed of the random generator
+	 * @return the tweets
+	 */
+	public static List<String> createCorpus(int numTweets, long seed) {
+		Random random = new Random(seed);
+		List<String> corpus = new ArrayList<>(numTweets);
+		StringBuilder sb = new StringBuilder(160);
+		for (int i = 0; i < numTweets; i++) {
+			sb.setLength(0);
+			int numFragments = 1 + random.nextInt(25);
+			for (int f = 0; f < numFragments; f++) {
+				if (f > 0) {
+					sb.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+				}
+				sb.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+			}
+			corpus.add(sb.toString());
+		}
+		return corpus;
+	}
+
+	/**
+	 * Reads the tweet texts of a bzipped Sentiment140 CSV file.
+	 *
+	 * @param file the file to read from
+	 * @return the tweet texts
+	 * @throws IOException if the file couldn't be read successfully.
+	 */
+	private static List<String> readSentiment140Texts(File file) throws IOException {
+		List<String> texts = new ArrayList<>();
+		try (CSVParser csvParser = new CSVParser(new InputStreamReader(new BZip2CompressorInputStream(
+				new BufferedInputStream(new FileInputStream(file)))), CSVFormat.DEFAULT)) {
+			for (CSVRecord record : csvParser) {
+				texts.add(record.get(ROW_TEXT));
+			}
+		}
+		return texts;
+	}
+
+	/**
+	 * Tokenizes all tweets of a corpus.
+	 *
+	 * @param tokenizer the tokenizer
+	 * @param corpus the tweets
+	 * @return the elapsed time in ns
+	 */
+	private static long tokenize(ITokenizer tokenizer, List<String> corpus) {
+		long time = System.nanoTime();
+		int checksum = 0;
+		for (String text : corpus) {
+			checksum += tokenizer.tokenize(text).size();
+		}
+		time = System.nanoTime() - time;
+		if (checksum < 0) {
+			System.out.println(checksum);
+		}
+		return time;
+	}
+}
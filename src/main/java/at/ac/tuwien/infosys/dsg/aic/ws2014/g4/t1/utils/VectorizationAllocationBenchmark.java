@@ -0,0 +1,192 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.utils;
+
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.CompiledModel;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.TreeSet;
+import weka.core.Attribute;
+import weka.core.FastVector;
+import weka.core.Instances;
+import weka.core.SparseInstance;
+
+/**
+ * Measures the heap allocation per tweet when creating a Weka instance for a
+ * tweet -- compares the former dense approach (zeros array and
+ * replaceMissingValues) with the sparse-native approach used by the
+ * classifier.
+ */
+public class VectorizationAllocationBenchmark {
+
+	/**
+	 * Exit value in case of error.
+	 */
+	private static final int EXIT_ERROR = 1;
+
+	/**
+	 * Default vocabulary size (about the size of the Sentiment140_200k
+	 * vocabulary).
+	 */
+	private static final int DEFAULT_VOCABULARY_SIZE = 150000;
+
+	/**
+	 * Default number of active features per tweet.
+	 */
+	private static final int DEFAULT_WORDS_PER_TWEET = 12;
+
+	/**
+	 * Number of instances created per measurement.
+	 */
+	private static final int NUM_INSTANCES = 2000;
+
+	/**
+	 * Prints usage message to stdout.
+	 */
+	public static void usage() {
+		System.out.println(VectorizationAllocationBenchmark.class.getSimpleName() + " [vocabulary-size] [words-per-tweet]");
+	}
+
+	/**
+	 * main()
+	 *
+	 * @param args the arguments
+	 */
+	public static void main(String[] args) {
+		int vocabularySize = DEFAULT_VOCABULARY_SIZE;
+		int wordsPerTweet = DEFAULT_WORDS_PER_TWEET;
+		try {
+			if (args.length > 0) {
+				vocabularySize = Integer.parseInt(args[0]);
+			}
+			if (args.length > 1) {
+				wordsPerTweet = Integer.parseInt(args[1]);
+			}
+		} catch (NumberFormatException ex) {
+			System.err.println("Arguments must be numbers");
+			usage();
+			System.exit(EXIT_ERROR);
+		}
+
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+			System.err.println("JVM doesn't support measuring thread allocations");
+			System.exit(EXIT_ERROR);
+		}
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+
+		Instances header = createHeader(vocabularySize);
+		int[][] tweets = createTweets(vocabularySize, wordsPerTweet);
+
+		// warm up both code paths first
+		createDenseInstances(header, tweets);
+		createSparseInstances(header, tweets);
+
+		long threadId = Thread.currentThread().getId();
+
+		long start = threadBean.getThreadAllocatedBytes(threadId);
+		long time = System.nanoTime();
+		createDenseInstances(header, tweets);
+		long denseTime = System.nanoTime() - time;
+		long denseBytes = threadBean.getThreadAllocatedBytes(threadId) - start;
+
+		start = threadBean.getThreadAllocatedBytes(threadId);
+		time = System.nanoTime();
+		createSparseInstances(header, tweets);
+		long sparseTime = System.nanoTime() - time;
+		long sparseBytes = threadBean.getThreadAllocatedBytes(threadId) - start;
+
+		System.out.format("vocabulary size: %d, words per tweet: %d%n", vocabularySize, wordsPerTweet);
+		System.out.format("- before (dense zeros): %10d bytes/tweet, %8.2f us/tweet%n",
+				denseBytes / tweets.length, denseTime / 1000.0 / tweets.length);
+		System.out.format("- after (sparse):       %10d bytes/tweet, %8.2f us/tweet%n",
+				sparseBytes / tweets.length, sparseTime / 1000.0 / tweets.length);
+	}
+
+	/**
+	 * Creates a dataset header with a class attribute and the given number of
+	 * word attributes.
+	 *
+	 * @param vocabularySize the number of word attributes
+	 * @return the dataset header
+	 */
+	private static Instances createHeader(int vocabularySize) {
+		FastVector classValues = new FastVector(3);
+		classValues.addElement("negative");
+		classValues.addElement("neutral");
+		classValues.addElement("positive");
+
+		FastVector attributes = new FastVector(vocabularySize + 1);
+		attributes.addElement(new Attribute("__class__", classValues));
+		for (int i = 0; i < vocabularySize; i++) {
+			attributes.addElement(new Attribute("word" + i));
+		}
+
+		Instances header = new Instances("benchmark", attributes, 0);
+		header.setClassIndex(0);
+		return header;
+	}
+
+	/**
+	 * Creates random tweets as sorted arrays of attribute indices.
+	 *
+	 * @param vocabularySize the number of word attributes
+	 * @param wordsPerTweet the number of words per tweet
+	 * @return the tweets
+	 */
+	private static int[][] createTweets(int vocabularySize, int wordsPerTweet) {
+		Random random = new Random(42);
+		int[][] tweets = new int[NUM_INSTANCES][];
+		for (int i = 0; i < tweets.length; i++) {
+			TreeSet<Integer> ids = new TreeSet<>();
+			while (ids.size() < Math.min(wordsPerTweet, vocabularySize)) {
+				ids.add(1 + random.nextInt(vocabularySize));
+			}
+			tweets[i] = new int[ids.size()];
+			int j = 0;
+			for (Integer id : ids) {
+				tweets[i][j++] = id;
+			}
+		}
+		return tweets;
+	}
+
+	/**
+	 * Creates instances the way the classifier did it before: set each word
+	 * and replace all missing values with a dense zeros array.
+	 *
+	 * @param header the dataset header
+	 * @param tweets the tweets
+	 * @return a checksum (prevents dead code elimination)
+	 */
+	private static int createDenseInstances(Instances header, int[][] tweets) {
+		int checksum = 0;
+		for (int[] featureIds : tweets) {
+			SparseInstance inst = new SparseInstance(header.numAttributes());
+			inst.setDataset(header);
+
+			double[] zeros = new double[header.numAttributes()];
+			for (int id : featureIds) {
+				inst.setValue(id, 1.0);
+			}
+			inst.replaceMissingValues(zeros);
+
+			checksum += inst.numValues();
+		}
+		return checksum;
+	}
+
+	/**
+	 * Creates instances the sparse-native way.
+	 *
+	 * @param header the dataset header
+	 * @param tweets the tweets
+	 * @return a checksum (prevents dead code elimination)
+	 */
+	private static int createSparseInstances(Instances header, int[][] tweets) {
+		int checksum = 0;
+		for (int[] featureIds : tweets) {
+			SparseInstance inst = CompiledModel.createInstance(header, featureIds.clone());
+			checksum += inst.numValues();
+		}
+		return checksum;
+	}
+}
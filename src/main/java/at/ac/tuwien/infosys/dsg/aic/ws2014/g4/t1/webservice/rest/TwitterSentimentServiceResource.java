@@ -1,10 +1,13 @@
 package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.webservice.rest;
 
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.DictionaryBootstrap;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.IPreprocessor.Profile;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ITwitterSentimentClassifier.ClassifierModel;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ITwitterSentimentClassifier.Sentiment;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.service.IRegistrationService;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.service.ITwitterSentimentService;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.service.ITwitterSentimentService.TrainingConfig;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.service.ModelStatistics;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.service.RegistrationException;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.service.RegistrationService;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.service.TwitterSentimentService;
@@ -31,6 +34,7 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.ServiceUnavailableException;
 import javax.ws.rs.core.MediaType;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -49,7 +53,17 @@ public class TwitterSentimentServiceResource {
 
 	private final IRegistrationService registrationService = RegistrationService.getInstance();
 
-	private final ITwitterSentimentService twitterSentimentService = TwitterSentimentService.getInstance();
+	private final DictionaryBootstrap dictionaryBootstrap = DictionaryBootstrap.getInstance();
+
+	@GET
+	@Path("status")
+	@Produces(MediaType.APPLICATION_JSON)
+	public JsonObject status() {
+		return Json.createObjectBuilder()
+				.add("ready", TwitterSentimentService.isStarted())
+				.add("dictionaries_loaded", dictionaryBootstrap.isReady())
+				.build();
+	}
 
 	@POST
 	@Path("register")
@@ -83,7 +97,8 @@ public class TwitterSentimentServiceResource {
 			@QueryParam("from") String from,
 			@QueryParam("to") String to,
 			@QueryParam("classifierModel") @DefaultValue("SVM") ClassifierModel classifierModel,
-			@QueryParam("trainingConfig") @DefaultValue("Sentiment140_100k") TrainingConfig trainingConf) {
+			@QueryParam("trainingConfig") @DefaultValue("Sentiment140_100k") TrainingConfig trainingConf,
+			@QueryParam("preprocessingProfile") Profile profile) {
 		if (token == null) {
 			throw new BadRequestException("Parameter 'token' is missing");
 		} else if (from == null) {
@@ -111,6 +126,8 @@ public class TwitterSentimentServiceResource {
 			throw new NotAuthorizedException("Invalid user token -- please register first");
 		}
 
+		ITwitterSentimentService twitterSentimentService = getTwitterSentimentService();
+
 		// search for tweets
 		List<Status> tweets = null;
 		try {
@@ -123,7 +140,7 @@ public class TwitterSentimentServiceResource {
 		// determine sentiment for all found tweets
 		Map<Status, double[]> tweetSentiments;
 		try {
-			tweetSentiments = twitterSentimentService.classifyTweetsWithProbabilities(tweets, classifierModel, trainingConf);
+			tweetSentiments = twitterSentimentService.classifyTweetsWithProbabilities(tweets, classifierModel, trainingConf, profile);
 		} catch (TwitterSentimentServiceException ex) {
 			logger.error("Failed to classify tweets", ex);
 			throw new InternalServerErrorException("Couldn't classify Tweets");
@@ -163,4 +180,39 @@ public class TwitterSentimentServiceResource {
 				.add("tweets", jsonTweetArray.build())
 				.build();
 	}
+
+	@GET
+	@Path("models")
+	@Produces(MediaType.APPLICATION_JSON)
+	public JsonObject models() {
+		JsonArrayBuilder jsonModelArray = Json.createArrayBuilder();
+		for (ModelStatistics stats : getTwitterSentimentService().getModelStatistics()) {
+			jsonModelArray.add(Json.createObjectBuilder()
+					.add("classifier_model", stats.getModel().toString())
+					.add("training_config", stats.getTrainingConfig().toString())
+					.add("loaded", stats.isLoaded())
+					.add("estimated_size", stats.getEstimatedSize())
+					.add("hits", stats.getHits())
+					.add("load_time", stats.getLoadTime())
+					.build());
+		}
+
+		return Json.createObjectBuilder()
+				.add("models", jsonModelArray.build())
+				.build();
+	}
+
+	/**
+	 * Returns the Twitter Sentiment service -- the service isn't available
+	 * until it's started (dictionaries loaded and service created).
+	 *
+	 * @return the Twitter Sentiment service
+	 * @throws ServiceUnavailableException if the service isn't started yet
+	 */
+	private ITwitterSentimentService getTwitterSentimentService() {
+		if (!TwitterSentimentService.isStarted()) {
+			throw new ServiceUnavailableException("Service is starting -- please try again later");
+		}
+		return TwitterSentimentService.getInstance();
+	}
 }
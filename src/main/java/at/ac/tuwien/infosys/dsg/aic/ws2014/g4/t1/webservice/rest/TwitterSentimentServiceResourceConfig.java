@@ -1,6 +1,9 @@
 package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.webservice.rest;
 
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.service.TwitterSentimentService;
 import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
 
 /**
  * Resource config for the Twitter Sentiment RESTful Web Service.
@@ -8,10 +11,32 @@ import org.glassfish.jersey.server.ResourceConfig;
 public class TwitterSentimentServiceResourceConfig extends ResourceConfig {
 
 	public TwitterSentimentServiceResourceConfig() {
+		// load the dictionaries and create the service (which preloads classifiers) while the web service starts
+		TwitterSentimentService.start();
+
 		register(TwitterSentimentServiceExceptionMapper.class);
 		register(CORSResponseFilter.class);
+		register(new ShutdownListener());
 
 		packages(TwitterSentimentServiceResourceConfig.class.getPackage().getName());
 	}
 
+	/**
+	 * Shuts down the Twitter Sentiment service when the container stops.
+	 */
+	private static class ShutdownListener implements ContainerLifecycleListener {
+
+		@Override
+		public void onStartup(Container container) {
+		}
+
+		@Override
+		public void onReload(Container container) {
+		}
+
+		@Override
+		public void onShutdown(Container container) {
+			TwitterSentimentService.shutdown();
+		}
+	}
 }
@@ -1,19 +1,32 @@
 package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1;
 
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.BatchDeduplication;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ClassificationCache;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ClassificationResult;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ClassifierSnapshot;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.FeatureVector;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.IPreprocessor.Profile;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ITwitterSentimentClassifier.ClassifierModel;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ITwitterSentimentClassifier.Sentiment;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.SentiWordNetDictionary;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.SentiWordNetDictionary.WordNetPosition;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.TwitterSentimentClassifierImpl;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.VocabularyPruner;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.VocabularyPruner.FeatureSelection;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.helper.ApplicationConfig;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.helper.Constants;
 import java.io.File;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import org.junit.After;
 import static org.junit.Assert.assertTrue;
 import org.junit.Before;
@@ -80,6 +93,7 @@ public class ClassifierTest {
 	public void tearDown() {
 		classifier.getAttributesOutputFile().delete();
 		classifier.getClassifierOuptutFile().delete();
+		classifier.getMetadataOutputFile().delete();
 		if (exportTrainingDataFile != null) {
 			exportTrainingDataFile.delete();
 		}
@@ -197,6 +211,220 @@ public class ClassifierTest {
 		classifier.evaluate();
 	}
 	
+	@Test
+	public void testClassifyBatch() throws Exception {
+		classifier.train(trainingSet);
+		assertThat(classifier.isTrained(), is(true));
+		
+		List<Status> tweets = Arrays.asList(tweet7, tweet8, tweet9, tweet1, tweet7);
+		classifier.setBatchParallelism(2);
+		List<ClassificationResult> results = classifier.classifyBatch(tweets);
+		
+		// results are in input order and equal to single classification
+		assertThat(results.size(), is(tweets.size()));
+		for (int i = 0; i < tweets.size(); i++) {
+			ClassificationResult r = results.get(i);
+			assertThat(r.getTweet(), is(tweets.get(i)));
+			assertThat(r.isSuccessful(), is(true));
+			assertThat(r.getProbabilities(), is(equalTo(classifier.classifyWithProbabilities(tweets.get(i)))));
+			assertThat(r.getSentiment(), is(equalTo(classifier.classify(tweets.get(i)))));
+		}
+	}
+	
+	@Test
+	public void testClassifyBatchAfterShutdown() throws Exception {
+		classifier.train(trainingSet);
+		List<Status> tweets = Arrays.asList(tweet7, tweet8);
+		List<ClassificationResult> results = classifier.classifyBatch(tweets);
+		
+		// a batch after shutting down the pool is classified by a new pool
+		classifier.shutdown();
+		List<ClassificationResult> again = classifier.classifyBatch(tweets);
+		for (int i = 0; i < tweets.size(); i++) {
+			assertThat(again.get(i).getProbabilities(), is(equalTo(results.get(i).getProbabilities())));
+		}
+		classifier.shutdown();
+	}
+	
+	@Test
+	public void testClassifyBatchWithFailingTweet() throws Exception {
+		classifier.train(trainingSet);
+		assertThat(classifier.isTrained(), is(true));
+		
+		// tweet without text can't be processed
+		Status brokenTweet = mock(Status.class);
+		
+		List<ClassificationResult> results = classifier.classifyBatch(Arrays.asList(tweet7, brokenTweet, tweet8));
+		assertThat(results.size(), is(3));
+		assertThat(results.get(0).isSuccessful(), is(true));
+		assertThat(results.get(1).isSuccessful(), is(false));
+		assertThat(results.get(1).getError(), is(notNullValue()));
+		assertThat(results.get(2).isSuccessful(), is(true));
+	}
+	
+	@Test
+	public void testBatchDeduplication() throws Exception {
+		assertThat(BatchDeduplication.normalize("RT @user: RT @other:  Good   morning http://t.co/abc"),
+				is(equalTo(BatchDeduplication.normalize("Good morning http://bit.ly/xyz"))));
+		assertThat(BatchDeduplication.normalize("Good morning"), is(not(equalTo(BatchDeduplication.normalize("Good morning http://t.co/abc")))));
+		assertThat(BatchDeduplication.normalize("ART @user: hello"), is(equalTo("ART @user: hello")));
+		
+		Status retweet = mock(Status.class);
+		when(retweet.getText()).thenReturn("RT @someone: " + tweet7.getText());
+		Status brokenTweet = mock(Status.class);
+		BatchDeduplication deduplication = new BatchDeduplication(new Status[]{tweet7, tweet8, retweet, brokenTweet, tweet7});
+		assertThat(deduplication.getUniqueTweets().length, is(3));
+		assertThat(deduplication.getGroup(2), is(deduplication.getGroup(0)));
+		assertThat(deduplication.getGroup(4), is(deduplication.getGroup(0)));
+		assertThat(deduplication.getDedupeRatio(), is(0.4));
+		
+		// duplicates get the result of the first tweet of their group
+		classifier.train(trainingSet);
+		List<ClassificationResult> results = classifier.classifyBatch(Arrays.asList(tweet7, retweet, tweet8));
+		assertThat(results.get(1).getTweet(), is(retweet));
+		assertThat(results.get(1).getProbabilities(), is(equalTo(results.get(0).getProbabilities())));
+	}
+	
+	@Test
+	public void testSnapshotSurvivesModelChange() throws Exception {
+		classifier.train(trainingSet);
+		ClassifierSnapshot snapshot = classifier.getSnapshot();
+		assertThat(snapshot, is(notNullValue()));
+		double[] expected = snapshot.classifyWithProbabilities(tweet7);
+		
+		// switching the model doesn't affect snapshots that are in use
+		classifier.setImportTrainedClassifier(false);
+		classifier.useClassifierModel(ClassifierModel.Bayes);
+		assertThat(classifier.isTrained(), is(false));
+		assertThat(snapshot.classifyWithProbabilities(tweet7), is(equalTo(expected)));
+		assertThat(classifier.classifyBatch(snapshot, Arrays.asList(tweet7)).get(0).getProbabilities(), is(equalTo(expected)));
+	}
+	
+	@Test
+	public void testSnapshotSurvivesRetraining() throws Exception {
+		classifier.train(trainingSet);
+		ClassifierSnapshot snapshot = classifier.getSnapshot();
+		double[] expected = classifier.classifyWithProbabilities(tweet7);
+		
+		// processing a new training set keeps the current snapshot until it's trained
+		classifier.processTrainingSet(testSet);
+		assertThat(classifier.isTrained(), is(true));
+		assertThat(classifier.getSnapshot(), is(snapshot));
+		assertThat(classifier.classifyWithProbabilities(tweet7), is(equalTo(expected)));
+		assertThat(classifier.classifyBatch(Arrays.asList(tweet7)).get(0).getProbabilities(), is(equalTo(expected)));
+		
+		classifier.train();
+		assertThat(classifier.getSnapshot(), is(not(snapshot)));
+		assertThat(classifier.getSnapshot().getAttributes().size(), is(not(snapshot.getAttributes().size())));
+	}
+	
+	@Test
+	public void testClassificationCache() throws Exception {
+		classifier.train(trainingSet);
+		assertThat(classifier.getClassificationCache(), is(nullValue()));
+		
+		// the cache is disabled unless configured
+		classifier.setClassificationCacheSize(1024 * 1024);
+		ClassificationCache cache = classifier.getClassificationCache();
+		assertThat(cache, is(notNullValue()));
+		
+		// a copy of a tweet is served from the cache
+		Status copy = mock(Status.class);
+		when(copy.getText()).thenReturn(tweet7.getText());
+		double[] expected = classifier.classifyWithProbabilities(tweet7);
+		long hits = cache.getHits();
+		assertThat(classifier.classifyWithProbabilities(copy), is(equalTo(expected)));
+		assertThat(cache.getHits(), is(hits + 1));
+		
+		// entries of other snapshots or profiles aren't used
+		ClassificationCache.Key key = ClassificationCache.createKey(tweet7.getText(), 1, Profile.FULL);
+		assertThat(key, is(equalTo(ClassificationCache.createKey(tweet7.getText(), 1, Profile.FULL))));
+		assertThat(key, is(not(equalTo(ClassificationCache.createKey(tweet7.getText(), 2, Profile.FULL)))));
+		assertThat(key, is(not(equalTo(ClassificationCache.createKey(tweet7.getText(), 1, Profile.FAST)))));
+		assertThat(key, is(not(equalTo(ClassificationCache.createKey(tweet8.getText(), 1, Profile.FULL)))));
+		
+		// the cache is bounded by its estimated size
+		ClassificationCache small = new ClassificationCache(16 * 1024);
+		for (int i = 0; i < 1000; i++) {
+			small.put(ClassificationCache.createKey("tweet " + i, 1, Profile.FULL), expected);
+		}
+		assertThat(small.getEstimatedSize() <= small.getMaxSize(), is(true));
+		assertThat(small.getEvictions(), is((long) 1000 - small.size()));
+	}
+	
+	@Test
+	public void testFeatureHashing() throws Exception {
+		classifier.setFeatureHashingBits(8);
+		classifier.train(trainingSet);
+		assertThat(classifier.isTrained(), is(true));
+		assertThat(classifier.getSnapshot().getAttributes().size(), is(257));
+		double[] expected = classifier.classifyWithProbabilities(tweet7);
+		
+		// the restored classifier hashes features the same way
+		InputStream is = getClass().getResourceAsStream(Constants.DEFAULT_CONFIG_FILE_RESOURCE);
+		TwitterSentimentClassifierImpl restored = new TwitterSentimentClassifierImpl(new ApplicationConfig(is));
+		assertThat(restored.isTrained(), is(true));
+		assertThat(restored.getSnapshot().getCompiledModel().getFeatureHasher().getBits(), is(8));
+		assertThat(restored.classifyWithProbabilities(tweet7), is(equalTo(expected)));
+	}
+	
+	@Test
+	public void testFusedFeatureVector() throws Exception {
+		classifier.train(trainingSet);
+		assertFusedFeatureVectors(classifier.getSnapshot());
+
+		classifier.setFeatureHashingBits(8);
+		classifier.train(trainingSet);
+		assertFusedFeatureVectors(classifier.getSnapshot());
+	}
+
+	/**
+	 * Checks that the fused path maps tweets to the same features as
+	 * processing, preprocessing and mapping the words to features one after
+	 * another.
+	 *
+	 * @param snapshot the snapshot of the trained classifier
+	 */
+	private void assertFusedFeatureVectors(ClassifierSnapshot snapshot) {
+		Status tweet = mock(Status.class);
+		when(tweet.getText()).thenReturn("RT @user: LOVE my #Kindle2 :) sooo GOOD lol, Caf\u00e9 lunch/dinner http://t.co/x");
+		List<Status> tweets = Arrays.asList(tweet1, tweet2, tweet3, tweet4, tweet5, tweet6, tweet7, tweet8, tweet9, tweet);
+		for (Profile profile : Profile.values()) {
+			for (Status t : tweets) {
+				FeatureVector expected = snapshot.getCompiledModel().getFeatureVector(snapshot.processTweet(t, profile));
+				FeatureVector actual = snapshot.getFeatureVector(t, profile);
+				assertThat(actual.getIndices(), is(equalTo(expected.getIndices())));
+				assertThat(actual.getValues(), is(equalTo(expected.getValues())));
+			}
+		}
+	}
+
+	@Test
+	public void testVocabularyPruning() throws Exception {
+		List<List<String>> documents = Arrays.asList(
+				Arrays.asList("good", "day", "good"),
+				Arrays.asList("good", "movie"),
+				Arrays.asList("bad", "day"),
+				Arrays.asList("bad", "movie", "typoo"));
+		int[] classValues = {2, 2, 0, 0};
+		
+		// rare words are dropped, duplicates within a tweet count once
+		VocabularyPruner minDf = new VocabularyPruner(2, 0, FeatureSelection.NONE, 0);
+		assertThat(minDf.prune(documents, classValues, 3), is(equalTo(Arrays.asList("bad", "day", "good", "movie"))));
+		
+		// words that don't tell the classes apart are dropped
+		VocabularyPruner chiSquare = new VocabularyPruner(1, 0, FeatureSelection.CHI_SQUARE, 2);
+		assertThat(chiSquare.prune(documents, classValues, 3), is(equalTo(Arrays.asList("bad", "good"))));
+		VocabularyPruner infoGain = new VocabularyPruner(1, 0, FeatureSelection.INFORMATION_GAIN, 2);
+		assertThat(infoGain.prune(documents, classValues, 3), is(equalTo(Arrays.asList("bad", "good"))));
+		
+		// pruned vocabulary is used as attributes
+		classifier.setVocabularyPruner(new VocabularyPruner(1, 5, FeatureSelection.NONE, 0));
+		classifier.train(trainingSet);
+		assertThat(classifier.getSnapshot().getAttributes().size(), is(6));
+		assertThat(classifier.classify(tweet7), is(notNullValue()));
+	}
+	
 	@Test(expected = IllegalStateException.class)
 	public void testProcessTestDataWithoutTrainedClassifier() throws Exception {
 		classifier.processTestSet(trainingSet);
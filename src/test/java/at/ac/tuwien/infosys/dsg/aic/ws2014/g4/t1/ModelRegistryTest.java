@@ -0,0 +1,159 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1;
+
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ClassifierSnapshot;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.IPreprocessor.Profile;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ITwitterSentimentClassifier.ClassifierModel;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ITwitterSentimentClassifier.Sentiment;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.TwitterSentimentClassifierImpl;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.service.ITwitterSentimentService.TrainingConfig;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.service.ModelRegistry;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.service.ModelStatistics;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.service.TwitterSentimentServiceException;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import twitter4j.Status;
+
+/**
+ * Unit test for the model registry.
+ */
+public class ModelRegistryTest {
+
+	File baseDirectory;
+
+	TwitterSentimentClassifierImpl classifier;
+
+	@Before
+	public void setUp() throws Exception {
+		baseDirectory = Files.createTempDirectory("registry").toFile();
+
+		Map<Status, Sentiment> trainingSet = new HashMap<>();
+		trainingSet.put(createTweet("I love this, it is good"), Sentiment.POSITIVE);
+		trainingSet.put(createTweet("What a great day"), Sentiment.POSITIVE);
+		trainingSet.put(createTweet("I hate this, it is bad"), Sentiment.NEGATIVE);
+		trainingSet.put(createTweet("What an awful day"), Sentiment.NEGATIVE);
+
+		// export a SVM and a Bayes classifier for one training config
+		classifier = new TwitterSentimentClassifierImpl();
+		classifier.setExportTrainedClassifier(true);
+		classifier.setExportDirectory(new File(baseDirectory, TrainingConfig.Sentiment140_10k.toString()));
+		classifier.useClassifierModel(ClassifierModel.SVM);
+		classifier.train(trainingSet);
+		classifier.useClassifierModel(ClassifierModel.Bayes);
+		classifier.train(trainingSet);
+
+		classifier.setExportDirectory(baseDirectory);
+	}
+
+	@After
+	public void tearDown() {
+		File directory = new File(baseDirectory, TrainingConfig.Sentiment140_10k.toString());
+		for (File f : directory.listFiles()) {
+			f.delete();
+		}
+		directory.delete();
+		baseDirectory.delete();
+	}
+
+	@Test
+	public void testResidentClassifier() throws Exception {
+		ModelRegistry registry = new ModelRegistry(classifier, Long.MAX_VALUE, 1);
+
+		ClassifierSnapshot snapshot = registry.get(ClassifierModel.SVM, TrainingConfig.Sentiment140_10k);
+		assertThat(registry.get(ClassifierModel.SVM, TrainingConfig.Sentiment140_10k), is(sameInstance(snapshot)));
+		assertThat(snapshot.getClassifierModel(), is(ClassifierModel.SVM));
+
+		List<ModelStatistics> statistics = registry.getStatistics();
+		assertThat(statistics.size(), is(1));
+		assertThat(statistics.get(0).isLoaded(), is(true));
+		assertThat(statistics.get(0).getHits(), is(1L));
+		assertThat(statistics.get(0).getEstimatedSize() > 0, is(true));
+		assertThat(registry.getResidentSize(), is(statistics.get(0).getEstimatedSize()));
+
+		// the estimate covers the weights of the compiled model (one per attribute and pair of classes)
+		long compiledSize = snapshot.getCompiledModel().estimateSize();
+		assertThat(compiledSize >= 8L * snapshot.getAttributes().size() * 3, is(true));
+		assertThat(statistics.get(0).getEstimatedSize() > compiledSize, is(true));
+	}
+
+	@Test
+	public void testEvictLeastRecentlyUsed() throws Exception {
+		ModelRegistry registry = new ModelRegistry(classifier, 1, 1);
+
+		ClassifierSnapshot svm = registry.get(ClassifierModel.SVM, TrainingConfig.Sentiment140_10k);
+		registry.get(ClassifierModel.Bayes, TrainingConfig.Sentiment140_10k);
+
+		// the most recently loaded classifier is kept although it exceeds the budget
+		List<ModelStatistics> statistics = registry.getStatistics();
+		assertThat(statistics.size(), is(1));
+		assertThat(statistics.get(0).getModel(), is(ClassifierModel.Bayes));
+
+		// evicted classifiers are reloaded on demand
+		ClassifierSnapshot reloaded = registry.get(ClassifierModel.SVM, TrainingConfig.Sentiment140_10k);
+		assertThat(reloaded == svm, is(false));
+		assertThat(registry.getStatistics().get(0).getModel(), is(ClassifierModel.SVM));
+	}
+
+	@Test
+	public void testRecordProfileMismatch() throws Exception {
+		ModelRegistry registry = new ModelRegistry(classifier, Long.MAX_VALUE, 1);
+		registry.get(ClassifierModel.SVM, TrainingConfig.Sentiment140_10k);
+
+		// a mismatch is reported once per resident classifier and profile
+		assertThat(registry.recordProfileMismatch(ClassifierModel.SVM, TrainingConfig.Sentiment140_10k, Profile.MINIMAL), is(true));
+		assertThat(registry.recordProfileMismatch(ClassifierModel.SVM, TrainingConfig.Sentiment140_10k, Profile.MINIMAL), is(false));
+		assertThat(registry.recordProfileMismatch(ClassifierModel.SVM, TrainingConfig.Sentiment140_10k, Profile.FAST), is(true));
+	}
+
+	@Test
+	public void testShutdown() throws Exception {
+		ModelRegistry registry = new ModelRegistry(classifier, Long.MAX_VALUE, 1);
+		ClassifierSnapshot svm = registry.get(ClassifierModel.SVM, TrainingConfig.Sentiment140_10k);
+		registry.shutdown();
+
+		// resident classifiers are still served, others can't be loaded anymore
+		assertThat(registry.get(ClassifierModel.SVM, TrainingConfig.Sentiment140_10k), is(sameInstance(svm)));
+		try {
+			registry.get(ClassifierModel.Bayes, TrainingConfig.Sentiment140_10k);
+			fail("exception expected");
+		} catch (TwitterSentimentServiceException ex) {
+			assertThat(registry.getStatistics().size(), is(1));
+		}
+	}
+
+	@Test
+	public void testUnavailableClassifier() throws Exception {
+		ModelRegistry registry = new ModelRegistry(classifier, Long.MAX_VALUE, 1);
+
+		try {
+			registry.get(ClassifierModel.SVM, TrainingConfig.Sentiment140_20k);
+			fail("exception expected");
+		} catch (TwitterSentimentServiceException ex) {
+			// failed loads aren't kept
+			assertThat(registry.getStatistics().isEmpty(), is(true));
+		}
+	}
+
+	/**
+	 * Creates a mocked tweet.
+	 *
+	 * @param text the text of the tweet
+	 * @return the mocked tweet
+	 */
+	private static Status createTweet(String text) {
+		Status tweet = mock(Status.class);
+		when(tweet.getText()).thenReturn(text);
+		return tweet;
+	}
+}
@@ -1,11 +1,28 @@
 package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1;
 
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.AbbreviationsDictionary;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.DictionaryBootstrap;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.DictionaryTrie;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.EmoticonScanner;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.IPreprocessor;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.PreprocessorImpl;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.SmileyDictionary;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.SpellCorrectionCache;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.SpellDictionary;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.StopwordsDictionary;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.SymmetricDeleteSpellIndex;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.TokenSpans;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.TokenizerImpl;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
@@ -100,6 +117,10 @@ public class PreprocessorTest {
 		assertTrue(tokens.contains("loud"));
 		assertTrue(tokens.contains("what"));
 		assertTrue(tokens.contains("hell"));
+
+		// long forms are tokenized when the dictionary is loaded
+		assertEquals(Arrays.asList("laughing", "out", "loud"), AbbreviationsDictionary.getInstance().getLongFormTokens("LoL"));
+		assertNull(AbbreviationsDictionary.getInstance().getLongFormTokens("test"));
 	}
 	
 	@Test
@@ -118,6 +139,29 @@ public class PreprocessorTest {
 		assertTrue(tokens.contains(IPreprocessor.SMILEY_SAD_TOKEN));
 	}
 
+	@Test
+	public void testReplaceSmileysInText() {
+		String happy = " " + IPreprocessor.SMILEY_HAPPY_TOKEN + " ";
+		String sad = " " + IPreprocessor.SMILEY_SAD_TOKEN + " ";
+
+		assertEquals("great" + happy + " day" + sad, preprocessor.preprocessText("great:) day:(", IPreprocessor.Profile.FULL));
+		assertEquals("no smileys", preprocessor.preprocessText("no smileys", IPreprocessor.Profile.FULL));
+
+		Map<String, SmileyDictionary.Mood> smileys = new HashMap<>();
+		smileys.put("XD", SmileyDictionary.Mood.HAPPY);
+		smileys.put("X-D", SmileyDictionary.Mood.HAPPY);
+		smileys.put("(:-(", SmileyDictionary.Mood.SAD);
+		smileys.put(":-(", SmileyDictionary.Mood.SAD);
+		EmoticonScanner scanner = new EmoticonScanner(smileys);
+		String[] moodTokens = {"H", "N", "S"};
+
+		// longest match wins, emoticons within words or URLs aren't replaced
+		assertEquals(" S  hmm", scanner.replace("(:-( hmm", moodTokens));
+		assertEquals("lol  H ", scanner.replace("lol X-D", moodTokens));
+		assertEquals("XDR MAXD", scanner.replace("XDR MAXD", moodTokens));
+		assertEquals("http://t.co/XD", scanner.replace("http://t.co/XD", moodTokens));
+	}
+
 	@Test
 	public void testReplaceMisspelledWords_1() {
 		List<String> tokens = new ArrayList<>();
@@ -228,4 +272,155 @@ public class PreprocessorTest {
 		assertTrue(tokens.contains("damn"));
 		assertTrue(tokens.contains("her"));
 	}
+
+	@Test
+	public void testSpellCorrectionCache() {
+		PreprocessorImpl cachingPreprocessor = new PreprocessorImpl(16);
+		SpellCorrectionCache cache = cachingPreprocessor.getSpellCorrectionCache();
+
+		for (int i = 0; i < 2; i++) {
+			List<String> tokens = new ArrayList<>();
+			tokens.add("huose");
+			tokens.add("xqzvbk");
+
+			cachingPreprocessor.preprocess(tokens);
+
+			assertTrue(tokens.contains("house"));
+			assertTrue(tokens.contains("xqzvbk"));
+		}
+
+		// corrections and missing corrections are both cached
+		assertEquals(2, cache.getMisses());
+		assertEquals(2, cache.getHits());
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testSpellCorrectionCacheEviction() {
+		SpellCorrectionCache cache = new SpellCorrectionCache(16);
+		for (int i = 0; i < 100; i++) {
+			cache.put("word" + i, SpellCorrectionCache.NO_CORRECTION);
+		}
+
+		assertTrue(cache.size() <= cache.getCapacity());
+		assertEquals(100 - cache.size(), cache.getEvictions());
+	}
+
+	@Test
+	public void testSymmetricDeleteSuggestions() {
+		SymmetricDeleteSpellIndex index = new SymmetricDeleteSpellIndex(
+				Arrays.asList("house", "horse", "hose", "mouse", "ball", "cart", "ca"), 2, 7);
+
+		assertEquals("house", index.getSuggestion("huose")); // transposition
+		assertEquals("house", index.getSuggestion("hous"));
+		assertEquals("ball", index.getSuggestion("Bal"));
+		assertNull(index.getSuggestion("xyz"));
+
+		// same distance: same length first, then longer words, then lexicographic order
+		assertEquals("horse", index.getSuggestion("hoase"));
+		assertEquals("cart", index.getSuggestion("car"));
+	}
+
+	@Test
+	public void testReplaceMisspelledWordsSymmetricDelete() {
+		PreprocessorImpl symmetricDeletePreprocessor = new PreprocessorImpl(0, SpellDictionary.SuggestionEngine.SYMMETRIC_DELETE);
+		List<String> tokens = new ArrayList<>();
+		tokens.add("huose");
+		tokens.add("ball");
+
+		symmetricDeletePreprocessor.preprocess(tokens);
+
+		assertFalse(tokens.contains("huose"));
+		assertTrue(tokens.contains("house"));
+		assertTrue(tokens.contains("ball"));
+	}
+
+	@Test
+	public void testProfiles() {
+		List<String> tokens = new ArrayList<>();
+		tokens.add("the");
+		tokens.add("huose");
+		tokens.add("http://t.co/abc");
+
+		preprocessor.preprocess(tokens, IPreprocessor.Profile.FAST);
+
+		assertFalse(tokens.contains("the"));
+		assertTrue(tokens.contains("huose"));
+		assertTrue(tokens.contains(IPreprocessor.URL_TOKEN));
+
+		tokens.clear();
+		tokens.add("the");
+		tokens.add("http://t.co/abc");
+
+		preprocessor.preprocess(tokens, IPreprocessor.Profile.MINIMAL);
+
+		assertTrue(tokens.contains("the"));
+		assertTrue(tokens.contains(IPreprocessor.URL_TOKEN));
+		assertEquals(IPreprocessor.Profile.FAST, IPreprocessor.Profile.fromString("Fast"));
+	}
+
+	@Test
+	public void testPreprocessSpans() {
+		String text = "RT @user: LOL the Huose is sooo gr8 http://t.co/abc #win lunch/dinner !!! "
+				+ IPreprocessor.SMILEY_HAPPY_TOKEN + " xD Caf\u00e9 \u0130";
+		TokenSpans spans = new TokenSpans();
+		new TokenizerImpl().tokenize(text, spans);
+
+		for (IPreprocessor.Profile profile : IPreprocessor.Profile.values()) {
+			List<String> expected = spans.toList();
+			preprocessor.preprocess(expected, profile);
+			List<String> actual = new ArrayList<>();
+			preprocessor.preprocess(spans, actual, profile);
+
+			assertEquals(expected, actual);
+		}
+	}
+
+	@Test
+	public void testReplaceElongatedWords() {
+		List<String> tokens = new ArrayList<>();
+		tokens.add("looooose");
+		tokens.add("treeeees");
+		tokens.add("helllllooooo"); // needs mixed run lengths
+
+		preprocessor.preprocess(tokens);
+
+		assertEquals(Arrays.asList("lose", "trees", "hello"), tokens);
+	}
+
+	@Test
+	public void testDictionaryTrie() {
+		DictionaryTrie trie = new DictionaryTrie(Arrays.asList("loser", "looser", "lose", "cool", "col", "Book"));
+
+		assertTrue(trie.contains("LOSER"));
+		assertTrue(trie.contains("book"));
+		assertFalse(trie.contains("los"));
+		assertEquals(6, trie.size());
+
+		// elongated runs are collapsed to one or two chars, double chars are kept or collapsed
+		assertEquals(Arrays.asList("loser", "looser"), trie.findCollapsedVariants("looooserrrrr"));
+		assertEquals(Arrays.asList("col", "cool"), trie.findCollapsedVariants("coooool"));
+		assertEquals(Arrays.asList("looser", "loser"), trie.findCollapsedVariants("looser"));
+		assertEquals(Arrays.asList("BOOK"), trie.findCollapsedVariants("BOOOOK"));
+		assertTrue(trie.findCollapsedVariants("lossserx").isEmpty());
+	}
+
+	@Test
+	public void testDictionaryBootstrap() throws InterruptedException {
+		DictionaryBootstrap bootstrap = DictionaryBootstrap.getInstance();
+		bootstrap.start();
+		bootstrap.start();
+		bootstrap.awaitReady();
+		assertTrue(bootstrap.isReady());
+
+		assertTrue(StopwordsDictionary.getInstance().size() > 0);
+		assertTrue(SmileyDictionary.getInstance().size() > 0);
+		assertTrue(AbbreviationsDictionary.getInstance().size() > 0);
+		assertTrue(SpellDictionary.getInstance().size() > 0);
+		assertSame(SpellDictionary.getInstance(), SpellDictionary.getInstance());
+
+		// the trie is built by the bootstrap, not by the first elongated word
+		assertNotNull(SpellDictionary.getInstance().getDictionaryTrie());
+		assertSame(SpellDictionary.getInstance().getDictionaryTrie(), SpellDictionary.getInstance().getDictionaryTrie());
+	}
 }
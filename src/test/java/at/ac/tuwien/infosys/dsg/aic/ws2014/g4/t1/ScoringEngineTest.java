@@ -0,0 +1,309 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1;
+
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.CompiledModel;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.FeatureHasher;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.FeatureVector;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.IScoringEngine;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.KNNModel;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.LinearSVMModel;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.NaiveBayesModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import weka.classifiers.Classifier;
+import weka.classifiers.bayes.NaiveBayes;
+import weka.classifiers.functions.SMO;
+import weka.classifiers.functions.supportVector.PolyKernel;
+import weka.classifiers.lazy.IBk;
+import weka.core.Attribute;
+import weka.core.FastVector;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.SelectedTag;
+
+/**
+ * Unit test for the Weka-free scoring engines -- they must produce the same
+ * class distributions as the Weka classifiers they were compiled from.
+ */
+public class ScoringEngineTest {
+
+	/**
+	 * Number of word attributes of the synthetic datasets.
+	 */
+	private static final int VOCABULARY_SIZE = 60;
+
+	/**
+	 * Number of tweets that are classified per test.
+	 */
+	private static final int NUM_TEST_TWEETS = 1000;
+
+	@Test
+	public void testLinearSVMModel() throws Exception {
+		int[] filterTypes = {SMO.FILTER_NORMALIZE, SMO.FILTER_STANDARDIZE, SMO.FILTER_NONE};
+		for (int numClasses = 2; numClasses <= 3; numClasses++) {
+			for (int filterType : filterTypes) {
+				Instances data = createDataset(300, numClasses, 7);
+				SMO smo = new SMO();
+				smo.setFilterType(new SelectedTag(filterType, SMO.TAGS_FILTER));
+				smo.buildClassifier(data);
+
+				Instances header = new Instances(data, 0);
+				IScoringEngine engine = LinearSVMModel.export(smo, header);
+				assertNotNull(engine);
+
+				assertSameDistributions(smo, engine, header);
+			}
+		}
+	}
+
+	@Test
+	public void testLinearSVMModelWeighted() throws Exception {
+		Instances data = createDataset(300, 3, 7);
+		SMO smo = new SMO();
+		smo.buildClassifier(data);
+
+		Instances header = new Instances(data, 0);
+		LinearSVMModel engine = LinearSVMModel.export(smo, header);
+		assertNotNull(engine);
+
+		// signed bucket counts of hashed features
+		Random random = new Random(3);
+		for (int i = 0; i < NUM_TEST_TWEETS; i++) {
+			int[] featureIds = createTweet(random, random.nextInt(10));
+			double[] values = new double[featureIds.length];
+			for (int j = 0; j < values.length; j++) {
+				values[j] = random.nextInt(5) - 2;
+			}
+			FeatureVector vector = new FeatureVector(featureIds, values);
+			double[] expected = smo.distributionForInstance(CompiledModel.createInstance(header, vector, 0));
+			assertArrayEquals(expected, engine.distributionForFeatures(featureIds, values), 1e-12);
+		}
+	}
+
+	@Test
+	public void testFeatureHasher() {
+		FeatureHasher hasher = new FeatureHasher(4);
+		FeatureVector vector = hasher.vectorize(Arrays.asList("good", "bad", "good", "test", "tweet", "great"));
+
+		// distinct words only, sorted buckets, no cancelled out buckets
+		double sum = 0.0;
+		int[] indices = vector.getIndices();
+		for (int i = 0; i < indices.length; i++) {
+			assertTrue(indices[i] >= 1 && indices[i] <= 16);
+			assertTrue(i == 0 || indices[i - 1] < indices[i]);
+			double value = vector.isBinary() ? 1.0 : vector.getValues()[i];
+			assertTrue(value != 0.0);
+			sum += Math.abs(value);
+		}
+		assertTrue(sum <= 5.0);
+
+		// deterministic
+		FeatureVector again = hasher.vectorize(Arrays.asList("great", "tweet", "test", "bad", "good"));
+		assertArrayEquals(indices, again.getIndices());
+	}
+
+	@Test
+	public void testLinearSVMModelUnsupported() throws Exception {
+		Instances data = createDataset(100, 3, 7);
+		Instances header = new Instances(data, 0);
+
+		SMO quadratic = new SMO();
+		PolyKernel kernel = new PolyKernel();
+		kernel.setExponent(2.0);
+		quadratic.setKernel(kernel);
+		quadratic.buildClassifier(data);
+		assertNull(LinearSVMModel.export(quadratic, header));
+
+		SMO logistic = new SMO();
+		logistic.setBuildLogisticModels(true);
+		logistic.buildClassifier(data);
+		assertNull(LinearSVMModel.export(logistic, header));
+	}
+
+	@Test
+	public void testNaiveBayesModel() throws Exception {
+		for (int numClasses = 2; numClasses <= 3; numClasses++) {
+			for (boolean useKernelEstimator : new boolean[]{false, true}) {
+				Instances data = createDataset(300, numClasses, 11);
+				NaiveBayes nb = new NaiveBayes();
+				nb.setUseKernelEstimator(useKernelEstimator);
+				nb.buildClassifier(data);
+
+				Instances header = new Instances(data, 0);
+				IScoringEngine engine = NaiveBayesModel.export(nb, header);
+				assertNotNull(engine);
+
+				assertSameDistributions(nb, engine, header);
+			}
+		}
+	}
+
+	@Test
+	public void testNaiveBayesModelUnsupported() throws Exception {
+		Instances data = createDataset(100, 3, 11);
+		Instances header = new Instances(data, 0);
+
+		NaiveBayes nb = new NaiveBayes();
+		nb.setUseSupervisedDiscretization(true);
+		nb.buildClassifier(data);
+		assertNull(NaiveBayesModel.export(nb, header));
+	}
+
+	@Test
+	public void testKNNModel() throws Exception {
+		int[] weightings = {IBk.WEIGHT_NONE, IBk.WEIGHT_INVERSE, IBk.WEIGHT_SIMILARITY};
+		for (int k : new int[]{1, 3, 10}) {
+			for (int weighting : weightings) {
+				Instances data = createDataset(300, 3, 13);
+				IBk ibk = new IBk(k);
+				ibk.setDistanceWeighting(new SelectedTag(weighting, IBk.TAGS_WEIGHTING));
+				ibk.buildClassifier(data);
+
+				Instances header = new Instances(data, 0);
+				KNNModel engine = KNNModel.export(ibk, header);
+				assertNotNull(engine);
+
+				// same neighbours (k nearest plus ties) as the linear search of IBk
+				Random random = new Random(5);
+				for (int i = 0; i < 100; i++) {
+					int[] featureIds = createTweet(random, random.nextInt(10));
+					Instance inst = CompiledModel.createInstance(header, featureIds.clone());
+					int expected = ibk.getNearestNeighbourSearchAlgorithm().kNearestNeighbours(inst, k).numInstances();
+					assertEquals(expected, engine.nearestNeighbours(featureIds).length);
+				}
+
+				assertSameDistributions(ibk, engine, header);
+			}
+		}
+	}
+
+	@Test
+	public void testKNNModelSerialization() throws Exception {
+		Instances data = createDataset(300, 3, 13);
+		IBk ibk = new IBk(5);
+		ibk.buildClassifier(data);
+		Instances header = new Instances(data, 0);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(KNNModel.export(ibk, header));
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			KNNModel engine = (KNNModel) in.readObject();
+			assertEquals(data.numInstances(), engine.getNumTraining());
+			assertSameDistributions(ibk, engine, header);
+		}
+	}
+
+	@Test
+	public void testKNNModelUnsupported() throws Exception {
+		Instances data = createDataset(100, 3, 13);
+		Instances header = new Instances(data, 0);
+
+		IBk ibk = new IBk(5);
+		ibk.setCrossValidate(true);
+		ibk.buildClassifier(data);
+		assertNull(KNNModel.export(ibk, header));
+	}
+
+	/**
+	 * Compares the class distributions of a Weka classifier and a scoring
+	 * engine for random tweets.
+	 *
+	 * @param classifier the Weka classifier
+	 * @param engine the scoring engine compiled from the classifier
+	 * @param header the dataset header
+	 * @throws Exception if the Weka classifier fails
+	 */
+	private static void assertSameDistributions(Classifier classifier, IScoringEngine engine, Instances header) throws Exception {
+		Random random = new Random(3);
+		for (int i = 0; i < NUM_TEST_TWEETS; i++) {
+			int[] featureIds = createTweet(random, random.nextInt(10));
+			double[] expected = classifier.distributionForInstance(CompiledModel.createInstance(header, featureIds.clone()));
+			double[] actual = engine.distributionForFeatures(featureIds);
+			assertArrayEquals(expected, actual, 1e-12);
+		}
+	}
+
+	/**
+	 * Creates a synthetic dataset -- a few words are correlated with each
+	 * class, all others are random.
+	 *
+	 * @param numInstances the number of instances
+	 * @param numClasses the number of classes (2 = negative/positive)
+	 * @param seed the random seed
+	 * @return the dataset
+	 */
+	private static Instances createDataset(int numInstances, int numClasses, long seed) {
+		FastVector classValues = new FastVector(3);
+		classValues.addElement("negative");
+		classValues.addElement("neutral");
+		classValues.addElement("positive");
+
+		FastVector attributes = new FastVector(VOCABULARY_SIZE + 1);
+		attributes.addElement(new Attribute("__class__", classValues));
+		for (int i = 0; i < VOCABULARY_SIZE; i++) {
+			attributes.addElement(new Attribute("word" + i));
+		}
+
+		Instances data = new Instances("test", attributes, numInstances);
+		data.setClassIndex(0);
+
+		Random random = new Random(seed);
+		for (int i = 0; i < numInstances; i++) {
+			int classValue = (numClasses == 2) ? 2 * random.nextInt(2) : random.nextInt(3);
+
+			TreeSet<Integer> ids = new TreeSet<>();
+			int numWords = 1 + random.nextInt(8);
+			for (int j = 0; j < numWords; j++) {
+				if (random.nextInt(3) == 0) {
+					ids.add(1 + (classValue * 5 + random.nextInt(5)));
+				} else {
+					ids.add(1 + random.nextInt(VOCABULARY_SIZE));
+				}
+			}
+			data.add(CompiledModel.createInstance(data, toArray(ids), classValue));
+		}
+		return data;
+	}
+
+	/**
+	 * Creates a random tweet.
+	 *
+	 * @param random the random number generator
+	 * @param maxWords the max. number of words
+	 * @return the sorted attribute indices of the words of the tweet
+	 */
+	private static int[] createTweet(Random random, int maxWords) {
+		TreeSet<Integer> ids = new TreeSet<>();
+		for (int j = 0; j < maxWords; j++) {
+			ids.add(1 + random.nextInt(VOCABULARY_SIZE));
+		}
+		return toArray(ids);
+	}
+
+	/**
+	 * Converts a sorted set of indices to an array.
+	 *
+	 * @param ids the indices
+	 * @return the indices as array
+	 */
+	private static int[] toArray(TreeSet<Integer> ids) {
+		int[] array = new int[ids.size()];
+		int i = 0;
+		for (Integer id : ids) {
+			array[i++] = id;
+		}
+		return array;
+	}
+}
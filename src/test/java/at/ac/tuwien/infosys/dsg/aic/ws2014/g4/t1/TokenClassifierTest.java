@@ -0,0 +1,123 @@
+package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1;
+
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.TokenClassifier;
+import java.util.Random;
+import java.util.regex.Pattern;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Unit test for the token classifier -- compares the flags with the regular
+ * expressions formerly used by the preprocessor.
+ */
+public class TokenClassifierTest {
+
+	static final Pattern URL_PATTERN = Pattern.compile("^((([A-Za-z]{3,9}:(?:\\/\\/)?)(?:[-;:&=\\+\\$,\\w]+@)?[A-Za-z0-9.-]+|(?:www.|[-;:&=\\+\\$,\\w]+@)[A-Za-z0-9.-]+)((?:\\/[\\+~%\\/.\\w_-]*)?\\??(?:[-\\+=&;%@.\\w_]*)#?(?:[\\w/?:@_-]*))?)$");
+	static final Pattern ALPHA_CHARS_PATTERN = Pattern.compile("^[A-Za-z]+$");
+	static final Pattern REPETITIVE_CHAR_PATTERN = Pattern.compile("(\\w)\\1{2,}");
+	static final Pattern NONWORD_CHARS_PATTERN = Pattern.compile("^\\W+$");
+	static final Pattern ALTERNATIVE_PATTERN = Pattern.compile("\\w+(/\\w+)+");
+
+	/**
+	 * Chars of the fuzz corpus -- covers all chars used by the patterns,
+	 * line terminators and non-ASCII chars.
+	 */
+	static final String CHARS = "abcwwwxyzHTPW019_-;:&=+$,.@/~%?#! \t\n\r\u0085\u2028\u2029\u00e9\u00c4";
+
+	/**
+	 * Seeds of the fuzz corpus (mutated to reach accepting URL states).
+	 */
+	static final String[] SEEDS = {
+		"http://www.example.com/test/index.php?arg1=val1&arg2=val2",
+		"mailto:test@example.com",
+		"foobar://example.com/#/foo/bar",
+		"www.example.com",
+		"user:pw@host.org/path",
+		"ab/cd/ef",
+		"loooool",
+		"HELLO"
+	};
+
+	@Test
+	public void testExamples() {
+		assertTrue(TokenClassifier.is(TokenClassifier.classify("http://t.co/abc"), TokenClassifier.URL));
+		assertTrue(TokenClassifier.is(TokenClassifier.classify("@user"), TokenClassifier.USERNAME));
+		assertTrue(TokenClassifier.is(TokenClassifier.classify("#tag"), TokenClassifier.HASHTAG));
+		assertTrue(TokenClassifier.is(TokenClassifier.classify("lunch/dinner"), TokenClassifier.ALTERNATIVE));
+		assertTrue(TokenClassifier.is(TokenClassifier.classify("sooo"), TokenClassifier.REPETITIVE));
+		assertFalse(TokenClassifier.is(TokenClassifier.classify("@"), TokenClassifier.USERNAME));
+		assertFalse(TokenClassifier.is(TokenClassifier.classify("/abc"), TokenClassifier.ALTERNATIVE));
+	}
+
+	@Test
+	public void testRandomTokens() {
+		Random random = new Random(42);
+		for (int i = 0; i < 200000; i++) {
+			StringBuilder sb = new StringBuilder();
+			int length = random.nextInt(16);
+			for (int j = 0; j < length; j++) {
+				sb.append(CHARS.charAt(random.nextInt(CHARS.length())));
+			}
+			assertSameFlags(sb.toString());
+		}
+	}
+
+	@Test
+	public void testMutatedTokens() {
+		Random random = new Random(42);
+		for (int i = 0; i < 200000; i++) {
+			StringBuilder sb = new StringBuilder(SEEDS[random.nextInt(SEEDS.length)]);
+			int mutations = 1 + random.nextInt(3);
+			for (int j = 0; j < mutations && sb.length() > 0; j++) {
+				int pos = random.nextInt(sb.length());
+				char c = CHARS.charAt(random.nextInt(CHARS.length()));
+				switch (random.nextInt(3)) {
+					case 0:
+						sb.deleteCharAt(pos);
+						break;
+					case 1:
+						sb.insert(pos, c);
+						break;
+					default:
+						sb.setCharAt(pos, c);
+				}
+			}
+			assertSameFlags(sb.toString());
+		}
+	}
+
+	/**
+	 * Asserts that the flags of a token match the regular expressions.
+	 *
+	 * @param token the token
+	 */
+	static void assertSameFlags(String token) {
+		int flags = TokenClassifier.classify(token);
+		assertEquals(token, URL_PATTERN.matcher(token).matches(), TokenClassifier.is(flags, TokenClassifier.URL));
+		assertEquals(token, token.length() > 1 && token.startsWith("@"), TokenClassifier.is(flags, TokenClassifier.USERNAME));
+		assertEquals(token, token.length() > 1 && token.startsWith("#"), TokenClassifier.is(flags, TokenClassifier.HASHTAG));
+		assertEquals(token, ALPHA_CHARS_PATTERN.matcher(token).matches(), TokenClassifier.is(flags, TokenClassifier.ALPHA));
+		assertEquals(token, containsUpperCharsOnly(token), TokenClassifier.is(flags, TokenClassifier.UPPER));
+		assertEquals(token, NONWORD_CHARS_PATTERN.matcher(token).matches(), TokenClassifier.is(flags, TokenClassifier.NONWORD));
+		assertEquals(token, ALTERNATIVE_PATTERN.matcher(token).matches(), TokenClassifier.is(flags, TokenClassifier.ALTERNATIVE));
+		assertEquals(token, REPETITIVE_CHAR_PATTERN.matcher(token).find(), TokenClassifier.is(flags, TokenClassifier.REPETITIVE));
+	}
+
+	/**
+	 * Checks if a string consists of upper-case chars only (as formerly done
+	 * by the preprocessor).
+	 *
+	 * @param str the string to check
+	 * @return true if the string consists of upper-case chars only
+	 */
+	static boolean containsUpperCharsOnly(String str) {
+		for (char c : str.toCharArray()) {
+			if (!Character.isUpperCase(c)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -1,11 +1,25 @@
 package at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1;
 
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.FeatureIndex;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.ITokenizer;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.StreamingTokenizerImpl;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.TokenClassifier;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.TokenSpans;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.TokenTable;
 import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.classifier.TokenizerImpl;
+import at.ac.tuwien.infosys.dsg.aic.ws2014.g4.t1.utils.TokenizerBenchmark;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
+import weka.core.Attribute;
+import weka.core.FastVector;
+import weka.core.Instances;
 
 /**
  * Unit test for the Preprocessor implementation.
@@ -35,5 +49,177 @@ public class TokenizerTest {
 		assertTrue(tokens.contains("God'll"));
 		assertTrue(tokens.contains("#Test"));
 	}
-	
+
+	@Test
+	public void testStreamingTokenizerExamples() {
+		ITokenizer streaming = new StreamingTokenizerImpl();
+		for (String test : EXAMPLES) {
+			assertEquals(test, tokenizer.tokenize(test), streaming.tokenize(test));
+		}
+	}
+
+	@Test
+	public void testStreamingTokenizerCorpus() {
+		ITokenizer streaming = new StreamingTokenizerImpl();
+		for (String test : TokenizerBenchmark.createCorpus(20000, 42)) {
+			assertEquals(test, tokenizer.tokenize(test), streaming.tokenize(test));
+		}
+	}
+
+	@Test
+	public void testStreamingTokenizerRandomText() {
+		ITokenizer streaming = new StreamingTokenizerImpl();
+		String chars = "aZo0O1_. :;,!?'\"-=<>()[]/\\@#$%&^*~|xDPp3\u2019\u2665\u2192\u00e9 \t\n\u00a0";
+		Random random = new Random(42);
+		for (int i = 0; i < 100000; i++) {
+			StringBuilder sb = new StringBuilder();
+			int length = random.nextInt(20);
+			for (int j = 0; j < length; j++) {
+				sb.append(chars.charAt(random.nextInt(chars.length())));
+			}
+			String test = sb.toString();
+			assertEquals(test, tokenizer.tokenize(test), streaming.tokenize(test));
+		}
+	}
+
+	@Test
+	public void testTokenSpans() {
+		String test = "  RT @user: I can't\tbelieve it's (Monday)!!! http://t.co/AbC123 #mondays";
+		TokenSpans spans = new TokenSpans();
+		tokenizer.tokenize(test, spans);
+
+		assertEquals(tokenizer.tokenize(test), spans.toList());
+		assertEquals("RT", test.substring(spans.getStart(0), spans.getEnd(0)));
+		assertTrue(TokenClassifier.is(spans.getType(1), TokenClassifier.USERNAME));
+		assertTrue(TokenClassifier.is(spans.getType(spans.size() - 2), TokenClassifier.URL));
+	}
+
+	@Test
+	public void testTokenSpansCorpus() {
+		ITokenizer streaming = new StreamingTokenizerImpl();
+		TokenSpans spans = new TokenSpans();
+		List<String> corpus = TokenizerBenchmark.createCorpus(5000, 7);
+		corpus.addAll(Arrays.asList(EXAMPLES));
+		for (String test : corpus) {
+			List<String> expected = tokenizer.tokenize(test);
+			tokenizer.tokenize(test, spans);
+			assertEquals(test, expected, spans.toList());
+			streaming.tokenize(test, spans);
+			assertEquals(test, expected, spans.toList());
+			for (int i = 0; i < spans.size(); i++) {
+				assertEquals(TokenClassifier.classify(expected.get(i)), spans.getType(i));
+			}
+		}
+	}
+
+	@Test
+	public void testTokenTable() {
+		TokenTable table = TokenTable.getInstance();
+		int id = table.intern("believe");
+		assertEquals(id, table.intern("believe"));
+		assertEquals(id, table.idOf(new String("believe")));
+		assertEquals("believe", table.getToken(id));
+		assertEquals("believe".hashCode(), table.getHashCode(id));
+		assertEquals(TokenTable.NOT_FOUND, table.idOf("bel\u00efeve-not-interned"));
+
+		int umlautId = table.intern("\u00fcber");
+		String test = "I can't BELIEVE it: \u00dcber";
+		TokenSpans spans = new TokenSpans();
+		tokenizer.tokenize(test, spans);
+		assertEquals("BELIEVE", spans.getToken(2));
+		assertEquals(TokenTable.NOT_FOUND, spans.getTokenId(2));
+		assertEquals(id, spans.getLowerCaseTokenId(2));
+		assertEquals(umlautId, spans.getLowerCaseTokenId(spans.size() - 1));
+		assertEquals(id, table.idOf(test, spans.getStart(2), spans.getEnd(2), true));
+	}
+
+	@Test
+	public void testTokenTableConcurrentLookups() throws InterruptedException {
+		final TokenTable table = TokenTable.getInstance();
+		final int numTokens = 20000;
+		final int[] ids = new int[numTokens];
+		final AtomicInteger published = new AtomicInteger();
+		final AtomicInteger failures = new AtomicInteger();
+
+		// readers look up the published tokens while the table grows
+		List<Thread> readers = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			Thread reader = new Thread() {
+				@Override
+				public void run() {
+					Random random = new Random();
+					int n;
+					while ((n = published.get()) < numTokens) {
+						if (n > 0) {
+							int i = random.nextInt(n);
+							String token = "concurrent-token-" + i;
+							if (table.idOf(token) != ids[i] || !table.getToken(ids[i]).equals(token)) {
+								failures.incrementAndGet();
+							}
+						}
+					}
+				}
+			};
+			readers.add(reader);
+			reader.start();
+		}
+
+		for (int i = 0; i < numTokens; i++) {
+			ids[i] = table.intern("concurrent-token-" + i);
+			published.set(i + 1);
+		}
+		for (Thread reader : readers) {
+			reader.join();
+		}
+
+		assertEquals(0, failures.get());
+		for (int i = 0; i < numTokens; i++) {
+			assertEquals(ids[i], table.idOf("concurrent-token-" + i));
+		}
+	}
+
+	@Test
+	public void testFeatureIndex() {
+		FastVector attributes = new FastVector();
+		attributes.addElement(new Attribute("sentiment"));
+		attributes.addElement(new Attribute("feature-good"));
+		attributes.addElement(new Attribute("feature-bad"));
+		Instances header = new Instances("test", attributes, 0);
+		header.setClassIndex(0);
+
+		FeatureIndex index = new FeatureIndex(header);
+		assertEquals(2, index.size());
+		assertEquals(1, index.indexOf("feature-good"));
+		assertEquals(2, index.indexOf("feature-bad"));
+		assertEquals(FeatureIndex.NOT_FOUND, index.indexOf("sentiment"));
+		assertEquals(FeatureIndex.NOT_FOUND, index.indexOf("feature-unknown"));
+		assertEquals(FeatureIndex.NOT_FOUND, index.indexOfToken(TokenTable.getInstance().intern("feature-interned")));
+		assertEquals(FeatureIndex.NOT_FOUND, index.indexOfToken(TokenTable.NOT_FOUND));
+
+		// the size of an index doesn't grow with the vocabularies of other indices
+		for (int i = 0; i < 5000; i++) {
+			TokenTable.getInstance().intern("feature-other-" + i);
+		}
+		FeatureIndex other = new FeatureIndex(header);
+		assertEquals(index.estimateSize(), other.estimateSize());
+		assertEquals(1, other.indexOf("feature-good"));
+	}
+
+	/**
+	 * Texts covering the protected token types of Twokenize.
+	 */
+	private static final String[] EXAMPLES = {
+		"",
+		"   ",
+		"I can't believe it's Monday :( #mondays @boss",
+		"RT @user: check http://t.co/AbC123!!! (via @news)",
+		"see example.com!!! or www.example.co.uk/path?x=1&y=2.",
+		"mail me@example.com at 10:30pm, 1,234,567 people said so...",
+		"U.S.A. vs. e.g. Mr. Smith etc. A.B",
+		"lol :-) :D XD ;) <3 </3 o.O ^_^ -_- \\(^o^)/ (\u0ca0_\u0ca0)",
+		"&amp; &lt;3 &quot;quoted&quot; --> <-- => \u2192",
+		"word...word!!word?!?word \u2014 dash \u2026 \u266b music \u266b",
+		"rock'n'roll y'all 'tis don\u2019t",
+		"\"quoted,\" (parens) [brackets] {braces} *stars*"
+	};
 }